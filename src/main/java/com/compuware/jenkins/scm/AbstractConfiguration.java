@@ -24,6 +24,7 @@ import java.util.logging.Logger;
 
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 import com.cloudbees.plugins.credentials.CredentialsProvider;
@@ -33,15 +34,16 @@ import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
 import com.compuware.jenkins.common.configuration.HostConnection;
 
 import hudson.AbortException;
+import hudson.BulkChange;
 import hudson.Util;
 import hudson.init.InitMilestone;
 import hudson.init.Initializer;
-import hudson.model.AbstractProject;
 import hudson.model.Item;
 import hudson.scm.RepositoryBrowser;
 import hudson.scm.SCM;
 import hudson.scm.SCMDescriptor;
 import hudson.security.ACL;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import hudson.util.ListBoxModel.Option;
 import jenkins.model.Jenkins;
@@ -54,6 +56,10 @@ public abstract class AbstractConfiguration extends SCM
 	private static final Logger LOGGER = Logger.getLogger("hudson.AbstractConfiguration"); //$NON-NLS-1$
 
 	protected String m_connectionId;
+	private int m_downloadTimeout;
+	private boolean m_stagedSwap;
+	private boolean m_sharedFolder;
+	private transient volatile DownloadTemplate m_downloadTemplate;
 
 	// Backward compatibility
 	protected transient @Deprecated String m_hostPort;
@@ -135,6 +141,140 @@ public abstract class AbstractConfiguration extends SCM
 
 			return model;
 		}
+
+		/**
+		 * Validator for the 'Maximum parallel downloads' field.
+		 * 
+		 * @param value
+		 *            value passed from the config.jelly "maxParallelDownloads" field
+		 * 
+		 * @return validation message
+		 */
+		public FormValidation doCheckMaxParallelDownloads(@QueryParameter String value)
+		{
+			return FormValidation.validatePositiveInteger(value);
+		}
+
+		/**
+		 * Validator for the 'Download timeout' field.
+		 * 
+		 * @param value
+		 *            value passed from the config.jelly "downloadTimeout" field
+		 * 
+		 * @return validation message
+		 */
+		public FormValidation doCheckDownloadTimeout(@QueryParameter String value)
+		{
+			return FormValidation.validateNonNegativeInteger(value);
+		}
+	}
+
+	/**
+	 * Gets the value of the 'Download timeout'.
+	 * 
+	 * @return <code>int</code> number of minutes a download may take before it is stopped; zero if it may take any time
+	 */
+	public int getDownloadTimeout()
+	{
+		return m_downloadTimeout;
+	}
+
+	/**
+	 * Sets the value of the 'Download timeout'. A download that takes longer is stopped, together with any CLI process it
+	 * started, and fails the build.
+	 * 
+	 * @param downloadTimeout
+	 *            the number of minutes a download may take; zero or less for no timeout
+	 */
+	@DataBoundSetter
+	public void setDownloadTimeout(int downloadTimeout)
+	{
+		m_downloadTimeout = Math.max(0, downloadTimeout);
+		resetDownloadTemplate();
+	}
+
+	/**
+	 * Gets the value of the 'Swap in complete downloads only' option.
+	 * 
+	 * @return <code>boolean</code> value of m_stagedSwap
+	 */
+	public boolean isStagedSwap()
+	{
+		return m_stagedSwap;
+	}
+
+	/**
+	 * Sets the value of the 'Swap in complete downloads only' option. When set, the CLI downloads into a staging folder next
+	 * to the source download location, which replaces the download location only once the download completed, so that a
+	 * failed or aborted download leaves the last complete download in place.
+	 * 
+	 * @param stagedSwap
+	 *            <code>true</code> to stage downloads and swap them in
+	 */
+	@DataBoundSetter
+	public void setStagedSwap(boolean stagedSwap)
+	{
+		m_stagedSwap = stagedSwap;
+		resetDownloadTemplate();
+	}
+
+	/**
+	 * Gets the value of the 'Share the source download location' option.
+	 * 
+	 * @return <code>boolean</code> value of m_sharedFolder
+	 */
+	public boolean isSharedFolder()
+	{
+		return m_sharedFolder;
+	}
+
+	/**
+	 * Sets the value of the 'Share the source download location' option. When set, builds of any job downloading the same
+	 * content into the same source download location on an agent share it: a build only downloads when the content is older
+	 * than the build, and the builds using the content lock out the builds refreshing it until they complete.
+	 * 
+	 * @param sharedFolder
+	 *            <code>true</code> to share the source download location
+	 */
+	@DataBoundSetter
+	public void setSharedFolder(boolean sharedFolder)
+	{
+		m_sharedFolder = sharedFolder;
+		resetDownloadTemplate();
+	}
+
+	/**
+	 * Gets the download template of the configuration: what is downloaded, where to and how. The template is worked out on
+	 * first use and kept until the configuration changes, so that every download of the configuration shares it.
+	 * 
+	 * @return the <code>DownloadTemplate</code> of the configuration
+	 */
+	public DownloadTemplate getDownloadTemplate()
+	{
+		DownloadTemplate template = m_downloadTemplate;
+		if (template == null)
+		{
+			template = createDownloadTemplate();
+			m_downloadTemplate = template;
+		}
+
+		return template;
+	}
+
+	/**
+	 * Works out the download template of the configuration.
+	 * 
+	 * @return the <code>DownloadTemplate</code> of the configuration
+	 */
+	protected abstract DownloadTemplate createDownloadTemplate();
+
+	/**
+	 * Drops the download template of the configuration, so that it is worked out again on next use. Called whenever a value
+	 * of the configuration changes.
+	 */
+	protected void resetDownloadTemplate()
+	{
+		m_downloadTemplate = null;
 	}
 
 	/**
@@ -196,7 +336,20 @@ public abstract class AbstractConfiguration extends SCM
 			{
 				String description = m_hostPort + " " + m_codePage; //$NON-NLS-1$
 				connection = new HostConnection(description, m_hostPort, null, m_codePage, null, null, null);
-				globalConfig.addHostConnection(connection);
+
+				// while the jobs are loading, the host connections are saved once for all jobs
+				try (BulkChange bulkChange = new BulkChange(globalConfig))
+				{
+					globalConfig.addHostConnection(connection);
+					if (!ConfigurationMigration.hostConnectionAdded())
+					{
+						bulkChange.commit();
+					}
+				}
+				catch (IOException e)
+				{
+					LOGGER.log(Level.SEVERE, String.format("Failed to save host connection %s", description), e); //$NON-NLS-1$
+				}
 			}
 			else
 			{
@@ -205,32 +358,18 @@ public abstract class AbstractConfiguration extends SCM
 
 			m_connectionId = connection.getConnectionId();
 			m_isMigrated = true;
+			resetDownloadTemplate();
+			ConfigurationMigration.configurationMigrated();
 		}
 	}
 
+	/**
+	 * Saves the configurations migrated while the jobs were loaded, in one batch.
+	 */
 	@Initializer(before = InitMilestone.COMPLETED, after = InitMilestone.JOB_LOADED)
-	public static void jobLoaded() throws IOException
+	public static void jobLoaded()
 	{
 		LOGGER.fine("Initialization milestone: All jobs have been loaded"); //$NON-NLS-1$
-		Jenkins jenkins = Jenkins.getInstance();
-		for (AbstractProject<?, ?> project : jenkins.getAllItems(AbstractProject.class))
-		{
-			try
-			{
-				SCM scmConfig = project.getScm();
-				if (scmConfig instanceof AbstractConfiguration && ((AbstractConfiguration) scmConfig).isMigrated())
-				{
-					project.save();
-
-					LOGGER.info(String.format(
-									"Project %s has been migrated.", //$NON-NLS-1$
-									project.getFullName()));
-				}
-			}
-			catch (IOException e)
-			{
-				LOGGER.log(Level.SEVERE, String.format("Failed to upgrade job %s", project.getFullName()), e); //$NON-NLS-1$
-			}
-		}
+		ConfigurationMigration.run();
 	}
 }
@@ -18,15 +18,32 @@ package com.compuware.jenkins.scm;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
 import org.apache.commons.lang.StringUtils;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
 import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Job;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.triggers.SCMTriggerItem;
 
 /**
- * Abstract source downloader.
+ * Abstract source downloader. Downloaders keep no state between downloads: what is downloaded comes from the
+ * {@link DownloadTemplate} of the configuration, and each download is run by a {@link DownloadEngine} of its own.
  */
 public abstract class AbstractDownloader
 {
@@ -51,6 +68,470 @@ public abstract class AbstractDownloader
 		return cdDatasets;
 	}
 
+	/**
+	 * Gets the individual dataset filters of the given filter pattern, in order and without duplicates.
+	 * 
+	 * @param filterPattern
+	 *            the <code>String</code> dataset filter
+	 * 
+	 * @return the list of dataset filters; empty if there are none
+	 */
+	public List<String> getFilters(String filterPattern)
+	{
+		Set<String> datasets = new LinkedHashSet<>();
+		for (String dataset : StringUtils.split(StringUtils.defaultString(convertFilterPattern(filterPattern)),
+				CommonConstants.COMMA))
+		{
+			datasets.add(dataset);
+		}
+
+		return new ArrayList<>(datasets);
+	}
+
+	/**
+	 * Splits the given filter pattern into at most <code>maxShards</code> comma-delimited filter patterns. Datasets are dealt
+	 * out to the shards in turn and duplicate datasets are dropped, so that each dataset is downloaded by exactly one shard.
+	 * 
+	 * @param filterPattern
+	 *            the <code>String</code> dataset filter
+	 * @param maxShards
+	 *            the maximum number of shards to create
+	 * 
+	 * @return a list of comma-delimited <code>String</code>s of dataset filters; a single (possibly empty) filter if the
+	 *         pattern cannot be split
+	 */
+	public List<String> splitFilterPattern(String filterPattern, int maxShards)
+	{
+		List<String> shards = new ArrayList<>();
+
+		String cdDatasets = StringUtils.defaultString(convertFilterPattern(filterPattern));
+		List<String> datasets = getFilters(filterPattern);
+
+		int shardCount = Math.max(1, Math.min(maxShards, datasets.size()));
+		if (shardCount == 1)
+		{
+			shards.add(cdDatasets);
+			return shards;
+		}
+
+		List<List<String>> shardDatasets = new ArrayList<>();
+		for (int i = 0; i < shardCount; i++)
+		{
+			shardDatasets.add(new ArrayList<String>());
+		}
+
+		int index = 0;
+		for (String dataset : datasets)
+		{
+			shardDatasets.get(index++ % shardCount).add(dataset);
+		}
+
+		for (List<String> shard : shardDatasets)
+		{
+			shards.add(StringUtils.join(shard, CommonConstants.COMMA));
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Removes the given datasets from a filter pattern, so that a retry only downloads the datasets that were not finished.
+	 * Only filters naming a completed dataset exactly are removed; wildcard filters are always kept.
+	 * 
+	 * @param filterPattern
+	 *            the <code>String</code> dataset filter
+	 * @param completedDatasets
+	 *            the datasets to remove
+	 * 
+	 * @return comma-delimited <code>String</code> of the remaining dataset filters; the whole filter pattern if no filter
+	 *         would remain
+	 */
+	public String removeDatasets(String filterPattern, Set<String> completedDatasets)
+	{
+		return removeDatasets(getFilters(filterPattern), completedDatasets);
+	}
+
+	/**
+	 * Removes the given datasets from a list of dataset filters. Only filters naming a completed dataset exactly are removed;
+	 * wildcard filters are always kept.
+	 * 
+	 * @param datasets
+	 *            the dataset filters
+	 * @param completedDatasets
+	 *            the datasets to remove
+	 * 
+	 * @return comma-delimited <code>String</code> of the remaining dataset filters; all of the dataset filters if no filter
+	 *         would remain
+	 */
+	public static String removeDatasets(List<String> datasets, Set<String> completedDatasets)
+	{
+		Set<String> completed = new HashSet<>();
+		for (String completedDataset : completedDatasets)
+		{
+			completed.add(completedDataset.toUpperCase(Locale.ENGLISH));
+		}
+
+		List<String> remaining = new ArrayList<>();
+		for (String dataset : datasets)
+		{
+			if (!completed.contains(dataset.toUpperCase(Locale.ENGLISH)))
+			{
+				remaining.add(dataset);
+			}
+		}
+
+		if (remaining.isEmpty())
+		{
+			return StringUtils.join(datasets, CommonConstants.COMMA);
+		}
+
+		return StringUtils.join(remaining, CommonConstants.COMMA);
+	}
+
+	/**
+	 * Splits a list of dataset filters into batches whose escaped, comma-delimited filter argument is no longer than the
+	 * given length, so that a long list of filters is downloaded by several CLI calls instead of running into the argument
+	 * length limits of the operating system. Each filter is escaped once, and a filter that is longer than the limit on its
+	 * own gets a batch of its own.
+	 * 
+	 * @param datasets
+	 *            the dataset filters
+	 * @param maxLength
+	 *            the maximum length of the escaped filter argument of a batch
+	 * 
+	 * @return the dataset filters of each batch, in order; a single (possibly empty) batch if all filters fit
+	 */
+	public static List<List<String>> batchFilters(List<String> datasets, int maxLength)
+	{
+		List<List<String>> batches = new ArrayList<>();
+		List<String> batch = new ArrayList<>();
+		int length = 0;
+		for (String dataset : datasets)
+		{
+			// the comma, or the quotes around the whole argument for the first filter of a batch
+			int datasetLength = ArgumentUtils.escapeForScript(dataset).length() + 2;
+			if (!batch.isEmpty() && length + datasetLength > maxLength)
+			{
+				batches.add(batch);
+				batch = new ArrayList<>();
+				length = 0;
+			}
+
+			batch.add(dataset);
+			length += datasetLength;
+		}
+
+		if (!batch.isEmpty() || batches.isEmpty())
+		{
+			batches.add(batch);
+		}
+
+		return batches;
+	}
+
+	/**
+	 * Gets the download location on the agent: the configured source download location, resolved against the workspace if
+	 * it is relative, or the workspace itself if no location is configured. The location is resolved by the same
+	 * {@link ArgumentUtils#resolvePath(String, String)} that resolves the target folder passed to the CLI, so the manifest
+	 * and staging folders are always next to the folder the CLI downloads into.
+	 * 
+	 * @param workspaceFilePath
+	 *            the workspace of the build
+	 * @param sourceLocation
+	 *            the configured source download location; can be empty
+	 * 
+	 * @return the download location
+	 */
+	protected FilePath getTargetFolderPath(FilePath workspaceFilePath, String sourceLocation)
+	{
+		if (StringUtils.isEmpty(sourceLocation))
+		{
+			return workspaceFilePath;
+		}
+
+		return new FilePath(workspaceFilePath.getChannel(),
+				unquote(ArgumentUtils.resolvePath(sourceLocation, workspaceFilePath.getRemote())));
+	}
+
+	/**
+	 * Removes the quotes a path was escaped with for the CLI script.
+	 * 
+	 * @param path
+	 *            the escaped path
+	 * 
+	 * @return the path without its enclosing quotes
+	 */
+	static String unquote(String path)
+	{
+		String unquoted = StringUtils.trimToEmpty(path);
+		while (unquoted.length() >= 2 && (unquoted.charAt(0) == '"' || unquoted.charAt(0) == '\'')
+				&& unquoted.charAt(unquoted.length() - 1) == unquoted.charAt(0))
+		{
+			unquoted = unquoted.substring(1, unquoted.length() - 1);
+		}
+
+		return unquoted;
+	}
+
+	/**
+	 * Gets whether a download is staged next to the download location and swapped in once it is complete. The workspace
+	 * itself cannot be swapped, so a download without a source download location of its own is made in place.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param sourceLocation
+	 *            the configured source download location; can be empty
+	 * @param logger
+	 *            the build log
+	 * 
+	 * @return <code>true</code> if the download is swapped in
+	 */
+	protected boolean isStagedSwap(DownloadTemplate template, String sourceLocation, PrintStream logger)
+	{
+		if (!template.isStagedSwap())
+		{
+			return false;
+		}
+
+		if (StringUtils.isEmpty(sourceLocation))
+		{
+			logger.println("No source download location to swap the download into; downloading in place"); //$NON-NLS-1$
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets a new staging folder for a download that is swapped in. The staging folder is next to the download location, so
+	 * that it can take the place of the download location by being renamed.
+	 * 
+	 * @param targetFolderPath
+	 *            the download location
+	 * 
+	 * @return the staging folder
+	 */
+	protected FilePath getSwapStagingFolder(FilePath targetFolderPath)
+	{
+		return targetFolderPath.sibling(ScmConstants.TOPAZ_CLI_STAGING + UUID.randomUUID().toString());
+	}
+
+	/**
+	 * Gets the download manifest file for a download location. Manifests are kept in the workspace, one per download
+	 * location, so that nothing but downloaded members ends up in the download location itself.
+	 * 
+	 * @param workspaceFilePath
+	 *            the workspace of the build
+	 * @param targetFolderPath
+	 *            the download location
+	 * 
+	 * @return the manifest file
+	 */
+	protected FilePath getManifestFile(FilePath workspaceFilePath, FilePath targetFolderPath)
+	{
+		return workspaceFilePath.child(ScmConstants.DOWNLOAD_MANIFEST_FOLDER)
+				.child(Util.getDigestOf(targetFolderPath.getRemote()) + ScmConstants.DOWNLOAD_MANIFEST_EXT);
+	}
+
+	/**
+	 * Gets the marker that is kept next to the download manifest of a download location while the CLI downloads directly
+	 * into the location. A marker that is still there after the download means that the download did not complete, so the
+	 * location may hold a mix of old and newly downloaded members.
+	 * 
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 * 
+	 * @return the marker file
+	 */
+	protected FilePath getIncompleteMarker(FilePath manifestFile)
+	{
+		return manifestFile.sibling(manifestFile.getName() + ScmConstants.DOWNLOAD_INCOMPLETE_EXT);
+	}
+
+	/**
+	 * Gets the affinity of the CLI calls of a build: the executor the build runs on, so that builds on the same executor
+	 * reuse the CLI data workspace of the build before them.
+	 * 
+	 * @param build
+	 *            the current running Jenkins build
+	 * 
+	 * @return the name of the computer and the number of the executor; <code>null</code> if the build does not run on an
+	 *         executor
+	 */
+	protected String getExecutorAffinity(Run<?, ?> build)
+	{
+		Executor executor = build.getExecutor();
+		if (executor == null)
+		{
+			executor = Executor.currentExecutor();
+		}
+		if (executor == null)
+		{
+			return null;
+		}
+
+		Computer computer = executor.getOwner();
+		return computer.getName() + '#' + executor.getNumber();
+	}
+
+	/**
+	 * Logs what a download changed in its download location and writes the change log of the build.
+	 * 
+	 * @param changes
+	 *            the changes made by the download; <code>null</code> if they are not tracked, in which case the change log
+	 *            is left empty
+	 * @param changelogFile
+	 *            the change log file of the build; can be <code>null</code> if the build does not keep a change log
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @throws IOException
+	 *             if the change log cannot be written
+	 */
+	protected void recordChanges(DownloadChanges changes, File changelogFile, TaskListener listener) throws IOException
+	{
+		if (changes != null)
+		{
+			listener.getLogger().println("Updated download location: " + changes); //$NON-NLS-1$
+		}
+		else
+		{
+			listener.getLogger().println("Changes are only recorded for incremental downloads and jobs that poll"); //$NON-NLS-1$
+		}
+
+		if (changelogFile != null)
+		{
+			CpwrChangeLogWriter.write(changes != null ? changes : new DownloadChanges(), changelogFile);
+		}
+	}
+
+	/**
+	 * Gets whether the changes of a job's downloads are tracked, by hashing the downloaded members. Hashing is only worth its
+	 * cost for incremental downloads, which need it to leave unchanged members alone, and for jobs that poll, which compare
+	 * the hashes of the last build's download with those on the host.
+	 * 
+	 * @param job
+	 *            the job
+	 * @param template
+	 *            the download template of the configuration
+	 * 
+	 * @return <code>true</code> if the downloaded members are hashed and their changes recorded
+	 */
+	protected static boolean isTracked(Job<?, ?> job, DownloadTemplate template)
+	{
+		if (template.isIncremental())
+		{
+			return true;
+		}
+
+		SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+		return item != null && item.getSCMTrigger() != null;
+	}
+
+	/**
+	 * Download the mainframe sources specified in the Jenkins configuration into a download location that may be shared with
+	 * the builds of other jobs. Builds use a shared download location under a read lock, so any number of them use it at
+	 * the same time, and leave it as it is when it was last refreshed with the same download since they started. Only a
+	 * build that has to refresh the download location takes the write lock, which it turns into a read lock once the
+	 * download location is refreshed. Builds hold their locks until they complete, and use them again when they check out
+	 * the same download location another time (see {@link SharedFolderLeases}).
+	 * 
+	 * @param build
+	 *            the current running Jenkins build
+	 * @param launcher
+	 *            the machine that the files will be checked out.
+	 * @param workspaceFilePath
+	 *            a directory to check out the source code.
+	 * @param listener
+	 *            build listener
+	 * @param changelogFile
+	 *            upon a successful return, this file should capture the changelog. When there's no change, this file should
+	 *            contain an empty entry
+	 * 
+	 * @return <code>boolean</code> if the build was successful
+	 * 
+	 * @throws InterruptedException
+	 *             if an error in locking the download location or downloading occurs
+	 * @throws IOException
+	 *             if an error in locking the download location or downloading occurs
+	 */
+	public boolean download(Run<?, ?> build, Launcher launcher, FilePath workspaceFilePath, TaskListener listener,
+			File changelogFile) throws InterruptedException, IOException
+	{
+		DownloadTemplate template = getDownloadTemplate();
+		if (!template.isSharedFolder())
+		{
+			return getSource(build, launcher, workspaceFilePath, listener, changelogFile);
+		}
+
+		PrintStream logger = listener.getLogger();
+		String sourceLocation = template.getTargetFolder();
+		if (StringUtils.isEmpty(sourceLocation))
+		{
+			logger.println("No source download location to share; downloading into the workspace"); //$NON-NLS-1$
+			return getSource(build, launcher, workspaceFilePath, listener, changelogFile);
+		}
+
+		// the lock file is next to the download location, where the builds of every job sharing it find it
+		VirtualChannel channel = launcher.getChannel();
+		FilePath targetFolderPath = getTargetFolderPath(workspaceFilePath, sourceLocation);
+		String lockFile = targetFolderPath.sibling(ScmConstants.TOPAZ_CLI_LOCK + targetFolderPath.getName()).getRemote();
+		String fingerprint = template.getFingerprint();
+
+		SharedFolderLocks.Lease lease = SharedFolderLeases.acquire(build, channel, lockFile, false, fingerprint, listener);
+		if (!lease.isFresh())
+		{
+			SharedFolderLeases.release(build, channel, lease);
+			lease = SharedFolderLeases.acquire(build, channel, lockFile, true, fingerprint, listener);
+		}
+
+		if (lease.isFresh())
+		{
+			if (lease.isWrite())
+			{
+				// refreshed by another build while waiting for the write lock
+				SharedFolderLeases.downgrade(channel, lease, null);
+			}
+			logger.println("Using the shared download location as downloaded by " + lease.getRefreshedBy()); //$NON-NLS-1$
+			if (changelogFile != null)
+			{
+				CpwrChangeLogWriter.write(new DownloadChanges(), changelogFile);
+			}
+			return true;
+		}
+
+		logger.println("Refreshing the shared download location"); //$NON-NLS-1$
+		long refreshed = System.currentTimeMillis();
+		boolean rtnValue = false;
+		try
+		{
+			rtnValue = getSource(build, launcher, workspaceFilePath, listener, changelogFile);
+		}
+		finally
+		{
+			if (!rtnValue)
+			{
+				SharedFolderLeases.release(build, channel, lease);
+			}
+		}
+
+		// a failed download gave up its lock above; only a lock still held is turned into a read lock
+		if (rtnValue)
+		{
+			SharedFolderLeases.downgrade(channel, lease,
+					fingerprint + '\t' + refreshed + '\t' + build.getFullDisplayName());
+		}
+
+		return rtnValue;
+	}
+
+	/**
+	 * Gets the download template of the configuration being downloaded.
+	 * 
+	 * @return the download template
+	 */
+	protected abstract DownloadTemplate getDownloadTemplate();
+
 	/**
 	 * Download the mainframe sources specified in the Jenkins configuration.
 	 * 
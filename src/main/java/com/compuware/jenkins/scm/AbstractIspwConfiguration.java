@@ -24,6 +24,8 @@ import java.io.IOException;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
 import com.compuware.jenkins.common.configuration.HostConnection;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.scm.utils.ScmConstants;
 
 import hudson.AbortException;
 import hudson.FilePath;
@@ -78,7 +80,7 @@ public abstract class AbstractIspwConfiguration extends AbstractConfiguration
 			validateParameters(launcher, listener, build.getParent());
 
 			IspwDownloader downloader = new IspwDownloader(this);
-			rtnValue = downloader.getSource(build, launcher, workspaceFilePath, listener, changelogFile);
+			rtnValue = downloader.download(build, launcher, workspaceFilePath, listener, changelogFile);
 
 			if (!rtnValue)
 			{
@@ -92,6 +94,97 @@ public abstract class AbstractIspwConfiguration extends AbstractConfiguration
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractConfiguration#createDownloadTemplate()
+	 */
+	@Override
+	protected DownloadTemplate createDownloadTemplate()
+	{
+		DownloadTemplate.Builder template = new DownloadTemplate.Builder(getConnectionId(), getCredentialsId(), getScmType())
+				.targetFolder(getTargetFolder()).timeout(getDownloadTimeout()).stagedSwap(isStagedSwap())
+				.sharedFolder(isSharedFolder());
+
+		String runtimeConfig = getServerConfig();
+		if (!runtimeConfig.isEmpty())
+		{
+			template.arg(ScmConstants.ISPW_SERVER_CONFIG_PARAM, ArgumentUtils.escapeForScript(runtimeConfig));
+		}
+
+		template.arg(ScmConstants.SCM_TYPE_PARM, getScmType());
+		addScmArguments(template);
+		template.arg(ScmConstants.ISPW_DOWNLOAD_ALL_PARAM, ArgumentUtils.escapeForScript(Boolean.toString(getIspwDownloadAll())));
+
+		// only add the option if true to keep compatible with older version
+		if (getIspwDownloadIncl())
+		{
+			template.arg(ScmConstants.ISPW_DOWNLOAD_INCL_PARM, ArgumentUtils.escapeForScript(Boolean.TRUE.toString()));
+		}
+
+		if (getCpCategorizeOnComponentType())
+		{
+			template.arg(ScmConstants.CP_CATEGORIZE_ON_COMPONENT_TYPE, ArgumentUtils.escapeForScript(Boolean.TRUE.toString()));
+		}
+
+		if (getCpCategorizeOnSubAppl())
+		{
+			template.arg(ScmConstants.CP_CATEGORIZE_ON_SUB_APPL, ArgumentUtils.escapeForScript(Boolean.TRUE.toString()));
+		}
+
+		return template.build();
+	}
+
+	/**
+	 * Gets the type of ISPW download.
+	 * 
+	 * @return the value of the CLI <code>-scm</code> parameter
+	 */
+	protected abstract String getScmType();
+
+	/**
+	 * Adds the CLI arguments that select what this type of ISPW download downloads.
+	 * 
+	 * @param template
+	 *            the download template to add the arguments to
+	 */
+	protected abstract void addScmArguments(DownloadTemplate.Builder template);
+
+	/**
+	 * Gets the value of the targetFolder
+	 * 
+	 * @return string containing the targetFolder location
+	 */
+	public abstract String getTargetFolder();
+
+	/**
+	 * This field indicates whether to clear unmatched items from the workspace as well as whether to only download items when
+	 * the update date has changed.
+	 * 
+	 * @return the ispwDownloadAll
+	 */
+	public abstract boolean getIspwDownloadAll();
+
+	/**
+	 * This field determines whether or not to download the INCL impacts
+	 * 
+	 * @return the ispwDownloadIncl
+	 */
+	public abstract boolean getIspwDownloadIncl();
+
+	/**
+	 * Categorize the source files to different folders according to Component Type
+	 * 
+	 * @return true if categorize on component type
+	 */
+	public abstract boolean getCpCategorizeOnComponentType();
+
+	/**
+	 * Categorize the source files to different folders according to Sub Appl
+	 * 
+	 * @return true if categorize on sub appl
+	 */
+	public abstract boolean getCpCategorizeOnSubAppl();
+
 	/* (non-Javadoc)
 	 * @see hudson.scm.SCM#createChangeLogParser()
 	 */
@@ -0,0 +1,161 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.Serializable;
+
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * The facts about an agent that every download needs before it can build the CLI command line: the agent's file separator,
+ * whether it is a Unix machine, and the location and version of the Topaz CLI installed on it.
+ * <p>
+ * Instances are immutable and are cached per agent by {@link AgentCapabilityCache}.
+ */
+public class AgentCapabilities implements Serializable
+{
+	private static final long serialVersionUID = 3427541987650291643L;
+
+	private final String m_fileSeparator;
+	private final boolean m_isUnix;
+	private final String m_cliLocation;
+	private final String m_cliVersion;
+	private final long m_cliLastModified;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param fileSeparator
+	 *            the file separator of the agent
+	 * @param isUnix
+	 *            <code>true</code> if the agent is a Unix machine
+	 * @param cliLocation
+	 *            the Topaz CLI location on the agent
+	 * @param cliVersion
+	 *            the version of the Topaz CLI; can be null if not yet determined
+	 * @param cliLastModified
+	 *            the last modified time of the Topaz CLI directory
+	 */
+	public AgentCapabilities(String fileSeparator, boolean isUnix, String cliLocation, String cliVersion, long cliLastModified)
+	{
+		m_fileSeparator = fileSeparator;
+		m_isUnix = isUnix;
+		m_cliLocation = cliLocation;
+		m_cliVersion = cliVersion;
+		m_cliLastModified = cliLastModified;
+	}
+
+	/**
+	 * Returns a copy of these capabilities with the given CLI version.
+	 * 
+	 * @param cliVersion
+	 *            the version of the Topaz CLI
+	 * 
+	 * @return a new <code>AgentCapabilities</code> instance
+	 */
+	public AgentCapabilities withCliVersion(String cliVersion)
+	{
+		return new AgentCapabilities(m_fileSeparator, m_isUnix, m_cliLocation, cliVersion, m_cliLastModified);
+	}
+
+	/**
+	 * Gets the file separator of the agent.
+	 * 
+	 * @return <code>String</code> value of m_fileSeparator
+	 */
+	public String getFileSeparator()
+	{
+		return m_fileSeparator;
+	}
+
+	/**
+	 * Gets whether the agent is a Unix machine.
+	 * 
+	 * @return <code>boolean</code> value of m_isUnix
+	 */
+	public boolean isUnix()
+	{
+		return m_isUnix;
+	}
+
+	/**
+	 * Gets the Topaz CLI location on the agent.
+	 * 
+	 * @return <code>String</code> value of m_cliLocation
+	 */
+	public String getCliLocation()
+	{
+		return m_cliLocation;
+	}
+
+	/**
+	 * Gets the version of the Topaz CLI installed on the agent.
+	 * 
+	 * @return <code>String</code> value of m_cliVersion
+	 */
+	public String getCliVersion()
+	{
+		return m_cliVersion;
+	}
+
+	/**
+	 * Gets the last modified time of the Topaz CLI directory at the time these capabilities were determined.
+	 * 
+	 * @return <code>long</code> value of m_cliLastModified
+	 */
+	public long getCliLastModified()
+	{
+		return m_cliLastModified;
+	}
+
+	/**
+	 * Determines the capabilities of an agent that can only be found on the agent itself. The CLI version is read separately
+	 * and added with {@link AgentCapabilities#withCliVersion(String)}.
+	 */
+	static class Probe extends MasterToSlaveCallable<AgentCapabilities, RuntimeException>
+	{
+		private static final long serialVersionUID = -2317003585137632962L;
+
+		private final boolean m_isUnix;
+		private final String m_cliLocation;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param isUnix
+		 *            <code>true</code> if the agent is a Unix machine
+		 * @param cliLocation
+		 *            the Topaz CLI location on the agent
+		 */
+		Probe(boolean isUnix, String cliLocation)
+		{
+			m_isUnix = isUnix;
+			m_cliLocation = cliLocation;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public AgentCapabilities call()
+		{
+			return new AgentCapabilities(File.separator, m_isUnix, m_cliLocation, null, new File(m_cliLocation).lastModified());
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
+import com.compuware.jenkins.common.utils.CLIVersionUtils;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+
+/**
+ * Caches the {@link AgentCapabilities} of each agent so that a download does not have to ask the agent for its system
+ * properties and read the CLI version on every build.
+ * <p>
+ * An entry is dropped when its agent goes offline or comes back online, and is refreshed when the CLI location changes or the
+ * last modified time of the CLI directory changes (for example, after the CLI is upgraded).
+ */
+public class AgentCapabilityCache
+{
+	private static final Logger LOGGER = Logger.getLogger(AgentCapabilityCache.class.getName());
+
+	private static final Map<Computer, AgentCapabilities> CACHE = Collections
+			.synchronizedMap(new WeakHashMap<Computer, AgentCapabilities>());
+
+	/**
+	 * Private constructor.
+	 * <p>
+	 * All methods should be accessed statically.
+	 */
+	private AgentCapabilityCache()
+	{
+	}
+
+	/**
+	 * Gets the capabilities of the agent the given workspace is on, using the cached capabilities when they are still valid.
+	 * 
+	 * @param launcher
+	 *            the machine that the files will be checked out
+	 * @param workspaceFilePath
+	 *            a directory on the agent
+	 * 
+	 * @return the capabilities of the agent
+	 * 
+	 * @throws IOException
+	 *             if an error occurs reading the CLI version
+	 * @throws InterruptedException
+	 *             if interrupted while communicating with the agent
+	 */
+	public static AgentCapabilities get(Launcher launcher, FilePath workspaceFilePath) throws IOException, InterruptedException
+	{
+		CpwrGlobalConfiguration globalConfig = CpwrGlobalConfiguration.get();
+		String cliLocation = globalConfig.getTopazCLILocation(launcher);
+
+		VirtualChannel vChannel = launcher.getChannel();
+		FilePath cliDirectory = new FilePath(vChannel, cliLocation);
+
+		Computer computer = workspaceFilePath.toComputer();
+		AgentCapabilities capabilities = computer != null ? CACHE.get(computer) : null;
+		if (capabilities != null && capabilities.getCliLocation().equals(cliLocation)
+				&& capabilities.isUnix() == launcher.isUnix() && capabilities.getCliLastModified() == cliDirectory.lastModified())
+		{
+			return capabilities;
+		}
+
+		capabilities = vChannel.call(new AgentCapabilities.Probe(launcher.isUnix(), cliLocation));
+		capabilities = capabilities
+				.withCliVersion(CLIVersionUtils.getCLIVersion(cliDirectory, ScmConstants.DOWNLOADER_MINIMUM_CLI_VERSION));
+		if (computer != null)
+		{
+			CACHE.put(computer, capabilities);
+		}
+
+		return capabilities;
+	}
+
+	/**
+	 * Removes any cached capabilities for the given agent.
+	 * 
+	 * @param computer
+	 *            the agent
+	 */
+	public static void invalidate(Computer computer)
+	{
+		if (CACHE.remove(computer) != null)
+		{
+			LOGGER.log(Level.FINE, "Cleared cached capabilities for {0}", computer.getName()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Drops cached capabilities whenever an agent connects or disconnects, since the agent (or the CLI installed on it) may
+	 * have changed in between.
+	 */
+	@Extension
+	public static class Invalidator extends ComputerListener
+	{
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.slaves.ComputerListener#onOnline(hudson.model.Computer, hudson.model.TaskListener)
+		 */
+		@Override
+		public void onOnline(Computer c, TaskListener listener) throws IOException, InterruptedException
+		{
+			invalidate(c);
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.slaves.ComputerListener#onOffline(hudson.model.Computer, hudson.slaves.OfflineCause)
+		 */
+		@Override
+		public void onOffline(Computer c, OfflineCause cause)
+		{
+			invalidate(c);
+		}
+	}
+}
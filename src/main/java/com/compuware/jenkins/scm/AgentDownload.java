@@ -0,0 +1,706 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.console.LineTransformationOutputStream;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Runs a {@link DownloadPlan} on the agent in a single remote call: creates the working folders, runs the CLI calls,
+ * updates the download location and its manifest, and cleans up. Only the build log and the changes made to the download
+ * location travel back to the controller, however many files and processes the download involves.
+ * <p>
+ * A launcher decorated by the build, such as one that runs commands in a container, cannot be sent to the agent. With such
+ * a launcher the CLI calls are launched from the controller through it instead, and only the work on the download location
+ * is done on the agent, before and after the calls.
+ */
+public class AgentDownload extends MasterToSlaveCallable<DownloadChanges, IOException>
+{
+	private static final long serialVersionUID = 3382746191307563214L;
+
+	private final DownloadPlan m_plan;
+	private final int m_parallelism;
+	private final int m_timeout;
+	private final long m_timeLeft;
+	private final int m_maxIdleWorkspacesPerFolder;
+	private final int m_maxIdleWorkspaces;
+	private final TaskListener m_listener;
+	private transient VirtualChannel m_channel;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param plan
+	 *            the download to run
+	 * @param parallelism
+	 *            the number of CLI calls that may run at the same time
+	 * @param timeout
+	 *            the download timeout in minutes; zero or less for no timeout
+	 * @param timeLeft
+	 *            the number of milliseconds left before the download timeout expires
+	 * @param maxIdleWorkspacesPerFolder
+	 *            the number of CLI data workspaces the agent keeps for reuse in a folder
+	 * @param maxIdleWorkspaces
+	 *            the number of CLI data workspaces the agent keeps for reuse
+	 * @param listener
+	 *            build listener
+	 */
+	public AgentDownload(DownloadPlan plan, int parallelism, int timeout, long timeLeft, int maxIdleWorkspacesPerFolder,
+			int maxIdleWorkspaces, TaskListener listener)
+	{
+		m_plan = plan;
+		m_parallelism = Math.max(1, parallelism);
+		m_timeout = timeout;
+		m_timeLeft = timeLeft;
+		m_maxIdleWorkspacesPerFolder = maxIdleWorkspacesPerFolder;
+		m_maxIdleWorkspaces = maxIdleWorkspaces;
+		m_listener = listener;
+	}
+
+	/**
+	 * Determines whether a launcher is decorated by the build, and so has to launch the CLI from the controller.
+	 * 
+	 * @param launcher
+	 *            the launcher of the build
+	 * 
+	 * @return <code>true</code> if the launcher is neither a plain local nor a plain remote launcher
+	 */
+	public static boolean isDecorated(Launcher launcher)
+	{
+		return !(launcher instanceof Launcher.LocalLauncher) && !(launcher instanceof Launcher.RemoteLauncher);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.remoting.Callable#call()
+	 */
+	@Override
+	public DownloadChanges call() throws IOException
+	{
+		try
+		{
+			long downloadStart = 0;
+			boolean downloaded = false;
+			try
+			{
+				downloadStart = prepare(m_plan, m_listener);
+				runCalls(new CliRunner(new Launcher.LocalLauncher(m_listener), m_plan.getEnv(),
+						new FilePath(new File(m_plan.getWorkDir())), m_plan.getOsFile(),
+						new RetryPolicy(m_plan.getMaxRetries()), m_timeout, m_timeLeft));
+				downloaded = true;
+			}
+			finally
+			{
+				if (!downloaded)
+				{
+					finish(m_plan, downloadStart, false, m_listener);
+				}
+			}
+
+			return finish(m_plan, downloadStart, true, m_listener);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw (IOException) new InterruptedIOException("The download was interrupted").initCause(e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Runs the plan from the controller with a decorated launcher: the CLI calls are launched through the launcher, and the
+	 * download location is prepared and updated by remote calls to the agent.
+	 * 
+	 * @param launcher
+	 *            the decorated launcher of the build
+	 * 
+	 * @return the changes made to the download location; <code>null</code> if the plan only downloads
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	public DownloadChanges launchFrom(Launcher launcher) throws InterruptedException, IOException
+	{
+		m_channel = launcher.getChannel();
+		long downloadStart = 0;
+		boolean downloaded = false;
+		try
+		{
+			downloadStart = m_channel.call(new Prepare(m_plan, m_listener));
+			runCalls(new CliRunner(launcher, m_plan.getEnv(), new FilePath(m_channel, m_plan.getWorkDir()),
+					m_plan.getOsFile(), new RetryPolicy(m_plan.getMaxRetries()), m_timeout, m_timeLeft));
+			downloaded = true;
+		}
+		finally
+		{
+			if (!downloaded)
+			{
+				m_channel.call(new Finish(m_plan, downloadStart, false, m_listener));
+			}
+		}
+
+		return m_channel.call(new Finish(m_plan, downloadStart, true, m_listener));
+	}
+
+	/**
+	 * Creates the working folders and prepares the download location for the CLI calls. Runs on the agent.
+	 * 
+	 * @param plan
+	 *            the download
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the start of the download, which tells downloaded members apart from other files in the download location
+	 * 
+	 * @throws InterruptedException
+	 *             if preparing is interrupted
+	 * @throws IOException
+	 *             if the folders cannot be created
+	 */
+	private static long prepare(DownloadPlan plan, TaskListener listener) throws InterruptedException, IOException
+	{
+		long downloadStart = System.currentTimeMillis();
+		new FilePath(new File(plan.getWorkDir())).mkdirs();
+
+		File manifestFile = plan.getManifestFile() != null ? new File(plan.getManifestFile()) : null;
+		File stagingFolder = plan.getStagingFolder() != null ? new File(plan.getStagingFolder()) : null;
+		if (plan.isSwap())
+		{
+			// the download location is left alone until the complete download is swapped in
+			StagedSwap.prepare(new File(plan.getTargetFolder()), stagingFolder, manifestFile, plan.isSeeded(),
+					listener.getLogger());
+		}
+		else if (manifestFile != null && stagingFolder == null)
+		{
+			// the CLI writes straight into the download location, which is incomplete until the manifest is updated
+			markIncomplete(new File(manifestFile.getPath() + ScmConstants.DOWNLOAD_INCOMPLETE_EXT), listener);
+		}
+
+		return downloadStart;
+	}
+
+	/**
+	 * Updates the download location and its manifest once the CLI calls have succeeded, and deletes the staging folder
+	 * either way. Runs on the agent.
+	 * 
+	 * @param plan
+	 *            the download
+	 * @param downloadStart
+	 *            the start of the download
+	 * @param downloaded
+	 *            <code>true</code> if the CLI calls succeeded; <code>false</code> to only clean up
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the changes made to the download location; <code>null</code> if the plan only downloads or the calls failed
+	 * 
+	 * @throws InterruptedException
+	 *             if updating is interrupted
+	 * @throws IOException
+	 *             if the download location cannot be updated
+	 */
+	private static DownloadChanges finish(DownloadPlan plan, long downloadStart, boolean downloaded, TaskListener listener)
+			throws InterruptedException, IOException
+	{
+		File manifestFile = plan.getManifestFile() != null ? new File(plan.getManifestFile()) : null;
+		File stagingFolder = plan.getStagingFolder() != null ? new File(plan.getStagingFolder()) : null;
+		try
+		{
+			if (!downloaded || manifestFile == null)
+			{
+				return null;
+			}
+
+			File targetFolder = new File(plan.getTargetFolder());
+			DownloadChanges changes;
+			if (plan.isSwap())
+			{
+				changes = new StagedSwap(stagingFolder.getPath(), manifestFile.getPath(), downloadStart,
+						plan.isIncremental(), plan.isSeeded(), plan.isHashed(), plan.isComplete())
+								.invoke(targetFolder, null);
+				listener.getLogger().println("Swapped in the complete download: " + targetFolder); //$NON-NLS-1$
+			}
+			else if (stagingFolder != null)
+			{
+				targetFolder.mkdirs();
+				changes = new IncrementalSync(stagingFolder.getPath(), manifestFile.getPath()).invoke(targetFolder, null);
+			}
+			else
+			{
+				changes = new ManifestUpdate(manifestFile.getPath(), downloadStart, plan.isHashed(), plan.isComplete())
+						.invoke(targetFolder, null);
+			}
+
+			File marker = new File(manifestFile.getPath() + ScmConstants.DOWNLOAD_INCOMPLETE_EXT);
+			if (marker.exists() && !marker.delete())
+			{
+				throw new IOException("Unable to delete " + marker); //$NON-NLS-1$
+			}
+
+			return changes;
+		}
+		finally
+		{
+			if (stagingFolder != null)
+			{
+				new FilePath(stagingFolder).deleteRecursive();
+			}
+		}
+	}
+
+	/**
+	 * Marks the download location as incomplete, noting in the build log if the previous download did not complete either.
+	 * 
+	 * @param marker
+	 *            the marker file
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @throws IOException
+	 *             if the marker cannot be written
+	 */
+	private static void markIncomplete(File marker, TaskListener listener) throws IOException
+	{
+		if (marker.exists())
+		{
+			listener.getLogger().println("The previous download into this location did not complete"); //$NON-NLS-1$
+			return;
+		}
+
+		File folder = marker.getParentFile();
+		if (folder != null && !folder.isDirectory() && !folder.mkdirs())
+		{
+			throw new IOException("Unable to create " + folder); //$NON-NLS-1$
+		}
+		if (!marker.createNewFile() && !marker.exists())
+		{
+			throw new IOException("Unable to create " + marker); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Runs the CLI calls of the plan, one after the other or in parallel.
+	 * 
+	 * @param runner
+	 *            runs the CLI
+	 * 
+	 * @throws InterruptedException
+	 *             if the CLI is interrupted while running
+	 * @throws IOException
+	 *             if the CLI could not be launched, exited with a non-zero value or timed out
+	 */
+	private void runCalls(CliRunner runner) throws InterruptedException, IOException
+	{
+		if (m_plan.getCalls().size() <= 1)
+		{
+			runCall(runner, m_plan.getCalls().get(0));
+		}
+		else
+		{
+			runCallsInParallel(runner);
+		}
+	}
+
+	/**
+	 * Runs a single CLI call with its output going straight to the build log.
+	 * 
+	 * @param runner
+	 *            runs the CLI
+	 * @param call
+	 *            the CLI call
+	 * 
+	 * @throws InterruptedException
+	 *             if the CLI is interrupted while running
+	 * @throws IOException
+	 *             if the CLI could not be launched, exited with a non-zero value or timed out
+	 */
+	private void runCall(CliRunner runner, DownloadPlan.CliCall call) throws InterruptedException, IOException
+	{
+		PrintStream logger = m_listener.getLogger();
+		String osFile = runner.getOsFile();
+
+		int exitValue = runLeased(runner, call, logger);
+		if (exitValue != 0)
+		{
+			throw new AbortException("Call " + osFile + " exited with value = " + exitValue); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		logger.println("Call " + osFile + " exited with value = " + exitValue); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Runs a CLI call in a CLI data workspace leased for it, if the call does not name its own. The data workspace is kept
+	 * for the next call with the same affinity if the call succeeded, and deleted in the background otherwise. The data
+	 * workspace is leased from the pool of the agent, by a remote call if the CLI is launched from the controller.
+	 * 
+	 * @param runner
+	 *            runs the CLI
+	 * @param call
+	 *            the CLI call
+	 * @param out
+	 *            where the standard output of the CLI is written
+	 * 
+	 * @return the exit value of the CLI
+	 * 
+	 * @throws InterruptedException
+	 *             if the CLI is interrupted while running
+	 * @throws IOException
+	 *             if the CLI could not be launched or timed out
+	 */
+	private int runLeased(CliRunner runner, DownloadPlan.CliCall call, PrintStream out)
+			throws InterruptedException, IOException
+	{
+		if (call.getDataFolder() == null)
+		{
+			return runner.run(call, null, out);
+		}
+
+		Lease lease = new Lease(call.getDataFolder(), call.getAffinity(), m_maxIdleWorkspacesPerFolder, m_maxIdleWorkspaces);
+		String dataDir = m_channel != null ? m_channel.call(lease) : lease.call();
+		out.println("topazCliWorkspace: " + dataDir); //$NON-NLS-1$
+		boolean reusable = false;
+		try
+		{
+			int exitValue = runner.run(call, dataDir, out);
+			reusable = exitValue == 0;
+			return exitValue;
+		}
+		finally
+		{
+			Release release = new Release(dataDir, reusable);
+			if (m_channel != null)
+			{
+				m_channel.call(release);
+			}
+			else
+			{
+				release.call();
+			}
+		}
+	}
+
+	/**
+	 * Runs one CLI process per call, at most as many at a time as the parallelism allows. Each line of a call's output is
+	 * prefixed with the shard number so the interleaved output in the build log can be told apart. All calls are run to
+	 * completion before any failure is reported, and a call that fails for a transient reason is retried on its own.
+	 * 
+	 * @param runner
+	 *            runs the CLI
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted, in which case all running CLI processes are stopped
+	 * @throws IOException
+	 *             if a CLI process could not be launched, any shard exited with a non-zero value or the download timed
+	 *             out, in which case all running CLI processes are stopped
+	 */
+	private void runCallsInParallel(CliRunner runner) throws InterruptedException, IOException
+	{
+		PrintStream logger = m_listener.getLogger();
+		String osFile = runner.getOsFile();
+		List<DownloadPlan.CliCall> calls = m_plan.getCalls();
+		int shardCount = calls.size();
+		int threadCount = Math.min(m_parallelism, shardCount);
+		logger.println("Downloading " + shardCount + " filter shards, " + threadCount + " at a time"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+				new NamingThreadFactory(new DaemonThreadFactory(), AgentDownload.class.getSimpleName()));
+		try
+		{
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < shardCount; i++)
+			{
+				final DownloadPlan.CliCall call = calls.get(i);
+				final String prefix = getShardPrefix(i, shardCount);
+				results.add(executor.submit(() -> {
+					try (PrintStream out = new PrintStream(new ShardOutputStream(logger, prefix), true,
+							Charset.defaultCharset().name()))
+					{
+						return runLeased(runner, call, out);
+					}
+				}));
+			}
+
+			List<String> failedShards = new ArrayList<>();
+			for (int i = 0; i < shardCount; i++)
+			{
+				int exitValue = results.get(i).get();
+				logger.println(getShardPrefix(i, shardCount) + "Call " + osFile + " exited with value = " + exitValue); //$NON-NLS-1$ //$NON-NLS-2$
+				if (exitValue != 0)
+				{
+					failedShards.add(Integer.toString(i + 1));
+				}
+			}
+
+			if (!failedShards.isEmpty())
+			{
+				throw new AbortException("Call " + osFile + " failed for filter shard(s) " //$NON-NLS-1$ //$NON-NLS-2$
+						+ StringUtils.join(failedShards, CommonConstants.COMMA));
+			}
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+		finally
+		{
+			// stops any CLI process still running, e.g. when the build was aborted, and waits for the processes to be killed
+			// so that their data workspaces are released
+			executor.shutdownNow();
+			awaitTermination(executor);
+		}
+	}
+
+	/**
+	 * Waits a short while for the shard tasks of a stopped executor to finish.
+	 * 
+	 * @param executor
+	 *            the executor that was shut down
+	 */
+	private static void awaitTermination(ExecutorService executor)
+	{
+		try
+		{
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the prefix used for log lines belonging to the given shard.
+	 * 
+	 * @param index
+	 *            zero-based shard index
+	 * @param shardCount
+	 *            total number of shards
+	 * 
+	 * @return the log prefix
+	 */
+	private static String getShardPrefix(int index, int shardCount)
+	{
+		return "[" + (index + 1) + '/' + shardCount + "] "; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Prepares the download location on the agent for CLI calls launched from the controller.
+	 */
+	private static class Prepare extends MasterToSlaveCallable<Long, IOException>
+	{
+		private static final long serialVersionUID = -2518303906135093710L;
+
+		private final DownloadPlan m_plan;
+		private final TaskListener m_listener;
+
+		Prepare(DownloadPlan plan, TaskListener listener)
+		{
+			m_plan = plan;
+			m_listener = listener;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public Long call() throws IOException
+		{
+			try
+			{
+				return prepare(m_plan, m_listener);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw (IOException) new InterruptedIOException("The download was interrupted").initCause(e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Updates the download location on the agent after CLI calls launched from the controller, or only cleans up if they
+	 * failed.
+	 */
+	private static class Finish extends MasterToSlaveCallable<DownloadChanges, IOException>
+	{
+		private static final long serialVersionUID = 6970287451263934118L;
+
+		private final DownloadPlan m_plan;
+		private final long m_downloadStart;
+		private final boolean m_downloaded;
+		private final TaskListener m_listener;
+
+		Finish(DownloadPlan plan, long downloadStart, boolean downloaded, TaskListener listener)
+		{
+			m_plan = plan;
+			m_downloadStart = downloadStart;
+			m_downloaded = downloaded;
+			m_listener = listener;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public DownloadChanges call() throws IOException
+		{
+			try
+			{
+				return finish(m_plan, m_downloadStart, m_downloaded, m_listener);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw (IOException) new InterruptedIOException("The download was interrupted").initCause(e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Leases a CLI data workspace from the pool of the agent, with the limits of the global configuration.
+	 */
+	private static class Lease extends MasterToSlaveCallable<String, IOException>
+	{
+		private static final long serialVersionUID = 4409731542377385417L;
+
+		private final String m_folder;
+		private final String m_affinity;
+		private final int m_maxIdlePerFolder;
+		private final int m_maxIdle;
+
+		Lease(String folder, String affinity, int maxIdlePerFolder, int maxIdle)
+		{
+			m_folder = folder;
+			m_affinity = affinity;
+			m_maxIdlePerFolder = maxIdlePerFolder;
+			m_maxIdle = maxIdle;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public String call()
+		{
+			CliWorkspacePool pool = CliWorkspacePool.get();
+			pool.setLimits(m_maxIdlePerFolder, m_maxIdle);
+			return pool.lease(new File(m_folder), m_affinity).getPath();
+		}
+	}
+
+	/**
+	 * Returns a CLI data workspace to the pool of the agent.
+	 */
+	private static class Release extends MasterToSlaveCallable<Void, IOException>
+	{
+		private static final long serialVersionUID = -7725118337617224180L;
+
+		private final String m_dataDir;
+		private final boolean m_reusable;
+
+		Release(String dataDir, boolean reusable)
+		{
+			m_dataDir = dataDir;
+			m_reusable = reusable;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public Void call()
+		{
+			CliWorkspacePool.get().release(new File(m_dataDir), m_reusable);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes each complete line of a shard's output to the build log with the shard prefix. Whole lines are written while
+	 * holding the log's lock so that output from different shards is never mixed within a line.
+	 */
+	private static class ShardOutputStream extends LineTransformationOutputStream
+	{
+		private final PrintStream m_logger;
+		private final String m_prefix;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param logger
+		 *            the build log
+		 * @param prefix
+		 *            the prefix for every line
+		 */
+		ShardOutputStream(PrintStream logger, String prefix)
+		{
+			m_logger = logger;
+			m_prefix = prefix;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.console.LineTransformationOutputStream#eol(byte[], int)
+		 */
+		@Override
+		protected void eol(byte[] b, int len) throws IOException
+		{
+			byte[] prefix = m_prefix.getBytes(Charset.defaultCharset());
+			synchronized (m_logger)
+			{
+				m_logger.write(prefix, 0, prefix.length);
+				m_logger.write(b, 0, len);
+				m_logger.flush();
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.Serializable;
+
+/**
+ * Something the CLI reported in its output while downloading, recognized from a single line of the output.
+ */
+public class CliEvent implements Serializable
+{
+	private static final long serialVersionUID = 2650170318864359713L;
+
+	/**
+	 * The kinds of events recognized in the CLI output.
+	 */
+	public enum Type
+	{
+		/** The CLI started downloading a dataset, container or other group of members. */
+		DATASET_STARTED,
+		/** The CLI downloaded a member. */
+		MEMBER_DOWNLOADED,
+		/** The CLI reported a warning. */
+		WARNING,
+		/** The CLI reported an error. */
+		ERROR
+	}
+
+	private final Type m_type;
+	private final String m_name;
+	private final long m_bytes;
+	private final String m_line;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param type
+	 *            the kind of event
+	 * @param name
+	 *            the dataset or member the event is about; <code>null</code> for warnings and errors
+	 * @param bytes
+	 *            the size of a downloaded member if the CLI reported it, otherwise 0
+	 * @param line
+	 *            the line of output the event was recognized in
+	 */
+	public CliEvent(Type type, String name, long bytes, String line)
+	{
+		m_type = type;
+		m_name = name;
+		m_bytes = bytes;
+		m_line = line;
+	}
+
+	/**
+	 * Gets the kind of event.
+	 * 
+	 * @return <code>Type</code> value of m_type
+	 */
+	public Type getType()
+	{
+		return m_type;
+	}
+
+	/**
+	 * Gets the dataset or member the event is about.
+	 * 
+	 * @return <code>String</code> value of m_name; <code>null</code> for warnings and errors
+	 */
+	public String getName()
+	{
+		return m_name;
+	}
+
+	/**
+	 * Gets the size of a downloaded member.
+	 * 
+	 * @return <code>long</code> value of m_bytes; 0 if the CLI did not report it
+	 */
+	public long getBytes()
+	{
+		return m_bytes;
+	}
+
+	/**
+	 * Gets the line of output the event was recognized in.
+	 * 
+	 * @return <code>String</code> value of m_line
+	 */
+	public String getLine()
+	{
+		return m_line;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return m_type + (m_name != null ? " " + m_name : "") + (m_bytes > 0 ? " (" + m_bytes + " bytes)" : ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * Passes the CLI output through unchanged, one line at a time, and recognizes download progress in each line as a
+ * {@link CliEvent}. Only the current line is held in memory, however much the CLI writes.
+ * <p>
+ * The CLI does not document its output, so the events are recognized by patterns that may miss or mistake a line. Events
+ * are good for progress and for classifying failures; anything that would lose members on a wrong match, such as skipping a
+ * dataset on a retry, must check more than a single event.
+ */
+public class CliOutputParser extends LineTransformationOutputStream
+{
+	/**
+	 * A log level at the start of the line, possibly after a date, time and thread; the level must not be mistaken for part of
+	 * a member name.
+	 */
+	private static final Pattern ERROR_PATTERN = Pattern
+			.compile("^\\s*(?:\\S+\\s+){0,3}?\\[?(?:ERROR|SEVERE|FATAL)\\]?(?:[:\\s-]|$)", Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+	/**
+	 * A Java exception reported by the CLI, such as a network error, which is not necessarily preceded by a log level.
+	 */
+	private static final Pattern EXCEPTION_PATTERN = Pattern
+			.compile("(?:^|\\s)(?:[a-z_$][\\w$]*\\.)+[A-Z][\\w$]*(?:Exception|Error)(?::|$)"); //$NON-NLS-1$
+	private static final Pattern WARNING_PATTERN = Pattern
+			.compile("^\\s*(?:\\S+\\s+){0,3}?\\[?(?:WARN|WARNING)\\]?(?:[:\\s-]|$)", Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+	private static final Pattern DATASET_PATTERN = Pattern.compile(
+			"\\b(?:downloading|processing)\\s+(?:data\\s?set|pds|container|element|members\\s+of)s?\\s*:?\\s*'?([^\\s',]+)", //$NON-NLS-1$
+			Pattern.CASE_INSENSITIVE);
+	private static final Pattern MEMBER_PATTERN = Pattern.compile(
+			"\\b(?:downloaded|saved|wrote)\\s+(?:member|file|element|component)?\\s*:?\\s*'?([^\\s',]+)'?(?:.*?\\b(\\d+)\\s*bytes\\b)?", //$NON-NLS-1$
+			Pattern.CASE_INSENSITIVE);
+
+	private final OutputStream m_out;
+	private final Charset m_charset;
+	private final CliEventListener m_listener;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param out
+	 *            where the output is passed on to, such as the build log; it is not closed when this stream is closed
+	 * @param charset
+	 *            the character set of the CLI output
+	 * @param listener
+	 *            receives the recognized events
+	 */
+	public CliOutputParser(OutputStream out, Charset charset, CliEventListener listener)
+	{
+		m_out = out;
+		m_charset = charset;
+		m_listener = listener;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.console.LineTransformationOutputStream#eol(byte[], int)
+	 */
+	@Override
+	protected void eol(byte[] b, int len) throws IOException
+	{
+		m_out.write(b, 0, len);
+
+		CliEvent event = parse(trimEOL(new String(b, 0, len, m_charset)));
+		if (event != null)
+		{
+			m_listener.onEvent(event);
+		}
+	}
+
+	/**
+	 * Passes on a last line without a line terminator, without closing the stream passed on to.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		super.close();
+		m_out.flush();
+	}
+
+	/**
+	 * Recognizes an event in a line of CLI output. Errors and warnings are recognized by their log level, or for errors by a
+	 * Java exception, downloads by the words the CLI uses to report them.
+	 * 
+	 * @param line
+	 *            the line, without line terminator
+	 * 
+	 * @return the event; <code>null</code> if the line does not report one
+	 */
+	public static CliEvent parse(String line)
+	{
+		if (ERROR_PATTERN.matcher(line).find() || EXCEPTION_PATTERN.matcher(line).find())
+		{
+			return new CliEvent(CliEvent.Type.ERROR, null, 0, line);
+		}
+
+		if (WARNING_PATTERN.matcher(line).find())
+		{
+			return new CliEvent(CliEvent.Type.WARNING, null, 0, line);
+		}
+
+		Matcher matcher = DATASET_PATTERN.matcher(line);
+		if (matcher.find())
+		{
+			return new CliEvent(CliEvent.Type.DATASET_STARTED, matcher.group(1), 0, line);
+		}
+
+		matcher = MEMBER_PATTERN.matcher(line);
+		if (matcher.find())
+		{
+			long bytes = 0;
+			if (matcher.group(2) != null)
+			{
+				try
+				{
+					bytes = Long.parseLong(matcher.group(2));
+				}
+				catch (NumberFormatException e)
+				{
+					// too large to be a member size, so not one
+				}
+			}
+			return new CliEvent(CliEvent.Type.MEMBER_DOWNLOADED, matcher.group(1), bytes, line);
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,269 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Runs the CLI calls of a download on the machine the CLI is installed on, retrying calls that fail for a transient reason
+ * and killing calls that are still running when the download timeout expires.
+ */
+public class CliRunner
+{
+	private static final Logger LOGGER = Logger.getLogger(CliRunner.class.getName());
+
+	private static ScheduledExecutorService s_timer;
+
+	private final Launcher m_launcher;
+	private final EnvVars m_env;
+	private final FilePath m_workDir;
+	private final String m_osFile;
+	private final RetryPolicy m_retryPolicy;
+	private final int m_timeout;
+	private final long m_deadline;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param launcher
+	 *            launches the CLI processes
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param workDir
+	 *            the working directory of the CLI processes
+	 * @param osFile
+	 *            the name of the CLI script, used in log and error messages
+	 * @param retryPolicy
+	 *            decides which failed calls are retried
+	 * @param timeout
+	 *            the download timeout in minutes, for log and error messages; zero or less for no timeout
+	 * @param timeLeft
+	 *            the number of milliseconds left before the download timeout expires
+	 */
+	public CliRunner(Launcher launcher, EnvVars env, FilePath workDir, String osFile, RetryPolicy retryPolicy, int timeout,
+			long timeLeft)
+	{
+		m_launcher = launcher;
+		m_env = env;
+		m_workDir = workDir;
+		m_osFile = osFile;
+		m_retryPolicy = retryPolicy;
+		m_timeout = timeout;
+		m_deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLeft);
+	}
+
+	/**
+	 * Gets the name of the CLI script.
+	 * 
+	 * @return the name of the CLI script
+	 */
+	public String getOsFile()
+	{
+		return m_osFile;
+	}
+
+	/**
+	 * Runs a CLI call, retrying it as long as the {@link RetryPolicy} classifies its failures as transient. Each retry only
+	 * downloads the datasets that the earlier attempts did not finish. A call is not retried when the download timeout
+	 * would expire before the retry starts.
+	 * 
+	 * @param call
+	 *            the CLI call
+	 * @param dataDir
+	 *            the CLI data workspace leased for the call; <code>null</code> if the arguments of the call name the data
+	 *            workspace
+	 * @param out
+	 *            where the standard output of the CLI and the retries are written
+	 * 
+	 * @return the exit value of the last attempt
+	 * 
+	 * @throws InterruptedException
+	 *             if the CLI is interrupted while running or while waiting to be retried
+	 * @throws IOException
+	 *             if the CLI could not be launched or the download timed out
+	 */
+	public int run(DownloadPlan.CliCall call, String dataDir, PrintStream out) throws InterruptedException, IOException
+	{
+		Set<String> completedDatasets = new LinkedHashSet<>();
+		for (int retries = 0;; retries++)
+		{
+			RetryPolicy.Attempt attempt = new RetryPolicy.Attempt();
+			int exitValue = run(call.getArgs(dataDir, Collections.unmodifiableSet(completedDatasets)), out, attempt);
+			if (exitValue == 0 || !m_retryPolicy.shouldRetry(retries, exitValue, attempt))
+			{
+				return exitValue;
+			}
+
+			completedDatasets.addAll(attempt.getCompletedDatasets());
+			long delay = m_retryPolicy.getDelay(retries + 1);
+			if (m_timeout > 0 && TimeUnit.NANOSECONDS.toMillis(m_deadline - System.nanoTime()) <= delay)
+			{
+				out.println("Call " + m_osFile + " exited with value = " + exitValue //$NON-NLS-1$ //$NON-NLS-2$
+						+ " after a transient error, not retried because the download timeout of " + m_timeout //$NON-NLS-1$
+						+ " minutes expires first"); //$NON-NLS-1$
+				return exitValue;
+			}
+
+			out.println("Call " + m_osFile + " exited with value = " + exitValue + " after a transient error, retry " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ (retries + 1) + " of " + m_retryPolicy.getMaxRetries() + " in " //$NON-NLS-1$ //$NON-NLS-2$
+					+ TimeUnit.MILLISECONDS.toSeconds(delay) + " seconds"); //$NON-NLS-1$
+			Thread.sleep(delay);
+		}
+	}
+
+	/**
+	 * Runs the CLI script once and returns its exit value.
+	 * <p>
+	 * If the CLI is still running when the download timeout expires, or when the download is interrupted, the CLI process is
+	 * killed together with the processes it started.
+	 * 
+	 * @param args
+	 *            the CLI script followed by its arguments
+	 * @param out
+	 *            where the standard output of the CLI is written
+	 * @param eventListener
+	 *            receives the events recognized in the output of the CLI
+	 * 
+	 * @return the exit value of the CLI
+	 * 
+	 * @throws InterruptedException
+	 *             if the CLI is interrupted while running
+	 * @throws IOException
+	 *             if the CLI could not be launched or the download timed out
+	 */
+	private int run(ArgumentListBuilder args, OutputStream out, CliEventListener eventListener)
+			throws InterruptedException, IOException
+	{
+		if (m_timeout > 0 && System.nanoTime() - m_deadline >= 0)
+		{
+			throw timedOut();
+		}
+
+		// invoke the CLI (execute the batch/shell script), recognizing events in its output on the way to the log
+		CliOutputParser parser = new CliOutputParser(out, Charset.defaultCharset(), eventListener);
+		try
+		{
+			return join(m_launcher.launch().cmds(args).envs(m_env).stdout(parser).pwd(m_workDir).start());
+		}
+		finally
+		{
+			parser.close();
+		}
+	}
+
+	/**
+	 * Waits for a CLI process to complete, killing it when the download timeout expires. Being interrupted while waiting
+	 * also kills the process.
+	 * 
+	 * @param proc
+	 *            the CLI process
+	 * 
+	 * @return the exit value of the CLI
+	 * 
+	 * @throws InterruptedException
+	 *             if waiting is interrupted
+	 * @throws IOException
+	 *             if the download timed out
+	 */
+	private int join(Proc proc) throws InterruptedException, IOException
+	{
+		if (m_timeout <= 0)
+		{
+			return proc.join();
+		}
+
+		AtomicBoolean timedOut = new AtomicBoolean();
+		ScheduledFuture<?> killer = getTimer().schedule(() -> {
+			timedOut.set(true);
+			try
+			{
+				proc.kill();
+			}
+			catch (IOException e)
+			{
+				LOGGER.log(Level.WARNING, "Failed to stop the Topaz CLI", e); //$NON-NLS-1$
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}, Math.max(0, m_deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+		try
+		{
+			int exitValue = proc.join();
+			if (timedOut.get())
+			{
+				throw timedOut();
+			}
+			return exitValue;
+		}
+		finally
+		{
+			killer.cancel(false);
+		}
+	}
+
+	/**
+	 * Creates the exception that fails a download that timed out.
+	 * 
+	 * @return the exception
+	 */
+	private AbortException timedOut()
+	{
+		return new AbortException("The download timed out after " + m_timeout + " minutes and was stopped"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Gets the thread that kills the CLI processes that time out. The thread is created on the first timeout of the JVM,
+	 * which may be an agent's.
+	 * 
+	 * @return the timer
+	 */
+	private static synchronized ScheduledExecutorService getTimer()
+	{
+		if (s_timer == null)
+		{
+			s_timer = Executors.newSingleThreadScheduledExecutor(
+					new NamingThreadFactory(new DaemonThreadFactory(), CliRunner.class.getSimpleName()));
+		}
+
+		return s_timer;
+	}
+}
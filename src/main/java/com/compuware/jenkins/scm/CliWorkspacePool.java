@@ -0,0 +1,510 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.Util;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Pool of CLI data workspaces on the machine the CLI runs on. A CLI call leases a data workspace in a folder, which it has
+ * to itself until it releases it again. A data workspace released after a successful call is kept for the next call in the
+ * same folder, so that the CLI does not have to set up a new workspace each time; any other data workspace is deleted.
+ * <p>
+ * A call can name an affinity, such as the executor it runs on, to be given the data workspace last used with the same
+ * affinity when there is one. The single data workspace that earlier versions kept in a folder is taken into the pool the
+ * first time a data workspace is leased in that folder, so that its state is not lost.
+ * <p>
+ * Data workspaces are deleted in the background, so that a slow delete (for example, one held up by a virus scanner) does
+ * not hold up the download. A janitor also deletes the data workspaces of a folder that no call of this machine knows of,
+ * such as those left behind when the agent stopped during a download. It sweeps a folder the first time a data workspace
+ * is leased in it and again when the last sweep is more than an hour ago. The first sweep takes the data workspaces that
+ * were kept for reuse before the agent restarted back into the pool, up to its limits, so that a restart does not lose
+ * them; a data workspace that was leased when the agent stopped is deleted.
+ * <p>
+ * Several agents can share a folder, for example when they run on the same machine or use a shared file system. While a
+ * data workspace is in the pool, leased or kept for reuse, the pool holds a lock on a lock file next to it, and the janitor
+ * leaves alone any data workspace whose lock is held by another process. The operating system releases the lock when the
+ * process ends, so the data workspaces of an agent that stopped can be swept. The lock file also records whether its data
+ * workspace is leased: it is empty while the data workspace is kept for reuse.
+ * <p>
+ * The number of data workspaces kept for reuse is limited per folder and per machine; the limits are set in the global
+ * configuration and sent along with each lease.
+ */
+public final class CliWorkspacePool
+{
+	private static final Logger LOGGER = Logger.getLogger(CliWorkspacePool.class.getName());
+
+	private static final Pattern WORKSPACE_NAME = Pattern.compile(Pattern.quote(CommonConstants.TOPAZ_CLI_WORKSPACE)
+			+ "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}"); //$NON-NLS-1$
+	private static final long SWEEP_INTERVAL = TimeUnit.HOURS.toMillis(1);
+	private static final String LOCK_EXT = ".lock"; //$NON-NLS-1$
+	private static final byte[] LEASED = { 'L' };
+
+	private static final CliWorkspacePool INSTANCE = new CliWorkspacePool(ScmConstants.CLI_WORKSPACE_POOL_SIZE,
+			ScmConstants.CLI_WORKSPACE_POOL_MAX_IDLE);
+
+	private int m_maxIdlePerFolder;
+	private int m_maxIdle;
+	private final Deque<File> m_idle = new ArrayDeque<>();
+	private final Set<File> m_leased = new HashSet<>();
+	private final Set<File> m_deleting = new HashSet<>();
+	private final Map<File, String> m_affinities = new HashMap<>();
+	private final Map<File, Long> m_lastSweep = new HashMap<>();
+	private final Map<File, FileLock> m_locks = new HashMap<>();
+	private final ExecutorService m_deleter = Executors.newSingleThreadExecutor(
+			new NamingThreadFactory(new DaemonThreadFactory(), CliWorkspacePool.class.getSimpleName()));
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxIdlePerFolder
+	 *            the number of data workspaces kept for reuse in a folder
+	 * @param maxIdle
+	 *            the number of data workspaces kept for reuse on this machine
+	 */
+	CliWorkspacePool(int maxIdlePerFolder, int maxIdle)
+	{
+		setLimits(maxIdlePerFolder, maxIdle);
+	}
+
+	/**
+	 * Gets the pool of this machine.
+	 * 
+	 * @return the <code>CliWorkspacePool</code>
+	 */
+	public static CliWorkspacePool get()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets the number of data workspaces kept for reuse. Data workspaces beyond a lowered limit are deleted as they are
+	 * released.
+	 * 
+	 * @param maxIdlePerFolder
+	 *            the number of data workspaces kept for reuse in a folder
+	 * @param maxIdle
+	 *            the number of data workspaces kept for reuse on this machine
+	 */
+	public synchronized void setLimits(int maxIdlePerFolder, int maxIdle)
+	{
+		m_maxIdlePerFolder = Math.max(0, maxIdlePerFolder);
+		m_maxIdle = Math.max(0, maxIdle);
+	}
+
+	/**
+	 * Leases a data workspace in a folder: one kept from an earlier call, or else a new one, which the CLI creates.
+	 * 
+	 * @param folder
+	 *            the folder to keep the data workspace in
+	 * 
+	 * @return the data workspace, leased until it is released
+	 */
+	public File lease(File folder)
+	{
+		return lease(folder, null);
+	}
+
+	/**
+	 * Leases a data workspace in a folder: the one last used with the given affinity if it is free, else another one kept
+	 * from an earlier call, or else a new one, which the CLI creates.
+	 * 
+	 * @param folder
+	 *            the folder to keep the data workspace in
+	 * @param affinity
+	 *            the affinity of the call, such as the executor it runs on; <code>null</code> if it has none
+	 * 
+	 * @return the data workspace, leased until it is released
+	 */
+	public synchronized File lease(File folder, String affinity)
+	{
+		sweepIfDue(folder);
+
+		File dataDir = takeIdle(folder, affinity);
+		if (dataDir == null)
+		{
+			dataDir = takeIdle(folder, null);
+		}
+		if (dataDir == null)
+		{
+			dataDir = new File(folder, CommonConstants.TOPAZ_CLI_WORKSPACE + UUID.randomUUID().toString());
+			lock(dataDir);
+		}
+
+		mark(dataDir, true);
+		m_leased.add(dataDir);
+		if (affinity != null)
+		{
+			m_affinities.put(dataDir, affinity);
+		}
+		return dataDir;
+	}
+
+	/**
+	 * Releases a leased data workspace.
+	 * 
+	 * @param dataDir
+	 *            the data workspace
+	 * @param reusable
+	 *            <code>true</code> if the call using it succeeded, so the data workspace can be kept for the next call; a
+	 *            data workspace that is not reusable is deleted
+	 */
+	public synchronized void release(File dataDir, boolean reusable)
+	{
+		m_leased.remove(dataDir);
+		if (!reusable || countIdle(dataDir.getParentFile()) >= m_maxIdlePerFolder)
+		{
+			delete(dataDir);
+			return;
+		}
+
+		mark(dataDir, false);
+		m_idle.addFirst(dataDir);
+		while (m_idle.size() > m_maxIdle)
+		{
+			delete(m_idle.removeLast());
+		}
+	}
+
+	/**
+	 * Waits for the data workspaces that are being deleted to be deleted.
+	 * 
+	 * @param timeout
+	 *            the number of milliseconds to wait at most
+	 * 
+	 * @throws InterruptedException
+	 *             if waiting is interrupted
+	 * @throws ExecutionException
+	 *             if waiting fails
+	 * @throws TimeoutException
+	 *             if the deletes do not end in time
+	 */
+	void awaitDeletes(long timeout) throws InterruptedException, ExecutionException, TimeoutException
+	{
+		// the deletes run one after the other, so they have all ended once a task submitted after them has run
+		m_deleter.submit(() -> {
+		}).get(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Takes the most recently released data workspace of a folder from the ones kept for reuse.
+	 * 
+	 * @param folder
+	 *            the folder
+	 * @param affinity
+	 *            the affinity the data workspace was last used with; <code>null</code> for any data workspace of the folder
+	 * 
+	 * @return the data workspace; <code>null</code> if none is kept
+	 */
+	private File takeIdle(File folder, String affinity)
+	{
+		for (Iterator<File> iterator = m_idle.iterator(); iterator.hasNext();)
+		{
+			File dataDir = iterator.next();
+			if (folder.equals(dataDir.getParentFile()) && (affinity == null || affinity.equals(m_affinities.get(dataDir))))
+			{
+				iterator.remove();
+				return dataDir;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Counts the data workspaces kept for reuse in a folder.
+	 * 
+	 * @param folder
+	 *            the folder
+	 * 
+	 * @return the number of idle data workspaces in the folder
+	 */
+	private int countIdle(File folder)
+	{
+		int count = 0;
+		for (File dataDir : m_idle)
+		{
+			if (dataDir.getParentFile().equals(folder))
+			{
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Deletes the data workspaces of a folder that are neither leased nor kept for reuse, when the folder is due for a
+	 * sweep. The first sweep of a folder instead keeps those that were kept for reuse before, while there is room.
+	 * 
+	 * @param folder
+	 *            the folder to sweep
+	 */
+	private void sweepIfDue(File folder)
+	{
+		long now = System.currentTimeMillis();
+		Long lastSweep = m_lastSweep.get(folder);
+		boolean firstSweep = lastSweep == null;
+		if (lastSweep != null && now - lastSweep < SWEEP_INTERVAL)
+		{
+			return;
+		}
+		m_lastSweep.put(folder, now);
+
+		// the data workspace of earlier versions becomes the first one of the folder
+		File legacyDataDir = new File(folder, CommonConstants.TOPAZ_CLI_WORKSPACE);
+		if (legacyDataDir.isDirectory() && !m_leased.contains(legacyDataDir))
+		{
+			File dataDir = new File(folder, CommonConstants.TOPAZ_CLI_WORKSPACE + UUID.randomUUID().toString());
+			if (legacyDataDir.renameTo(dataDir))
+			{
+				lock(dataDir);
+				m_idle.addFirst(dataDir);
+			}
+		}
+
+		File[] files = folder.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+
+		for (File file : files)
+		{
+			if (WORKSPACE_NAME.matcher(file.getName()).matches() && file.isDirectory() && !m_leased.contains(file)
+					&& !m_idle.contains(file) && !m_deleting.contains(file))
+			{
+				// read before locking, which creates a missing lock file
+				File lockFile = getLockFile(file);
+				boolean wasIdle = lockFile.isFile() && lockFile.length() == 0;
+				if (!lock(file))
+				{
+					LOGGER.fine("Leaving CLI data workspace " + file + " in use by another process"); //$NON-NLS-1$ //$NON-NLS-2$
+					continue;
+				}
+
+				if (firstSweep && wasIdle && countIdle(folder) < m_maxIdlePerFolder && m_idle.size() < m_maxIdle)
+				{
+					LOGGER.fine("Keeping CLI data workspace " + file + " for reuse"); //$NON-NLS-1$ //$NON-NLS-2$
+					m_idle.addLast(file);
+					continue;
+				}
+
+				LOGGER.fine("Deleting orphaned CLI data workspace " + file); //$NON-NLS-1$
+				delete(file);
+			}
+			else if (file.getName().endsWith(LOCK_EXT))
+			{
+				// a lock file left behind by a process that stopped before the CLI created its data workspace
+				File dataDir = new File(folder, file.getName().substring(0, file.getName().length() - LOCK_EXT.length()));
+				if (WORKSPACE_NAME.matcher(dataDir.getName()).matches() && !dataDir.exists() && !m_locks.containsKey(dataDir)
+						&& !m_leased.contains(dataDir) && lock(dataDir))
+				{
+					unlock(dataDir);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the lock file of a data workspace.
+	 * 
+	 * @param dataDir
+	 *            the data workspace
+	 * 
+	 * @return the lock file, next to the data workspace
+	 */
+	private static File getLockFile(File dataDir)
+	{
+		return new File(dataDir.getParentFile(), dataDir.getName() + LOCK_EXT);
+	}
+
+	/**
+	 * Locks a data workspace for this pool, until it is deleted. A data workspace that cannot be locked because of an I/O
+	 * error is used without a lock.
+	 * 
+	 * @param dataDir
+	 *            the data workspace
+	 * 
+	 * @return <code>false</code> if another process holds the lock of the data workspace
+	 */
+	private boolean lock(File dataDir)
+	{
+		File lockFile = getLockFile(dataDir);
+		FileChannel channel = null;
+		try
+		{
+			Files.createDirectories(lockFile.getParentFile().toPath());
+			channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			FileLock lock = channel.tryLock();
+			if (lock == null)
+			{
+				channel.close();
+				return false;
+			}
+
+			m_locks.put(dataDir, lock);
+			return true;
+		}
+		catch (OverlappingFileLockException e)
+		{
+			// held by another pool of this process
+			close(channel);
+			return false;
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.FINE, "Unable to lock CLI data workspace " + dataDir, e); //$NON-NLS-1$
+			close(channel);
+			return true;
+		}
+	}
+
+	/**
+	 * Records in the lock file of a data workspace whether it is leased.
+	 * 
+	 * @param dataDir
+	 *            the data workspace
+	 * @param leased
+	 *            <code>true</code> if the data workspace is leased, <code>false</code> if it is kept for reuse
+	 */
+	private void mark(File dataDir, boolean leased)
+	{
+		FileLock lock = m_locks.get(dataDir);
+		if (lock == null)
+		{
+			return;
+		}
+
+		try
+		{
+			FileChannel channel = lock.channel();
+			channel.truncate(0);
+			if (leased)
+			{
+				channel.write(ByteBuffer.wrap(LEASED), 0);
+			}
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.FINE, "Unable to mark CLI data workspace " + dataDir, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Unlocks a data workspace and deletes its lock file.
+	 * 
+	 * @param dataDir
+	 *            the data workspace
+	 */
+	private void unlock(File dataDir)
+	{
+		FileLock lock = m_locks.remove(dataDir);
+		if (lock != null)
+		{
+			close(lock.channel());
+			getLockFile(dataDir).delete();
+		}
+	}
+
+	/**
+	 * Closes the channel of a lock file, which releases its lock.
+	 * 
+	 * @param channel
+	 *            the channel; <code>null</code> if it was not opened
+	 */
+	private static void close(FileChannel channel)
+	{
+		if (channel == null)
+		{
+			return;
+		}
+
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.FINE, "Unable to close CLI data workspace lock", e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Deletes a data workspace in the background, then unlocks it. A data workspace that cannot be deleted is left for the
+	 * janitor.
+	 * 
+	 * @param dataDir
+	 *            the data workspace
+	 */
+	private void delete(File dataDir)
+	{
+		m_affinities.remove(dataDir);
+		if (!m_deleting.add(dataDir))
+		{
+			return;
+		}
+
+		m_deleter.execute(() -> {
+			try
+			{
+				Util.deleteRecursive(dataDir);
+			}
+			catch (IOException e)
+			{
+				LOGGER.log(Level.WARNING, "Unable to delete CLI data workspace " + dataDir, e); //$NON-NLS-1$
+			}
+			finally
+			{
+				synchronized (CliWorkspacePool.this)
+				{
+					m_deleting.remove(dataDir);
+					unlock(dataDir);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.model.AbstractProject;
+import hudson.scm.SCM;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+/**
+ * Saves the configurations migrated from 1.X while Jenkins loads its jobs, in one batch once all jobs are loaded.
+ * <p>
+ * While jobs are loading, the host connections that migrated configurations add to the global configuration are only kept
+ * in memory, and saved once by the batch rather than once per job. The batch is skipped when no configuration was migrated;
+ * otherwise the jobs whose SCMs are part of their configuration, such as freestyle projects, are checked, several at a
+ * time, and the ones holding a migrated configuration are saved. Pipeline jobs are not checked: their SCMs are read from
+ * their builds, which saving the job does not write, and asking for them would load the last build of every Pipeline job.
+ * A Pipeline SCM is migrated lazily instead, each time it is loaded, and its new form is saved by its next build.
+ */
+public final class ConfigurationMigration
+{
+	private static final Logger LOGGER = Logger.getLogger(ConfigurationMigration.class.getName());
+
+	private static final AtomicInteger s_migrated = new AtomicInteger();
+	private static boolean s_loading = true;
+	private static boolean s_hostConnectionsAdded;
+
+	/**
+	 * Constructor.
+	 */
+	private ConfigurationMigration()
+	{
+	}
+
+	/**
+	 * Called when a configuration has been migrated.
+	 */
+	static void configurationMigrated()
+	{
+		s_migrated.incrementAndGet();
+	}
+
+	/**
+	 * Called when a migrated configuration added a host connection to the global configuration.
+	 * 
+	 * @return <code>true</code> if the batch saves the host connections; <code>false</code> if the caller has to, because all
+	 *         jobs have already been loaded
+	 */
+	static synchronized boolean hostConnectionAdded()
+	{
+		if (s_loading)
+		{
+			s_hostConnectionsAdded = true;
+		}
+
+		return s_loading;
+	}
+
+	/**
+	 * Saves the host connections and the jobs migrated while all jobs were loaded.
+	 */
+	static void run()
+	{
+		long start = System.nanoTime();
+		boolean hostConnectionsAdded;
+		synchronized (ConfigurationMigration.class)
+		{
+			s_loading = false;
+			hostConnectionsAdded = s_hostConnectionsAdded;
+		}
+
+		if (hostConnectionsAdded)
+		{
+			CpwrGlobalConfiguration.get().save();
+			LOGGER.info("Host connections of the migrated configurations have been saved."); //$NON-NLS-1$
+		}
+
+		int migrated = s_migrated.get();
+		if (migrated == 0)
+		{
+			LOGGER.fine("No configuration to migrate"); //$NON-NLS-1$
+			return;
+		}
+
+		int saved = saveJobs();
+		LOGGER.info(String.format("Migrated %d configurations, saving %d jobs, in %d ms", migrated, saved, //$NON-NLS-1$
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+	}
+
+	/**
+	 * Saves the projects holding a migrated configuration, several at a time.
+	 * 
+	 * @return the number of projects saved
+	 */
+	@SuppressWarnings("rawtypes")
+	private static int saveJobs()
+	{
+		List<AbstractProject> jobs = Jenkins.get().getAllItems(AbstractProject.class);
+		if (jobs.isEmpty())
+		{
+			return 0;
+		}
+
+		int saved = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(ScmConstants.MIGRATION_THREADS, jobs.size()),
+				new NamingThreadFactory(new DaemonThreadFactory(), ConfigurationMigration.class.getSimpleName()));
+		try
+		{
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (AbstractProject<?, ?> job : jobs)
+			{
+				futures.add(executor.submit(() -> saveIfMigrated(job)));
+			}
+
+			for (int i = 0; i < futures.size(); i++)
+			{
+				try
+				{
+					if (futures.get(i).get())
+					{
+						saved++;
+					}
+				}
+				catch (ExecutionException e)
+				{
+					LOGGER.log(Level.SEVERE, String.format("Failed to upgrade job %s", jobs.get(i).getFullName()), //$NON-NLS-1$
+							e.getCause());
+				}
+
+				if ((i + 1) % ScmConstants.MIGRATION_PROGRESS_INTERVAL == 0)
+				{
+					LOGGER.info(String.format("Checked %d of %d jobs for migrated configurations", i + 1, jobs.size())); //$NON-NLS-1$
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			LOGGER.warning("Migration interrupted, remaining jobs will be migrated when they are next loaded"); //$NON-NLS-1$
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		return saved;
+	}
+
+	/**
+	 * Saves a project if it holds a migrated configuration.
+	 * 
+	 * @param job
+	 *            the project
+	 * 
+	 * @return <code>true</code> if the project was saved
+	 * 
+	 * @throws IOException
+	 *             if the project cannot be saved
+	 */
+	private static boolean saveIfMigrated(AbstractProject<?, ?> job) throws IOException
+	{
+		try (ACLContext context = ACL.as(ACL.SYSTEM))
+		{
+			for (SCM scm : job.getSCMs())
+			{
+				if (scm instanceof AbstractConfiguration && ((AbstractConfiguration) scm).isMigrated())
+				{
+					job.save();
+					LOGGER.fine(String.format("Project %s has been migrated.", job.getFullName())); //$NON-NLS-1$
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,322 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
+import com.compuware.jenkins.common.configuration.HostConnection;
+
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+
+/**
+ * Limits how many CLI processes download from one host connection at the same time, across all builds on the controller.
+ * <p>
+ * Downloads that have to wait are queued per folder, and the folders take turns when a slot frees up, so one folder starting
+ * many builds at once cannot hold back the downloads of the others. Within a folder, downloads are served in the order they
+ * asked.
+ */
+public final class ConnectionLimiter
+{
+	private static final Map<String, ConnectionQueue> s_queues = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private ConnectionLimiter()
+	{
+	}
+
+	/**
+	 * Waits for a download slot of a host connection. The time spent waiting is written to the build log.
+	 * 
+	 * @param connectionId
+	 *            the host connection to download from
+	 * @param item
+	 *            the job or multibranch project downloading, whose folder it queues in
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the slot, to be closed once the CLI process has ended
+	 * 
+	 * @throws InterruptedException
+	 *             if the build is interrupted while waiting
+	 */
+	public static Permit acquire(String connectionId, Item item, TaskListener listener) throws InterruptedException
+	{
+		ScmDownloaderGlobalConfiguration config = ScmDownloaderGlobalConfiguration.get();
+		int maxDownloads = config != null ? config.getMaxConcurrentDownloads() : 0;
+		if (maxDownloads <= 0)
+		{
+			return new Permit(null);
+		}
+
+		ConnectionQueue queue = getQueue(connectionId);
+		String folder = item != null ? item.getParent().getFullName() : ""; //$NON-NLS-1$
+		long start = System.currentTimeMillis();
+		if (queue.acquire(folder, maxDownloads, listener.getLogger(), getConnectionName(connectionId)))
+		{
+			listener.getLogger().println("Waited " + Util.getTimeSpanString(System.currentTimeMillis() - start) //$NON-NLS-1$
+					+ " for a download slot"); //$NON-NLS-1$
+		}
+
+		return new Permit(queue);
+	}
+
+	/**
+	 * Takes a download slot of a host connection if one is free right away, for a download that already holds a slot and
+	 * could use another one to run more CLI processes at the same time.
+	 * 
+	 * @param connectionId
+	 *            the host connection to download from
+	 * 
+	 * @return the slot, to be closed once the CLI process has ended; <code>null</code> if no slot is free, or if other
+	 *         downloads are waiting for one
+	 */
+	public static Permit tryAcquire(String connectionId)
+	{
+		ScmDownloaderGlobalConfiguration config = ScmDownloaderGlobalConfiguration.get();
+		int maxDownloads = config != null ? config.getMaxConcurrentDownloads() : 0;
+		if (maxDownloads <= 0)
+		{
+			return new Permit(null);
+		}
+
+		ConnectionQueue queue = getQueue(connectionId);
+		return queue.tryAcquire(maxDownloads) ? new Permit(queue) : null;
+	}
+
+	/**
+	 * Gets the queue of a host connection, creating it on first use.
+	 * 
+	 * @param connectionId
+	 *            the host connection
+	 * 
+	 * @return the queue
+	 */
+	private static ConnectionQueue getQueue(String connectionId)
+	{
+		synchronized (s_queues)
+		{
+			ConnectionQueue queue = s_queues.get(connectionId);
+			if (queue == null)
+			{
+				queue = new ConnectionQueue();
+				s_queues.put(connectionId, queue);
+			}
+			return queue;
+		}
+	}
+
+	/**
+	 * Gets the name of a host connection for the build log.
+	 * 
+	 * @param connectionId
+	 *            the host connection
+	 * 
+	 * @return the host and port of the connection, or its identifier if it is not configured
+	 */
+	private static String getConnectionName(String connectionId)
+	{
+		CpwrGlobalConfiguration globalConfig = CpwrGlobalConfiguration.get();
+		HostConnection connection = globalConfig != null ? globalConfig.getHostConnection(connectionId) : null;
+		return connection != null ? connection.getHost() + ':' + connection.getPort() : connectionId;
+	}
+
+	/**
+	 * A download slot of a host connection.
+	 */
+	public static class Permit implements AutoCloseable
+	{
+		private ConnectionQueue m_queue;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param queue
+		 *            the queue the slot belongs to; <code>null</code> if downloads are not limited
+		 */
+		Permit(ConnectionQueue queue)
+		{
+			m_queue = queue;
+		}
+
+		/**
+		 * Frees the slot for the next download. Closing a slot more than once has no effect.
+		 */
+		@Override
+		public synchronized void close()
+		{
+			if (m_queue != null)
+			{
+				m_queue.release();
+				m_queue = null;
+			}
+		}
+	}
+
+	/**
+	 * The download slots of one host connection and the downloads waiting for them.
+	 */
+	static class ConnectionQueue
+	{
+		private final Map<String, ArrayDeque<Waiter>> m_waiting = new LinkedHashMap<>();
+		private int m_active;
+		private int m_maxDownloads;
+
+		/**
+		 * Takes a slot, waiting in the folder's queue if none is free.
+		 * 
+		 * @param folder
+		 *            the folder of the job downloading
+		 * @param maxDownloads
+		 *            the current maximum of concurrent downloads
+		 * @param logger
+		 *            the build log
+		 * @param connectionName
+		 *            the host connection, for the build log
+		 * 
+		 * @return <code>true</code> if the download had to wait
+		 * 
+		 * @throws InterruptedException
+		 *             if interrupted while waiting, in which case no slot is taken
+		 */
+		synchronized boolean acquire(String folder, int maxDownloads, PrintStream logger, String connectionName)
+				throws InterruptedException
+		{
+			m_maxDownloads = maxDownloads;
+			if (m_active < m_maxDownloads && m_waiting.isEmpty())
+			{
+				m_active++;
+				return false;
+			}
+
+			logger.println("Waiting for a download slot of host connection " + connectionName + " (" + m_active //$NON-NLS-1$ //$NON-NLS-2$
+					+ " of " + m_maxDownloads + " in use)"); //$NON-NLS-1$ //$NON-NLS-2$
+
+			Waiter waiter = new Waiter();
+			ArrayDeque<Waiter> folderQueue = m_waiting.get(folder);
+			if (folderQueue == null)
+			{
+				folderQueue = new ArrayDeque<>();
+				m_waiting.put(folder, folderQueue);
+			}
+			folderQueue.add(waiter);
+			grant();
+
+			try
+			{
+				while (!waiter.m_granted)
+				{
+					wait();
+				}
+			}
+			catch (InterruptedException e)
+			{
+				if (waiter.m_granted)
+				{
+					release();
+				}
+				else
+				{
+					folderQueue.remove(waiter);
+					if (folderQueue.isEmpty())
+					{
+						m_waiting.remove(folder, folderQueue);
+					}
+				}
+				throw e;
+			}
+
+			return true;
+		}
+
+		/**
+		 * Takes a slot if one is free and no download is waiting for one.
+		 * 
+		 * @param maxDownloads
+		 *            the current maximum of concurrent downloads
+		 * 
+		 * @return <code>true</code> if a slot was taken
+		 */
+		synchronized boolean tryAcquire(int maxDownloads)
+		{
+			m_maxDownloads = maxDownloads;
+			if (m_active < m_maxDownloads && m_waiting.isEmpty())
+			{
+				m_active++;
+				return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Frees a slot and hands it on.
+		 */
+		synchronized void release()
+		{
+			m_active--;
+			grant();
+		}
+
+		/**
+		 * Hands free slots to waiting downloads, taking one download from each folder in turn.
+		 */
+		private void grant()
+		{
+			boolean granted = false;
+			while (m_active < m_maxDownloads && !m_waiting.isEmpty())
+			{
+				Iterator<Map.Entry<String, ArrayDeque<Waiter>>> folders = m_waiting.entrySet().iterator();
+				Map.Entry<String, ArrayDeque<Waiter>> next = folders.next();
+				folders.remove();
+
+				ArrayDeque<Waiter> folderQueue = next.getValue();
+				folderQueue.poll().m_granted = true;
+				m_active++;
+				granted = true;
+
+				// the folder goes to the back of the line for its next download
+				if (!folderQueue.isEmpty())
+				{
+					m_waiting.put(next.getKey(), folderQueue);
+				}
+			}
+
+			if (granted)
+			{
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * A download waiting for a slot.
+	 */
+	private static class Waiter
+	{
+		private boolean m_granted;
+	}
+}
@@ -2,32 +2,80 @@ package com.compuware.jenkins.scm;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.xml.sax.SAXException;
-import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.Run;
+import hudson.model.User;
 import hudson.scm.ChangeLogParser;
 import hudson.scm.ChangeLogSet;
+import hudson.scm.EditType;
 import hudson.scm.RepositoryBrowser;
 import hudson.scm.ChangeLogSet.Entry;
 
 /**
- * Change Log parser
+ * Change Log parser. Reads the change log written by {@link CpwrChangeLogWriter} one element at a time, so large change logs
+ * are never held in memory as a document.
  */
 public class CpwrChangeLogParser extends ChangeLogParser
 {
 	public ChangeLogSet<? extends Entry> parse(Run build, RepositoryBrowser<?> browser, File changelogFile)
 			throws IOException, SAXException
 	{
-		if (build instanceof AbstractBuild
-				&& Util.isOverridden(ChangeLogParser.class, getClass(), "parse", AbstractBuild.class, File.class))
-		{
-			return parse((AbstractBuild) build, changelogFile);
-		}
-		else
+		List<CpwrChangeLogSet.CpwrEntry> entries = new ArrayList<CpwrChangeLogSet.CpwrEntry>();
+
+		if (changelogFile != null && changelogFile.length() > 0)
 		{
-			return new CpwrChangeLogSet(build, browser);
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+			try (InputStream in = Files.newInputStream(changelogFile.toPath()))
+			{
+				XMLStreamReader reader = factory.createXMLStreamReader(in);
+				try
+				{
+					CpwrChangeLogSet.CpwrEntry entry = null;
+					while (reader.hasNext())
+					{
+						if (reader.next() != XMLStreamConstants.START_ELEMENT)
+						{
+							continue;
+						}
+
+						String name = reader.getLocalName();
+						if (CpwrChangeLogWriter.CHANGESET.equals(name))
+						{
+							entry = new CpwrChangeLogSet.CpwrEntry(User.getUnknown(),
+									reader.getAttributeValue(null, CpwrChangeLogWriter.MSG));
+							entries.add(entry);
+						}
+						else if (CpwrChangeLogWriter.FILE.equals(name) && entry != null)
+						{
+							EditType editType = getEditType(reader.getAttributeValue(null, CpwrChangeLogWriter.ACTION));
+							entry.addAffectedFile(reader.getElementText(), editType);
+						}
+					}
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			catch (XMLStreamException e)
+			{
+				throw new SAXException("Failed to parse " + changelogFile, e); //$NON-NLS-1$
+			}
 		}
+
+		return new CpwrChangeLogSet(build, browser, entries);
 	}
 
 	@Deprecated
@@ -36,4 +84,25 @@ public class CpwrChangeLogParser extends ChangeLogParser
 		return parse(build, build.getProject().getScm().getEffectiveBrowser(), changelogFile);
 	}
 
+	/**
+	 * Gets the edit type with the given name.
+	 * 
+	 * @param name
+	 *            the name of the edit type
+	 * 
+	 * @return the edit type; {@link EditType#EDIT} if the name is not known
+	 */
+	private static EditType getEditType(String name)
+	{
+		for (EditType editType : EditType.ALL)
+		{
+			if (editType.getName().equals(name))
+			{
+				return editType;
+			}
+		}
+
+		return EditType.EDIT;
+	}
+
 }
@@ -7,12 +7,12 @@ import java.util.List;
 import hudson.model.Run;
 import hudson.model.User;
 import hudson.scm.ChangeLogSet;
+import hudson.scm.EditType;
 import hudson.scm.RepositoryBrowser;
 
 /**
- * Skeleton implementation for change log. Currently change log is not implemented, an empty entry list will be returned to fix
- * pipeline issue CWE-149820. This will make plugin compatible with Jenkins future upgrade. A complete change log solution can
- * be extended to support this feature.
+ * Change log of a download. Each entry is a group of downloaded files, with how each file changed compared to the previous
+ * download into the same location.
  */
 public class CpwrChangeLogSet extends ChangeLogSet<CpwrChangeLogSet.CpwrEntry>
 {
@@ -24,6 +24,17 @@ public class CpwrChangeLogSet extends ChangeLogSet<CpwrChangeLogSet.CpwrEntry>
 		super(run, browser);
 	}
 
+	public CpwrChangeLogSet(Run<?, ?> run, RepositoryBrowser<?> browser, List<CpwrChangeLogSet.CpwrEntry> entries)
+	{
+		super(run, browser);
+
+		for (CpwrEntry entry : entries)
+		{
+			entry.setParent(this);
+			logSet.add(entry);
+		}
+	}
+
 	@Override
 	public Iterator<CpwrEntry> iterator()
 	{
@@ -40,6 +51,7 @@ public class CpwrChangeLogSet extends ChangeLogSet<CpwrChangeLogSet.CpwrEntry>
 	{
 
 		private Collection<String> paths;
+		private Collection<CpwrAffectedFile> files = new ArrayList<CpwrAffectedFile>();
 		private User author;
 		private String msg;
 
@@ -50,12 +62,51 @@ public class CpwrChangeLogSet extends ChangeLogSet<CpwrChangeLogSet.CpwrEntry>
 			this.msg = msg;
 		}
 
+		/**
+		 * Constructs an entry without files; files are added with {@link #addAffectedFile(String, EditType)}.
+		 * 
+		 * @param author
+		 *            the author of the change
+		 * @param msg
+		 *            the change message
+		 */
+		public CpwrEntry(User author, String msg)
+		{
+			this(new ArrayList<String>(), author, msg);
+		}
+
+		/**
+		 * Adds a file changed by this entry.
+		 * 
+		 * @param path
+		 *            the path of the file relative to the download location
+		 * @param editType
+		 *            how the file changed
+		 */
+		public void addAffectedFile(String path, EditType editType)
+		{
+			paths.add(path);
+			files.add(new CpwrAffectedFile(path, editType));
+		}
+
+		@Override
+		protected void setParent(@SuppressWarnings("rawtypes") ChangeLogSet parent)
+		{
+			super.setParent(parent);
+		}
+
 		@Override
 		public Collection<String> getAffectedPaths()
 		{
 			return paths;
 		}
 
+		@Override
+		public Collection<CpwrAffectedFile> getAffectedFiles()
+		{
+			return files;
+		}
+
 		@Override
 		public User getAuthor()
 		{
@@ -69,4 +120,31 @@ public class CpwrChangeLogSet extends ChangeLogSet<CpwrChangeLogSet.CpwrEntry>
 		}
 
 	}
+
+	/**
+	 * A file changed by a download.
+	 */
+	public static class CpwrAffectedFile implements ChangeLogSet.AffectedFile
+	{
+		private String path;
+		private EditType editType;
+
+		public CpwrAffectedFile(String path, EditType editType)
+		{
+			this.path = path;
+			this.editType = editType;
+		}
+
+		@Override
+		public String getPath()
+		{
+			return path;
+		}
+
+		@Override
+		public EditType getEditType()
+		{
+			return editType;
+		}
+	}
 }
@@ -0,0 +1,160 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.lang.StringUtils;
+
+import hudson.scm.EditType;
+
+/**
+ * Writes the changes made by a download to the build's change log file, in the format read by {@link CpwrChangeLogParser}.
+ * <p>
+ * The changes are grouped into one change set per top-level folder of the download location, which for PDS and Endevor
+ * downloads is one change set per dataset.
+ */
+public class CpwrChangeLogWriter
+{
+	static final String CHANGELOG = "changelog"; //$NON-NLS-1$
+	static final String CHANGESET = "changeset"; //$NON-NLS-1$
+	static final String FILE = "file"; //$NON-NLS-1$
+	static final String MSG = "msg"; //$NON-NLS-1$
+	static final String ACTION = "action"; //$NON-NLS-1$
+
+	private static final String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * Private constructor.
+	 * <p>
+	 * All methods should be accessed statically.
+	 */
+	private CpwrChangeLogWriter()
+	{
+	}
+
+	/**
+	 * Writes the given changes to a change log file. When nothing changed, the file contains an empty change log.
+	 * 
+	 * @param changes
+	 *            the changes made by the download
+	 * @param changelogFile
+	 *            the change log file to write
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(DownloadChanges changes, File changelogFile) throws IOException
+	{
+		Map<String, List<String[]>> changeSets = new TreeMap<>();
+		addFiles(changeSets, changes.getAdded(), EditType.ADD);
+		addFiles(changeSets, changes.getModified(), EditType.EDIT);
+		addFiles(changeSets, changes.getRemoved(), EditType.DELETE);
+
+		try (OutputStream out = Files.newOutputStream(changelogFile.toPath()))
+		{
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, UTF_8);
+			writer.writeStartDocument(UTF_8, "1.0"); //$NON-NLS-1$
+			writer.writeStartElement(CHANGELOG);
+
+			for (Map.Entry<String, List<String[]>> changeSet : changeSets.entrySet())
+			{
+				List<String[]> files = changeSet.getValue();
+				writer.writeStartElement(CHANGESET);
+				writer.writeAttribute(MSG, Messages.changeLogMessage(changeSet.getKey(), count(files, EditType.ADD),
+						count(files, EditType.EDIT), count(files, EditType.DELETE)));
+
+				for (String[] file : files)
+				{
+					writer.writeStartElement(FILE);
+					writer.writeAttribute(ACTION, file[1]);
+					writer.writeCharacters(file[0]);
+					writer.writeEndElement();
+				}
+
+				writer.writeEndElement();
+			}
+
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Adds files to the change set of their top-level folder.
+	 * 
+	 * @param changeSets
+	 *            the change sets, keyed by top-level folder
+	 * @param paths
+	 *            the relative paths of the files
+	 * @param editType
+	 *            how the files changed
+	 */
+	private static void addFiles(Map<String, List<String[]>> changeSets, List<String> paths, EditType editType)
+	{
+		for (String path : paths)
+		{
+			String folder = path.indexOf('/') > 0 ? StringUtils.substringBefore(path, "/") : "."; //$NON-NLS-1$ //$NON-NLS-2$
+			List<String[]> files = changeSets.get(folder);
+			if (files == null)
+			{
+				files = new ArrayList<>();
+				changeSets.put(folder, files);
+			}
+			files.add(new String[] { path, editType.getName() });
+		}
+	}
+
+	/**
+	 * Counts the files in a change set with the given edit type.
+	 * 
+	 * @param files
+	 *            the files of a change set
+	 * @param editType
+	 *            the edit type to count
+	 * 
+	 * @return the number of files
+	 */
+	private static int count(List<String[]> files, EditType editType)
+	{
+		int count = 0;
+		for (String[] file : files)
+		{
+			if (editType.getName().equals(file[1]))
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+
+import hudson.remoting.VirtualChannel;
+import hudson.scm.SCMRevisionState;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * The revision of a PDS or Endevor download: a digest of the path and content hash of every downloaded member. The host does
+ * not report revisions of its own, so two revisions are the same exactly when the same members were downloaded with the same
+ * content.
+ */
+public class CpwrRevisionState extends SCMRevisionState implements Serializable
+{
+	private static final long serialVersionUID = 5139712285470862147L;
+
+	private final String m_digest;
+	private final int m_memberCount;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param manifest
+	 *            the manifest of the download
+	 * 
+	 * @throws IOException
+	 *             if the digest cannot be computed
+	 */
+	public CpwrRevisionState(DownloadManifest manifest) throws IOException
+	{
+		m_digest = manifest.digest();
+		m_memberCount = manifest.size();
+	}
+
+	/**
+	 * Gets the digest of the downloaded members.
+	 * 
+	 * @return <code>String</code> value of m_digest
+	 */
+	public String getDigest()
+	{
+		return m_digest;
+	}
+
+	/**
+	 * Gets the number of downloaded members.
+	 * 
+	 * @return <code>int</code> value of m_memberCount
+	 */
+	public int getMemberCount()
+	{
+		return m_memberCount;
+	}
+
+	/**
+	 * Determines whether the given revision downloaded the same members, with the same content, as this one.
+	 * 
+	 * @param other
+	 *            the revision to compare with
+	 * 
+	 * @return <code>true</code> if the content is the same
+	 */
+	public boolean hasSameContent(CpwrRevisionState other)
+	{
+		return other != null && m_digest.equals(other.m_digest);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return m_memberCount + " members, digest " + m_digest; //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the revision of the last download into a download location from its download manifest. Returns
+	 * <code>null</code> if there is no manifest.
+	 */
+	public static class FromManifest extends MasterToSlaveFileCallable<CpwrRevisionState>
+	{
+		private static final long serialVersionUID = -2894047709286325720L;
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+		 */
+		@Override
+		public CpwrRevisionState invoke(File manifestFile, VirtualChannel channel) throws IOException, InterruptedException
+		{
+			return manifestFile.isFile() ? new CpwrRevisionState(DownloadManifest.load(manifestFile)) : null;
+		}
+	}
+
+	/**
+	 * Computes the revision of the members downloaded into a folder, hashing every file in it.
+	 */
+	public static class FromFolder extends MasterToSlaveFileCallable<CpwrRevisionState>
+	{
+		private static final long serialVersionUID = 3317541808123961546L;
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+		 */
+		@Override
+		public CpwrRevisionState invoke(File folder, VirtualChannel channel) throws IOException, InterruptedException
+		{
+			return new CpwrRevisionState(DownloadManifest.scan(folder));
+		}
+	}
+}
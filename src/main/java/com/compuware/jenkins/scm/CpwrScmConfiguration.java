@@ -17,21 +17,38 @@
  */
 package com.compuware.jenkins.scm;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
 import com.compuware.jenkins.common.configuration.HostConnection;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
 
 import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Computer;
 import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Node;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.scm.ChangeLogParser;
+import hudson.scm.PollingResult;
+import hudson.scm.SCMRevisionState;
 
 /**
  * Abstract class containing common data and methods for SCM configurations.
@@ -43,6 +60,9 @@ public abstract class CpwrScmConfiguration extends AbstractConfiguration
 	private String m_filterPattern;
 	private String m_fileExtension;
 	private String m_targetFolder;
+	private int m_maxParallelDownloads = 1;
+	private boolean m_incremental;
+	private boolean m_pollHost;
 
 	/**
 	 * Constructor.
@@ -77,6 +97,147 @@ public abstract class CpwrScmConfiguration extends AbstractConfiguration
 		return new CpwrChangeLogParser();
 	}
 
+	/**
+	 * Creates the downloader for this type of SCM.
+	 * 
+	 * @return the downloader
+	 */
+	protected abstract CpwrScmDownloader createDownloader();
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractConfiguration#createDownloadTemplate()
+	 */
+	@Override
+	protected DownloadTemplate createDownloadTemplate()
+	{
+		CpwrScmDownloader downloader = createDownloader();
+		String scmType = downloader.getScmType();
+
+		// where the filters allow it, duplicate and overlapping filters are removed before the filters are split into shards
+		List<String> filters = downloader.getFilters(m_filterPattern);
+		Map<String, String> removedFilters = Collections.emptyMap();
+		if (isFilterPatternCompiled())
+		{
+			FilterPatternCompiler compiler = new FilterPatternCompiler(filters);
+			filters = compiler.getFilters();
+			removedFilters = compiler.getRemoved();
+		}
+
+		List<List<String>> shards = new ArrayList<>();
+		for (String shard : downloader.splitFilterPattern(StringUtils.join(filters, CommonConstants.COMMA),
+				getMaxParallelDownloads()))
+		{
+			shards.add(downloader.getFilters(shard));
+		}
+
+		return new DownloadTemplate.Builder(m_connectionId, m_credentialsId, scmType)
+				.arg(ScmConstants.SCM_TYPE_PARM, scmType)
+				.arg(ScmConstants.FILE_EXT_PARM, ArgumentUtils.escapeForScript(m_fileExtension))
+				.filters(filters, shards).removedFilters(removedFilters).targetFolder(m_targetFolder)
+				.timeout(getDownloadTimeout()).maxParallel(getMaxParallelDownloads()).incremental(m_incremental)
+				.stagedSwap(isStagedSwap()).sharedFolder(isSharedFolder()).build();
+	}
+
+	/**
+	 * Determines whether the filter pattern is compiled by a {@link FilterPatternCompiler}, which drops duplicate filters
+	 * and filters covered by a wildcard filter and sorts the rest. That is only right where a filter downloads nothing but
+	 * the members its name matches, and the order of the filters does not matter.
+	 * 
+	 * @return <code>false</code>; the filters are downloaded as entered
+	 */
+	protected boolean isFilterPatternCompiled()
+	{
+		return false;
+	}
+
+	/**
+	 * Polling compares a digest of the members on the host with that of the last build's download. The host cannot report
+	 * changes, so each poll downloads every member matching the filter; polling is only supported when the job opts in to
+	 * that cost with the 'Poll the host for changes' option.
+	 */
+	@Override
+	public boolean supportsPolling()
+	{
+		return m_pollHost;
+	}
+
+	/**
+	 * Polling downloads into a scratch folder of the workspace, so it needs the workspace and an agent with the CLI.
+	 */
+	@Override
+	public boolean requiresWorkspaceForPolling()
+	{
+		return true;
+	}
+
+	/**
+	 * Calculates the revision downloaded by a build from the download manifest it left in the workspace.
+	 */
+	@Override
+	public SCMRevisionState calcRevisionsFromBuild(Run<?, ?> build, FilePath workspace, Launcher launcher,
+			TaskListener listener) throws IOException, InterruptedException
+	{
+		if (workspace == null)
+		{
+			return SCMRevisionState.NONE;
+		}
+
+		return createDownloader().getRevisionState(workspace);
+	}
+
+	/**
+	 * Downloads the members into a scratch folder and compares their digest with the revision of the last build. Only a
+	 * change in the content or set of members is reported as a change. The host has no cheaper way to report changes, so a
+	 * poll downloads as much as a build; jobs that have not opted in with 'Poll the host for changes' report no changes.
+	 */
+	@Override
+	public PollingResult compareRemoteRevisionWith(Job<?, ?> project, Launcher launcher, FilePath workspace,
+			TaskListener listener, SCMRevisionState baseline) throws IOException, InterruptedException
+	{
+		PrintStream logger = listener.getLogger();
+		if (!m_pollHost)
+		{
+			logger.println("Polling the host is not enabled for this job"); //$NON-NLS-1$
+			return PollingResult.NO_CHANGES;
+		}
+
+		if (workspace == null)
+		{
+			logger.println("No workspace to poll in, a build is needed"); //$NON-NLS-1$
+			return PollingResult.BUILD_NOW;
+		}
+
+		try
+		{
+			validateParameters(launcher, listener, project);
+		}
+		catch (IllegalArgumentException e)
+		{
+			logger.println(e.getMessage());
+			return PollingResult.NO_CHANGES;
+		}
+
+		Computer computer = workspace.toComputer();
+		Node node = computer != null ? computer.getNode() : null;
+		EnvVars env = node != null ? project.getEnvironment(node, listener) : new EnvVars();
+
+		CpwrRevisionState current = createDownloader().pollRevisionState(project, env, launcher, workspace, listener);
+		logger.println("Host revision: " + current); //$NON-NLS-1$
+
+		if (!(baseline instanceof CpwrRevisionState))
+		{
+			logger.println("No previous download to compare with"); //$NON-NLS-1$
+			return new PollingResult(baseline, current, PollingResult.Change.INCOMPARABLE);
+		}
+
+		logger.println("Last build revision: " + baseline); //$NON-NLS-1$
+		PollingResult.Change change = current.hasSameContent((CpwrRevisionState) baseline) ? PollingResult.Change.NONE
+				: PollingResult.Change.SIGNIFICANT;
+
+		return new PollingResult(baseline, current, change);
+	}
+
 	/**
 	 * Gets the unique identifier of the 'Host connection'.
 	 * 
@@ -127,6 +288,80 @@ public abstract class CpwrScmConfiguration extends AbstractConfiguration
 		return m_targetFolder;
 	}
 
+	/**
+	 * Gets the value of the 'Maximum parallel downloads'. Configurations saved before this option existed download with a
+	 * single CLI process.
+	 * 
+	 * @return <code>int</code> value of m_maxParallelDownloads
+	 */
+	public int getMaxParallelDownloads()
+	{
+		return Math.max(1, m_maxParallelDownloads);
+	}
+
+	/**
+	 * Sets the value of the 'Maximum parallel downloads'.
+	 * 
+	 * @param maxParallelDownloads
+	 *            the maximum number of CLI processes to run at once; values less than one mean one
+	 */
+	@DataBoundSetter
+	public void setMaxParallelDownloads(int maxParallelDownloads)
+	{
+		m_maxParallelDownloads = Math.max(1, maxParallelDownloads);
+		resetDownloadTemplate();
+	}
+
+	/**
+	 * Gets the value of the 'Only rewrite changed files locally' option.
+	 * 
+	 * @return <code>boolean</code> value of m_incremental
+	 */
+	public boolean isIncremental()
+	{
+		return m_incremental;
+	}
+
+	/**
+	 * Sets the value of the 'Only rewrite changed files locally' option. When set, members are downloaded to a staging folder
+	 * first and only the members that changed are written to the download location, while members that are no longer
+	 * downloaded are deleted from it. Every member matching the filter is still downloaded from the host, so the option
+	 * keeps the timestamps of unchanged files rather than shortening the download.
+	 * 
+	 * @param incremental
+	 *            <code>true</code> to only rewrite the files of changed members
+	 */
+	@DataBoundSetter
+	public void setIncremental(boolean incremental)
+	{
+		m_incremental = incremental;
+		resetDownloadTemplate();
+	}
+
+	/**
+	 * Gets the value of the 'Poll the host for changes' option.
+	 * 
+	 * @return <code>boolean</code> value of m_pollHost
+	 */
+	public boolean isPollHost()
+	{
+		return m_pollHost;
+	}
+
+	/**
+	 * Sets the value of the 'Poll the host for changes' option. When set, the job supports polling, and each poll downloads
+	 * every member matching the filter to compare it with the last build's download. When not set, polling reports no
+	 * changes and the job is only built on demand, on a schedule or from a host notification.
+	 * 
+	 * @param pollHost
+	 *            <code>true</code> to download the members on each poll
+	 */
+	@DataBoundSetter
+	public void setPollHost(boolean pollHost)
+	{
+		m_pollHost = pollHost;
+	}
+
 	/**
 	 * Validates the configuration parameters.
 	 * 
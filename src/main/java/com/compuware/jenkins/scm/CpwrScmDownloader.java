@@ -0,0 +1,634 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2015 - 2019 Compuware Corporation
+ * (c) Copyright 2015 - 2019, 2021, 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software 
+ * and associated documentation files (the "Software"), to deal in the Software without restriction, 
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, 
+ * subject to the following conditions: The above copyright notice and this permission notice shall be 
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT 
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.common.utils.CLIVersionUtils;
+import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.scm.SCMRevisionState;
+import hudson.util.ArgumentListBuilder;
+
+/**
+ * Common download logic for the dataset based SCMs (PDS and Endevor). This class will utilize the Topaz command line
+ * interface to do the download.
+ * <p>
+ * When the configuration allows more than one parallel download, the filter pattern is split into shards and a separate CLI
+ * process is run for each shard, all downloading into the same target folder.
+ * <p>
+ * Each download is worked out as a {@link DownloadPlan} on the controller, from the {@link DownloadTemplate} of the
+ * configuration, and run on the agent in a single remote call by a {@link DownloadEngine}.
+ */
+public abstract class CpwrScmDownloader extends AbstractDownloader
+{
+	// Member Variables
+	private final CpwrScmConfiguration m_scmConfig;
+	private final String m_scmType;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param config
+	 *            the <code>CpwrScmConfiguration</code> to use for the download
+	 * @param scmType
+	 *            the value of the CLI <code>-scm</code> parameter
+	 */
+	protected CpwrScmDownloader(CpwrScmConfiguration config, String scmType)
+	{
+		m_scmConfig = config;
+		m_scmType = scmType;
+	}
+
+	/**
+	 * Gets the type of SCM this downloader downloads from.
+	 * 
+	 * @return the value of the CLI <code>-scm</code> parameter
+	 */
+	public String getScmType()
+	{
+		return m_scmType;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractDownloader#getDownloadTemplate()
+	 */
+	@Override
+	protected DownloadTemplate getDownloadTemplate()
+	{
+		return m_scmConfig.getDownloadTemplate();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractDownloader#getSource(hudson.model.Run, hudson.Launcher, hudson.FilePath, hudson.model.TaskListener, java.io.File)
+	 */
+	@Override
+	public boolean getSource(Run<?, ?> build, Launcher launcher, FilePath workspaceFilePath, TaskListener listener,
+			File changelogFile) throws InterruptedException, IOException
+	{
+		PrintStream logger = listener.getLogger();
+		DownloadTemplate template = m_scmConfig.getDownloadTemplate();
+		DownloadEngine engine = new DownloadEngine(DownloadProgressAction.get(build), template.getTimeout());
+
+		assert launcher != null;
+
+		logRemovedFilters(template, logger);
+
+		String targetFolder = ArgumentUtils.escapeForScript(workspaceFilePath.getRemote());
+
+		String sourceLocation = template.getTargetFolder();
+		if (StringUtils.isNotEmpty(sourceLocation))
+		{
+			targetFolder = ArgumentUtils.resolvePath(sourceLocation, workspaceFilePath.getRemote());
+			logger.println("Source download folder: " + targetFolder); //$NON-NLS-1$
+		}
+
+		FilePath targetFolderPath = getTargetFolderPath(workspaceFilePath, sourceLocation);
+		FilePath manifestFile = getManifestFile(workspaceFilePath, targetFolderPath);
+		Job<?, ?> job = build.getParent();
+		EnvVars env = build.getEnvironment(listener);
+
+		// in incremental mode, or when members are cached, the members are collected in a staging folder that is then
+		// synchronized with the download location; with a staged swap, the staging folder is next to the download location
+		// and replaces it once the download is complete
+		boolean swap = isStagedSwap(template, sourceLocation, logger);
+		MemberCache memberCache = MemberCache.get(workspaceFilePath);
+		DownloadChanges changes;
+		if (memberCache != null)
+		{
+			FilePath stagingFolderPath = swap ? getSwapStagingFolder(targetFolderPath)
+					: workspaceFilePath.child(ScmConstants.TOPAZ_CLI_STAGING + UUID.randomUUID().toString());
+			logger.println("Staging folder: " + stagingFolderPath.getRemote()); //$NON-NLS-1$
+			try
+			{
+				downloadWithCache(template, engine, memberCache, job, env, launcher, workspaceFilePath, stagingFolderPath,
+						listener);
+				if (swap)
+				{
+					changes = targetFolderPath.act(
+							new StagedSwap(stagingFolderPath.getRemote(), manifestFile.getRemote(), 0L, true, false, true, true));
+				}
+				else
+				{
+					targetFolderPath.mkdirs();
+					changes = targetFolderPath
+							.act(new IncrementalSync(stagingFolderPath.getRemote(), manifestFile.getRemote()));
+				}
+				getIncompleteMarker(manifestFile).delete();
+			}
+			finally
+			{
+				stagingFolderPath.deleteRecursive();
+			}
+		}
+		else
+		{
+			String stagingFolder = null;
+			if (swap)
+			{
+				stagingFolder = getSwapStagingFolder(targetFolderPath).getRemote();
+				logger.println("Staging folder: " + stagingFolder); //$NON-NLS-1$
+				targetFolder = ArgumentUtils.escapeForScript(stagingFolder);
+			}
+			else if (template.isIncremental())
+			{
+				stagingFolder = workspaceFilePath.child(ScmConstants.TOPAZ_CLI_STAGING + UUID.randomUUID().toString())
+						.getRemote();
+				logger.println("Staging folder: " + stagingFolder); //$NON-NLS-1$
+				targetFolder = ArgumentUtils.escapeForScript(stagingFolder);
+			}
+
+			// a direct download only keeps a manifest when its changes are tracked; the CLI rewrites every member it
+			// downloads
+			boolean tracked = stagingFolder != null || isTracked(job, template);
+			DownloadPlan.Builder plan = createPlan(template, job, env, launcher, workspaceFilePath,
+					getShards(template, targetFolder), listener)
+					.update(targetFolderPath.getRemote(), stagingFolder, tracked ? manifestFile.getRemote() : null)
+					.manifest(true, true);
+			if (swap)
+			{
+				plan.swap(template.isIncremental(), false);
+			}
+			changes = engine.run(launcher, job, template.getConnectionId(), plan.build(), listener);
+		}
+		recordChanges(changes, changelogFile, listener);
+
+		return true;
+	}
+
+	/**
+	 * Logs the configured filters that are left out of the download because other filters already download their datasets.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param logger
+	 *            the build log
+	 */
+	private void logRemovedFilters(DownloadTemplate template, PrintStream logger)
+	{
+		Map<String, String> removedFilters = template.getRemovedFilters();
+		if (removedFilters.isEmpty())
+		{
+			return;
+		}
+
+		logger.println("Filter pattern: " + removedFilters.size() + " duplicate or overlapping filters left out"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (Map.Entry<String, String> removedFilter : removedFilters.entrySet())
+		{
+			logger.println("    " + removedFilter.getKey() + " (downloaded by " + removedFilter.getValue() + ')'); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Gets the revision of the last download into the workspace, as recorded in its download manifest.
+	 * 
+	 * @param workspaceFilePath
+	 *            the workspace of the build
+	 * 
+	 * @return the revision; {@link SCMRevisionState#NONE} if nothing has been downloaded into the workspace yet, or if the
+	 *         last download did not complete
+	 * 
+	 * @throws InterruptedException
+	 *             if reading the manifest is interrupted
+	 * @throws IOException
+	 *             if the manifest cannot be read
+	 */
+	public SCMRevisionState getRevisionState(FilePath workspaceFilePath) throws InterruptedException, IOException
+	{
+		DownloadTemplate template = m_scmConfig.getDownloadTemplate();
+		FilePath targetFolderPath = getTargetFolderPath(workspaceFilePath, template.getTargetFolder());
+		FilePath manifestFile = getManifestFile(workspaceFilePath, targetFolderPath);
+		if (getIncompleteMarker(manifestFile).exists())
+		{
+			return SCMRevisionState.NONE;
+		}
+
+		CpwrRevisionState state = manifestFile.act(new CpwrRevisionState.FromManifest());
+
+		return state != null ? state : SCMRevisionState.NONE;
+	}
+
+	/**
+	 * Gets the current revision on the host by downloading into a scratch folder of the workspace, which is deleted
+	 * afterwards. The download location of the builds is not touched.
+	 * <p>
+	 * Each dataset filter is downloaded into a folder of its own and its listing shared through {@link SharedPolling}, so a
+	 * filter polled by several jobs on the same host connection with the same login is only downloaded once per polling
+	 * cycle. Each filter listed is a full download of its members; when the member cache of the agent is enabled, the
+	 * download is stored in it, so a build started within the reuse period of the cache does not download it again.
+	 * 
+	 * @param job
+	 *            the job being polled
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be downloaded to
+	 * @param workspaceFilePath
+	 *            the workspace to poll in
+	 * @param listener
+	 *            polling listener
+	 * 
+	 * @return the current revision
+	 * 
+	 * @throws InterruptedException
+	 *             if polling is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	public CpwrRevisionState pollRevisionState(Job<?, ?> job, EnvVars env, Launcher launcher, FilePath workspaceFilePath,
+			TaskListener listener) throws InterruptedException, IOException
+	{
+		DownloadTemplate template = m_scmConfig.getDownloadTemplate();
+		List<String> filters = template.getFilters();
+		String credentialScope = MemberCache.getCredentialScope(job, template.getCredentialsId());
+		List<String> keys = new ArrayList<>();
+		for (String filter : filters)
+		{
+			keys.add(MemberCache.getKey(template.getConnectionId(), credentialScope, template.getScmType(), filter,
+					m_scmConfig.getFileExtension()));
+		}
+
+		DownloadManifest manifest = SharedPolling.poll(keys, listener, leadKeys -> {
+			List<String> leadFilters = new ArrayList<>();
+			for (String leadKey : leadKeys)
+			{
+				leadFilters.add(filters.get(keys.indexOf(leadKey)));
+			}
+			return pollFilters(template, job, env, launcher, workspaceFilePath, leadKeys, leadFilters, listener);
+		});
+
+		return new CpwrRevisionState(manifest);
+	}
+
+	/**
+	 * Downloads dataset filters into a scratch folder of the workspace, each into a folder of its own, and lists the members
+	 * downloaded for each filter. The downloads are added to the member cache of the agent, if it is enabled.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param job
+	 *            the job being polled
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be downloaded to
+	 * @param workspaceFilePath
+	 *            the workspace to poll in
+	 * @param keys
+	 *            the keys of the filters, for mapping the listings
+	 * @param filters
+	 *            the dataset filters to download, in the order of their keys
+	 * @param listener
+	 *            polling listener
+	 * 
+	 * @return the manifest of the members of each filter, mapped by its key
+	 * 
+	 * @throws InterruptedException
+	 *             if polling is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	private Map<String, DownloadManifest> pollFilters(DownloadTemplate template, Job<?, ?> job, EnvVars env,
+			Launcher launcher, FilePath workspaceFilePath, List<String> keys, List<String> filters, TaskListener listener)
+			throws InterruptedException, IOException
+	{
+		DownloadEngine engine = new DownloadEngine(null, template.getTimeout());
+		FilePath pollFolderPath = workspaceFilePath.child(ScmConstants.TOPAZ_CLI_POLL + UUID.randomUUID().toString());
+		try
+		{
+			Map<List<String>, String> shards = new LinkedHashMap<>();
+			for (String filter : filters)
+			{
+				FilePath filterFolderPath = pollFolderPath.child(Integer.toString(shards.size()));
+				shards.put(Collections.singletonList(filter), ArgumentUtils.escapeForScript(filterFolderPath.getRemote()));
+			}
+			download(template, engine, job, env, launcher, workspaceFilePath, shards, listener);
+
+			Map<String, DownloadManifest> manifests = new LinkedHashMap<>();
+			for (int i = 0; i < keys.size(); i++)
+			{
+				manifests.put(keys.get(i), pollFolderPath.child(Integer.toString(i)).act(new DownloadManifest.ScanFolder()));
+			}
+
+			// a poll that finds a change triggers a build that needs the same members, so keep them for it
+			MemberCache memberCache = MemberCache.get(workspaceFilePath);
+			if (memberCache != null)
+			{
+				memberCache.store(pollFolderPath, keys);
+			}
+
+			return manifests;
+		}
+		finally
+		{
+			pollFolderPath.deleteRecursive();
+		}
+	}
+
+	/**
+	 * Downloads some of the configured dataset filters into a folder of their own, for reading members without a build.
+	 * 
+	 * @param item
+	 *            the job or multibranch project the download is for, used to look up the credentials
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be downloaded to
+	 * @param workspaceFilePath
+	 *            the folder the CLI runs in and keeps its data in
+	 * @param filters
+	 *            the dataset filters to download
+	 * @param fetchFolderPath
+	 *            the folder to download into
+	 * @param listener
+	 *            listener for the CLI output
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	public void fetch(Item item, EnvVars env, Launcher launcher, FilePath workspaceFilePath, List<String> filters,
+			FilePath fetchFolderPath, TaskListener listener) throws InterruptedException, IOException
+	{
+		DownloadTemplate template = m_scmConfig.getDownloadTemplate();
+		DownloadEngine engine = new DownloadEngine(null, template.getTimeout());
+		Map<List<String>, String> shards = new LinkedHashMap<>();
+		shards.put(filters, ArgumentUtils.escapeForScript(fetchFolderPath.getRemote()));
+		download(template, engine, item, env, launcher, workspaceFilePath, shards, listener);
+	}
+
+	/**
+	 * Gets the shards of the configured filter pattern, that all download into the given folder.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param targetFolder
+	 *            the escaped folder to download into
+	 * 
+	 * @return the dataset filters of each shard mapped to the folder it downloads into
+	 */
+	private Map<List<String>, String> getShards(DownloadTemplate template, String targetFolder)
+	{
+		Map<List<String>, String> shards = new LinkedHashMap<>();
+		for (List<String> shard : template.getShards())
+		{
+			shards.put(shard, targetFolder);
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Collects the configured members in the given folder through the member cache of the agent. Only the filters that are
+	 * not cached, or were cached longer ago than the reuse period, are downloaded from the host, each into a folder of its
+	 * own so that its members can be cached for the filter.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param engine
+	 *            the engine running the download
+	 * @param memberCache
+	 *            the member cache of the agent
+	 * @param job
+	 *            the job the download is for, used to look up the credentials
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be checked out
+	 * @param workspaceFilePath
+	 *            the workspace, where the CLI runs and keeps its data
+	 * @param assemblyFolderPath
+	 *            the folder to collect the members in
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the download fails or the member cache cannot be used
+	 */
+	private void downloadWithCache(DownloadTemplate template, DownloadEngine engine, MemberCache memberCache, Job<?, ?> job,
+			EnvVars env, Launcher launcher, FilePath workspaceFilePath, FilePath assemblyFolderPath, TaskListener listener)
+			throws InterruptedException, IOException
+	{
+		List<String> filters = template.getFilters();
+		String credentialScope = MemberCache.getCredentialScope(job, template.getCredentialsId());
+		List<String> keys = new ArrayList<>();
+		for (String filter : filters)
+		{
+			keys.add(MemberCache.getKey(template.getConnectionId(), credentialScope, template.getScmType(), filter,
+					m_scmConfig.getFileExtension()));
+		}
+
+		List<String> missKeys = memberCache.getMisses(keys);
+		listener.getLogger().println("Member cache: " + (keys.size() - missKeys.size()) + " of " + keys.size() //$NON-NLS-1$ //$NON-NLS-2$
+				+ " filters reused"); //$NON-NLS-1$
+
+		FilePath missFolderPath = workspaceFilePath.child(ScmConstants.TOPAZ_CLI_STAGING + UUID.randomUUID().toString());
+		try
+		{
+			if (!missKeys.isEmpty())
+			{
+				Map<List<String>, String> shards = new LinkedHashMap<>();
+				for (String missKey : missKeys)
+				{
+					FilePath filterFolderPath = missFolderPath.child(Integer.toString(shards.size()));
+					shards.put(Collections.singletonList(filters.get(keys.indexOf(missKey))),
+							ArgumentUtils.escapeForScript(filterFolderPath.getRemote()));
+				}
+				download(template, engine, job, env, launcher, workspaceFilePath, shards, listener);
+			}
+
+			memberCache.fill(missFolderPath, missKeys, keys, assemblyFolderPath);
+		}
+		finally
+		{
+			memberCache.release();
+			missFolderPath.deleteRecursive();
+		}
+	}
+
+	/**
+	 * Runs the CLI on the agent to download the configured members, one CLI process per shard. Each CLI process leases a
+	 * CLI data workspace from the {@link CliWorkspacePool} of the agent, which deletes it in the background unless the call
+	 * succeeded.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param engine
+	 *            the engine running the download
+	 * @param item
+	 *            the job or multibranch project the download is for, used to look up the credentials
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be checked out
+	 * @param workspaceFilePath
+	 *            the workspace, where the CLI runs and keeps its data
+	 * @param shards
+	 *            the dataset filters of each shard mapped to the escaped folder it downloads into
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the CLI is not compatible, could not be launched, exited with a non-zero value or timed out
+	 */
+	private void download(DownloadTemplate template, DownloadEngine engine, Item item, EnvVars env, Launcher launcher,
+			FilePath workspaceFilePath, Map<List<String>, String> shards, TaskListener listener)
+			throws InterruptedException, IOException
+	{
+		DownloadPlan plan = createPlan(template, item, env, launcher, workspaceFilePath, shards, listener).build();
+		engine.run(launcher, item, template.getConnectionId(), plan, listener);
+	}
+
+	/**
+	 * Works out the CLI calls of a download, one per shard (or more, when the filters of a shard do not fit in the argument
+	 * length limits of a single call), each leasing a CLI data workspace of its own.
+	 * 
+	 * @param template
+	 *            the download template of the configuration
+	 * @param item
+	 *            the job or multibranch project the download is for, used to look up the credentials
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be checked out
+	 * @param workspaceFilePath
+	 *            the workspace, where the CLI runs and keeps its data
+	 * @param shards
+	 *            the dataset filters of each shard mapped to the escaped folder it downloads into
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the plan of the download, to which the update of a download location can still be added
+	 * 
+	 * @throws InterruptedException
+	 *             if checking the CLI is interrupted
+	 * @throws IOException
+	 *             if the CLI is not compatible or the arguments cannot be built
+	 */
+	private DownloadPlan.Builder createPlan(DownloadTemplate template, Item item, EnvVars env, Launcher launcher,
+			FilePath workspaceFilePath, Map<List<String>, String> shards, TaskListener listener)
+			throws InterruptedException, IOException
+	{
+		// obtain argument values to pass to the CLI
+		PrintStream logger = listener.getLogger();
+		CpwrGlobalConfiguration globalConfig = CpwrGlobalConfiguration.get();
+		VirtualChannel vChannel = launcher.getChannel();
+
+		//Check CLI compatibility
+		AgentCapabilities agent = AgentCapabilityCache.get(launcher, workspaceFilePath);
+		String cliVersion = agent.getCliVersion();
+		CLIVersionUtils.checkCLICompatibility(cliVersion, ScmConstants.DOWNLOADER_MINIMUM_CLI_VERSION);
+
+		String remoteFileSeparator = agent.getFileSeparator();
+		String osFile = launcher.isUnix() ? ScmConstants.SCM_DOWNLOADER_CLI_SH : ScmConstants.SCM_DOWNLOADER_CLI_BAT;
+
+		String cliScriptFile = agent.getCliLocation() + remoteFileSeparator + osFile;
+		logger.println("cliScriptFile: " + cliScriptFile); //$NON-NLS-1$
+		String cliScriptFileRemote = new FilePath(vChannel, cliScriptFile).getRemote();
+		logger.println("cliScriptFileRemote: " + cliScriptFileRemote); //$NON-NLS-1$
+
+		// build the list of arguments to pass to the CLI; the data workspace and the filter are added for each call, so that
+		// a retry can leave out the datasets that were already downloaded
+		ArgumentListBuilder baseArgs = globalConfig.getArgumentBuilder(cliScriptFileRemote, cliVersion, item,
+				template.getCredentialsId(), template.getConnectionId());
+		baseArgs.add(template.getArgs());
+		String topazCliWorkspacePrefix = workspaceFilePath.getRemote() + remoteFileSeparator
+				+ CommonConstants.TOPAZ_CLI_WORKSPACE;
+
+		DownloadPlan.Builder plan = new DownloadPlan.Builder(workspaceFilePath.getRemote(), env, osFile)
+				.maxParallel(template.getMaxParallel()).maxRetries(RetryPolicy.get().getMaxRetries());
+		for (Map.Entry<List<String>, String> shard : shards.entrySet())
+		{
+			ArgumentListBuilder shardArgs = baseArgs.clone();
+			shardArgs.add(CommonConstants.TARGET_FOLDER_PARM, shard.getValue());
+
+			// a long filter list is split over several calls that each stay within the argument length limits
+			List<List<String>> batches = batchFilters(shard.getKey(),
+					getMaxFilterLength(launcher.isUnix(), shardArgs, topazCliWorkspacePrefix));
+			if (batches.size() > 1)
+			{
+				logger.println("Splitting " + shard.getKey().size() + " filters into " + batches.size() + " CLI calls"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+
+			// each call leases a CLI data workspace in the workspace when it runs on the agent
+			for (List<String> batch : batches)
+			{
+				plan.add(new DownloadPlan.CliCall(shardArgs, batch, workspaceFilePath.getRemote()));
+			}
+		}
+
+		return plan;
+	}
+
+	/**
+	 * Gets the longest dataset filter argument a CLI call can take. On Unix this is the limit on the length of a single
+	 * argument; on Windows the whole command line is limited, so the other arguments and the command the CLI script builds
+	 * around them are taken off.
+	 * 
+	 * @param isUnix
+	 *            <code>true</code> if the CLI runs on Unix
+	 * @param args
+	 *            the CLI script followed by all its arguments but the data workspace and the filter
+	 * @param topazCliWorkspacePrefix
+	 *            the data workspace path without its unique suffix
+	 * 
+	 * @return the maximum length of the escaped filter argument
+	 */
+	private static int getMaxFilterLength(boolean isUnix, ArgumentListBuilder args, String topazCliWorkspacePrefix)
+	{
+		if (isUnix)
+		{
+			return ScmConstants.MAX_FILTER_LENGTH_UNIX;
+		}
+
+		int argsLength = args.toString().length() + CommonConstants.DATA_PARM.length() + topazCliWorkspacePrefix.length()
+				+ UUID.randomUUID().toString().length() + ScmConstants.FILTER_PARM.length() + 3;
+		return Math.max(ScmConstants.MIN_FILTER_LENGTH,
+				ScmConstants.MAX_COMMAND_LINE_LENGTH_WINDOWS - ScmConstants.CLI_SCRIPT_RESERVE_WINDOWS - argsLength);
+	}
+}
@@ -0,0 +1,737 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.scm.SCM;
+import hudson.scm.SCMDescriptor;
+import hudson.util.LogTaskListener;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMFileSystem;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceDescriptor;
+
+/**
+ * Lightweight access to single members of a PDS, Endevor or Code Pipeline configuration, or of a head of an
+ * {@link IspwScmSource}, for reading a pipeline definition or a properties file without checking out the whole
+ * configuration.
+ * <p>
+ * Paths are laid out as the download location of the configuration: for PDS and Endevor, the first folder of a path names
+ * the dataset and the rest the member, so reading a member downloads only its dataset. The CLI cannot download single Code
+ * Pipeline components, so Code Pipeline configurations of jobs are always checked out; only the heads of an
+ * {@link IspwScmSource} are read this way, from the download its indexing made. What is downloaded is kept for
+ * {@link ScmConstants#FILE_SYSTEM_CACHE_MAX_AGE} milliseconds, keyed by the download fingerprint of the configuration, the
+ * credentials it resolves to for the reading item (see {@link MemberCache#getCredentialScope(Item, String)}) and the
+ * dataset, so it is only shared by items that download with the same login. A download that is replaced or dropped from the
+ * cache is deleted once the last of its readers is done with it.
+ * <p>
+ * The CLI runs with the credentials of the reading item, so it never runs on the built-in node: it runs on an agent with
+ * the label of the 'Lightweight checkout agents' of the global configuration, in <code>TopazCliFileSystem</code> under the
+ * root directory of the agent. When no label is set or no agent with it is online, no file system is built, and Jenkins
+ * falls back to a full checkout on the agent of the build.
+ */
+public class CpwrScmFileSystem extends SCMFileSystem
+{
+	private static final Logger LOGGER = Logger.getLogger(CpwrScmFileSystem.class.getName());
+
+	private static final Map<String, Fetch> s_fetches = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AbstractConfiguration m_scm;
+	private final Item m_owner;
+	private final long m_created;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param scm
+	 *            the configuration to read members of
+	 * @param owner
+	 *            the job or multibranch project reading the members, used to look up the credentials; can be
+	 *            <code>null</code>
+	 * @param rev
+	 *            the revision; can be <code>null</code>
+	 */
+	protected CpwrScmFileSystem(AbstractConfiguration scm, Item owner, SCMRevision rev)
+	{
+		super(rev);
+		m_scm = scm;
+		m_owner = owner;
+		m_created = System.currentTimeMillis();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see jenkins.scm.api.SCMFileSystem#lastModified()
+	 */
+	@Override
+	public long lastModified() throws IOException, InterruptedException
+	{
+		return m_created;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see jenkins.scm.api.SCMFileSystem#getRoot()
+	 */
+	@Override
+	public SCMFile getRoot()
+	{
+		return new MemberFile(this);
+	}
+
+	/**
+	 * Gets the dataset filters that download the dataset of a path, or all filters for the root.
+	 * 
+	 * @param dataset
+	 *            the dataset; empty for the root
+	 * 
+	 * @return the dataset filters; <code>null</code> if the configuration does not download the dataset
+	 */
+	List<String> getFilters(String dataset)
+	{
+		return getFilters(m_scm, dataset);
+	}
+
+	/**
+	 * Gets the dataset filters of a configuration that download a dataset, or all filters for the root.
+	 * 
+	 * @param scm
+	 *            the configuration
+	 * @param dataset
+	 *            the dataset; empty for the root
+	 * 
+	 * @return the dataset filters; <code>null</code> if the configuration does not download the dataset
+	 */
+	private static List<String> getFilters(AbstractConfiguration scm, String dataset)
+	{
+		List<String> filters = scm.getDownloadTemplate().getFilters();
+		if (filters == null || dataset.isEmpty())
+		{
+			return filters;
+		}
+
+		String key = dataset.toUpperCase(Locale.ENGLISH);
+		for (String filter : filters)
+		{
+			String pattern = filter.toUpperCase(Locale.ENGLISH);
+			if (pattern.equals(key) || (pattern.endsWith("*") //$NON-NLS-1$
+					&& key.startsWith(pattern.substring(0, pattern.length() - 1))))
+			{
+				return Collections.singletonList(dataset);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets the download holding a dataset, downloading it unless it was downloaded within the reuse period. The download is
+	 * kept for the caller until it releases it.
+	 * 
+	 * @param dataset
+	 *            the dataset; empty for all datasets, or for a Code Pipeline configuration
+	 * 
+	 * @return the download; <code>null</code> if the configuration does not download the dataset
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	Download fetch(String dataset) throws InterruptedException, IOException
+	{
+		return fetch(m_scm, m_owner, dataset);
+	}
+
+	/**
+	 * Gets the download holding a dataset of a configuration, downloading it on a lightweight checkout agent unless it was
+	 * downloaded there within the reuse period. The download is kept for the caller until it releases it.
+	 * 
+	 * @param scm
+	 *            the configuration
+	 * @param owner
+	 *            the job or multibranch project reading the members, used to look up the credentials; can be
+	 *            <code>null</code>
+	 * @param dataset
+	 *            the dataset; empty for all datasets, or for a Code Pipeline configuration
+	 * 
+	 * @return the download; <code>null</code> if the configuration does not download the dataset
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if no lightweight checkout agent is online, or the download fails
+	 */
+	static Download fetch(AbstractConfiguration scm, Item owner, String dataset) throws InterruptedException, IOException
+	{
+		List<String> filters = scm instanceof CpwrScmConfiguration ? getFilters(scm, dataset) : null;
+		if (scm instanceof CpwrScmConfiguration && filters == null)
+		{
+			return null;
+		}
+
+		Node agent = getAgent();
+		if (agent == null)
+		{
+			throw new AbortException("No agent with the label of the 'Lightweight checkout agents' is online"); //$NON-NLS-1$
+		}
+
+		// folders can each define credentials with the same id, so the download is only shared with the same login
+		DownloadTemplate template = scm.getDownloadTemplate();
+		String key = Util.getDigestOf(template.getFingerprint() + '\n'
+				+ MemberCache.getCredentialScope(owner, template.getCredentialsId()) + '\n' + dataset);
+		Fetch fetch;
+		List<Fetch> evicted = new ArrayList<>();
+		synchronized (s_fetches)
+		{
+			fetch = s_fetches.computeIfAbsent(key, k -> new Fetch());
+			Iterator<Fetch> fetches = s_fetches.values().iterator();
+			for (int i = s_fetches.size(); i > ScmConstants.FILE_SYSTEM_CACHE_SIZE && fetches.hasNext(); i--)
+			{
+				evicted.add(fetches.next());
+				fetches.remove();
+			}
+		}
+
+		// the downloads used least recently beyond the size of the cache are dropped, once nobody reads them
+		for (Fetch evict : evicted)
+		{
+			synchronized (evict)
+			{
+				evict.m_evicted = true;
+				evict.replace(null);
+			}
+		}
+
+		synchronized (fetch)
+		{
+			Download download = fetch.m_download;
+			if (download == null || System.currentTimeMillis() - fetch.m_fetched > ScmConstants.FILE_SYSTEM_CACHE_MAX_AGE
+					|| download.m_folder.getChannel() != agent.getChannel())
+			{
+				FilePath workspaceFilePath = agent.getRootPath().child(ScmConstants.TOPAZ_CLI_FILE_SYSTEM);
+				FilePath fetchFolderPath = workspaceFilePath.child(key + '-' + UUID.randomUUID().toString());
+				TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+				Launcher launcher = agent.createLauncher(listener);
+				Job<?, ?> job = owner instanceof Job ? (Job<?, ?>) owner : null;
+				EnvVars env = job != null ? job.getEnvironment(agent, listener) : new EnvVars();
+				try
+				{
+					if (scm instanceof CpwrScmConfiguration)
+					{
+						((CpwrScmConfiguration) scm).createDownloader().fetch(owner, env, launcher, workspaceFilePath,
+								filters, fetchFolderPath, listener);
+					}
+					else
+					{
+						new IspwDownloader((AbstractIspwConfiguration) scm).fetch(owner, env, launcher, workspaceFilePath,
+								fetchFolderPath, listener);
+					}
+				}
+				catch (IOException | InterruptedException | RuntimeException e)
+				{
+					fetchFolderPath.deleteRecursive();
+					throw e;
+				}
+
+				fetch.replace(new Download(fetchFolderPath));
+			}
+
+			download = fetch.m_download.acquire();
+			if (fetch.m_evicted)
+			{
+				// dropped from the cache while downloading; the download goes once the caller is done with it
+				fetch.replace(null);
+			}
+
+			return download;
+		}
+	}
+
+	/**
+	 * Gets the agent that downloads members read without a checkout: the first online agent with the label of the
+	 * 'Lightweight checkout agents' of the global configuration. The CLI runs with the credentials of the jobs reading the
+	 * members, so the built-in node is never used.
+	 * 
+	 * @return the agent; <code>null</code> if no label is set or no agent with it is online
+	 */
+	static Node getAgent()
+	{
+		ScmDownloaderGlobalConfiguration config = ScmDownloaderGlobalConfiguration.get();
+		String label = config != null ? config.getFileSystemLabel() : null;
+		Jenkins jenkins = Jenkins.get();
+		Label agents = label != null ? jenkins.getLabel(label) : null;
+		if (agents == null)
+		{
+			return null;
+		}
+
+		for (Node node : agents.getNodes())
+		{
+			Computer computer = node.toComputer();
+			if (node != jenkins && computer != null && computer.isOnline() && node.getRootPath() != null)
+			{
+				return node;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets whether members can be read without a checkout, which runs the CLI on a lightweight checkout agent.
+	 * 
+	 * @return <code>true</code> if a lightweight checkout agent is online
+	 */
+	static boolean isAvailable()
+	{
+		return getAgent() != null;
+	}
+
+	/**
+	 * Reads a downloaded file, while its download is kept for the reader.
+	 * 
+	 * @param <T>
+	 *            the type of what is read
+	 */
+	private interface Reader<T>
+	{
+		/**
+		 * Reads a downloaded file.
+		 * 
+		 * @param file
+		 *            the file; <code>null</code> if the configuration does not download it
+		 * 
+		 * @return what was read
+		 * 
+		 * @throws InterruptedException
+		 *             if reading is interrupted
+		 * @throws IOException
+		 *             if the file cannot be read
+		 */
+		T read(FilePath file) throws IOException, InterruptedException;
+	}
+
+	/**
+	 * A download of a dataset on a lightweight checkout agent. A download that has been replaced is deleted once the last
+	 * of its readers releases it, so that members are never deleted under their readers.
+	 */
+	static final class Download
+	{
+		private final FilePath m_folder;
+		private int m_readers;
+		private boolean m_retired;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param folder
+		 *            the folder holding the download
+		 */
+		private Download(FilePath folder)
+		{
+			m_folder = folder;
+		}
+
+		/**
+		 * Gets the folder holding the download.
+		 * 
+		 * @return the folder, on the agent that downloaded it
+		 */
+		FilePath getFolder()
+		{
+			return m_folder;
+		}
+
+		/**
+		 * Keeps the download for a reader.
+		 * 
+		 * @return this download
+		 */
+		private synchronized Download acquire()
+		{
+			m_readers++;
+			return this;
+		}
+
+		/**
+		 * Lets go of the download after reading it, deleting it if it has been replaced and this was its last reader.
+		 */
+		void release()
+		{
+			boolean delete;
+			synchronized (this)
+			{
+				m_readers--;
+				delete = m_retired && m_readers == 0;
+			}
+
+			if (delete)
+			{
+				delete();
+			}
+		}
+
+		/**
+		 * Drops the download from the cache, deleting it now if nobody reads it, or else when its last reader releases it.
+		 */
+		private void retire()
+		{
+			boolean delete;
+			synchronized (this)
+			{
+				m_retired = true;
+				delete = m_readers == 0;
+			}
+
+			if (delete)
+			{
+				delete();
+			}
+		}
+
+		/**
+		 * Deletes the folder holding the download.
+		 */
+		private void delete()
+		{
+			try
+			{
+				m_folder.deleteRecursive();
+			}
+			catch (IOException e)
+			{
+				LOGGER.log(Level.FINE, "Unable to delete " + m_folder, e); //$NON-NLS-1$
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				LOGGER.log(Level.FINE, "Interrupted while deleting " + m_folder, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * The last download of a dataset.
+	 */
+	private static final class Fetch
+	{
+		private Download m_download;
+		private long m_fetched;
+		private boolean m_evicted;
+
+		/**
+		 * Replaces the download. The download it replaces is deleted once nobody reads it anymore.
+		 * 
+		 * @param download
+		 *            the new download; <code>null</code> to drop the download
+		 */
+		private void replace(Download download)
+		{
+			if (m_download != null)
+			{
+				m_download.retire();
+			}
+			m_download = download;
+			m_fetched = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * A dataset, member or folder of the download location of a configuration.
+	 */
+	private static final class MemberFile extends SCMFile
+	{
+		private final CpwrScmFileSystem m_fs;
+
+		/**
+		 * Constructor for the root.
+		 * 
+		 * @param fs
+		 *            the file system
+		 */
+		private MemberFile(CpwrScmFileSystem fs)
+		{
+			m_fs = fs;
+		}
+
+		/**
+		 * Constructor for a child.
+		 * 
+		 * @param parent
+		 *            the parent folder
+		 * @param name
+		 *            the name of the child
+		 */
+		private MemberFile(MemberFile parent, String name)
+		{
+			super(parent, name);
+			m_fs = parent.m_fs;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFile#newChild(java.lang.String, boolean)
+		 */
+		@Override
+		protected SCMFile newChild(String name, boolean assumeIsDirectory)
+		{
+			return new MemberFile(this, name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFile#children()
+		 */
+		@Override
+		public Iterable<SCMFile> children() throws IOException, InterruptedException
+		{
+			List<String> names = read(file -> {
+				List<String> list = new ArrayList<>();
+				if (file != null && file.isDirectory())
+				{
+					for (FilePath child : file.list())
+					{
+						list.add(child.getName());
+					}
+				}
+				return list;
+			});
+
+			List<SCMFile> children = new ArrayList<>();
+			for (String name : names)
+			{
+				children.add(newChild(name, false));
+			}
+
+			return children;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFile#lastModified()
+		 */
+		@Override
+		public long lastModified() throws IOException, InterruptedException
+		{
+			return read(file -> file != null && file.exists() ? file.lastModified() : 0L);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFile#type()
+		 */
+		@Override
+		protected Type type() throws IOException, InterruptedException
+		{
+			return read(file -> {
+				if (file == null || !file.exists())
+				{
+					return Type.NONEXISTENT;
+				}
+				return file.isDirectory() ? Type.DIRECTORY : Type.REGULAR_FILE;
+			});
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFile#content()
+		 */
+		@Override
+		public InputStream content() throws IOException, InterruptedException
+		{
+			byte[] content = read(file -> {
+				if (file == null || !file.exists() || file.isDirectory())
+				{
+					return null;
+				}
+				try (InputStream in = file.read())
+				{
+					return IOUtils.toByteArray(in);
+				}
+			});
+
+			if (content == null)
+			{
+				throw new FileNotFoundException(getPath());
+			}
+
+			return new ByteArrayInputStream(content);
+		}
+
+		/**
+		 * Reads the downloaded file, downloading its dataset if needed. The download is kept until the file has been read.
+		 * 
+		 * @param <T>
+		 *            the type of what is read
+		 * @param reader
+		 *            reads the file
+		 * 
+		 * @return what was read
+		 * 
+		 * @throws InterruptedException
+		 *             if the download or reading is interrupted
+		 * @throws IOException
+		 *             if the download fails or the file cannot be read
+		 */
+		private <T> T read(Reader<T> reader) throws IOException, InterruptedException
+		{
+			String path = isRoot() ? StringUtils.EMPTY : getPath();
+			String dataset = m_fs.m_scm instanceof CpwrScmConfiguration ? StringUtils.substringBefore(path, "/") //$NON-NLS-1$
+					: StringUtils.EMPTY;
+			Download download = m_fs.fetch(dataset);
+			if (download == null)
+			{
+				return reader.read(null);
+			}
+
+			try
+			{
+				return reader.read(path.isEmpty() ? download.getFolder() : download.getFolder().child(path));
+			}
+			finally
+			{
+				download.release();
+			}
+		}
+	}
+
+	/**
+	 * Builds the file systems of PDS and Endevor configurations, and of the heads of Code Pipeline multibranch sources.
+	 */
+	@Extension
+	public static class BuilderImpl extends SCMFileSystem.Builder
+	{
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFileSystem.Builder#supports(hudson.scm.SCM)
+		 */
+		@Override
+		public boolean supports(SCM source)
+		{
+			return isSupported(source.getClass());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFileSystem.Builder#supports(jenkins.scm.api.SCMSource)
+		 */
+		@Override
+		public boolean supports(SCMSource source)
+		{
+			return source instanceof IspwScmSource;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFileSystem.Builder#supportsDescriptor(hudson.scm.SCMDescriptor)
+		 */
+		@SuppressWarnings("rawtypes")
+		@Override
+		protected boolean supportsDescriptor(SCMDescriptor descriptor)
+		{
+			return isSupported(descriptor.clazz);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFileSystem.Builder#supportsDescriptor(jenkins.scm.api.SCMSourceDescriptor)
+		 */
+		@Override
+		protected boolean supportsDescriptor(SCMSourceDescriptor descriptor)
+		{
+			return descriptor instanceof IspwScmSource.DescriptorImpl;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFileSystem.Builder#build(hudson.model.Item, hudson.scm.SCM, jenkins.scm.api.SCMRevision)
+		 */
+		@Override
+		public SCMFileSystem build(Item owner, SCM scm, SCMRevision rev) throws IOException, InterruptedException
+		{
+			if (!(owner instanceof Job) || !isSupported(scm.getClass()) || !isAvailable())
+			{
+				return null;
+			}
+
+			return new CpwrScmFileSystem((AbstractConfiguration) scm, owner, rev);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMFileSystem.Builder#build(jenkins.scm.api.SCMSource, jenkins.scm.api.SCMHead, jenkins.scm.api.SCMRevision)
+		 */
+		@Override
+		public SCMFileSystem build(SCMSource source, SCMHead head, SCMRevision rev) throws IOException, InterruptedException
+		{
+			if (!(source instanceof IspwScmSource) || !isAvailable())
+			{
+				return null;
+			}
+
+			return new CpwrScmFileSystem(((IspwScmSource) source).build(head, rev), source.getOwner(), rev);
+		}
+
+		/**
+		 * Gets whether members of a configuration can be read without a checkout.
+		 * 
+		 * @param clazz
+		 *            the class of the configuration
+		 * 
+		 * @return <code>true</code> for PDS and Endevor configurations, which can download the dataset of a single member
+		 */
+		private static boolean isSupported(Class<?> clazz)
+		{
+			return CpwrScmConfiguration.class.isAssignableFrom(clazz);
+		}
+	}
+}
@@ -0,0 +1,541 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.scm.SCM;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Reverse index from what the host changes to the jobs that download it, for triggering builds from host change
+ * notifications.
+ * <p>
+ * Each configuration is indexed under keys naming what it downloads: a dataset filter of a PDS or Endevor configuration, the
+ * stream, application and level of a Code Pipeline repository configuration, or the container of a Code Pipeline container
+ * configuration, each with its host connection. A notification is turned into the keys it names, so finding the jobs to
+ * build does not depend on the number of jobs. A changed dataset is also checked against the wildcard filters of its host
+ * connection with {@link FilterPatternCompiler#matches(String, String)}, so a wildcard only matches within a qualifier, as
+ * in the download. The wildcard filters are grouped by their first qualifier, and a dataset is only checked against those
+ * of its own first qualifier and those that wildcard the first qualifier.
+ * <p>
+ * Only jobs that opt in, by having the Poll SCM trigger (its schedule can be left empty), are indexed. Jobs whose SCMs are
+ * part of their configuration, such as freestyle projects, are indexed when Jenkins loads its jobs and when they are saved.
+ * Pipeline jobs only know their SCMs from their builds, and asking for them loads the last build, so they are only indexed
+ * when one of their builds completes, and are not found after a restart until they have built again.
+ */
+public final class CpwrScmTriggerIndex
+{
+	private static final String DATASET_KEY = "dataset"; //$NON-NLS-1$
+	private static final String LEVEL_KEY = "level"; //$NON-NLS-1$
+	private static final String CONTAINER_KEY = "container"; //$NON-NLS-1$
+	private static final String[] CONTAINER_FIELDS = { "container", "assignment", "release", "set" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	private static final char SEPARATOR = '|';
+	private static final String DATASET_PREFIX = DATASET_KEY + SEPARATOR;
+
+	private static final CpwrScmTriggerIndex INSTANCE = new CpwrScmTriggerIndex();
+
+	private final Map<String, Set<String>> m_jobsByKey = new HashMap<>();
+	private final Map<String, Set<String>> m_keysByJob = new HashMap<>();
+	private final Map<String, Set<String>> m_patternsByGroup = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	CpwrScmTriggerIndex()
+	{
+	}
+
+	/**
+	 * Gets the index of the jobs of this Jenkins.
+	 * 
+	 * @return the <code>CpwrScmTriggerIndex</code>
+	 */
+	public static CpwrScmTriggerIndex get()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Indexes a job under the given keys, replacing the keys it was indexed under before.
+	 * 
+	 * @param job
+	 *            the full name of the job
+	 * @param keys
+	 *            the keys; empty to drop the job from the index
+	 */
+	synchronized void put(String job, Collection<String> keys)
+	{
+		remove(job);
+		if (keys.isEmpty())
+		{
+			return;
+		}
+
+		m_keysByJob.put(job, new HashSet<>(keys));
+		for (String key : keys)
+		{
+			m_jobsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(job);
+			if (isPatternKey(key))
+			{
+				m_patternsByGroup.computeIfAbsent(getGroup(key), k -> new HashSet<>()).add(key);
+			}
+		}
+	}
+
+	/**
+	 * Drops a job from the index.
+	 * 
+	 * @param job
+	 *            the full name of the job
+	 */
+	synchronized void remove(String job)
+	{
+		Set<String> keys = m_keysByJob.remove(job);
+		if (keys == null)
+		{
+			return;
+		}
+
+		for (String key : keys)
+		{
+			Set<String> jobs = m_jobsByKey.get(key);
+			jobs.remove(job);
+			if (jobs.isEmpty())
+			{
+				m_jobsByKey.remove(key);
+				if (isPatternKey(key))
+				{
+					String group = getGroup(key);
+					Set<String> patterns = m_patternsByGroup.get(group);
+					patterns.remove(key);
+					if (patterns.isEmpty())
+					{
+						m_patternsByGroup.remove(group);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the jobs indexed under any of the given keys, or, for a dataset key, under a wildcard filter of the same host
+	 * connection that names the dataset.
+	 * 
+	 * @param keys
+	 *            the keys of a notification
+	 * 
+	 * @return the full names of the jobs, in no particular order
+	 */
+	synchronized Set<String> find(Collection<String> keys)
+	{
+		Set<String> jobs = new HashSet<>();
+		for (String key : keys)
+		{
+			jobs.addAll(m_jobsByKey.getOrDefault(key, Collections.<String>emptySet()));
+			if (!key.startsWith(DATASET_PREFIX))
+			{
+				continue;
+			}
+
+			String dataset = getName(key);
+			for (String group : new String[] { getGroup(key), getGroup(key, StringUtils.EMPTY) })
+			{
+				for (String pattern : m_patternsByGroup.getOrDefault(group, Collections.<String>emptySet()))
+				{
+					if (FilterPatternCompiler.matches(getName(pattern), dataset))
+					{
+						jobs.addAll(m_jobsByKey.get(pattern));
+					}
+				}
+			}
+		}
+
+		return jobs;
+	}
+
+	/**
+	 * Finds the jobs that download what a host change notification names.
+	 * 
+	 * @param notification
+	 *            the notification: a single change, or an object with an <code>events</code> array of changes
+	 * 
+	 * @return the full names of the jobs, in no particular order
+	 * 
+	 * @throws JSONException
+	 *             if a change of the notification is not a JSON object, or a dataset is not a string
+	 */
+	public Set<String> find(JSONObject notification) throws JSONException
+	{
+		return find(getEventKeys(notification));
+	}
+
+	/**
+	 * Indexes a job under what its configurations download, when its configuration changed. A job that does not opt in is
+	 * dropped from the index; a job that only knows its SCMs from its builds keeps the keys of its last build.
+	 * 
+	 * @param job
+	 *            the job
+	 */
+	public void index(Job<?, ?> job)
+	{
+		index(job, job instanceof AbstractProject);
+	}
+
+	/**
+	 * Indexes a job under what its configurations download, when one of its builds completed.
+	 * 
+	 * @param run
+	 *            the completed build
+	 */
+	public void indexBuild(Run<?, ?> run)
+	{
+		index(run.getParent(), true);
+	}
+
+	/**
+	 * Indexes a job under what its configurations download, if it opts in.
+	 * 
+	 * @param job
+	 *            the job
+	 * @param scmsKnown
+	 *            <code>true</code> if the SCMs of the job can be asked for without loading its builds
+	 */
+	private void index(Job<?, ?> job, boolean scmsKnown)
+	{
+		SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+		if (item == null || item.getSCMTrigger() == null)
+		{
+			remove(job.getFullName());
+			return;
+		}
+
+		if (!scmsKnown)
+		{
+			return;
+		}
+
+		Set<String> keys = new HashSet<>();
+		for (SCM scm : item.getSCMs())
+		{
+			keys.addAll(getKeys(scm));
+		}
+
+		put(job.getFullName(), keys);
+	}
+
+	/**
+	 * Indexes all jobs of this Jenkins whose SCMs are part of their configuration.
+	 */
+	public void rebuild()
+	{
+		for (Job<?, ?> job : Jenkins.get().allItems(Job.class))
+		{
+			index(job);
+		}
+	}
+
+	/**
+	 * Gets the keys a configuration is indexed under.
+	 * 
+	 * @param scm
+	 *            the configuration
+	 * 
+	 * @return the keys; empty for configurations of other SCMs
+	 */
+	static Set<String> getKeys(SCM scm)
+	{
+		Set<String> keys = new HashSet<>();
+		if (scm instanceof CpwrScmConfiguration)
+		{
+			CpwrScmConfiguration config = (CpwrScmConfiguration) scm;
+			List<String> filters = config.getDownloadTemplate().getFilters();
+			for (String filter : filters != null ? filters : Collections.<String>emptyList())
+			{
+				keys.add(key(DATASET_KEY, config.getConnectionId(), filter));
+			}
+		}
+		else if (scm instanceof IspwConfiguration)
+		{
+			IspwConfiguration config = (IspwConfiguration) scm;
+			keys.add(key(LEVEL_KEY, config.getConnectionId(), config.getServerStream(), config.getServerApplication(),
+					config.getServerLevel()));
+		}
+		else if (scm instanceof IspwContainerConfiguration)
+		{
+			IspwContainerConfiguration config = (IspwContainerConfiguration) scm;
+			keys.add(key(CONTAINER_KEY, config.getConnectionId(), config.getContainerName()));
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Gets the keys a host change notification names. A dataset key also finds the wildcard filters that name the dataset.
+	 * 
+	 * @param notification
+	 *            the notification: a single change, or an object with an <code>events</code> array of changes
+	 * 
+	 * @return the keys
+	 * 
+	 * @throws JSONException
+	 *             if a change of the notification is not a JSON object, or a dataset is not a string
+	 */
+	static Set<String> getEventKeys(JSONObject notification) throws JSONException
+	{
+		List<JSONObject> events = new ArrayList<>();
+		JSONArray array = notification.optJSONArray("events"); //$NON-NLS-1$
+		if (array != null)
+		{
+			for (int i = 0; i < array.size(); i++)
+			{
+				events.add(array.getJSONObject(i));
+			}
+		}
+		else
+		{
+			events.add(notification);
+		}
+
+		Set<String> keys = new LinkedHashSet<>();
+		for (JSONObject event : events)
+		{
+			String connectionId = event.optString("connectionId"); //$NON-NLS-1$
+			if (connectionId.isEmpty())
+			{
+				continue;
+			}
+
+			List<String> datasets = new ArrayList<>();
+			JSONArray datasetArray = event.optJSONArray("datasets"); //$NON-NLS-1$
+			if (datasetArray != null)
+			{
+				for (int i = 0; i < datasetArray.size(); i++)
+				{
+					datasets.add(datasetArray.getString(i));
+				}
+			}
+			if (event.has("dataset")) //$NON-NLS-1$
+			{
+				datasets.add(event.getString("dataset")); //$NON-NLS-1$
+			}
+			for (String dataset : datasets)
+			{
+				keys.add(key(DATASET_KEY, connectionId, dataset));
+			}
+
+			String stream = event.optString("stream"); //$NON-NLS-1$
+			String application = event.optString("application"); //$NON-NLS-1$
+			String level = event.optString("level"); //$NON-NLS-1$
+			if (!stream.isEmpty() && !application.isEmpty() && !level.isEmpty())
+			{
+				keys.add(key(LEVEL_KEY, connectionId, stream, application, level));
+			}
+
+			for (String field : CONTAINER_FIELDS)
+			{
+				String container = event.optString(field);
+				if (!container.isEmpty())
+				{
+					keys.add(key(CONTAINER_KEY, connectionId, container));
+				}
+			}
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Makes a key of the index. Host names are not case sensitive, so the key is upper case.
+	 * 
+	 * @param type
+	 *            the type of the key
+	 * @param connectionId
+	 *            the host connection
+	 * @param names
+	 *            the names of what is downloaded
+	 * 
+	 * @return the key
+	 */
+	private static String key(String type, String connectionId, String... names)
+	{
+		StringBuilder key = new StringBuilder(type).append(SEPARATOR).append(connectionId);
+		for (String name : names)
+		{
+			key.append(SEPARATOR).append(StringUtils.trimToEmpty(name).toUpperCase(Locale.ENGLISH));
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * Checks whether a key is that of a wildcard dataset filter.
+	 * 
+	 * @param key
+	 *            the key
+	 * 
+	 * @return <code>true</code> if the key is a dataset key whose filter has a wildcard
+	 */
+	private static boolean isPatternKey(String key)
+	{
+		return key.startsWith(DATASET_PREFIX) && FilterPatternCompiler.isPattern(getName(key));
+	}
+
+	/**
+	 * Gets the name of a dataset key.
+	 * 
+	 * @param key
+	 *            the dataset key
+	 * 
+	 * @return the dataset or filter name, upper case
+	 */
+	private static String getName(String key)
+	{
+		return key.substring(key.indexOf(SEPARATOR, DATASET_PREFIX.length()) + 1);
+	}
+
+	/**
+	 * Gets the group of wildcard filters a dataset key belongs to, or is checked against: its host connection and first
+	 * qualifier. A filter whose first qualifier has a wildcard belongs to the group with an empty first qualifier.
+	 * 
+	 * @param key
+	 *            the dataset key
+	 * 
+	 * @return the group
+	 */
+	private static String getGroup(String key)
+	{
+		String qualifier = FilterPatternCompiler.getFirstQualifier(getName(key));
+		return getGroup(key, FilterPatternCompiler.isPattern(qualifier) ? StringUtils.EMPTY : qualifier);
+	}
+
+	/**
+	 * Gets a group of wildcard filters of the host connection of a dataset key.
+	 * 
+	 * @param key
+	 *            the dataset key
+	 * @param qualifier
+	 *            the first qualifier of the filters
+	 * 
+	 * @return the group
+	 */
+	private static String getGroup(String key, String qualifier)
+	{
+		return key.substring(0, key.indexOf(SEPARATOR, DATASET_PREFIX.length()) + 1) + qualifier;
+	}
+
+	/**
+	 * Keeps the index up to date with the jobs of this Jenkins.
+	 */
+	@Extension
+	public static class ItemListenerImpl extends ItemListener
+	{
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.ItemListener#onLoaded()
+		 */
+		@Override
+		public void onLoaded()
+		{
+			get().rebuild();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.ItemListener#onCreated(hudson.model.Item)
+		 */
+		@Override
+		public void onCreated(Item item)
+		{
+			onUpdated(item);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.ItemListener#onUpdated(hudson.model.Item)
+		 */
+		@Override
+		public void onUpdated(Item item)
+		{
+			if (item instanceof Job)
+			{
+				get().index((Job<?, ?>) item);
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.ItemListener#onDeleted(hudson.model.Item)
+		 */
+		@Override
+		public void onDeleted(Item item)
+		{
+			get().remove(item.getFullName());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.ItemListener#onLocationChanged(hudson.model.Item, java.lang.String, java.lang.String)
+		 */
+		@Override
+		public void onLocationChanged(Item item, String oldFullName, String newFullName)
+		{
+			get().remove(oldFullName);
+			onUpdated(item);
+		}
+	}
+
+	/**
+	 * Indexes a job again when one of its builds completes, which is when a Pipeline job learns its SCMs.
+	 */
+	@Extension
+	public static class RunListenerImpl extends RunListener<Run<?, ?>>
+	{
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.RunListener#onCompleted(hudson.model.Run, hudson.model.TaskListener)
+		 */
+		@Override
+		public void onCompleted(Run<?, ?> run, TaskListener listener)
+		{
+			get().indexBuild(run);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import hudson.Extension;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.csrf.CrumbExclusion;
+import hudson.util.Secret;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Endpoint for host change notifications, such as Code Pipeline set deploy or promote events, that builds only the jobs
+ * downloading what changed instead of having every job poll the host.
+ * <p>
+ * A notification is a JSON object naming the host connection and a dataset, a stream, application and level, or a container
+ * (see {@link CpwrScmTriggerIndex}); it is posted to <code>JENKINS_URL/compuware-scm-webhook/notify</code> with the token of
+ * the global configuration in the <code>X-Compuware-Token</code> header. The endpoint is disabled until a token is set, and
+ * only builds jobs that have the Poll SCM trigger.
+ */
+@Extension
+public class CpwrScmWebhook implements UnprotectedRootAction
+{
+	static final String URL_NAME = "compuware-scm-webhook"; //$NON-NLS-1$
+	static final String TOKEN_HEADER = "X-Compuware-Token"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(CpwrScmWebhook.class.getName());
+
+	/*
+	 * (non-Javadoc)
+	 * @see hudson.model.Action#getIconFileName()
+	 */
+	@Override
+	public String getIconFileName()
+	{
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see hudson.model.Action#getDisplayName()
+	 */
+	@Override
+	public String getDisplayName()
+	{
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see hudson.model.Action#getUrlName()
+	 */
+	@Override
+	public String getUrlName()
+	{
+		return URL_NAME;
+	}
+
+	/**
+	 * Schedules a build of the jobs downloading what a host change notification names.
+	 * 
+	 * @param request
+	 *            the request, with the notification as its body
+	 * 
+	 * @return the names of the scheduled jobs
+	 * 
+	 * @throws IOException
+	 *             if the notification cannot be read
+	 */
+	@RequirePOST
+	public HttpResponse doNotify(StaplerRequest request) throws IOException
+	{
+		ScmDownloaderGlobalConfiguration globalConfig = ScmDownloaderGlobalConfiguration.get();
+		Secret token = globalConfig != null ? globalConfig.getWebhookToken() : null;
+		if (token == null)
+		{
+			return HttpResponses.notFound();
+		}
+
+		if (!isToken(token.getPlainText(), request.getHeader(TOKEN_HEADER)))
+		{
+			return HttpResponses.forbidden();
+		}
+
+		JSONObject notification;
+		Set<String> names;
+		try
+		{
+			notification = JSONObject.fromObject(IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8));
+			names = CpwrScmTriggerIndex.get().find(notification);
+		}
+		catch (JSONException e)
+		{
+			return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+		}
+
+		Set<String> scheduled = new TreeSet<>();
+		try (ACLContext context = ACL.as(ACL.SYSTEM))
+		{
+			for (String name : names)
+			{
+				Job<?, ?> job = Jenkins.get().getItemByFullName(name, Job.class);
+				SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+				if (item != null && item.getSCMTrigger() != null && item.scheduleBuild2(item.getQuietPeriod(),
+						new CauseAction(new WebhookCause(notification.optString("connectionId")))) != null) //$NON-NLS-1$
+				{
+					scheduled.add(name);
+				}
+			}
+		}
+
+		LOGGER.log(Level.FINE, "Host change notification scheduled {0}", scheduled); //$NON-NLS-1$
+		JSONObject result = new JSONObject();
+		result.put("jobs", JSONArray.fromObject(scheduled)); //$NON-NLS-1$
+		return HttpResponses.okJSON(result);
+	}
+
+	/**
+	 * Checks the token of a request in constant time.
+	 * 
+	 * @param token
+	 *            the configured token, in plain text
+	 * @param value
+	 *            the token of the request; may be <code>null</code>
+	 * 
+	 * @return <code>true</code> if the tokens are the same
+	 */
+	static boolean isToken(String token, String value)
+	{
+		return value != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+				value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Cause of a build scheduled by a host change notification.
+	 */
+	public static class WebhookCause extends Cause
+	{
+		private final String m_connectionId;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param connectionId
+		 *            the host connection the notification named
+		 */
+		public WebhookCause(String connectionId)
+		{
+			m_connectionId = connectionId;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.model.Cause#getShortDescription()
+		 */
+		@Override
+		public String getShortDescription()
+		{
+			return Messages.webhookCause(m_connectionId);
+		}
+	}
+
+	/**
+	 * Lets notifications be posted without a crumb, since the token protects the endpoint.
+	 */
+	@Extension
+	public static class CrumbExclusionImpl extends CrumbExclusion
+	{
+		/*
+		 * (non-Javadoc)
+		 * @see hudson.security.csrf.CrumbExclusion#process(javax.servlet.http.HttpServletRequest,
+		 * javax.servlet.http.HttpServletResponse, javax.servlet.FilterChain)
+		 */
+		@Override
+		public boolean process(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+				throws IOException, ServletException
+		{
+			String pathInfo = request.getPathInfo();
+			if (pathInfo != null && pathInfo.startsWith('/' + URL_NAME + '/'))
+			{
+				chain.doFilter(request, response);
+				return true;
+			}
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The files added, modified and removed in a download location by a download, as '/' separated paths relative to the
+ * download location.
+ */
+public class DownloadChanges implements Serializable
+{
+	private static final long serialVersionUID = 1943752007914372188L;
+
+	private final List<String> m_added = new ArrayList<>();
+	private final List<String> m_modified = new ArrayList<>();
+	private final List<String> m_removed = new ArrayList<>();
+	private int m_unchanged;
+
+	/**
+	 * Records a file that was not in the download location before.
+	 * 
+	 * @param path
+	 *            the relative path of the file
+	 */
+	public void added(String path)
+	{
+		m_added.add(path);
+	}
+
+	/**
+	 * Records a file whose content changed.
+	 * 
+	 * @param path
+	 *            the relative path of the file
+	 */
+	public void modified(String path)
+	{
+		m_modified.add(path);
+	}
+
+	/**
+	 * Records a file that is no longer downloaded.
+	 * 
+	 * @param path
+	 *            the relative path of the file
+	 */
+	public void removed(String path)
+	{
+		m_removed.add(path);
+	}
+
+	/**
+	 * Records a file whose content did not change.
+	 */
+	public void unchanged()
+	{
+		m_unchanged++;
+	}
+
+	/**
+	 * Gets the files that were not in the download location before.
+	 * 
+	 * @return the unmodifiable list of added paths
+	 */
+	public List<String> getAdded()
+	{
+		return Collections.unmodifiableList(m_added);
+	}
+
+	/**
+	 * Gets the files whose content changed.
+	 * 
+	 * @return the unmodifiable list of modified paths
+	 */
+	public List<String> getModified()
+	{
+		return Collections.unmodifiableList(m_modified);
+	}
+
+	/**
+	 * Gets the files that are no longer downloaded.
+	 * 
+	 * @return the unmodifiable list of removed paths
+	 */
+	public List<String> getRemoved()
+	{
+		return Collections.unmodifiableList(m_removed);
+	}
+
+	/**
+	 * Gets the number of files whose content did not change.
+	 * 
+	 * @return the number of unchanged files
+	 */
+	public int getUnchanged()
+	{
+		return m_unchanged;
+	}
+
+	/**
+	 * Determines whether any file was added, modified or removed.
+	 * 
+	 * @return <code>true</code> if nothing changed
+	 */
+	public boolean isEmpty()
+	{
+		return m_added.isEmpty() && m_modified.isEmpty() && m_removed.isEmpty();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return m_added.size() + " added, " + m_modified.size() + " modified, " + m_removed.size() + " removed, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ m_unchanged + " unchanged"; //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.AbortException;
+import hudson.Launcher;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import hudson.util.StreamTaskListener;
+
+/**
+ * Runs download plans. This is the single place where the downloaders launch the CLI, so that how the CLI is run (and how
+ * its result is reported) is the same for every type of download.
+ * <p>
+ * An engine is created for each checkout or poll and holds what the plans it runs share: the download timeout, which starts
+ * when the engine is created, and the download progress of the build. The downloaders themselves keep no state between
+ * calls, so a downloader can run any number of downloads, one after the other or at the same time.
+ */
+public class DownloadEngine
+{
+	private final DownloadProgressAction m_progress;
+	private final int m_timeout;
+	private final long m_deadline;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param progress
+	 *            the download progress to count the output of the CLI in; <code>null</code> if progress is not tracked
+	 * @param timeout
+	 *            the number of minutes the plans run by this engine may take together; zero or less for no timeout
+	 */
+	public DownloadEngine(DownloadProgressAction progress, int timeout)
+	{
+		m_progress = progress;
+		m_timeout = timeout;
+		m_deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(timeout);
+	}
+
+	/**
+	 * Runs a download plan on the agent in a single remote call and waits for it to complete. The download takes a download
+	 * slot of its host connection for each CLI process it runs at the same time: it waits for the first slot, and runs as
+	 * many of the plan's CLI calls in parallel as there are slots free at that moment.
+	 * 
+	 * @param launcher
+	 *            the machine that the files will be checked out
+	 * @param item
+	 *            the job or multibranch project downloading, whose folder it queues in for a download slot
+	 * @param connectionId
+	 *            the host connection to download from
+	 * @param plan
+	 *            the download plan
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the changes made to the download location; <code>null</code> if the plan only downloads
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the CLI could not be launched, exited with a non-zero value or timed out
+	 */
+	public DownloadChanges run(Launcher launcher, Item item, String connectionId, DownloadPlan plan,
+			TaskListener listener) throws InterruptedException, IOException
+	{
+		long timeLeft = 0;
+		if (m_timeout > 0)
+		{
+			timeLeft = TimeUnit.NANOSECONDS.toMillis(m_deadline - System.nanoTime());
+			if (timeLeft <= 0)
+			{
+				throw new AbortException("The download timed out after " + m_timeout + " minutes and was stopped"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		List<ConnectionLimiter.Permit> permits = new ArrayList<>();
+		permits.add(ConnectionLimiter.acquire(connectionId, item, listener));
+
+		// the build log is parsed for download progress here, on the controller, as it arrives from the agent
+		CliOutputParser parser = null;
+		TaskListener agentListener = listener;
+		if (m_progress != null)
+		{
+			parser = new CliOutputParser(listener.getLogger(), Charset.defaultCharset(), m_progress);
+			agentListener = new StreamTaskListener(parser, Charset.defaultCharset());
+			m_progress.started();
+		}
+
+		try
+		{
+			int parallelism = Math.min(plan.getMaxParallel(), plan.getCalls().size());
+			while (permits.size() < parallelism)
+			{
+				ConnectionLimiter.Permit permit = ConnectionLimiter.tryAcquire(connectionId);
+				if (permit == null)
+				{
+					listener.getLogger().println("Only " + permits.size() + " download slots are free"); //$NON-NLS-1$ //$NON-NLS-2$
+					break;
+				}
+				permits.add(permit);
+			}
+
+			// a launcher decorated by the build, such as for a container, launches the CLI from the controller
+			VirtualChannel channel = launcher.getChannel();
+			ScmDownloaderGlobalConfiguration globalConfig = ScmDownloaderGlobalConfiguration.get();
+			AgentDownload download = new AgentDownload(plan, permits.size(), m_timeout, timeLeft,
+					globalConfig != null ? globalConfig.getCliWorkspacesPerFolder() : ScmConstants.CLI_WORKSPACE_POOL_SIZE,
+					globalConfig != null ? globalConfig.getCliWorkspacesPerAgent() : ScmConstants.CLI_WORKSPACE_POOL_MAX_IDLE,
+					agentListener);
+			DownloadChanges changes = AgentDownload.isDecorated(launcher) ? download.launchFrom(launcher)
+					: channel.call(download);
+			if (channel instanceof Channel)
+			{
+				// makes sure the whole build log of the download has arrived
+				((Channel) channel).syncIO();
+			}
+
+			return changes;
+		}
+		finally
+		{
+			if (parser != null)
+			{
+				parser.close();
+				m_progress.finished();
+			}
+
+			for (ConnectionLimiter.Permit permit : permits)
+			{
+				permit.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,414 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang.StringUtils;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * A record of the files in a download location as of the last download: for each file, relative to the download location,
+ * its size, last modified time and content hash.
+ * <p>
+ * The manifest is stored as a text file with one tab-separated line per file, so it can be read and written a line at a time
+ * regardless of how many members were downloaded.
+ */
+public class DownloadManifest implements Serializable
+{
+	private static final long serialVersionUID = -6212954474513093417L;
+
+	private static final String HEADER = "# cpwr-scm-manifest 1"; //$NON-NLS-1$
+	private static final String TAB = "\t"; //$NON-NLS-1$
+	private static final String HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+	private final Map<String, Entry> m_entries = new TreeMap<>();
+
+	/**
+	 * The recorded state of a single downloaded file.
+	 */
+	public static class Entry implements Serializable
+	{
+		private static final long serialVersionUID = 4502180870725342563L;
+
+		private final long m_size;
+		private final long m_lastModified;
+		private final String m_hash;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param size
+		 *            the file size in bytes
+		 * @param lastModified
+		 *            the last modified time of the file
+		 * @param hash
+		 *            the hex encoded content hash of the file
+		 */
+		public Entry(long size, long lastModified, String hash)
+		{
+			m_size = size;
+			m_lastModified = lastModified;
+			m_hash = hash;
+		}
+
+		/**
+		 * Gets the file size in bytes.
+		 * 
+		 * @return <code>long</code> value of m_size
+		 */
+		public long getSize()
+		{
+			return m_size;
+		}
+
+		/**
+		 * Gets the last modified time of the file.
+		 * 
+		 * @return <code>long</code> value of m_lastModified
+		 */
+		public long getLastModified()
+		{
+			return m_lastModified;
+		}
+
+		/**
+		 * Gets the hex encoded content hash of the file.
+		 * 
+		 * @return <code>String</code> value of m_hash
+		 */
+		public String getHash()
+		{
+			return m_hash;
+		}
+
+		/**
+		 * Determines whether the given file still has the size and last modified time recorded in this entry, that is, whether
+		 * it has not been touched since it was recorded.
+		 * 
+		 * @param file
+		 *            the file to check
+		 * 
+		 * @return <code>true</code> if the file exists and is unchanged
+		 */
+		public boolean matches(File file)
+		{
+			return file.isFile() && file.length() == m_size && file.lastModified() == m_lastModified;
+		}
+	}
+
+	/**
+	 * Gets the recorded state of a file.
+	 * 
+	 * @param path
+	 *            the '/' separated path of the file relative to the download location
+	 * 
+	 * @return the entry, or null if the file is not in the manifest
+	 */
+	public Entry get(String path)
+	{
+		return m_entries.get(path);
+	}
+
+	/**
+	 * Records the state of a file.
+	 * 
+	 * @param path
+	 *            the '/' separated path of the file relative to the download location
+	 * @param entry
+	 *            the state of the file
+	 */
+	public void put(String path, Entry entry)
+	{
+		m_entries.put(path, entry);
+	}
+
+	/**
+	 * Records the files of another manifest, replacing the entries of the same paths.
+	 * 
+	 * @param other
+	 *            the manifest to record the files of
+	 */
+	public void putAll(DownloadManifest other)
+	{
+		m_entries.putAll(other.m_entries);
+	}
+
+	/**
+	 * Gets the paths of all recorded files, in sorted order.
+	 * 
+	 * @return the unmodifiable set of paths
+	 */
+	public Set<String> getPaths()
+	{
+		return Collections.unmodifiableSet(m_entries.keySet());
+	}
+
+	/**
+	 * Gets the number of recorded files.
+	 * 
+	 * @return the number of entries
+	 */
+	public int size()
+	{
+		return m_entries.size();
+	}
+
+	/**
+	 * Computes a digest of the recorded content: the path and content hash of every file, but not the sizes or times. Two
+	 * downloads of the same members therefore have the same digest wherever and whenever they were downloaded.
+	 * 
+	 * @return the hex encoded digest
+	 * 
+	 * @throws IOException
+	 *             if the digest algorithm is not available
+	 */
+	public String digest() throws IOException
+	{
+		MessageDigest digest = newMessageDigest();
+		for (Map.Entry<String, Entry> entry : m_entries.entrySet())
+		{
+			digest.update((entry.getKey() + TAB + entry.getValue().getHash() + '\n').getBytes(StandardCharsets.UTF_8));
+		}
+
+		return Util.toHexString(digest.digest());
+	}
+
+	/**
+	 * Records every file in a folder, hashing its content.
+	 * 
+	 * @param folder
+	 *            the folder; an empty manifest is returned if it does not exist
+	 * 
+	 * @return the manifest of the folder
+	 * 
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while hashing
+	 */
+	public static DownloadManifest scan(File folder) throws IOException, InterruptedException
+	{
+		DownloadManifest manifest = new DownloadManifest();
+		if (folder.isDirectory())
+		{
+			List<Path> files;
+			try (Stream<Path> paths = Files.walk(folder.toPath()))
+			{
+				files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+			}
+
+			for (Path path : files)
+			{
+				if (Thread.interrupted())
+				{
+					throw new InterruptedException();
+				}
+
+				File file = path.toFile();
+				manifest.put(relativePath(folder, file), new Entry(file.length(), file.lastModified(), hash(file)));
+			}
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * Reads a manifest from a file.
+	 * 
+	 * @param file
+	 *            the manifest file
+	 * 
+	 * @return the manifest; an empty manifest if the file does not exist
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static DownloadManifest load(File file) throws IOException
+	{
+		DownloadManifest manifest = new DownloadManifest();
+		if (!file.isFile())
+		{
+			return manifest;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.isEmpty() || line.startsWith("#")) //$NON-NLS-1$
+				{
+					continue;
+				}
+
+				// hash, size, last modified, path (the path is last as it is the only field that could contain a tab)
+				String[] fields = line.split(TAB, 4);
+				if (fields.length == 4)
+				{
+					manifest.put(fields[3], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0]));
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IOException("Invalid download manifest " + file, e); //$NON-NLS-1$
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * Writes this manifest to a file. The file is replaced in a single step, so a reader never sees a partially written
+	 * manifest.
+	 * 
+	 * @param file
+	 *            the manifest file
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void save(File file) throws IOException
+	{
+		File parent = file.getAbsoluteFile().getParentFile();
+		Files.createDirectories(parent.toPath());
+
+		File temp = File.createTempFile(file.getName(), ".tmp", parent); //$NON-NLS-1$
+		try
+		{
+			try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8))
+			{
+				writer.write(HEADER);
+				writer.newLine();
+				for (Map.Entry<String, Entry> entry : m_entries.entrySet())
+				{
+					Entry value = entry.getValue();
+					writer.write(value.getHash() + TAB + value.getSize() + TAB + value.getLastModified() + TAB + entry.getKey());
+					writer.newLine();
+				}
+			}
+
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	/**
+	 * Computes the hex encoded content hash of a file.
+	 * 
+	 * @param file
+	 *            the file to hash
+	 * 
+	 * @return the content hash
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static String hash(File file) throws IOException
+	{
+		MessageDigest digest = newMessageDigest();
+		byte[] buffer = new byte[8192];
+		try (InputStream in = Files.newInputStream(file.toPath()))
+		{
+			int read;
+			while ((read = in.read(buffer)) != -1)
+			{
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		return Util.toHexString(digest.digest());
+	}
+
+	/**
+	 * Creates the message digest used for content hashes.
+	 * 
+	 * @return a new message digest
+	 * 
+	 * @throws IOException
+	 *             if the digest algorithm is not available
+	 */
+	private static MessageDigest newMessageDigest() throws IOException
+	{
+		try
+		{
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Gets the '/' separated path of a file relative to a root directory.
+	 * 
+	 * @param root
+	 *            the root directory
+	 * @param file
+	 *            a file under the root directory
+	 * 
+	 * @return the relative path
+	 */
+	public static String relativePath(File root, File file)
+	{
+		String relative = root.toPath().relativize(file.toPath()).toString();
+		return StringUtils.replaceChars(relative, File.separatorChar, '/');
+	}
+
+	/**
+	 * Records every file in a folder on the machine holding it.
+	 */
+	public static class ScanFolder extends MasterToSlaveFileCallable<DownloadManifest>
+	{
+		private static final long serialVersionUID = -6027183452213580911L;
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+		 */
+		@Override
+		public DownloadManifest invoke(File folder, VirtualChannel channel) throws IOException, InterruptedException
+		{
+			return scan(folder);
+		}
+	}
+}
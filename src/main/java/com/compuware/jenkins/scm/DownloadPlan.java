@@ -0,0 +1,479 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.EnvVars;
+import hudson.util.ArgumentListBuilder;
+
+/**
+ * Everything a download does on the agent, worked out on the controller before the download starts: the CLI calls to make,
+ * the folders involved and how the download location is updated afterwards. A plan cannot be changed once built, so it can
+ * be sent to the agent and run there in one go by {@link AgentDownload}.
+ * <p>
+ * A plan either only downloads (the CLI calls write to folders of their own), or also updates a download location and its
+ * manifest: directly, when the CLI writes into the download location, from a staging folder that the CLI writes into, or
+ * by swapping in a staging folder next to the download location once the download is complete.
+ */
+public final class DownloadPlan implements Serializable
+{
+	private static final long serialVersionUID = -4127356245036571823L;
+
+	private final List<CliCall> m_calls;
+	private final String m_workDir;
+	private final EnvVars m_env;
+	private final String m_osFile;
+	private final int m_maxParallel;
+	private final int m_maxRetries;
+	private final String m_targetFolder;
+	private final String m_stagingFolder;
+	private final String m_manifestFile;
+	private final boolean m_swap;
+	private final boolean m_incremental;
+	private final boolean m_seeded;
+	private final boolean m_hashed;
+	private final boolean m_complete;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param builder
+	 *            the builder holding the values of the plan
+	 */
+	private DownloadPlan(Builder builder)
+	{
+		m_calls = Collections.unmodifiableList(new ArrayList<>(builder.m_calls));
+		m_workDir = builder.m_workDir;
+		m_env = new EnvVars(builder.m_env);
+		m_osFile = builder.m_osFile;
+		m_maxParallel = builder.m_maxParallel;
+		m_maxRetries = builder.m_maxRetries;
+		m_targetFolder = builder.m_targetFolder;
+		m_stagingFolder = builder.m_stagingFolder;
+		m_manifestFile = builder.m_manifestFile;
+		m_swap = builder.m_swap;
+		m_incremental = builder.m_incremental;
+		m_seeded = builder.m_seeded;
+		m_hashed = builder.m_hashed;
+		m_complete = builder.m_complete;
+	}
+
+	/**
+	 * Gets the CLI calls of the download, one per filter shard or batch of filters.
+	 * 
+	 * @return the CLI calls
+	 */
+	public List<CliCall> getCalls()
+	{
+		return m_calls;
+	}
+
+	/**
+	 * Gets the working directory of the CLI processes on the agent.
+	 * 
+	 * @return the path of the working directory
+	 */
+	public String getWorkDir()
+	{
+		return m_workDir;
+	}
+
+	/**
+	 * Gets the environment to run the CLI with.
+	 * 
+	 * @return a copy of the environment
+	 */
+	public EnvVars getEnv()
+	{
+		return new EnvVars(m_env);
+	}
+
+	/**
+	 * Gets the name of the CLI script, used in log and error messages.
+	 * 
+	 * @return the name of the CLI script
+	 */
+	public String getOsFile()
+	{
+		return m_osFile;
+	}
+
+	/**
+	 * Gets the maximum number of CLI calls to run at the same time.
+	 * 
+	 * @return the maximum number of parallel CLI processes
+	 */
+	public int getMaxParallel()
+	{
+		return m_maxParallel;
+	}
+
+	/**
+	 * Gets the number of times a CLI call that failed for a transient reason is retried.
+	 * 
+	 * @return the maximum number of retries
+	 */
+	public int getMaxRetries()
+	{
+		return m_maxRetries;
+	}
+
+	/**
+	 * Gets the download location updated by the download.
+	 * 
+	 * @return the path of the download location; <code>null</code> if the plan only downloads
+	 */
+	public String getTargetFolder()
+	{
+		return m_targetFolder;
+	}
+
+	/**
+	 * Gets the staging folder the CLI downloads into before the download location is updated from it.
+	 * 
+	 * @return the path of the staging folder; <code>null</code> if the CLI writes into the download location directly, or if
+	 *         the plan only downloads
+	 */
+	public String getStagingFolder()
+	{
+		return m_stagingFolder;
+	}
+
+	/**
+	 * Gets the download manifest of the download location.
+	 * 
+	 * @return the path of the manifest; <code>null</code> if the plan only downloads
+	 */
+	public String getManifestFile()
+	{
+		return m_manifestFile;
+	}
+
+	/**
+	 * Gets whether the staging folder is swapped in for the download location, rather than the download location being
+	 * updated from it.
+	 * 
+	 * @return <code>true</code> if the staging folder is swapped in
+	 */
+	public boolean isSwap()
+	{
+		return m_swap;
+	}
+
+	/**
+	 * Gets whether a swapped in staging folder holds the whole download, so that members downloaded before but not staged
+	 * are removed.
+	 * 
+	 * @return <code>true</code> if the staging folder holds the whole download
+	 */
+	public boolean isIncremental()
+	{
+		return m_incremental;
+	}
+
+	/**
+	 * Gets whether the staging folder is seeded with a copy of the download location before the CLI downloads into it.
+	 * 
+	 * @return <code>true</code> if the staging folder is seeded
+	 */
+	public boolean isSeeded()
+	{
+		return m_seeded;
+	}
+
+	/**
+	 * Gets whether the downloaded members are hashed, so that the changes of the download are reported.
+	 * 
+	 * @return <code>true</code> if the members are hashed
+	 */
+	public boolean isHashed()
+	{
+		return m_hashed;
+	}
+
+	/**
+	 * Gets whether the CLI writes every member it downloads.
+	 * 
+	 * @return <code>true</code> if members the CLI did not write are no longer downloaded
+	 */
+	public boolean isComplete()
+	{
+		return m_complete;
+	}
+
+	/**
+	 * One call of the CLI. The dataset filter is kept apart from the other arguments, so that a retry can leave out the
+	 * datasets that an earlier call already downloaded. The CLI data workspace can also be left out, in which case the call
+	 * leases one from the {@link CliWorkspacePool} of the agent when it runs.
+	 */
+	public static final class CliCall implements Serializable
+	{
+		private static final long serialVersionUID = 5213980646374426919L;
+
+		private final ArgumentListBuilder m_args;
+		private final List<String> m_datasets;
+		private final String m_dataFolder;
+		private final String m_affinity;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param args
+		 *            the CLI script followed by all its arguments but the dataset filter, and but the data workspace if it is
+		 *            leased
+		 * @param datasets
+		 *            the dataset filters to pass to the CLI; <code>null</code> if the CLI does not take a dataset filter
+		 * @param dataFolder
+		 *            the folder to lease the CLI data workspace in; <code>null</code> if the arguments name the data workspace
+		 */
+		public CliCall(ArgumentListBuilder args, List<String> datasets, String dataFolder)
+		{
+			this(args, datasets, dataFolder, null);
+		}
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param args
+		 *            the CLI script followed by all its arguments but the dataset filter, and but the data workspace if it is
+		 *            leased
+		 * @param datasets
+		 *            the dataset filters to pass to the CLI; <code>null</code> if the CLI does not take a dataset filter
+		 * @param dataFolder
+		 *            the folder to lease the CLI data workspace in; <code>null</code> if the arguments name the data workspace
+		 * @param affinity
+		 *            the affinity of the call, such as the executor it runs on, to lease the data workspace last used with the
+		 *            same affinity; <code>null</code> if the call has none
+		 */
+		public CliCall(ArgumentListBuilder args, List<String> datasets, String dataFolder, String affinity)
+		{
+			m_args = args.clone();
+			m_datasets = datasets != null ? Collections.unmodifiableList(new ArrayList<>(datasets)) : null;
+			m_dataFolder = dataFolder;
+			m_affinity = affinity;
+		}
+
+		/**
+		 * Gets the CLI arguments of a call.
+		 * 
+		 * @param dataDir
+		 *            the leased CLI data workspace; <code>null</code> if the arguments name the data workspace
+		 * @param completedDatasets
+		 *            the datasets that earlier calls already downloaded, which are left out of the dataset filter; empty for
+		 *            the first call
+		 * 
+		 * @return the CLI script followed by its arguments
+		 */
+		public ArgumentListBuilder getArgs(String dataDir, Set<String> completedDatasets)
+		{
+			ArgumentListBuilder args = m_args.clone();
+			if (dataDir != null)
+			{
+				args.add(CommonConstants.DATA_PARM, dataDir);
+			}
+
+			if (m_datasets != null)
+			{
+				args.add(ScmConstants.FILTER_PARM,
+						ArgumentUtils.escapeForScript(AbstractDownloader.removeDatasets(m_datasets, completedDatasets)));
+			}
+
+			return args;
+		}
+
+		/**
+		 * Gets the folder the call leases its CLI data workspace in.
+		 * 
+		 * @return the path of the folder; <code>null</code> if the arguments name the data workspace
+		 */
+		public String getDataFolder()
+		{
+			return m_dataFolder;
+		}
+
+		/**
+		 * Gets the affinity the call leases its CLI data workspace with.
+		 * 
+		 * @return the affinity; <code>null</code> if the call has none
+		 */
+		public String getAffinity()
+		{
+			return m_affinity;
+		}
+	}
+
+	/**
+	 * Collects the values of a plan.
+	 */
+	public static class Builder
+	{
+		private final List<CliCall> m_calls = new ArrayList<>();
+		private final String m_workDir;
+		private final EnvVars m_env;
+		private final String m_osFile;
+		private int m_maxParallel = 1;
+		private int m_maxRetries;
+		private String m_targetFolder;
+		private String m_stagingFolder;
+		private String m_manifestFile;
+		private boolean m_swap;
+		private boolean m_incremental;
+		private boolean m_seeded;
+		private boolean m_hashed = true;
+		private boolean m_complete;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param workDir
+		 *            the working directory of the CLI processes on the agent
+		 * @param env
+		 *            the environment to run the CLI with
+		 * @param osFile
+		 *            the name of the CLI script, used in log and error messages
+		 */
+		public Builder(String workDir, EnvVars env, String osFile)
+		{
+			m_workDir = workDir;
+			m_env = env;
+			m_osFile = osFile;
+		}
+
+		/**
+		 * Adds a CLI call.
+		 * 
+		 * @param call
+		 *            the CLI call
+		 * 
+		 * @return this builder
+		 */
+		public Builder add(CliCall call)
+		{
+			m_calls.add(call);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of CLI calls to run at the same time.
+		 * 
+		 * @param maxParallel
+		 *            the maximum number of parallel CLI processes; values less than one mean one
+		 * 
+		 * @return this builder
+		 */
+		public Builder maxParallel(int maxParallel)
+		{
+			m_maxParallel = Math.max(1, maxParallel);
+			return this;
+		}
+
+		/**
+		 * Sets the number of times a CLI call that failed for a transient reason is retried.
+		 * 
+		 * @param maxRetries
+		 *            the maximum number of retries
+		 * 
+		 * @return this builder
+		 */
+		public Builder maxRetries(int maxRetries)
+		{
+			m_maxRetries = Math.max(0, maxRetries);
+			return this;
+		}
+
+		/**
+		 * Makes the download update a download location and its manifest.
+		 * 
+		 * @param targetFolder
+		 *            the path of the download location
+		 * @param stagingFolder
+		 *            the path of the staging folder the CLI downloads into; <code>null</code> if the CLI writes into the
+		 *            download location directly
+		 * @param manifestFile
+		 *            the path of the download manifest of the download location
+		 * 
+		 * @return this builder
+		 */
+		public Builder update(String targetFolder, String stagingFolder, String manifestFile)
+		{
+			m_targetFolder = targetFolder;
+			m_stagingFolder = stagingFolder;
+			m_manifestFile = manifestFile;
+			return this;
+		}
+
+		/**
+		 * Makes the download swap in its staging folder for the download location once it is complete. The staging folder
+		 * must be next to the download location.
+		 * 
+		 * @param incremental
+		 *            <code>true</code> if the staging folder holds the whole download, so that members downloaded before but
+		 *            not staged are removed; <code>false</code> if they are kept
+		 * @param seeded
+		 *            <code>true</code> to seed the staging folder with a copy of the download location before the CLI
+		 *            downloads into it, for a CLI that updates its previous download
+		 * 
+		 * @return this builder
+		 */
+		public Builder swap(boolean incremental, boolean seeded)
+		{
+			m_swap = true;
+			m_incremental = incremental;
+			m_seeded = seeded;
+			return this;
+		}
+
+		/**
+		 * Sets how the manifest of the download location is worked out when the download is not staged, or not
+		 * incremental.
+		 * 
+		 * @param hashed
+		 *            <code>true</code> to hash the downloaded members and report the changes of the download;
+		 *            <code>false</code> to only list them
+		 * @param complete
+		 *            <code>true</code> if the CLI writes every member it downloads, so that members it did not write are no
+		 *            longer downloaded; <code>false</code> if it leaves unchanged members alone
+		 * 
+		 * @return this builder
+		 */
+		public Builder manifest(boolean hashed, boolean complete)
+		{
+			m_hashed = hashed;
+			m_complete = complete;
+			return this;
+		}
+
+		/**
+		 * Builds the plan.
+		 * 
+		 * @return the plan
+		 */
+		public DownloadPlan build()
+		{
+			return new DownloadPlan(this);
+		}
+	}
+}
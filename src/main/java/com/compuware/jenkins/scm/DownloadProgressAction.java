@@ -0,0 +1,233 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import hudson.model.Action;
+import hudson.model.Run;
+
+/**
+ * Download progress of a build, counted from the events recognized in the CLI output and shown on the build page. The
+ * counters are updated while the CLI runs and are kept with the build afterwards. All downloads of a build, including
+ * parallel ones, add to the same counters.
+ */
+public class DownloadProgressAction implements Action, CliEventListener
+{
+	private int m_datasets;
+	private int m_members;
+	private long m_bytes;
+	private int m_warnings;
+	private int m_errors;
+	private long m_startTime;
+	private long m_endTime;
+	private transient int m_running;
+
+	/**
+	 * Gets the progress of a build, adding it to the build if it has none yet.
+	 * 
+	 * @param build
+	 *            the build
+	 * 
+	 * @return the <code>DownloadProgressAction</code> of the build
+	 */
+	public static synchronized DownloadProgressAction get(Run<?, ?> build)
+	{
+		DownloadProgressAction progress = build.getAction(DownloadProgressAction.class);
+		if (progress == null)
+		{
+			progress = new DownloadProgressAction();
+			build.addAction(progress);
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Called when a CLI process starts.
+	 */
+	public synchronized void started()
+	{
+		if (m_startTime == 0)
+		{
+			m_startTime = System.currentTimeMillis();
+		}
+		m_running++;
+	}
+
+	/**
+	 * Called when a CLI process has ended.
+	 */
+	public synchronized void finished()
+	{
+		m_running = Math.max(0, m_running - 1);
+		m_endTime = System.currentTimeMillis();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.CliEventListener#onEvent(com.compuware.jenkins.scm.CliEvent)
+	 */
+	@Override
+	public synchronized void onEvent(CliEvent event)
+	{
+		switch (event.getType())
+		{
+			case DATASET_STARTED:
+				m_datasets++;
+				break;
+			case MEMBER_DOWNLOADED:
+				m_members++;
+				m_bytes += event.getBytes();
+				break;
+			case WARNING:
+				m_warnings++;
+				break;
+			case ERROR:
+				m_errors++;
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Gets the number of datasets the CLI started downloading.
+	 * 
+	 * @return <code>int</code> value of m_datasets
+	 */
+	public synchronized int getDatasets()
+	{
+		return m_datasets;
+	}
+
+	/**
+	 * Gets the number of members downloaded.
+	 * 
+	 * @return <code>int</code> value of m_members
+	 */
+	public synchronized int getMembers()
+	{
+		return m_members;
+	}
+
+	/**
+	 * Gets the number of bytes downloaded, as far as the CLI reported member sizes.
+	 * 
+	 * @return <code>long</code> value of m_bytes
+	 */
+	public synchronized long getBytes()
+	{
+		return m_bytes;
+	}
+
+	/**
+	 * Gets the number of warnings the CLI reported.
+	 * 
+	 * @return <code>int</code> value of m_warnings
+	 */
+	public synchronized int getWarnings()
+	{
+		return m_warnings;
+	}
+
+	/**
+	 * Gets the number of errors the CLI reported.
+	 * 
+	 * @return <code>int</code> value of m_errors
+	 */
+	public synchronized int getErrors()
+	{
+		return m_errors;
+	}
+
+	/**
+	 * Determines whether a CLI process of the build is still running.
+	 * 
+	 * @return <code>true</code> if the download is in progress
+	 */
+	public synchronized boolean isRunning()
+	{
+		return m_running > 0;
+	}
+
+	/**
+	 * Gets the time spent downloading, from the start of the first CLI process to the end of the last one, or until now while
+	 * downloading.
+	 * 
+	 * @return the duration in milliseconds
+	 */
+	public synchronized long getDuration()
+	{
+		if (m_startTime == 0)
+		{
+			return 0;
+		}
+
+		return (m_running > 0 || m_endTime < m_startTime ? System.currentTimeMillis() : m_endTime) - m_startTime;
+	}
+
+	/**
+	 * Gets the download rate.
+	 * 
+	 * @return the bytes downloaded per second
+	 */
+	public synchronized long getBytesPerSecond()
+	{
+		long duration = getDuration();
+		return duration > 0 ? m_bytes * 1000L / duration : 0;
+	}
+
+	/**
+	 * Gets the members downloaded per second.
+	 * 
+	 * @return the download rate in members per second
+	 */
+	public synchronized double getMembersPerSecond()
+	{
+		long duration = getDuration();
+		return duration > 0 ? m_members * 1000.0 / duration : 0;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.model.Action#getIconFileName()
+	 */
+	@Override
+	public String getIconFileName()
+	{
+		return null;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.model.Action#getDisplayName()
+	 */
+	@Override
+	public String getDisplayName()
+	{
+		return Messages.downloadProgress();
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.model.Action#getUrlName()
+	 */
+	@Override
+	public String getUrlName()
+	{
+		return null;
+	}
+}
@@ -0,0 +1,419 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hudson.Util;
+
+/**
+ * The part of a download that only depends on the SCM configuration: what is downloaded (the SCM specific CLI arguments and
+ * the dataset filters), where it is downloaded to, and the options of the download. A configuration works out its template
+ * once and keeps it until the configuration changes, so that the template can be shared by any number of downloads of the
+ * configuration, running one after the other or at the same time.
+ * <p>
+ * Everything that depends on the build (the workspace, the agent, the credentials, the environment) is added when the
+ * template is turned into a {@link DownloadPlan} for a download.
+ */
+public final class DownloadTemplate
+{
+	private final String m_connectionId;
+	private final String m_credentialsId;
+	private final String m_scmType;
+	private final List<String> m_args;
+	private final List<String> m_filters;
+	private final List<List<String>> m_shards;
+	private final Map<String, String> m_removedFilters;
+	private final String m_targetFolder;
+	private final int m_timeout;
+	private final int m_maxParallel;
+	private final boolean m_incremental;
+	private final boolean m_stagedSwap;
+	private final boolean m_sharedFolder;
+	private final String m_fingerprint;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param builder
+	 *            the builder holding the values of the template
+	 */
+	private DownloadTemplate(Builder builder)
+	{
+		m_connectionId = builder.m_connectionId;
+		m_credentialsId = builder.m_credentialsId;
+		m_scmType = builder.m_scmType;
+		m_args = Collections.unmodifiableList(new ArrayList<>(builder.m_args));
+		m_filters = builder.m_filters != null ? Collections.unmodifiableList(new ArrayList<>(builder.m_filters)) : null;
+		List<List<String>> shards = new ArrayList<>();
+		for (List<String> shard : builder.m_shards)
+		{
+			shards.add(Collections.unmodifiableList(new ArrayList<>(shard)));
+		}
+		m_shards = Collections.unmodifiableList(shards);
+		m_removedFilters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.m_removedFilters));
+		m_targetFolder = builder.m_targetFolder;
+		m_timeout = builder.m_timeout;
+		m_maxParallel = builder.m_maxParallel;
+		m_incremental = builder.m_incremental;
+		m_stagedSwap = builder.m_stagedSwap;
+		m_sharedFolder = builder.m_sharedFolder;
+
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append(m_connectionId).append('\n').append(m_credentialsId).append('\n').append(m_scmType).append('\n');
+		for (String arg : m_args)
+		{
+			fingerprint.append(arg).append('\n');
+		}
+		if (m_filters != null)
+		{
+			for (String filter : m_filters)
+			{
+				fingerprint.append(filter).append('\n');
+			}
+		}
+		m_fingerprint = Util.getDigestOf(fingerprint.toString());
+	}
+
+	/**
+	 * Gets the host connection to download from.
+	 * 
+	 * @return the unique identifier of the host connection
+	 */
+	public String getConnectionId()
+	{
+		return m_connectionId;
+	}
+
+	/**
+	 * Gets the credentials to download with.
+	 * 
+	 * @return the unique identifier of the login credentials
+	 */
+	public String getCredentialsId()
+	{
+		return m_credentialsId;
+	}
+
+	/**
+	 * Gets the type of SCM downloaded from.
+	 * 
+	 * @return the value of the CLI <code>-scm</code> parameter
+	 */
+	public String getScmType()
+	{
+		return m_scmType;
+	}
+
+	/**
+	 * Gets the SCM specific CLI arguments, already escaped for the CLI script. The dataset filter is not part of them.
+	 * 
+	 * @return the arguments
+	 */
+	public List<String> getArgs()
+	{
+		return m_args;
+	}
+
+	/**
+	 * Gets the dataset filters, in order and without duplicates.
+	 * 
+	 * @return the dataset filters; <code>null</code> if the CLI does not take a dataset filter
+	 */
+	public List<String> getFilters()
+	{
+		return m_filters;
+	}
+
+	/**
+	 * Gets the dataset filters split into the shards that are downloaded by separate CLI processes.
+	 * 
+	 * @return the dataset filters of each shard; empty if the CLI does not take a dataset filter
+	 */
+	public List<List<String>> getShards()
+	{
+		return m_shards;
+	}
+
+	/**
+	 * Gets the configured dataset filters that are not downloaded because another filter already downloads their datasets.
+	 * 
+	 * @return each removed filter mapped to the filter that downloads its datasets; empty if none were removed
+	 */
+	public Map<String, String> getRemovedFilters()
+	{
+		return m_removedFilters;
+	}
+
+	/**
+	 * Gets the configured download location.
+	 * 
+	 * @return the download location, relative to the workspace or absolute; empty to download into the workspace
+	 */
+	public String getTargetFolder()
+	{
+		return m_targetFolder;
+	}
+
+	/**
+	 * Gets the download timeout.
+	 * 
+	 * @return the number of minutes a download may take; zero for no timeout
+	 */
+	public int getTimeout()
+	{
+		return m_timeout;
+	}
+
+	/**
+	 * Gets the maximum number of CLI processes a download runs at the same time.
+	 * 
+	 * @return the maximum number of parallel downloads
+	 */
+	public int getMaxParallel()
+	{
+		return m_maxParallel;
+	}
+
+	/**
+	 * Gets whether the download location is only updated with the members that changed.
+	 * 
+	 * @return <code>true</code> for incremental downloads
+	 */
+	public boolean isIncremental()
+	{
+		return m_incremental;
+	}
+
+	/**
+	 * Gets whether a download is staged next to the download location and only swapped in once it is complete.
+	 * 
+	 * @return <code>true</code> for staged downloads
+	 */
+	public boolean isStagedSwap()
+	{
+		return m_stagedSwap;
+	}
+
+	/**
+	 * Gets whether the download location is shared with the builds of other jobs, which only download into it when its
+	 * content is out of date.
+	 * 
+	 * @return <code>true</code> for a shared download location
+	 */
+	public boolean isSharedFolder()
+	{
+		return m_sharedFolder;
+	}
+
+	/**
+	 * Gets the fingerprint of what is downloaded: the host connection, the login, the SCM specific CLI arguments and the
+	 * dataset filters. Templates with the same fingerprint download the same content.
+	 * 
+	 * @return the fingerprint
+	 */
+	public String getFingerprint()
+	{
+		return m_fingerprint;
+	}
+
+	/**
+	 * Collects the values of a template.
+	 */
+	public static class Builder
+	{
+		private final String m_connectionId;
+		private final String m_credentialsId;
+		private final String m_scmType;
+		private final List<String> m_args = new ArrayList<>();
+		private List<String> m_filters;
+		private final List<List<String>> m_shards = new ArrayList<>();
+		private final Map<String, String> m_removedFilters = new LinkedHashMap<>();
+		private String m_targetFolder = ""; //$NON-NLS-1$
+		private int m_timeout;
+		private int m_maxParallel = 1;
+		private boolean m_incremental;
+		private boolean m_stagedSwap;
+		private boolean m_sharedFolder;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param connectionId
+		 *            the unique identifier of the host connection to download from
+		 * @param credentialsId
+		 *            the unique identifier of the login credentials to download with
+		 * @param scmType
+		 *            the value of the CLI <code>-scm</code> parameter
+		 */
+		public Builder(String connectionId, String credentialsId, String scmType)
+		{
+			m_connectionId = connectionId;
+			m_credentialsId = credentialsId;
+			m_scmType = scmType;
+		}
+
+		/**
+		 * Adds an SCM specific CLI argument with its value.
+		 * 
+		 * @param parm
+		 *            the name of the CLI parameter
+		 * @param value
+		 *            the value, already escaped for the CLI script
+		 * 
+		 * @return this builder
+		 */
+		public Builder arg(String parm, String value)
+		{
+			m_args.add(parm);
+			m_args.add(value);
+			return this;
+		}
+
+		/**
+		 * Sets the dataset filters and the shards they are split into.
+		 * 
+		 * @param filters
+		 *            the dataset filters
+		 * @param shards
+		 *            the dataset filters of each shard
+		 * 
+		 * @return this builder
+		 */
+		public Builder filters(List<String> filters, List<List<String>> shards)
+		{
+			m_filters = filters;
+			m_shards.clear();
+			m_shards.addAll(shards);
+			return this;
+		}
+
+		/**
+		 * Sets the configured dataset filters that are not downloaded because another filter already downloads their
+		 * datasets.
+		 * 
+		 * @param removedFilters
+		 *            each removed filter mapped to the filter that downloads its datasets
+		 * 
+		 * @return this builder
+		 */
+		public Builder removedFilters(Map<String, String> removedFilters)
+		{
+			m_removedFilters.clear();
+			m_removedFilters.putAll(removedFilters);
+			return this;
+		}
+
+		/**
+		 * Sets the configured download location.
+		 * 
+		 * @param targetFolder
+		 *            the download location; empty or <code>null</code> to download into the workspace
+		 * 
+		 * @return this builder
+		 */
+		public Builder targetFolder(String targetFolder)
+		{
+			m_targetFolder = targetFolder != null ? targetFolder : ""; //$NON-NLS-1$
+			return this;
+		}
+
+		/**
+		 * Sets the download timeout.
+		 * 
+		 * @param timeout
+		 *            the number of minutes a download may take; zero or less for no timeout
+		 * 
+		 * @return this builder
+		 */
+		public Builder timeout(int timeout)
+		{
+			m_timeout = Math.max(0, timeout);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of CLI processes a download runs at the same time.
+		 * 
+		 * @param maxParallel
+		 *            the maximum number of parallel downloads; values less than one mean one
+		 * 
+		 * @return this builder
+		 */
+		public Builder maxParallel(int maxParallel)
+		{
+			m_maxParallel = Math.max(1, maxParallel);
+			return this;
+		}
+
+		/**
+		 * Sets whether the download location is only updated with the members that changed.
+		 * 
+		 * @param incremental
+		 *            <code>true</code> for incremental downloads
+		 * 
+		 * @return this builder
+		 */
+		public Builder incremental(boolean incremental)
+		{
+			m_incremental = incremental;
+			return this;
+		}
+
+		/**
+		 * Sets whether a download is staged next to the download location and only swapped in once it is complete.
+		 * 
+		 * @param stagedSwap
+		 *            <code>true</code> for staged downloads
+		 * 
+		 * @return this builder
+		 */
+		public Builder stagedSwap(boolean stagedSwap)
+		{
+			m_stagedSwap = stagedSwap;
+			return this;
+		}
+
+		/**
+		 * Sets whether the download location is shared with the builds of other jobs.
+		 * 
+		 * @param sharedFolder
+		 *            <code>true</code> for a shared download location
+		 * 
+		 * @return this builder
+		 */
+		public Builder sharedFolder(boolean sharedFolder)
+		{
+			m_sharedFolder = sharedFolder;
+			return this;
+		}
+
+		/**
+		 * Builds the template.
+		 * 
+		 * @return the template
+		 */
+		public DownloadTemplate build()
+		{
+			return new DownloadTemplate(this);
+		}
+	}
+}
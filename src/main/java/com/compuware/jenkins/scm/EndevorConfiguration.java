@@ -100,9 +100,9 @@ public class EndevorConfiguration extends CpwrScmConfiguration
 		{
 			validateParameters(launcher, listener, build.getParent());
 
-			EndevorDownloader downloader = new EndevorDownloader(this);
+			CpwrScmDownloader downloader = createDownloader();
 
-			rtnValue = downloader.getSource(build, launcher, workspaceFilePath, listener, changelogFile);
+			rtnValue = downloader.download(build, launcher, workspaceFilePath, listener, changelogFile);
 			if (!rtnValue)
 			{
 				throw new AbortException();
@@ -115,25 +115,16 @@ public class EndevorConfiguration extends CpwrScmConfiguration
 		}
 	}
 
-	/**
-	 * Plugin does not support polling. We handle file changes in the CLI.
+	/* 
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.CpwrScmConfiguration#createDownloader()
 	 */
 	@Override
-	public boolean supportsPolling()
+	protected CpwrScmDownloader createDownloader()
 	{
-		return false;
+		return new EndevorDownloader(this);
 	}
 
-	/**
-     * Calculates any revisions from previous builds. Method required to support Pipeline. We handle file changes in the CLI.
-	 */
-	@Override
-	public SCMRevisionState calcRevisionsFromBuild(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener)
-            throws IOException, InterruptedException
-    {
-    	return null;
-    }    
-
 	/**
 	 * Returns the ScmDescriptor for the SCM object. The ScmDescriptor is used to create new instances of the SCM.
 	 */
@@ -0,0 +1,294 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiles a list of dataset filters into the smallest list that downloads the same datasets. Duplicate filters (ignoring
+ * case) are dropped, as are filters covered by a broader wildcard filter, and the remaining filters are sorted by name so
+ * that datasets of the same high-level qualifiers are requested from the host together.
+ * <p>
+ * A wildcard may only be used as the last character of a filter, so a wildcard filter is a prefix. Whether the host lets
+ * the wildcard span qualifiers is not assumed: a filter is only taken as covered by a wildcard filter when the part it adds
+ * to the prefix stays within the last qualifier (for example, <code>PROD.COBOL.*</code> covers <code>PROD.COBOL.SRC</code>
+ * and <code>PROD.COBOL.S*</code>, but not <code>PROD.COBOL.SRC.OLD</code>). The wildcard filters are kept in a trie, so
+ * each filter is checked in a single walk over its characters.
+ * <p>
+ * This only holds for filters that name datasets. It is not used for Endevor filters, whose last qualifier is the stage: a
+ * wildcarded stage downloads the most recent revision only, so <code>ENV.SYS.SUB.TYPE.*</code> does not download what
+ * <code>ENV.SYS.SUB.TYPE.1</code> does.
+ * <p>
+ * Whether a filter names a dataset is checked with {@link #matches(String, String)}, which follows the qualifiers the same
+ * way: a <code>*</code>, anywhere in the filter, matches any characters within one qualifier, and a <code>%</code> matches
+ * a single character of a qualifier.
+ */
+public final class FilterPatternCompiler
+{
+	private static final char WILDCARD = '*';
+	private static final char SINGLE_WILDCARD = '%';
+	private static final String SEPARATORS = ".()"; //$NON-NLS-1$
+
+	private final List<String> m_filters;
+	private final Map<String, String> m_removed;
+
+	/**
+	 * Constructor. Compiles the given filters.
+	 * 
+	 * @param filters
+	 *            the dataset filters, in the order they were entered
+	 */
+	public FilterPatternCompiler(List<String> filters)
+	{
+		Map<String, String> unique = new LinkedHashMap<>();
+		Map<String, String> removed = new LinkedHashMap<>();
+		TrieNode wildcards = new TrieNode();
+		for (String filter : filters)
+		{
+			String key = filter.toUpperCase(Locale.ENGLISH);
+			if (unique.containsKey(key))
+			{
+				removed.put(filter, unique.get(key));
+				continue;
+			}
+
+			unique.put(key, filter);
+			if (key.indexOf(WILDCARD) == key.length() - 1)
+			{
+				wildcards.add(key.substring(0, key.length() - 1));
+			}
+		}
+
+		List<String> keys = new ArrayList<>();
+		for (Map.Entry<String, String> entry : unique.entrySet())
+		{
+			String cover = wildcards.findCover(entry.getKey());
+			if (cover != null)
+			{
+				removed.put(entry.getValue(), unique.get(cover + WILDCARD));
+			}
+			else
+			{
+				keys.add(entry.getKey());
+			}
+		}
+
+		Collections.sort(keys);
+		List<String> compiled = new ArrayList<>();
+		for (String key : keys)
+		{
+			compiled.add(unique.get(key));
+		}
+
+		m_filters = Collections.unmodifiableList(compiled);
+		m_removed = Collections.unmodifiableMap(removed);
+	}
+
+	/**
+	 * Gets the compiled filters.
+	 * 
+	 * @return the filters left, sorted by name
+	 */
+	public List<String> getFilters()
+	{
+		return m_filters;
+	}
+
+	/**
+	 * Gets the filters that were removed, each mapped to the filter that already downloads its datasets.
+	 * 
+	 * @return the removed filters, in the order they were entered; empty if none were removed
+	 */
+	public Map<String, String> getRemoved()
+	{
+		return m_removed;
+	}
+
+	/**
+	 * Checks whether a filter has a wildcard, so that it can name more than one dataset.
+	 * 
+	 * @param filter
+	 *            the filter
+	 * 
+	 * @return <code>true</code> if the filter has a <code>*</code> or a <code>%</code>
+	 */
+	static boolean isPattern(String filter)
+	{
+		return filter.indexOf(WILDCARD) >= 0 || filter.indexOf(SINGLE_WILDCARD) >= 0;
+	}
+
+	/**
+	 * Gets the first qualifier of a filter or dataset name.
+	 * 
+	 * @param name
+	 *            the filter or dataset name
+	 * 
+	 * @return the characters before the first qualifier separator; the whole name if it has a single qualifier
+	 */
+	static String getFirstQualifier(String name)
+	{
+		for (int i = 0; i < name.length(); i++)
+		{
+			if (isSeparator(name.charAt(i)))
+			{
+				return name.substring(0, i);
+			}
+		}
+
+		return name;
+	}
+
+	/**
+	 * Checks whether a filter names a dataset, ignoring case. A <code>*</code> matches any characters, including none,
+	 * within one qualifier and a <code>%</code> matches one character of a qualifier, so neither spans qualifiers
+	 * (<code>PROD.*.SRC</code> names <code>PROD.COBOL.SRC</code>, but <code>PROD.*</code> does not).
+	 * 
+	 * @param filter
+	 *            the filter
+	 * @param name
+	 *            the dataset name
+	 * 
+	 * @return <code>true</code> if the filter names the dataset
+	 */
+	static boolean matches(String filter, String name)
+	{
+		String pattern = filter.toUpperCase(Locale.ENGLISH);
+		String text = name.toUpperCase(Locale.ENGLISH);
+
+		// matched[j] is true when the part of the pattern read so far matches the first j characters of the name
+		boolean[] matched = new boolean[text.length() + 1];
+		matched[0] = true;
+		for (int i = 0; i < pattern.length(); i++)
+		{
+			char c = pattern.charAt(i);
+			boolean[] next = new boolean[text.length() + 1];
+			for (int j = 0; j <= text.length(); j++)
+			{
+				if (c == WILDCARD)
+				{
+					next[j] = matched[j] || (j > 0 && next[j - 1] && !isSeparator(text.charAt(j - 1)));
+				}
+				else if (j > 0)
+				{
+					char t = text.charAt(j - 1);
+					next[j] = matched[j - 1] && (c == t || (c == SINGLE_WILDCARD && !isSeparator(t)));
+				}
+			}
+			matched = next;
+		}
+
+		return matched[text.length()];
+	}
+
+	/**
+	 * Checks whether a character separates qualifiers.
+	 * 
+	 * @param c
+	 *            the character
+	 * 
+	 * @return <code>true</code> if the character is a qualifier separator
+	 */
+	private static boolean isSeparator(char c)
+	{
+		return SEPARATORS.indexOf(c) >= 0;
+	}
+
+	/**
+	 * A node of the trie of wildcard filter prefixes.
+	 */
+	private static class TrieNode
+	{
+		private final Map<Character, TrieNode> m_children = new HashMap<>();
+		private boolean m_wildcard;
+
+		/**
+		 * Adds the prefix of a wildcard filter.
+		 * 
+		 * @param prefix
+		 *            the filter without its trailing wildcard
+		 */
+		void add(String prefix)
+		{
+			TrieNode node = this;
+			for (int i = 0; i < prefix.length(); i++)
+			{
+				TrieNode child = node.m_children.get(prefix.charAt(i));
+				if (child == null)
+				{
+					child = new TrieNode();
+					node.m_children.put(prefix.charAt(i), child);
+				}
+				node = child;
+			}
+			node.m_wildcard = true;
+		}
+
+		/**
+		 * Finds the broadest wildcard filter, other than the filter itself, that covers a filter.
+		 * 
+		 * @param filter
+		 *            the upper case filter
+		 * 
+		 * @return the prefix of the covering wildcard filter; <code>null</code> if no wildcard filter covers it
+		 */
+		String findCover(String filter)
+		{
+			// only wildcard prefixes that reach into the last qualifier of the filter can cover it
+			int end = filter.length();
+			boolean isWildcard = end > 0 && filter.charAt(end - 1) == WILDCARD;
+			if (isWildcard)
+			{
+				end--;
+			}
+
+			// a wildcard before the last character is not supported, so such a filter is kept as it is
+			int wildcard = filter.indexOf(WILDCARD);
+			if (wildcard >= 0 && wildcard < end)
+			{
+				return null;
+			}
+
+			int lastSeparator = -1;
+			for (int i = 0; i < end; i++)
+			{
+				if (isSeparator(filter.charAt(i)))
+				{
+					lastSeparator = i;
+				}
+			}
+
+			TrieNode node = this;
+			for (int i = 0; i <= end && node != null; i++)
+			{
+				if (node.m_wildcard && i > lastSeparator && (i < end || !isWildcard))
+				{
+					return filter.substring(0, i);
+				}
+
+				node = i < end ? node.m_children.get(filter.charAt(i)) : null;
+			}
+
+			return null;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Brings a download location up to date from a freshly downloaded staging folder, using the download manifest to touch only
+ * what changed.
+ * <p>
+ * A staged file whose content matches the manifest, and whose copy in the download location has not been touched since, is
+ * left alone, so it keeps its timestamp for incremental builds downstream. Other staged files are moved into the download
+ * location. Files recorded in the manifest that were not downloaded again are deleted. Files in the download location that
+ * were never downloaded are not touched. The staging folder is deleted afterwards.
+ */
+public class IncrementalSync extends MasterToSlaveFileCallable<DownloadChanges>
+{
+	private static final long serialVersionUID = -4390237611460952416L;
+
+	private final String m_stagingFolder;
+	private final String m_manifestFile;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param stagingFolder
+	 *            the folder the CLI downloaded into
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 */
+	public IncrementalSync(String stagingFolder, String manifestFile)
+	{
+		m_stagingFolder = stagingFolder;
+		m_manifestFile = manifestFile;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+	 */
+	@Override
+	public DownloadChanges invoke(File targetFolder, VirtualChannel channel) throws IOException, InterruptedException
+	{
+		File staging = new File(m_stagingFolder);
+		File manifestFile = new File(m_manifestFile);
+
+		DownloadManifest previous = DownloadManifest.load(manifestFile);
+		DownloadManifest current = new DownloadManifest();
+		DownloadChanges changes = new DownloadChanges();
+
+		List<Path> stagedFiles;
+		try (Stream<Path> paths = Files.walk(staging.toPath()))
+		{
+			stagedFiles = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+
+		for (Path stagedFile : stagedFiles)
+		{
+			if (Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+
+			String relativePath = DownloadManifest.relativePath(staging, stagedFile.toFile());
+			String hash = DownloadManifest.hash(stagedFile.toFile());
+			File targetFile = new File(targetFolder, relativePath);
+
+			DownloadManifest.Entry entry = previous.get(relativePath);
+			if (entry != null && entry.getHash().equals(hash) && entry.matches(targetFile))
+			{
+				current.put(relativePath, entry);
+				changes.unchanged();
+				continue;
+			}
+
+			Files.createDirectories(targetFile.getParentFile().toPath());
+			Files.move(stagedFile, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			current.put(relativePath, new DownloadManifest.Entry(targetFile.length(), targetFile.lastModified(), hash));
+
+			if (entry == null)
+			{
+				changes.added(relativePath);
+			}
+			else
+			{
+				changes.modified(relativePath);
+			}
+		}
+
+		for (String relativePath : previous.getPaths())
+		{
+			if (current.get(relativePath) == null)
+			{
+				File targetFile = new File(targetFolder, relativePath);
+				Files.deleteIfExists(targetFile.toPath());
+				deleteEmptyParents(targetFolder, targetFile);
+				changes.removed(relativePath);
+			}
+		}
+
+		current.save(manifestFile);
+		Util.deleteRecursive(staging);
+
+		return changes;
+	}
+
+	/**
+	 * Deletes the parent folders of a deleted file that are now empty, up to (but not including) the download location.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * @param file
+	 *            the deleted file
+	 */
+	private static void deleteEmptyParents(File targetFolder, File file)
+	{
+		File parent = file.getParentFile();
+		while (parent != null && !parent.equals(targetFolder))
+		{
+			String[] children = parent.list();
+			if (children == null || children.length != 0 || !parent.delete())
+			{
+				break;
+			}
+			parent = parent.getParentFile();
+		}
+	}
+}
@@ -26,6 +26,8 @@ import org.kohsuke.stapler.StaplerRequest;
 
 import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
 import com.compuware.jenkins.common.configuration.HostConnection;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.scm.utils.ScmConstants;
 
 import hudson.AbortException;
 import hudson.Extension;
@@ -286,6 +288,54 @@ public class IspwConfiguration extends AbstractIspwConfiguration
 		return cpCategorizeOnSubAppl;
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractIspwConfiguration#getScmType()
+	 */
+	@Override
+	protected String getScmType()
+	{
+		return ScmConstants.ISPW;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractIspwConfiguration#addScmArguments(com.compuware.jenkins.scm.DownloadTemplate.Builder)
+	 */
+	@Override
+	protected void addScmArguments(DownloadTemplate.Builder template)
+	{
+		template.arg(ScmConstants.ISPW_SERVER_STREAM_PARAM, ArgumentUtils.escapeForScript(getServerStream()));
+		template.arg(ScmConstants.ISPW_SERVER_APP_PARAM, ArgumentUtils.escapeForScript(getServerApplication()));
+		String serverSubAppl = ArgumentUtils.escapeForScript(getServerSubAppl());
+		if (serverSubAppl != null && !serverSubAppl.isEmpty())
+		{
+			template.arg(ScmConstants.ISPW_SERVER_SUBAPPL_PARAM, serverSubAppl);
+		}
+		template.arg(ScmConstants.ISPW_SERVER_LEVEL_PARAM, ArgumentUtils.escapeForScript(getServerLevel()));
+		template.arg(ScmConstants.ISPW_LEVEL_OPTION_PARAM, ArgumentUtils.escapeForScript(getLevelOption()));
+		template.arg(ScmConstants.ISPW_FILTER_FILES_PARAM, ArgumentUtils.escapeForScript(getFilterFiles()));
+		template.arg(ScmConstants.ISPW_FILTER_FOLDERS_PARAM, ArgumentUtils.escapeForScript(getFilterFolders()));
+
+		// Optional args
+		String componentName = getFolderName();
+		if (!componentName.isEmpty())
+		{
+			template.arg(ScmConstants.ISPW_FOLDER_NAME_PARAM, ArgumentUtils.escapeForScript(componentName));
+		}
+
+		String componentType = getComponentType();
+		if (!componentType.isEmpty())
+		{
+			template.arg(ScmConstants.ISPW_COMPONENT_TYPE_PARAM, ArgumentUtils.escapeForScript(componentType));
+		}
+
+		if (getIspwDownloadWithCompileOnly())
+		{
+			template.arg(ScmConstants.ISPW_DOWNLOAD_WITH_COMPILE_ONLY, ArgumentUtils.escapeForScript(Boolean.TRUE.toString()));
+		}
+	}
+
 	/**
 	 * Validates the configuration parameters.
 	 *
@@ -26,6 +26,8 @@ import org.kohsuke.stapler.StaplerRequest;
 
 import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
 import com.compuware.jenkins.common.configuration.HostConnection;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.scm.utils.ScmConstants;
 import hudson.AbortException;
 import hudson.Extension;
 import hudson.Launcher;
@@ -192,6 +194,40 @@ public class IspwContainerConfiguration extends AbstractIspwConfiguration
 		return cpCategorizeOnSubAppl;
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractIspwConfiguration#getScmType()
+	 */
+	@Override
+	protected String getScmType()
+	{
+		return ScmConstants.ISPWC;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractIspwConfiguration#addScmArguments(com.compuware.jenkins.scm.DownloadTemplate.Builder)
+	 */
+	@Override
+	protected void addScmArguments(DownloadTemplate.Builder template)
+	{
+		template.arg(ScmConstants.ISPW_CONTAINER_NAME_PARAM, ArgumentUtils.escapeForScript(getContainerName()));
+		template.arg(ScmConstants.ISPW_CONTAINER_TYPE_PARAM, ArgumentUtils.escapeForScript(getContainerType()));
+
+		// Optional args
+		String serverLevel = getServerLevel();
+		if (!serverLevel.isEmpty())
+		{
+			template.arg(ScmConstants.ISPW_SERVER_LEVEL_PARAM, ArgumentUtils.escapeForScript(serverLevel));
+		}
+
+		String componentType = getComponentType();
+		if (!componentType.isEmpty())
+		{
+			template.arg(ScmConstants.ISPW_COMPONENT_TYPE_PARAM, ArgumentUtils.escapeForScript(componentType));
+		}
+	}
+
 	/**
 	 * Validates the configuration parameters
 	 * 
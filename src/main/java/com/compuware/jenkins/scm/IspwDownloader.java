@@ -20,20 +20,19 @@ package com.compuware.jenkins.scm;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.Properties;
+import java.util.UUID;
 
 import org.apache.commons.lang.StringUtils;
 
 import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
 import com.compuware.jenkins.common.utils.ArgumentUtils;
-import com.compuware.jenkins.common.utils.CLIVersionUtils;
 import com.compuware.jenkins.common.utils.CommonConstants;
 import com.compuware.jenkins.scm.utils.ScmConstants;
 
-import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Item;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
@@ -45,9 +44,7 @@ import hudson.util.ArgumentListBuilder;
 public class IspwDownloader extends AbstractDownloader
 {
 	// Member Variables
-	private AbstractIspwConfiguration ispwConfiguration;
-	private IspwConfiguration ispwRepositoryConfig;
-	private IspwContainerConfiguration ispwContainerConfig;
+	private final AbstractIspwConfiguration ispwConfiguration;
 
 	/**
 	 * Constructor.
@@ -60,6 +57,16 @@ public class IspwDownloader extends AbstractDownloader
 		ispwConfiguration = config;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.AbstractDownloader#getDownloadTemplate()
+	 */
+	@Override
+	protected DownloadTemplate getDownloadTemplate()
+	{
+		return ispwConfiguration.getDownloadTemplate();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.compuware.jenkins.scm.AbstractDownloader#getSource(hudson.model.Run, hudson.Launcher, hudson.FilePath, hudson.model.TaskListener, java.io.File)
@@ -71,213 +78,209 @@ public class IspwDownloader extends AbstractDownloader
 		// obtain argument values to pass to the CLI
 		PrintStream logger = listener.getLogger();
 		CpwrGlobalConfiguration globalConfig = CpwrGlobalConfiguration.get();
+		DownloadTemplate template = ispwConfiguration.getDownloadTemplate();
+		DownloadEngine engine = new DownloadEngine(DownloadProgressAction.get(build), template.getTimeout());
 		
 		assert launcher!=null;
 		VirtualChannel vChannel = launcher.getChannel();
 		
-		assert vChannel!=null;
-		Properties remoteProperties = vChannel.call(new RemoteSystemProperties());
-		String remoteFileSeparator = remoteProperties.getProperty(CommonConstants.FILE_SEPARATOR_PROPERTY_KEY);
+		AgentCapabilities agent = AgentCapabilityCache.get(launcher, workspaceFilePath);
+		String remoteFileSeparator = agent.getFileSeparator();
 		String osFile = launcher.isUnix() ? ScmConstants.SCM_DOWNLOADER_CLI_SH : ScmConstants.SCM_DOWNLOADER_CLI_BAT;
 
-		String cliScriptFile = globalConfig.getTopazCLILocation(launcher) + remoteFileSeparator + osFile;
+		String cliScriptFile = agent.getCliLocation() + remoteFileSeparator + osFile;
 		logger.println("cliScriptFile: " + cliScriptFile); //$NON-NLS-1$
 		String cliScriptFileRemote = new FilePath(vChannel, cliScriptFile).getRemote();
 		logger.println("cliScriptFileRemote: " + cliScriptFileRemote); //$NON-NLS-1$
 
 		String targetFolder = ArgumentUtils.escapeForScript(workspaceFilePath.getRemote());
-		String topazCliWorkspace = workspaceFilePath.getRemote() + remoteFileSeparator + CommonConstants.TOPAZ_CLI_WORKSPACE;
-		logger.println("TopazCliWorkspace: " + topazCliWorkspace); //$NON-NLS-1$
 
-		// filter args
-		String serverStream = StringUtils.EMPTY;
-		String serverApp = StringUtils.EMPTY;
-		String serverSubAppl = StringUtils.EMPTY;
-		String serverLevel = StringUtils.EMPTY;
-		String levelOption = StringUtils.EMPTY;
-		String filterFiles = StringUtils.EMPTY;
-		String filterFolders = StringUtils.EMPTY;
-		String containerName = StringUtils.EMPTY;
-		String containerType = StringUtils.EMPTY;
-		String downloadAll = StringUtils.EMPTY;
-		
-		boolean ispwDownloadInclBool = false;
-		String ispwDownloadIncl = StringUtils.EMPTY;
-		
-		boolean ispwDownloadWithCompileOnlyBool = false;
-		String ispwDownloadWithCompileOnly = StringUtils.EMPTY;
-		
-		boolean cpCategorizeOnComponentTypeBool = false;
-		String cpCategorizeOnComponentType = StringUtils.EMPTY;
-		
-		boolean cpCategorizeOnSubApplTypeBool = false;
-		String cpCategorizeOnSubAppl = StringUtils.EMPTY;
-
-		if (ispwConfiguration instanceof IspwConfiguration)
+		String sourceLocation = template.getTargetFolder();
+		if (StringUtils.isNotEmpty(sourceLocation))
 		{
-			ispwRepositoryConfig = (IspwConfiguration) ispwConfiguration;
-			
-			serverStream = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getServerStream());
-			serverApp = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getServerApplication());
-			serverSubAppl = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getServerSubAppl());
-			serverLevel = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getServerLevel());
-			levelOption = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getLevelOption());
-			filterFiles = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getFilterFiles());
-			filterFolders = ArgumentUtils.escapeForScript(ispwRepositoryConfig.getFilterFolders());
-			downloadAll = ArgumentUtils.escapeForScript(Boolean.toString(ispwRepositoryConfig.getIspwDownloadAll()));
-			
-			ispwDownloadInclBool = ispwRepositoryConfig.getIspwDownloadIncl();
-			ispwDownloadIncl = ArgumentUtils.escapeForScript(Boolean.toString(ispwRepositoryConfig.getIspwDownloadIncl()));
-			
-			ispwDownloadWithCompileOnlyBool = ispwRepositoryConfig.getIspwDownloadWithCompileOnly();
-			ispwDownloadWithCompileOnly = ArgumentUtils.escapeForScript(Boolean.toString(ispwRepositoryConfig.getIspwDownloadWithCompileOnly()));
-			
-			cpCategorizeOnComponentTypeBool = ispwRepositoryConfig.getCpCategorizeOnComponentType();
-			cpCategorizeOnComponentType = ArgumentUtils.escapeForScript(Boolean.toString(ispwRepositoryConfig.getCpCategorizeOnComponentType()));
-			
-			cpCategorizeOnSubApplTypeBool = ispwRepositoryConfig.getCpCategorizeOnSubAppl();
-			cpCategorizeOnSubAppl = ArgumentUtils.escapeForScript(Boolean.toString(ispwRepositoryConfig.getCpCategorizeOnSubAppl()));
-			
-			String sourceLocation = ispwRepositoryConfig.getTargetFolder();
-			if (StringUtils.isNotEmpty(sourceLocation))
-			{
-				targetFolder = ArgumentUtils.resolvePath(sourceLocation, workspaceFilePath.getRemote());
-				targetFolder = targetFolder.replaceAll("'", StringUtils.EMPTY); //$NON-NLS-1$
-				logger.println("Source download folder: " + targetFolder); //$NON-NLS-1$
-			}
-		}
-		else if (ispwConfiguration instanceof IspwContainerConfiguration) {
-			ispwContainerConfig = (IspwContainerConfiguration) ispwConfiguration;
-			
-			String sourceLocation = ispwContainerConfig.getTargetFolder();
-			if (StringUtils.isNotEmpty(sourceLocation)) {
-				targetFolder = ArgumentUtils.resolvePath(sourceLocation, workspaceFilePath.getRemote());
-				targetFolder = targetFolder.replaceAll("'", StringUtils.EMPTY); //$NON-NLS-1$
-				logger.println("Source download folder: " + targetFolder); //$NON-NLS-1$
-			}
-
-			containerName = ArgumentUtils.escapeForScript(ispwContainerConfig.getContainerName());
-			containerType = ArgumentUtils.escapeForScript(ispwContainerConfig.getContainerType());
-			downloadAll = ArgumentUtils.escapeForScript(Boolean.toString(ispwContainerConfig.getIspwDownloadAll()));
-			
-			ispwDownloadInclBool = ispwContainerConfig.getIspwDownloadIncl();
-			ispwDownloadIncl = ArgumentUtils.escapeForScript(Boolean.toString(ispwContainerConfig.getIspwDownloadIncl()));
-			
-			cpCategorizeOnComponentTypeBool = ispwContainerConfig.getCpCategorizeOnComponentType();
-			cpCategorizeOnComponentType = ArgumentUtils.escapeForScript(Boolean.toString(ispwContainerConfig.getCpCategorizeOnComponentType()));
-			
-			cpCategorizeOnSubApplTypeBool = ispwContainerConfig.getCpCategorizeOnSubAppl();
-			cpCategorizeOnSubAppl = ArgumentUtils.escapeForScript(Boolean.toString(ispwContainerConfig.getCpCategorizeOnSubAppl()));
+			targetFolder = ArgumentUtils.resolvePath(sourceLocation, workspaceFilePath.getRemote());
+			targetFolder = targetFolder.replaceAll("'", StringUtils.EMPTY); //$NON-NLS-1$
+			logger.println("Source download folder: " + targetFolder); //$NON-NLS-1$
 		}
 
-        FilePath cliDirectory = new FilePath(vChannel, globalConfig.getTopazCLILocation(launcher));
-		String cliVersion = CLIVersionUtils.getCLIVersion(cliDirectory, ScmConstants.DOWNLOADER_MINIMUM_CLI_VERSION);
-
-		// build the list of arguments to pass to the CLI
-		ArgumentListBuilder args = globalConfig.getArgumentBuilder(cliScriptFileRemote, cliVersion, build.getParent(), ispwConfiguration.getCredentialsId(), ispwConfiguration.getConnectionId());
+		// build the list of arguments to pass to the CLI; the ISPW specific arguments come from the download template of
+		// the configuration
+		ArgumentListBuilder cliArgs = globalConfig.getArgumentBuilder(cliScriptFileRemote, agent.getCliVersion(),
+				build.getParent(), template.getCredentialsId(), template.getConnectionId());
+		ArgumentListBuilder args = cliArgs.clone();
 		args.add(CommonConstants.TARGET_FOLDER_PARM, targetFolder);
-		args.add(CommonConstants.DATA_PARM, topazCliWorkspace);
+		args.add(template.getArgs());
 
-		// optional and filter-specific args
-		String runtimeConfig = ispwConfiguration.getServerConfig();
-		
-		if (!runtimeConfig.isEmpty())
-		{
-			runtimeConfig = ArgumentUtils.escapeForScript(runtimeConfig);
-			args.add(ScmConstants.ISPW_SERVER_CONFIG_PARAM, runtimeConfig);
-		}
+		FilePath targetFolderPath = getTargetFolderPath(workspaceFilePath, sourceLocation);
+		FilePath manifestFile = getManifestFile(workspaceFilePath, targetFolderPath);
+		boolean swap = isStagedSwap(template, sourceLocation, logger);
 
-		if (ispwRepositoryConfig != null)
+		// identical downloads running at the same time share a single download from the host; the checkout is told apart
+		// from other checkouts of the same build by its own id
+		String checkoutId = UUID.randomUUID().toString();
+		SharedDownloads.Flight flight = SharedDownloads.join(SharedDownloads.fingerprint(args), checkoutId,
+				build.getFullDisplayName());
+		if (!flight.isLedBy(checkoutId))
 		{
-			// ISPW Repo-specific args
-			args.add(ScmConstants.SCM_TYPE_PARM, ScmConstants.ISPW);
-			args.add(ScmConstants.ISPW_SERVER_STREAM_PARAM, serverStream);
-			args.add(ScmConstants.ISPW_SERVER_APP_PARAM, serverApp);
-			if(serverSubAppl!= null && !serverSubAppl.isEmpty() )
+			logger.println("Sharing the identical download of " + flight.getLeader()); //$NON-NLS-1$
+			DownloadChanges changes = copySharedDownload(flight, workspaceFilePath, targetFolderPath, manifestFile, swap,
+					listener);
+			if (changes != null)
 			{
-				args.add(ScmConstants.ISPW_SERVER_SUBAPPL_PARAM, serverSubAppl);
+				recordChanges(changes, changelogFile, listener);
+				getIncompleteMarker(manifestFile).delete();
+				return true;
 			}
-			args.add(ScmConstants.ISPW_SERVER_LEVEL_PARAM, serverLevel);
-			args.add(ScmConstants.ISPW_LEVEL_OPTION_PARAM, levelOption);
-			args.add(ScmConstants.ISPW_FILTER_FILES_PARAM, filterFiles);
-			args.add(ScmConstants.ISPW_FILTER_FOLDERS_PARAM, filterFolders);
+			logger.println("The shared download was not available, downloading instead"); //$NON-NLS-1$
+		}
 
-			// Optional args
-			String componentName = ispwRepositoryConfig.getFolderName();
-			if (!componentName.isEmpty())
+		boolean downloaded = false;
+		try
+		{
+			// with a staged swap, the CLI updates a copy of the download location next to it, which replaces the download
+			// location once the download is complete
+			String stagingFolder = null;
+			ArgumentListBuilder callArgs = args;
+			if (swap)
 			{
-				componentName = ArgumentUtils.escapeForScript(componentName);
-				args.add(ScmConstants.ISPW_FOLDER_NAME_PARAM, componentName);
+				stagingFolder = getSwapStagingFolder(targetFolderPath).getRemote();
+				logger.println("Staging folder: " + stagingFolder); //$NON-NLS-1$
+				callArgs = cliArgs.clone();
+				callArgs.add(CommonConstants.TARGET_FOLDER_PARM, stagingFolder);
+				callArgs.add(template.getArgs());
 			}
 
-			String componentType = ispwRepositoryConfig.getComponentType();
-			if (!componentType.isEmpty())
+			// invoke the CLI in the workspace (created if it doesn't already exist) and update the manifest of the download
+			// location, all on the agent; the CLI data workspace is leased for this download alone and kept for the next
+			// build on the same executor
+			EnvVars env = build.getEnvironment(listener);
+			DownloadPlan.CliCall call = new DownloadPlan.CliCall(callArgs, null, workspaceFilePath.getRemote(),
+					getExecutorAffinity(build));
+			DownloadPlan.Builder plan = new DownloadPlan.Builder(workspaceFilePath.getRemote(), env, osFile)
+					.maxRetries(RetryPolicy.get().getMaxRetries()).add(call)
+					.update(targetFolderPath.getRemote(), stagingFolder, manifestFile.getRemote())
+					.manifest(isTracked(build.getParent(), template), false);
+			if (swap)
 			{
-				componentType = ArgumentUtils.escapeForScript(componentType);
-				args.add(ScmConstants.ISPW_COMPONENT_TYPE_PARAM, componentType);
+				plan.swap(false, true);
 			}
-			
-			if (ispwDownloadWithCompileOnlyBool)
+			recordChanges(engine.run(launcher, build.getParent(), template.getConnectionId(), plan.build(), listener),
+					changelogFile, listener);
+			downloaded = true;
+		}
+		finally
+		{
+			if (flight.isLedBy(checkoutId))
 			{
-				args.add(ScmConstants.ISPW_DOWNLOAD_WITH_COMPILE_ONLY, ispwDownloadWithCompileOnly);
+				flight.land(workspaceFilePath.child(ScmConstants.TOPAZ_CLI_STAGING + UUID.randomUUID().toString()),
+						downloaded ? targetFolderPath : null, downloaded ? manifestFile : null);
 			}
 		}
-		else if (ispwContainerConfig != null)
-		{
-			// ISPW Container-specific args
-			args.add(ScmConstants.SCM_TYPE_PARM, ScmConstants.ISPWC);
-			args.add(ScmConstants.ISPW_CONTAINER_NAME_PARAM, containerName);
-			args.add(ScmConstants.ISPW_CONTAINER_TYPE_PARAM, containerType);
 
-			// Optional args
-			serverLevel = ispwContainerConfig.getServerLevel();
-			if (!serverLevel.isEmpty())
+		return true;
+	}
+
+	/**
+	 * Downloads the configured components into a folder of their own, for reading them without a build. The CLI cannot
+	 * download single components, so the whole configuration is downloaded.
+	 * 
+	 * @param item
+	 *            the job or multibranch project the download is for, used to look up the credentials
+	 * @param env
+	 *            the environment to run the CLI with
+	 * @param launcher
+	 *            the machine that the files will be downloaded to
+	 * @param workspaceFilePath
+	 *            the folder the CLI runs in and keeps its data in
+	 * @param fetchFolderPath
+	 *            the folder to download into
+	 * @param listener
+	 *            listener for the CLI output
+	 * 
+	 * @throws InterruptedException
+	 *             if the download is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	public void fetch(Item item, EnvVars env, Launcher launcher, FilePath workspaceFilePath, FilePath fetchFolderPath,
+			TaskListener listener) throws InterruptedException, IOException
+	{
+		DownloadTemplate template = ispwConfiguration.getDownloadTemplate();
+		AgentCapabilities agent = AgentCapabilityCache.get(launcher, workspaceFilePath);
+		String osFile = launcher.isUnix() ? ScmConstants.SCM_DOWNLOADER_CLI_SH : ScmConstants.SCM_DOWNLOADER_CLI_BAT;
+		String cliScriptFileRemote = new FilePath(launcher.getChannel(),
+				agent.getCliLocation() + agent.getFileSeparator() + osFile).getRemote();
+
+		ArgumentListBuilder args = CpwrGlobalConfiguration.get().getArgumentBuilder(cliScriptFileRemote,
+				agent.getCliVersion(), item, template.getCredentialsId(), template.getConnectionId());
+		args.add(CommonConstants.TARGET_FOLDER_PARM, ArgumentUtils.escapeForScript(fetchFolderPath.getRemote()));
+		args.add(template.getArgs());
+
+		DownloadPlan plan = new DownloadPlan.Builder(workspaceFilePath.getRemote(), env, osFile)
+				.maxRetries(RetryPolicy.get().getMaxRetries())
+				.add(new DownloadPlan.CliCall(args, null, workspaceFilePath.getRemote(), null)).build();
+		new DownloadEngine(null, template.getTimeout()).run(launcher, item, template.getConnectionId(), plan, listener);
+	}
+
+	/**
+	 * Copies the download of the leader of a shared download into the download location, through a staging folder so that
+	 * only changed components are written and components no longer downloaded are removed. With a staged swap, the staging
+	 * folder is next to the download location and replaces it.
+	 * 
+	 * @param flight
+	 *            the shared download
+	 * @param workspaceFilePath
+	 *            the workspace of the build
+	 * @param targetFolderPath
+	 *            the download location
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 * @param swap
+	 *            <code>true</code> to swap the staging folder in for the download location
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the changes made to the download location; <code>null</code> if the shared download failed or could not be
+	 *         copied
+	 * 
+	 * @throws InterruptedException
+	 *             if copying is interrupted
+	 * @throws IOException
+	 *             if the download location cannot be updated
+	 */
+	private DownloadChanges copySharedDownload(SharedDownloads.Flight flight, FilePath workspaceFilePath,
+			FilePath targetFolderPath, FilePath manifestFile, boolean swap, TaskListener listener)
+			throws InterruptedException, IOException
+	{
+		FilePath stagingFolderPath = swap ? getSwapStagingFolder(targetFolderPath)
+				: workspaceFilePath.child(ScmConstants.TOPAZ_CLI_STAGING + UUID.randomUUID().toString());
+		try
+		{
+			try
 			{
-				serverLevel = ArgumentUtils.escapeForScript(serverLevel);
-				args.add(ScmConstants.ISPW_SERVER_LEVEL_PARAM, serverLevel);
+				if (!flight.copyTo(stagingFolderPath))
+				{
+					return null;
+				}
 			}
-
-			String componentType = ispwContainerConfig.getComponentType();
-			if (!componentType.isEmpty())
+			catch (IOException e)
 			{
-				componentType = ArgumentUtils.escapeForScript(componentType);
-				args.add(ScmConstants.ISPW_COMPONENT_TYPE_PARAM, componentType);
+				listener.getLogger().println("Failed to copy the shared download: " + e.getMessage()); //$NON-NLS-1$
+				return null;
 			}
-		}
 
-		args.add(ScmConstants.ISPW_DOWNLOAD_ALL_PARAM, downloadAll);
-		
-		//only add the option if true to keep compatible with older version
-		if(ispwDownloadInclBool)
-		{
-			args.add(ScmConstants.ISPW_DOWNLOAD_INCL_PARM, ispwDownloadIncl);
-		}
-		
-		if (cpCategorizeOnComponentTypeBool)
-		{
-			args.add(ScmConstants.CP_CATEGORIZE_ON_COMPONENT_TYPE, cpCategorizeOnComponentType);
-		}
-		
-		if (cpCategorizeOnSubApplTypeBool)
-		{
-			args.add(ScmConstants.CP_CATEGORIZE_ON_SUB_APPL, cpCategorizeOnSubAppl);
-		}
-		
-		// create the CLI workspace (in case it doesn't already exist)
-		EnvVars env = build.getEnvironment(listener);
-		FilePath workDir = new FilePath(vChannel, workspaceFilePath.getRemote());
-		workDir.mkdirs();
+			if (swap)
+			{
+				return targetFolderPath
+						.act(new StagedSwap(stagingFolderPath.getRemote(), manifestFile.getRemote(), 0L, true, false, true, false));
+			}
 
-		// invoke the CLI (execute the batch/shell script)
-		int exitValue = launcher.launch().cmds(args).envs(env).stdout(logger).pwd(workDir).join();
-		if (exitValue != 0)
-		{
-			throw new AbortException("Call " + osFile + " exited with value = " + exitValue); //$NON-NLS-1$ //$NON-NLS-2$
+			targetFolderPath.mkdirs();
+			return targetFolderPath.act(new IncrementalSync(stagingFolderPath.getRemote(), manifestFile.getRemote()));
 		}
-		else
+		finally
 		{
-			logger.println("Call " + osFile + " exited with value = " + exitValue); //$NON-NLS-1$ //$NON-NLS-2$
-			return true;
+			stagingFolderPath.deleteRecursive();
 		}
 	}
 }
\ No newline at end of file
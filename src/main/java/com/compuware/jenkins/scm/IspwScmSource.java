@@ -0,0 +1,825 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMProbe;
+import jenkins.scm.api.SCMProbeStat;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceCriteria;
+import jenkins.scm.api.SCMSourceDescriptor;
+import jenkins.scm.api.SCMSourceOwner;
+
+/**
+ * A source of Code Pipeline heads for multibranch projects: one head for each application, sub-application and level of a
+ * stream, and one for each assignment. Each head checks out with its own {@link IspwConfiguration} or
+ * {@link IspwContainerConfiguration}.
+ * <p>
+ * The revision of a head is the content digest of its download, which is made on a lightweight checkout agent and shared
+ * with {@link CpwrScmFileSystem}. Indexing downloads the heads in parallel, as far as the download slots of the host connection
+ * allow, and reuses the revision of a head, and whether it met the criteria of the project, for
+ * {@link ScmConstants#SOURCE_INDEX_MAX_AGE} milliseconds, so that re-indexing only downloads the heads indexed longer ago.
+ * <p>
+ * The CLI cannot tell whether a head changed without downloading it, so indexing is as costly as a full checkout of every
+ * head it downloads. It needs an online agent with the label of the 'Lightweight checkout agents' of the global
+ * configuration, since the CLI never runs on the built-in node. Sources with many or large heads should be indexed rarely,
+ * and rely on the webhook to build the heads that changed. The credentials of the source are looked up for the multibranch
+ * project that owns it, so credentials defined in its folders are found.
+ */
+public class IspwScmSource extends SCMSource
+{
+	private static final String LIST_SEPARATORS = " ,\t\r\n"; //$NON-NLS-1$
+	private static final String ASSIGNMENT_CONTAINER_TYPE = "0"; //$NON-NLS-1$
+
+	private static final Map<String, Indexed> s_indexed = new ConcurrentHashMap<>();
+
+	private final String m_connectionId;
+	private final String m_credentialsId;
+	private final String m_serverConfig;
+	private final String m_serverStream;
+	private final String m_applications;
+	private final String m_levels;
+	private String m_subApplications = StringUtils.EMPTY;
+	private String m_levelOption = "0"; //$NON-NLS-1$
+	private String m_assignments = StringUtils.EMPTY;
+	private String m_targetFolder = StringUtils.EMPTY;
+	private boolean m_ispwDownloadAll;
+
+	/**
+	 * Gets the data from the configuration page. The parameter names must match the field names set by
+	 * <code>config.jelly</code>.
+	 * 
+	 * @param connectionId
+	 *            a unique host connection identifier
+	 * @param credentialsId
+	 *            unique id of the selected credential
+	 * @param serverConfig
+	 *            runtime configuration
+	 * @param serverStream
+	 *            stream name
+	 * @param applications
+	 *            application names, separated by spaces, commas or new lines
+	 * @param levels
+	 *            level names, separated by spaces, commas or new lines
+	 */
+	@DataBoundConstructor
+	public IspwScmSource(String connectionId, String credentialsId, String serverConfig, String serverStream,
+			String applications, String levels)
+	{
+		m_connectionId = StringUtils.trimToEmpty(connectionId);
+		m_credentialsId = StringUtils.trimToEmpty(credentialsId);
+		m_serverConfig = StringUtils.trimToEmpty(serverConfig);
+		m_serverStream = StringUtils.trimToEmpty(serverStream);
+		m_applications = StringUtils.trimToEmpty(applications);
+		m_levels = StringUtils.trimToEmpty(levels);
+	}
+
+	/**
+	 * Gets the unique identifier of the 'Host connection'.
+	 * 
+	 * @return <code>String</code> value of m_connectionId
+	 */
+	public String getConnectionId()
+	{
+		return m_connectionId;
+	}
+
+	/**
+	 * Gets the value of the 'Login credentials'.
+	 * 
+	 * @return <code>String</code> value of m_credentialsId
+	 */
+	public String getCredentialsId()
+	{
+		return m_credentialsId;
+	}
+
+	/**
+	 * Gets the value of the 'Runtime configuration'.
+	 * 
+	 * @return <code>String</code> value of m_serverConfig
+	 */
+	public String getServerConfig()
+	{
+		return m_serverConfig;
+	}
+
+	/**
+	 * Gets the value of the 'Stream'.
+	 * 
+	 * @return <code>String</code> value of m_serverStream
+	 */
+	public String getServerStream()
+	{
+		return m_serverStream;
+	}
+
+	/**
+	 * Gets the value of the 'Applications'.
+	 * 
+	 * @return <code>String</code> value of m_applications
+	 */
+	public String getApplications()
+	{
+		return m_applications;
+	}
+
+	/**
+	 * Gets the value of the 'Levels'.
+	 * 
+	 * @return <code>String</code> value of m_levels
+	 */
+	public String getLevels()
+	{
+		return m_levels;
+	}
+
+	/**
+	 * Gets the value of the 'Sub-applications'.
+	 * 
+	 * @return <code>String</code> value of m_subApplications
+	 */
+	public String getSubApplications()
+	{
+		return m_subApplications;
+	}
+
+	/**
+	 * Sets the value of the 'Sub-applications'. Each application gets a head for each sub-application and level; with no
+	 * sub-applications, a head for each level.
+	 * 
+	 * @param subApplications
+	 *            sub-application names, separated by spaces, commas or new lines
+	 */
+	@DataBoundSetter
+	public void setSubApplications(String subApplications)
+	{
+		m_subApplications = StringUtils.trimToEmpty(subApplications);
+	}
+
+	/**
+	 * Gets the value of the 'Level option'.
+	 * 
+	 * @return <code>String</code> value of m_levelOption
+	 */
+	public String getLevelOption()
+	{
+		return m_levelOption;
+	}
+
+	/**
+	 * Sets the value of the 'Level option'.
+	 * 
+	 * @param levelOption
+	 *            <code>0</code> for the selected level only, <code>1</code> for the first found in the level and above
+	 */
+	@DataBoundSetter
+	public void setLevelOption(String levelOption)
+	{
+		m_levelOption = StringUtils.defaultIfEmpty(StringUtils.trimToEmpty(levelOption), "0"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Gets the value of the 'Assignments'.
+	 * 
+	 * @return <code>String</code> value of m_assignments
+	 */
+	public String getAssignments()
+	{
+		return m_assignments;
+	}
+
+	/**
+	 * Sets the value of the 'Assignments'. Each assignment gets a head of its own, which downloads the assignment container.
+	 * 
+	 * @param assignments
+	 *            assignment identifiers, separated by spaces, commas or new lines
+	 */
+	@DataBoundSetter
+	public void setAssignments(String assignments)
+	{
+		m_assignments = StringUtils.trimToEmpty(assignments);
+	}
+
+	/**
+	 * Gets the value of the 'Source download location'.
+	 * 
+	 * @return <code>String</code> value of m_targetFolder
+	 */
+	public String getTargetFolder()
+	{
+		return m_targetFolder;
+	}
+
+	/**
+	 * Sets the value of the 'Source download location'.
+	 * 
+	 * @param targetFolder
+	 *            source download location
+	 */
+	@DataBoundSetter
+	public void setTargetFolder(String targetFolder)
+	{
+		m_targetFolder = StringUtils.trimToEmpty(targetFolder);
+	}
+
+	/**
+	 * Gets the value of the 'Download all' option.
+	 * 
+	 * @return <code>boolean</code> value of m_ispwDownloadAll
+	 */
+	public boolean isIspwDownloadAll()
+	{
+		return m_ispwDownloadAll;
+	}
+
+	/**
+	 * Sets the value of the 'Download all' option.
+	 * 
+	 * @param ispwDownloadAll
+	 *            <code>true</code> to clear unmatched items from the workspace
+	 */
+	@DataBoundSetter
+	public void setIspwDownloadAll(boolean ispwDownloadAll)
+	{
+		m_ispwDownloadAll = ispwDownloadAll;
+	}
+
+	/**
+	 * Gets the heads of the source: each application with each sub-application and level, then each assignment.
+	 * 
+	 * @return the heads
+	 */
+	public List<IspwScmHead> getHeads()
+	{
+		List<IspwScmHead> heads = new ArrayList<>();
+		String[] subApplications = StringUtils.split(m_subApplications, LIST_SEPARATORS);
+		if (subApplications.length == 0)
+		{
+			subApplications = new String[] { StringUtils.EMPTY };
+		}
+
+		for (String application : StringUtils.split(m_applications, LIST_SEPARATORS))
+		{
+			for (String subApplication : subApplications)
+			{
+				for (String level : StringUtils.split(m_levels, LIST_SEPARATORS))
+				{
+					heads.add(new IspwScmHead(application, subApplication, level, null));
+				}
+			}
+		}
+
+		for (String assignment : StringUtils.split(m_assignments, LIST_SEPARATORS))
+		{
+			heads.add(new IspwScmHead(null, null, null, assignment));
+		}
+
+		return heads;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see jenkins.scm.api.SCMSource#retrieve(jenkins.scm.api.SCMSourceCriteria, jenkins.scm.api.SCMHeadObserver, jenkins.scm.api.SCMHeadEvent, hudson.model.TaskListener)
+	 */
+	@Override
+	protected void retrieve(SCMSourceCriteria criteria, SCMHeadObserver observer, SCMHeadEvent<?> event,
+			TaskListener listener) throws IOException, InterruptedException
+	{
+		PrintStream logger = listener.getLogger();
+		Set<SCMHead> includes = observer.getIncludes();
+		List<IspwScmHead> heads = new ArrayList<>();
+		for (IspwScmHead head : getHeads())
+		{
+			if (includes == null || includes.contains(head))
+			{
+				heads.add(head);
+			}
+		}
+		if (heads.isEmpty())
+		{
+			return;
+		}
+
+		pruneIndexed();
+		SCMSourceOwner owner = getOwner();
+		String ownerName = owner != null ? owner.getFullName() : StringUtils.EMPTY;
+		logger.println("Indexing " + heads.size() + " Code Pipeline heads"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// heads are downloaded in parallel; their results are observed in order, on this thread
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(ScmConstants.SOURCE_INDEX_THREADS, heads.size()),
+				new NamingThreadFactory(new DaemonThreadFactory(), IspwScmSource.class.getSimpleName()));
+		try
+		{
+			List<Future<Indexed>> futures = new ArrayList<>();
+			for (IspwScmHead head : heads)
+			{
+				futures.add(executor.submit(() -> index(head, criteria, owner, ownerName, listener)));
+			}
+
+			for (int i = 0; i < heads.size() && observer.isObserving(); i++)
+			{
+				IspwScmHead head = heads.get(i);
+				Indexed indexed;
+				try
+				{
+					indexed = futures.get(i).get();
+				}
+				catch (ExecutionException e)
+				{
+					logger.println("Unable to index " + head.getName() + ": " + e.getCause()); //$NON-NLS-1$ //$NON-NLS-2$
+					continue;
+				}
+
+				if (indexed.m_isHead)
+				{
+					observer.observe(head, new IspwScmRevision(head, indexed.m_digest));
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Indexes a head: downloads it, unless it was indexed within the reuse period, and checks it against the criteria of the
+	 * project.
+	 * 
+	 * @param head
+	 *            the head
+	 * @param criteria
+	 *            the criteria of the project; can be <code>null</code>
+	 * @param owner
+	 *            the multibranch project owning the source, used to look up the credentials; can be <code>null</code>
+	 * @param ownerName
+	 *            the full name of the owner of the source, whose criteria the head is checked against
+	 * @param listener
+	 *            indexing listener
+	 * 
+	 * @return the result of indexing the head
+	 * 
+	 * @throws InterruptedException
+	 *             if indexing is interrupted
+	 * @throws IOException
+	 *             if the download fails
+	 */
+	private Indexed index(IspwScmHead head, SCMSourceCriteria criteria, Item owner, String ownerName,
+			TaskListener listener) throws InterruptedException, IOException
+	{
+		AbstractConfiguration scm = build(head, null);
+		String key = Util.getDigestOf(scm.getDownloadTemplate().getFingerprint() + '\n' + ownerName);
+		Indexed indexed = s_indexed.get(key);
+		if (indexed != null && indexed.isFresh())
+		{
+			return indexed;
+		}
+
+		CpwrScmFileSystem.Download download = CpwrScmFileSystem.fetch(scm, owner, StringUtils.EMPTY);
+		try
+		{
+			CpwrRevisionState state = download.getFolder().act(new CpwrRevisionState.FromFolder());
+			boolean isHead = criteria == null
+					|| criteria.isHead(new FolderProbe(head.getName(), download.getFolder()), listener);
+			indexed = new Indexed(state.getDigest(), isHead);
+			listener.getLogger().println("Indexed " + head.getName() + ": " + state); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		finally
+		{
+			download.release();
+		}
+		s_indexed.put(key, indexed);
+
+		return indexed;
+	}
+
+	/**
+	 * Drops the indexing results older than the reuse period.
+	 */
+	private static void pruneIndexed()
+	{
+		for (Iterator<Indexed> indexed = s_indexed.values().iterator(); indexed.hasNext();)
+		{
+			if (!indexed.next().isFresh())
+			{
+				indexed.remove();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see jenkins.scm.api.SCMSource#build(jenkins.scm.api.SCMHead, jenkins.scm.api.SCMRevision)
+	 */
+	@Override
+	public AbstractConfiguration build(SCMHead head, SCMRevision revision)
+	{
+		IspwScmHead ispwHead = (IspwScmHead) head;
+		if (ispwHead.getAssignment() != null)
+		{
+			return new IspwContainerConfiguration(m_connectionId, m_credentialsId, m_serverConfig, ispwHead.getAssignment(),
+					ASSIGNMENT_CONTAINER_TYPE, StringUtils.EMPTY, StringUtils.EMPTY, m_ispwDownloadAll, m_targetFolder, false,
+					false, false);
+		}
+
+		return new IspwConfiguration(m_connectionId, m_credentialsId, m_serverConfig, m_serverStream,
+				ispwHead.getApplication(), ispwHead.getSubApplication(), ispwHead.getLevel(), m_levelOption, StringUtils.EMPTY,
+				StringUtils.EMPTY, m_ispwDownloadAll, m_targetFolder, false, false, false, false);
+	}
+
+	/**
+	 * The result of indexing a head.
+	 */
+	private static final class Indexed
+	{
+		private final String m_digest;
+		private final boolean m_isHead;
+		private final long m_indexed;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param digest
+		 *            the content digest of the download of the head
+		 * @param isHead
+		 *            whether the head met the criteria of the project
+		 */
+		private Indexed(String digest, boolean isHead)
+		{
+			m_digest = digest;
+			m_isHead = isHead;
+			m_indexed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Gets whether the result is within the reuse period.
+		 * 
+		 * @return <code>true</code> if the result can be reused
+		 */
+		private boolean isFresh()
+		{
+			return System.currentTimeMillis() - m_indexed <= ScmConstants.SOURCE_INDEX_MAX_AGE;
+		}
+	}
+
+	/**
+	 * A Code Pipeline head: an application, sub-application and level of the stream, or an assignment.
+	 */
+	public static class IspwScmHead extends SCMHead
+	{
+		private static final long serialVersionUID = 6138845063941273805L;
+
+		private final String m_application;
+		private final String m_subApplication;
+		private final String m_level;
+		private final String m_assignment;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param application
+		 *            the application; <code>null</code> for an assignment
+		 * @param subApplication
+		 *            the sub-application; empty for none, <code>null</code> for an assignment
+		 * @param level
+		 *            the level; <code>null</code> for an assignment
+		 * @param assignment
+		 *            the assignment; <code>null</code> for an application level
+		 */
+		public IspwScmHead(String application, String subApplication, String level, String assignment)
+		{
+			super(assignment != null ? assignment
+					: application + (StringUtils.isEmpty(subApplication) ? StringUtils.EMPTY : '-' + subApplication) + '-'
+							+ level);
+			m_application = application;
+			m_subApplication = subApplication;
+			m_level = level;
+			m_assignment = assignment;
+		}
+
+		/**
+		 * Gets the application.
+		 * 
+		 * @return the application; <code>null</code> for an assignment
+		 */
+		public String getApplication()
+		{
+			return m_application;
+		}
+
+		/**
+		 * Gets the sub-application.
+		 * 
+		 * @return the sub-application; empty for none, <code>null</code> for an assignment
+		 */
+		public String getSubApplication()
+		{
+			return m_subApplication;
+		}
+
+		/**
+		 * Gets the level.
+		 * 
+		 * @return the level; <code>null</code> for an assignment
+		 */
+		public String getLevel()
+		{
+			return m_level;
+		}
+
+		/**
+		 * Gets the assignment.
+		 * 
+		 * @return the assignment; <code>null</code> for an application level
+		 */
+		public String getAssignment()
+		{
+			return m_assignment;
+		}
+	}
+
+	/**
+	 * The revision of a Code Pipeline head: the content digest of its download.
+	 */
+	public static class IspwScmRevision extends SCMRevision
+	{
+		private static final long serialVersionUID = -4406517416237405963L;
+
+		private final String m_digest;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param head
+		 *            the head
+		 * @param digest
+		 *            the content digest of the download of the head
+		 */
+		public IspwScmRevision(SCMHead head, String digest)
+		{
+			super(head);
+			m_digest = digest;
+		}
+
+		/**
+		 * Gets the content digest of the download of the head.
+		 * 
+		 * @return the digest
+		 */
+		public String getDigest()
+		{
+			return m_digest;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMRevision#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof IspwScmRevision))
+			{
+				return false;
+			}
+
+			IspwScmRevision other = (IspwScmRevision) obj;
+			return getHead().equals(other.getHead()) && m_digest.equals(other.m_digest);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMRevision#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return m_digest.hashCode();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString()
+		{
+			return m_digest;
+		}
+	}
+
+	/**
+	 * Checks a head against the criteria of a project, looking at its download.
+	 */
+	private static final class FolderProbe extends SCMProbe
+	{
+		private static final long serialVersionUID = 2260739917414860525L;
+
+		private final String m_name;
+		private final FilePath m_folder;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param name
+		 *            the name of the head
+		 * @param folder
+		 *            the download of the head
+		 */
+		private FolderProbe(String name, FilePath folder)
+		{
+			m_name = name;
+			m_folder = folder;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMProbe#name()
+		 */
+		@Override
+		public String name()
+		{
+			return m_name;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMProbe#lastModified()
+		 */
+		@Override
+		public long lastModified()
+		{
+			try
+			{
+				return m_folder.lastModified();
+			}
+			catch (IOException e)
+			{
+				return 0L;
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return 0L;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see jenkins.scm.api.SCMProbe#stat(java.lang.String)
+		 */
+		@Override
+		public SCMProbeStat stat(String path) throws IOException
+		{
+			FilePath file = m_folder.child(path);
+			try
+			{
+				if (!file.exists())
+				{
+					return SCMProbeStat.fromType(SCMFile.Type.NONEXISTENT);
+				}
+
+				return SCMProbeStat.fromType(file.isDirectory() ? SCMFile.Type.DIRECTORY : SCMFile.Type.REGULAR_FILE);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw (IOException) new InterruptedIOException("Interrupted while probing " + path).initCause(e); //$NON-NLS-1$
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			// the download belongs to the cache of the file system
+		}
+	}
+
+	/**
+	 * DescriptorImpl is used to create instances of <code>IspwScmSource</code>.
+	 */
+	@Extension
+	public static class DescriptorImpl extends SCMSourceDescriptor
+	{
+		/**
+		 * Displays the name of the source, the name that appears when configuring a multibranch project.
+		 * 
+		 * @return the <code>String</code> value of the source display name
+		 */
+		@Override
+		public String getDisplayName()
+		{
+			return Messages.displayNameIspwSource();
+		}
+
+		/**
+		 * Fills in the Host Connection selection box with applicable connections.
+		 * 
+		 * @param context
+		 *            filter for host connections
+		 * @param connectionId
+		 *            an existing host connection identifier; can be null
+		 * @param project
+		 *            the Jenkins project
+		 * 
+		 * @return host connection selections
+		 */
+		public ListBoxModel doFillConnectionIdItems(@AncestorInPath Jenkins context, @QueryParameter String connectionId,
+				@AncestorInPath Item project)
+		{
+			return getRepositoryDescriptor().doFillConnectionIdItems(context, connectionId, project);
+		}
+
+		/**
+		 * Fills in the Login Credentials selection box with applicable connections.
+		 * 
+		 * @param context
+		 *            filter for login credentials
+		 * @param credentialsId
+		 *            existing login credentials; can be null
+		 * @param project
+		 *            the Jenkins project
+		 * 
+		 * @return login credentials selection
+		 */
+		public ListBoxModel doFillCredentialsIdItems(@AncestorInPath Jenkins context, @QueryParameter String credentialsId,
+				@AncestorInPath Item project)
+		{
+			return getRepositoryDescriptor().doFillCredentialsIdItems(context, credentialsId, project);
+		}
+
+		/**
+		 * Fills in the Level option selection box with ISPW level options
+		 *
+		 * @return level option selections
+		 */
+		public ListBoxModel doFillLevelOptionItems()
+		{
+			return getRepositoryDescriptor().doFillLevelOptionItems();
+		}
+
+		/**
+		 * Gets the descriptor of the Code Pipeline repository configuration, whose selection boxes the source shares.
+		 * 
+		 * @return the descriptor
+		 */
+		private static IspwConfiguration.DescriptorImpl getRepositoryDescriptor()
+		{
+			return Jenkins.get().getDescriptorByType(IspwConfiguration.DescriptorImpl.class);
+		}
+	}
+}
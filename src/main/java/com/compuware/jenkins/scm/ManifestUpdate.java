@@ -0,0 +1,205 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.compuware.jenkins.common.utils.CommonConstants;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Updates the download manifest of a download location after the CLI downloaded directly into it, and reports what the
+ * download changed.
+ * <p>
+ * A file is part of the download if it was written after the download started. A CLI that writes every member it downloads
+ * (PDS and Endevor) leaves members that are no longer on the host in the download location, so they are dropped from the
+ * manifest and reported as removed; for a CLI that only writes the members that changed (Code Pipeline), the members already
+ * in the manifest are kept as long as they exist. Anything else in the download location (such as build output when
+ * downloading into the workspace) is ignored, and the CLI and plugin working folders are always skipped.
+ * <p>
+ * Hashing the downloaded members is what lets the changes of a download be reported. Without hashes, the manifest only
+ * lists the downloaded members, which is enough to copy the download, and no changes are reported.
+ */
+public class ManifestUpdate extends MasterToSlaveFileCallable<DownloadChanges>
+{
+	private static final long serialVersionUID = 8062793304467405716L;
+
+	/**
+	 * Allowance for file systems that store modification times with a coarse granularity.
+	 */
+	private static final long TIMESTAMP_GRANULARITY = 2000L;
+
+	private final String m_manifestFile;
+	private final long m_downloadStart;
+	private final boolean m_hashed;
+	private final boolean m_complete;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 * @param downloadStart
+	 *            the time, on the agent's clock, at which the download started
+	 * @param hashed
+	 *            <code>true</code> to hash the downloaded members and report the changes of the download;
+	 *            <code>false</code> to only list the downloaded members
+	 * @param complete
+	 *            <code>true</code> if the CLI writes every member it downloads, so that members it did not write are no
+	 *            longer downloaded; <code>false</code> if it leaves unchanged members alone
+	 */
+	public ManifestUpdate(String manifestFile, long downloadStart, boolean hashed, boolean complete)
+	{
+		m_manifestFile = manifestFile;
+		m_downloadStart = downloadStart;
+		m_hashed = hashed;
+		m_complete = complete;
+	}
+
+	/**
+	 * Updates the manifest and works out the changes of the download.
+	 * 
+	 * @return the changes the download made to the download location; <code>null</code> if the members are not hashed
+	 */
+	@Override
+	public DownloadChanges invoke(File targetFolder, VirtualChannel channel) throws IOException, InterruptedException
+	{
+		File manifestFile = new File(m_manifestFile);
+		DownloadManifest previous = DownloadManifest.load(manifestFile);
+		DownloadManifest current = new DownloadManifest();
+		DownloadChanges changes = new DownloadChanges();
+
+		for (File file : listFiles(targetFolder))
+		{
+			if (Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+
+			String relativePath = DownloadManifest.relativePath(targetFolder, file);
+			DownloadManifest.Entry entry = previous.get(relativePath);
+			boolean written = file.lastModified() >= m_downloadStart - TIMESTAMP_GRANULARITY;
+			if (!written && (m_complete || entry == null))
+			{
+				// left over from an earlier download, or not downloaded at all
+				continue;
+			}
+
+			if (entry != null && entry.matches(file) && !(m_hashed && entry.getHash().isEmpty()))
+			{
+				current.put(relativePath, entry);
+				changes.unchanged();
+			}
+			else if (!m_hashed)
+			{
+				current.put(relativePath, new DownloadManifest.Entry(file.length(), file.lastModified(), StringUtils.EMPTY));
+			}
+			else
+			{
+				String hash = DownloadManifest.hash(file);
+				current.put(relativePath, new DownloadManifest.Entry(file.length(), file.lastModified(), hash));
+
+				if (entry == null)
+				{
+					changes.added(relativePath);
+				}
+				else if (entry.getHash().equals(hash))
+				{
+					changes.unchanged();
+				}
+				else
+				{
+					changes.modified(relativePath);
+				}
+			}
+		}
+
+		for (String relativePath : previous.getPaths())
+		{
+			if (current.get(relativePath) == null)
+			{
+				changes.removed(relativePath);
+			}
+		}
+
+		current.save(manifestFile);
+
+		return m_hashed ? changes : null;
+	}
+
+	/**
+	 * Lists the files in the download location, in sorted order, skipping the CLI and plugin working folders.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * 
+	 * @return the files
+	 * 
+	 * @throws IOException
+	 *             if the download location cannot be read
+	 */
+	private static List<File> listFiles(File targetFolder) throws IOException
+	{
+		List<File> files = new ArrayList<>();
+		if (!targetFolder.isDirectory())
+		{
+			return files;
+		}
+
+		Files.walkFileTree(targetFolder.toPath(), new SimpleFileVisitor<Path>()
+		{
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+			{
+				String name = dir.getFileName() != null ? dir.getFileName().toString() : null;
+				if (name != null && (name.startsWith(CommonConstants.TOPAZ_CLI_WORKSPACE)
+						|| name.startsWith(ScmConstants.TOPAZ_CLI_STAGING) || name.startsWith(ScmConstants.TOPAZ_CLI_POLL)
+						|| name.startsWith(ScmConstants.TOPAZ_CLI_BACKUP) || name.equals(ScmConstants.DOWNLOAD_MANIFEST_FOLDER)))
+				{
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+			{
+				if (attrs.isRegularFile())
+				{
+					files.add(file.toFile());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		files.sort(null);
+		return files;
+	}
+}
@@ -0,0 +1,659 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.compuware.jenkins.common.configuration.CpwrGlobalConfiguration;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Item;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Agent-local cache of downloaded members, shared by all jobs running on the agent.
+ * <p>
+ * Member content is stored once per distinct content hash under <code>blobs</code>. The last download of each filter is
+ * recorded under <code>filters</code> as a download manifest of the members it produced; the time of the manifest file is the
+ * time of the download. A filter downloaded within the reuse period is copied out of the cache instead of being downloaded
+ * again. When the cache grows beyond its size, the members used least recently are removed, except those of filters a build
+ * has looked up and not yet copied out.
+ */
+public class MemberCache
+{
+	private static final String BLOBS_FOLDER = "blobs"; //$NON-NLS-1$
+	private static final String FILTERS_FOLDER = "filters"; //$NON-NLS-1$
+
+	/**
+	 * The cached filter downloads each build on the agent has looked up and not yet copied out, by the id of its member cache.
+	 * Their members are never evicted, so that a build never loses members between looking them up and copying them out,
+	 * however long the download of the other filters takes.
+	 */
+	private static final Map<String, Map<String, DownloadManifest>> PINS = new ConcurrentHashMap<>();
+
+	/**
+	 * Lets any number of builds on the agent use the cache at once, but evicts only while no build is using it.
+	 */
+	private static final ReadWriteLock LOCK = new ReentrantReadWriteLock();
+
+	private final FilePath m_cacheRoot;
+	private final long m_maxAge;
+	private final long m_maxSize;
+	private final String m_pinId = UUID.randomUUID().toString();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param cacheRoot
+	 *            the root folder of the cache on the agent
+	 * @param maxAge
+	 *            the time, in milliseconds, that a cached download of a filter is reused
+	 * @param maxSize
+	 *            the size, in bytes, of the cache
+	 */
+	MemberCache(FilePath cacheRoot, long maxAge, long maxSize)
+	{
+		m_cacheRoot = cacheRoot;
+		m_maxAge = maxAge;
+		m_maxSize = maxSize;
+	}
+
+	/**
+	 * Gets the member cache of the agent that a workspace is on.
+	 * 
+	 * @param workspaceFilePath
+	 *            the workspace
+	 * 
+	 * @return the member cache; <code>null</code> if the member cache is disabled or the agent has no root directory
+	 */
+	public static MemberCache get(FilePath workspaceFilePath)
+	{
+		ScmDownloaderGlobalConfiguration config = ScmDownloaderGlobalConfiguration.get();
+		if (config == null || !config.isMemberCacheEnabled())
+		{
+			return null;
+		}
+
+		Computer computer = workspaceFilePath.toComputer();
+		Node node = computer != null ? computer.getNode() : null;
+		FilePath rootPath = node != null ? node.getRootPath() : null;
+		if (rootPath == null)
+		{
+			return null;
+		}
+
+		return new MemberCache(rootPath.child(ScmConstants.MEMBER_CACHE_FOLDER),
+				TimeUnit.MINUTES.toMillis(config.getMemberCacheMaxAge()), config.getMemberCacheSize() * 1024L * 1024L);
+	}
+
+	/**
+	 * Gets the cache key of a filter download. Everything that determines which members the CLI downloads, and who may see
+	 * them, is part of the key, so jobs only share downloads they could have made themselves.
+	 * 
+	 * @param connectionId
+	 *            the host connection
+	 * @param credentialScope
+	 *            the scope of the login credentials, see {@link #getCredentialScope(Item, String)}
+	 * @param scmType
+	 *            the value of the CLI <code>-scm</code> parameter
+	 * @param filter
+	 *            a single dataset filter
+	 * @param fileExtension
+	 *            the file extension to assign
+	 * 
+	 * @return the cache key
+	 */
+	public static String getKey(String connectionId, String credentialScope, String scmType, String filter,
+			String fileExtension)
+	{
+		return Util.getDigestOf(StringUtils.join(new String[] { connectionId, credentialScope, scmType, filter, fileExtension },
+				'\n'));
+	}
+
+	/**
+	 * Gets the scope of the login credentials an item downloads with, to be used in cache keys. Folders can each define
+	 * credentials with the same id, so the id alone does not tell who may see a download; the scope is a digest of the user
+	 * and password the id resolves to for the item. Other kinds of credentials are scoped to the item itself.
+	 * 
+	 * @param item
+	 *            the job or other item the download is for
+	 * @param credentialsId
+	 *            the id of the login credentials
+	 * 
+	 * @return the credential scope
+	 */
+	public static String getCredentialScope(Item item, String credentialsId)
+	{
+		StandardCredentials credentials = CpwrGlobalConfiguration.get().getLoginCredentials(item, credentialsId);
+		if (credentials instanceof StandardUsernamePasswordCredentials)
+		{
+			StandardUsernamePasswordCredentials login = (StandardUsernamePasswordCredentials) credentials;
+			return Util.getDigestOf(StringUtils.join(
+					new String[] { credentialsId, login.getUsername(), login.getPassword().getPlainText() }, '\n'));
+		}
+
+		return Util.getDigestOf(credentialsId + '\n' + (item != null ? item.getFullName() : StringUtils.EMPTY));
+	}
+
+	/**
+	 * Gets the keys of the filters that are not cached, or whose cached download is older than the reuse period. The members
+	 * of the other filters are kept in the cache until they are copied out by {@link #fill(FilePath, List, List, FilePath)} or
+	 * {@link #release()} is called.
+	 * 
+	 * @param keys
+	 *            the cache keys of the filters to download
+	 * 
+	 * @return the keys of the filters that must be downloaded from the host, in the order given
+	 * 
+	 * @throws IOException
+	 *             if the cache cannot be read
+	 * @throws InterruptedException
+	 *             if the lookup is interrupted
+	 */
+	public List<String> getMisses(List<String> keys) throws IOException, InterruptedException
+	{
+		return m_cacheRoot.act(new Lookup(keys, m_maxAge, m_pinId));
+	}
+
+	/**
+	 * Lets the members of the filters looked up by {@link #getMisses(List)} be evicted again, if they were not copied out.
+	 * 
+	 * @throws IOException
+	 *             if the agent cannot be reached
+	 * @throws InterruptedException
+	 *             if releasing is interrupted
+	 */
+	public void release() throws IOException, InterruptedException
+	{
+		m_cacheRoot.act(new Release(m_pinId));
+	}
+
+	/**
+	 * Adds freshly downloaded filters to the cache, copies the members of all filters into a folder, and evicts members if
+	 * the cache has grown beyond its size.
+	 * 
+	 * @param missFolderPath
+	 *            the folder the missing filters were downloaded to, one numbered sub-folder per filter in the order of
+	 *            <code>missKeys</code>
+	 * @param missKeys
+	 *            the keys of the filters that were downloaded
+	 * @param keys
+	 *            the keys of all filters to copy out of the cache
+	 * @param assemblyFolderPath
+	 *            the folder to copy the members into
+	 * 
+	 * @throws IOException
+	 *             if the cache cannot be updated or a member cannot be copied
+	 * @throws InterruptedException
+	 *             if filling is interrupted
+	 */
+	public void fill(FilePath missFolderPath, List<String> missKeys, List<String> keys, FilePath assemblyFolderPath)
+			throws IOException, InterruptedException
+	{
+		m_cacheRoot.act(new Fill(missFolderPath.getRemote(), missKeys, keys, assemblyFolderPath.getRemote(), m_maxAge,
+				m_maxSize, m_pinId));
+	}
+
+	/**
+	 * Adds freshly downloaded filters to the cache without copying any members out, and evicts members if the cache has grown
+	 * beyond its size.
+	 * 
+	 * @param downloadFolderPath
+	 *            the folder the filters were downloaded to, one numbered sub-folder per filter in the order of
+	 *            <code>keys</code>
+	 * @param keys
+	 *            the keys of the filters that were downloaded
+	 * 
+	 * @throws IOException
+	 *             if the cache cannot be updated
+	 * @throws InterruptedException
+	 *             if storing is interrupted
+	 */
+	public void store(FilePath downloadFolderPath, List<String> keys) throws IOException, InterruptedException
+	{
+		fill(downloadFolderPath, keys, new ArrayList<String>(), downloadFolderPath);
+	}
+
+	/**
+	 * Gets the file that records the last download of a filter.
+	 * 
+	 * @param cacheRoot
+	 *            the root folder of the cache
+	 * @param key
+	 *            the cache key of the filter
+	 * 
+	 * @return the manifest file of the filter
+	 */
+	private static File getFilterManifest(File cacheRoot, String key)
+	{
+		return new File(new File(cacheRoot, FILTERS_FOLDER), key + ScmConstants.DOWNLOAD_MANIFEST_EXT);
+	}
+
+	/**
+	 * Gets the file that stores member content with the given hash.
+	 * 
+	 * @param cacheRoot
+	 *            the root folder of the cache
+	 * @param hash
+	 *            the content hash
+	 * 
+	 * @return the content file
+	 */
+	private static File getBlob(File cacheRoot, String hash)
+	{
+		return new File(new File(new File(cacheRoot, BLOBS_FOLDER), hash.substring(0, 2)), hash);
+	}
+
+	/**
+	 * Lists the regular files under a folder, in sorted order.
+	 * 
+	 * @param folder
+	 *            the folder
+	 * 
+	 * @return the files; empty if the folder does not exist
+	 * 
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	private static List<Path> listFiles(File folder) throws IOException
+	{
+		if (!folder.isDirectory())
+		{
+			return new ArrayList<>();
+		}
+
+		try (Stream<Path> paths = Files.walk(folder.toPath()))
+		{
+			return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Finds the filters that must be downloaded from the host. The filters that are reused are pinned until they are copied
+	 * out, and their members are marked as just used.
+	 */
+	static class Lookup extends MasterToSlaveFileCallable<List<String>>
+	{
+		private static final long serialVersionUID = 1875104928655926031L;
+
+		private final List<String> m_keys;
+		private final long m_maxAge;
+		private final String m_pinId;
+
+		Lookup(List<String> keys, long maxAge, String pinId)
+		{
+			m_keys = new ArrayList<>(keys);
+			m_maxAge = maxAge;
+			m_pinId = pinId;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+		 */
+		@Override
+		public List<String> invoke(File cacheRoot, VirtualChannel channel) throws IOException, InterruptedException
+		{
+			List<String> misses = new ArrayList<>();
+			Map<String, DownloadManifest> hits = new HashMap<>();
+			long now = System.currentTimeMillis();
+
+			LOCK.readLock().lock();
+			try
+			{
+				for (String key : m_keys)
+				{
+					File manifestFile = getFilterManifest(cacheRoot, key);
+					if (!manifestFile.isFile() || now - manifestFile.lastModified() >= m_maxAge)
+					{
+						misses.add(key);
+						continue;
+					}
+
+					List<File> blobs = new ArrayList<>();
+					DownloadManifest manifest = DownloadManifest.load(manifestFile);
+					for (String path : manifest.getPaths())
+					{
+						blobs.add(getBlob(cacheRoot, manifest.get(path).getHash()));
+					}
+
+					if (blobs.stream().allMatch(File::isFile))
+					{
+						blobs.forEach(blob -> blob.setLastModified(now));
+						hits.put(key, manifest);
+					}
+					else
+					{
+						misses.add(key);
+					}
+				}
+
+				// pin while still holding the lock, so no eviction can come in between
+				PINS.put(m_pinId, hits);
+			}
+			finally
+			{
+				LOCK.readLock().unlock();
+			}
+
+			return misses;
+		}
+	}
+
+	/**
+	 * Unpins the filters a build looked up.
+	 */
+	static class Release extends MasterToSlaveFileCallable<Void>
+	{
+		private static final long serialVersionUID = 6184207512393407718L;
+
+		private final String m_pinId;
+
+		Release(String pinId)
+		{
+			m_pinId = pinId;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+		 */
+		@Override
+		public Void invoke(File cacheRoot, VirtualChannel channel)
+		{
+			PINS.remove(m_pinId);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores downloaded filters, copies the members of all requested filters out of the cache, unpins the filters that were
+	 * looked up, and then evicts.
+	 */
+	static class Fill extends MasterToSlaveFileCallable<Void>
+	{
+		private static final long serialVersionUID = -3960325514530806694L;
+
+		private final String m_missFolder;
+		private final List<String> m_missKeys;
+		private final List<String> m_keys;
+		private final String m_assemblyFolder;
+		private final long m_maxAge;
+		private final long m_maxSize;
+		private final String m_pinId;
+
+		Fill(String missFolder, List<String> missKeys, List<String> keys, String assemblyFolder, long maxAge, long maxSize,
+				String pinId)
+		{
+			m_missFolder = missFolder;
+			m_missKeys = new ArrayList<>(missKeys);
+			m_keys = new ArrayList<>(keys);
+			m_assemblyFolder = assemblyFolder;
+			m_maxAge = maxAge;
+			m_maxSize = maxSize;
+			m_pinId = pinId;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+		 */
+		@Override
+		public Void invoke(File cacheRoot, VirtualChannel channel) throws IOException, InterruptedException
+		{
+			LOCK.readLock().lock();
+			try
+			{
+				// the filters that were looked up are copied as they were then, even if another build has since replaced them
+				Map<String, DownloadManifest> manifests = new HashMap<>();
+				Map<String, DownloadManifest> pinned = PINS.get(m_pinId);
+				if (pinned != null)
+				{
+					manifests.putAll(pinned);
+				}
+
+				for (int i = 0; i < m_missKeys.size(); i++)
+				{
+					String key = m_missKeys.get(i);
+					manifests.put(key, store(cacheRoot, new File(m_missFolder, Integer.toString(i)), key));
+				}
+
+				File assemblyFolder = new File(m_assemblyFolder);
+				for (String key : m_keys)
+				{
+					DownloadManifest manifest = manifests.get(key);
+					copyOut(cacheRoot, manifest != null ? manifest : DownloadManifest.load(getFilterManifest(cacheRoot, key)),
+							assemblyFolder);
+				}
+			}
+			finally
+			{
+				PINS.remove(m_pinId);
+				LOCK.readLock().unlock();
+			}
+
+			LOCK.writeLock().lock();
+			try
+			{
+				evict(cacheRoot);
+			}
+			finally
+			{
+				LOCK.writeLock().unlock();
+			}
+
+			return null;
+		}
+
+		/**
+		 * Stores the members of a downloaded filter and records the download.
+		 * 
+		 * @param cacheRoot
+		 *            the root folder of the cache
+		 * @param downloadFolder
+		 *            the folder the filter was downloaded to
+		 * @param key
+		 *            the cache key of the filter
+		 * 
+		 * @return the manifest of the download
+		 * 
+		 * @throws IOException
+		 *             if the members cannot be stored
+		 * @throws InterruptedException
+		 *             if storing is interrupted
+		 */
+		private DownloadManifest store(File cacheRoot, File downloadFolder, String key) throws IOException,
+				InterruptedException
+		{
+			DownloadManifest manifest = new DownloadManifest();
+			for (Path path : listFiles(downloadFolder))
+			{
+				if (Thread.interrupted())
+				{
+					throw new InterruptedException();
+				}
+
+				File file = path.toFile();
+				String hash = DownloadManifest.hash(file);
+				manifest.put(DownloadManifest.relativePath(downloadFolder, file),
+						new DownloadManifest.Entry(file.length(), file.lastModified(), hash));
+
+				File blob = getBlob(cacheRoot, hash);
+				if (blob.isFile())
+				{
+					blob.setLastModified(System.currentTimeMillis());
+					continue;
+				}
+
+				// copy next to the blob first, so the blob appears in one step even across file systems
+				Files.createDirectories(blob.getParentFile().toPath());
+				Path temp = Files.createTempFile(blob.getParentFile().toPath(), hash, ".tmp"); //$NON-NLS-1$
+				try
+				{
+					Files.copy(path, temp, StandardCopyOption.REPLACE_EXISTING);
+					Files.move(temp, blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch (FileAlreadyExistsException e)
+				{
+					// another build stored the same content first
+				}
+				finally
+				{
+					Files.deleteIfExists(temp);
+				}
+			}
+
+			manifest.save(getFilterManifest(cacheRoot, key));
+			return manifest;
+		}
+
+		/**
+		 * Copies the members of a cached filter into a folder.
+		 * 
+		 * @param cacheRoot
+		 *            the root folder of the cache
+		 * @param manifest
+		 *            the manifest of the cached download of the filter
+		 * @param assemblyFolder
+		 *            the folder to copy the members into
+		 * 
+		 * @throws IOException
+		 *             if a member is no longer cached or cannot be copied
+		 * @throws InterruptedException
+		 *             if copying is interrupted
+		 */
+		private void copyOut(File cacheRoot, DownloadManifest manifest, File assemblyFolder) throws IOException,
+				InterruptedException
+		{
+			long now = System.currentTimeMillis();
+			for (String path : manifest.getPaths())
+			{
+				if (Thread.interrupted())
+				{
+					throw new InterruptedException();
+				}
+
+				File blob = getBlob(cacheRoot, manifest.get(path).getHash());
+				if (!blob.isFile())
+				{
+					throw new IOException("Member " + path + " is no longer in the member cache " + cacheRoot); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+
+				File target = new File(assemblyFolder, path);
+				Files.createDirectories(target.getParentFile().toPath());
+				Files.copy(blob.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				blob.setLastModified(now);
+			}
+		}
+
+		/**
+		 * Removes filter downloads older than the reuse period, then the least recently used members until the cache fits in
+		 * its size. Members of pinned filters are kept.
+		 * 
+		 * @param cacheRoot
+		 *            the root folder of the cache
+		 * 
+		 * @throws IOException
+		 *             if the cache cannot be read
+		 */
+		private void evict(File cacheRoot) throws IOException
+		{
+			long now = System.currentTimeMillis();
+			for (Path manifest : listFiles(new File(cacheRoot, FILTERS_FOLDER)))
+			{
+				if (now - manifest.toFile().lastModified() >= m_maxAge)
+				{
+					Files.deleteIfExists(manifest);
+				}
+			}
+
+			Set<String> pinnedHashes = new HashSet<>();
+			for (Map<String, DownloadManifest> pinned : PINS.values())
+			{
+				for (DownloadManifest manifest : pinned.values())
+				{
+					for (String path : manifest.getPaths())
+					{
+						pinnedHashes.add(manifest.get(path).getHash());
+					}
+				}
+			}
+
+			List<File> blobs = new ArrayList<>();
+			long size = 0;
+			for (Path path : listFiles(new File(cacheRoot, BLOBS_FOLDER)))
+			{
+				File blob = path.toFile();
+				blobs.add(blob);
+				size += blob.length();
+			}
+
+			if (size <= m_maxSize)
+			{
+				return;
+			}
+
+			blobs.sort(Comparator.comparingLong(File::lastModified));
+			for (File blob : blobs)
+			{
+				if (size <= m_maxSize)
+				{
+					break;
+				}
+
+				if (pinnedHashes.contains(blob.getName()))
+				{
+					continue;
+				}
+
+				long length = blob.length();
+				if (blob.delete())
+				{
+					size -= length;
+				}
+			}
+		}
+	}
+}
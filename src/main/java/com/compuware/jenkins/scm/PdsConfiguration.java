@@ -100,9 +100,9 @@ public class PdsConfiguration extends CpwrScmConfiguration
 		{
 			validateParameters(launcher, listener, build.getParent());
 
-			PdsDownloader downloader = new PdsDownloader(this);
+			CpwrScmDownloader downloader = createDownloader();
 
-			rtnValue = downloader.getSource(build, launcher, workspaceFilePath, listener, changelogFile);
+			rtnValue = downloader.download(build, launcher, workspaceFilePath, listener, changelogFile);
 			if (!rtnValue)
 			{
 				throw new AbortException();
@@ -116,23 +116,23 @@ public class PdsConfiguration extends CpwrScmConfiguration
 	}
 
 	/**
-	 * Plugin does not support polling. We handle file changes in the CLI.
+	 * A PDS filter only names datasets, so duplicate and overlapping filters can be dropped.
 	 */
 	@Override
-	public boolean supportsPolling()
+	protected boolean isFilterPatternCompiled()
 	{
-		return false;
+		return true;
 	}
 
-	/**
-     * Calculates any revisions from previous builds. Method required to support Pipeline. We handle file changes in the CLI.
+	/* 
+	 * (non-Javadoc)
+	 * @see com.compuware.jenkins.scm.CpwrScmConfiguration#createDownloader()
 	 */
 	@Override
-	public SCMRevisionState calcRevisionsFromBuild(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener)
-            throws IOException, InterruptedException
-    {
-    	return null;
-    }      
+	protected CpwrScmDownloader createDownloader()
+	{
+		return new PdsDownloader(this);
+	}
 
 	/**
 	 * Returns the ScmDescriptor for the SCM object. The ScmDescriptor is used to create new instances of the SCM.
@@ -0,0 +1,233 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a failed CLI call is retried and how long to wait before retrying it.
+ * <p>
+ * The CLI exits with the same non-zero value for most failures, so failures are classified by the errors the CLI reported
+ * in its output. A failure is transient, and worth retrying, if an error points at the network or the host session and no
+ * error points at something a retry cannot fix, such as invalid credentials or a dataset that does not exist. A CLI process
+ * that was killed (exit value of 128 or more, as for a timeout or an aborted build) is never retried.
+ * <p>
+ * Retries wait for an exponentially growing delay, half of which is random, so that downloads that failed together do not
+ * hit the host together again.
+ */
+public class RetryPolicy
+{
+	/** The number of retries used when none is configured. */
+	public static final int DEFAULT_RETRIES = 2;
+
+	private static final long BASE_DELAY = 5000L;
+	private static final long MAX_DELAY = 60000L;
+	private static final int KILLED_EXIT_VALUE = 128;
+
+	private static final Pattern TRANSIENT_PATTERN = Pattern.compile(
+			"connection (?:refused|reset|timed out|closed|lost|aborted)|connect timed out|read timed out|timed out waiting" //$NON-NLS-1$
+					+ "|UnknownHostException|no route to host|(?:network|host) is unreachable|SocketException" //$NON-NLS-1$
+					+ "|SocketTimeoutException|ConnectException|broken pipe|temporarily unavailable|try again later" //$NON-NLS-1$
+					+ "|too many (?:sessions|users|connections)|session (?:was )?(?:terminated|lost|closed|dropped)", //$NON-NLS-1$
+			Pattern.CASE_INSENSITIVE);
+	private static final Pattern FATAL_PATTERN = Pattern.compile(
+			"password|passphrase|not authori[sz]ed|revoked|RACF|invalid (?:user|credentials|logon|filter|parameter)" //$NON-NLS-1$
+					+ "|access denied|authentication failed|not found|does not exist|not catalog", //$NON-NLS-1$
+			Pattern.CASE_INSENSITIVE);
+
+	private final int m_maxRetries;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxRetries
+	 *            the number of times a transient failure is retried
+	 */
+	public RetryPolicy(int maxRetries)
+	{
+		m_maxRetries = Math.max(0, maxRetries);
+	}
+
+	/**
+	 * Gets the retry policy set up in the global configuration.
+	 * 
+	 * @return the retry policy
+	 */
+	public static RetryPolicy get()
+	{
+		ScmDownloaderGlobalConfiguration globalConfig = ScmDownloaderGlobalConfiguration.get();
+		return new RetryPolicy(globalConfig != null ? globalConfig.getDownloadRetries() : DEFAULT_RETRIES);
+	}
+
+	/**
+	 * Gets the number of times a transient failure is retried.
+	 * 
+	 * @return the maximum number of retries
+	 */
+	public int getMaxRetries()
+	{
+		return m_maxRetries;
+	}
+
+	/**
+	 * Determines whether a failed CLI call is retried.
+	 * 
+	 * @param retries
+	 *            the number of times the call was already retried
+	 * @param exitValue
+	 *            the exit value of the failed call
+	 * @param attempt
+	 *            what the CLI reported during the failed call
+	 * 
+	 * @return <code>true</code> if the call is retried
+	 */
+	public boolean shouldRetry(int retries, int exitValue, Attempt attempt)
+	{
+		return retries < m_maxRetries && isTransient(exitValue, attempt.getErrors());
+	}
+
+	/**
+	 * Classifies the failure of a CLI call.
+	 * 
+	 * @param exitValue
+	 *            the exit value of the failed call
+	 * @param errors
+	 *            the error lines the CLI wrote during the call
+	 * 
+	 * @return <code>true</code> if the failure is transient; <code>false</code> if retrying cannot help
+	 */
+	public static boolean isTransient(int exitValue, List<String> errors)
+	{
+		if (exitValue == 0 || exitValue >= KILLED_EXIT_VALUE || exitValue < 0)
+		{
+			return false;
+		}
+
+		boolean isTransient = false;
+		for (String error : errors)
+		{
+			if (FATAL_PATTERN.matcher(error).find())
+			{
+				return false;
+			}
+			isTransient |= TRANSIENT_PATTERN.matcher(error).find();
+		}
+
+		return isTransient;
+	}
+
+	/**
+	 * Gets the delay before a retry: at least half of an exponentially growing delay, plus a random part of the other half.
+	 * 
+	 * @param retry
+	 *            the one-based number of the retry
+	 * 
+	 * @return the delay in milliseconds
+	 */
+	public long getDelay(int retry)
+	{
+		long delay = MAX_DELAY;
+		if (retry < 32)
+		{
+			delay = Math.min(MAX_DELAY, BASE_DELAY << Math.max(0, retry - 1));
+		}
+
+		long half = delay / 2;
+		return half + ThreadLocalRandom.current().nextLong(half + 1);
+	}
+
+	/**
+	 * Keeps track of what the CLI reports during one call: the errors, and the datasets it finished downloading before it
+	 * failed. The CLI output is recognized by patterns, so a dataset is only considered finished when that is certain: the
+	 * CLI named a valid dataset, reported downloading members of it, and moved on to the next dataset without having
+	 * reported an error. Anything less is downloaded again by the retry.
+	 */
+	public static class Attempt implements CliEventListener
+	{
+		/**
+		 * A dataset name: up to 44 characters of qualifiers of 1 to 8 characters each, separated by periods.
+		 */
+		private static final Pattern DATASET_NAME_PATTERN = Pattern
+				.compile("(?=.{1,44}$)[A-Z#@$][A-Z0-9#@$-]{0,7}(?:\\.[A-Z#@$][A-Z0-9#@$-]{0,7})*", Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+
+		private final List<String> m_errors = new ArrayList<>();
+		private final Set<String> m_completedDatasets = new LinkedHashSet<>();
+		private String m_currentDataset;
+		private boolean m_currentFailed;
+		private boolean m_currentDownloaded;
+
+		/* 
+		 * (non-Javadoc)
+		 * @see com.compuware.jenkins.scm.CliEventListener#onEvent(com.compuware.jenkins.scm.CliEvent)
+		 */
+		@Override
+		public synchronized void onEvent(CliEvent event)
+		{
+			switch (event.getType())
+			{
+				case DATASET_STARTED:
+					if (m_currentDataset != null && !m_currentFailed && m_currentDownloaded
+							&& DATASET_NAME_PATTERN.matcher(m_currentDataset).matches())
+					{
+						m_completedDatasets.add(m_currentDataset);
+					}
+					m_currentDataset = event.getName();
+					m_currentFailed = false;
+					m_currentDownloaded = false;
+					break;
+
+				case MEMBER_DOWNLOADED:
+					m_currentDownloaded = true;
+					break;
+
+				case ERROR:
+					m_errors.add(event.getLine());
+					m_currentFailed = true;
+					break;
+
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * Gets the error lines the CLI wrote.
+		 * 
+		 * @return the error lines, in order
+		 */
+		public synchronized List<String> getErrors()
+		{
+			return new ArrayList<>(m_errors);
+		}
+
+		/**
+		 * Gets the datasets the CLI finished downloading.
+		 * 
+		 * @return the dataset names, in the order they were downloaded
+		 */
+		public synchronized Set<String> getCompletedDatasets()
+		{
+			return Collections.unmodifiableSet(new LinkedHashSet<>(m_completedDatasets));
+		}
+	}
+}
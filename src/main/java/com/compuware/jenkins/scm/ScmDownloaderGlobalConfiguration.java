@@ -0,0 +1,412 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Label;
+import hudson.util.FormValidation;
+import hudson.util.Secret;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+/**
+ * Global settings of the source code downloads, shown in a section of the Jenkins system configuration page.
+ */
+@Extension
+public class ScmDownloaderGlobalConfiguration extends GlobalConfiguration
+{
+	// Member Variables
+	private int m_memberCacheSize;
+	private int m_memberCacheMaxAge;
+	private int m_maxConcurrentDownloads;
+	private int m_downloadRetries = RetryPolicy.DEFAULT_RETRIES;
+	private int m_cliWorkspacesPerFolder = ScmConstants.CLI_WORKSPACE_POOL_SIZE;
+	private int m_cliWorkspacesPerAgent = ScmConstants.CLI_WORKSPACE_POOL_MAX_IDLE;
+	private int m_sharedFolderWait = ScmConstants.SHARED_FOLDER_MAX_WAIT;
+	private Secret m_webhookToken;
+	private String m_fileSystemLabel;
+
+	/**
+	 * Constructor.
+	 */
+	public ScmDownloaderGlobalConfiguration()
+	{
+		load();
+	}
+
+	/**
+	 * Gets the global configuration of the source code downloads.
+	 * 
+	 * @return the <code>ScmDownloaderGlobalConfiguration</code>
+	 */
+	public static ScmDownloaderGlobalConfiguration get()
+	{
+		return GlobalConfiguration.all().get(ScmDownloaderGlobalConfiguration.class);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see jenkins.model.GlobalConfiguration#configure(org.kohsuke.stapler.StaplerRequest, net.sf.json.JSONObject)
+	 */
+	@Override
+	public boolean configure(StaplerRequest req, JSONObject json) throws FormException
+	{
+		// the setters only bind the form, so the whole section is saved once
+		req.bindJSON(this, json);
+		save();
+		return true;
+	}
+
+	/**
+	 * Gets the value of the 'Member cache size', the disk space in megabytes each agent may use to cache downloaded members.
+	 * 
+	 * @return <code>int</code> value of m_memberCacheSize; 0 if the member cache is disabled
+	 */
+	public int getMemberCacheSize()
+	{
+		return m_memberCacheSize;
+	}
+
+	/**
+	 * Sets the value of the 'Member cache size'.
+	 * 
+	 * @param memberCacheSize
+	 *            the disk space in megabytes each agent may use to cache downloaded members; 0 disables the member cache
+	 */
+	@DataBoundSetter
+	public void setMemberCacheSize(int memberCacheSize)
+	{
+		m_memberCacheSize = Math.max(0, memberCacheSize);
+	}
+
+	/**
+	 * Gets the value of the 'Member cache reuse period', the number of minutes a cached download of a filter is used
+	 * instead of downloading the filter from the host again.
+	 * 
+	 * @return <code>int</code> value of m_memberCacheMaxAge; 0 if the member cache is disabled
+	 */
+	public int getMemberCacheMaxAge()
+	{
+		return m_memberCacheMaxAge;
+	}
+
+	/**
+	 * Sets the value of the 'Member cache reuse period'.
+	 * 
+	 * @param memberCacheMaxAge
+	 *            the number of minutes a cached download of a filter is used instead of downloading it again; 0 disables
+	 *            the member cache
+	 */
+	@DataBoundSetter
+	public void setMemberCacheMaxAge(int memberCacheMaxAge)
+	{
+		m_memberCacheMaxAge = Math.max(0, memberCacheMaxAge);
+	}
+
+	/**
+	 * Determines whether downloaded members are cached on the agents.
+	 * 
+	 * @return <code>true</code> if both a cache size and a reuse period are set
+	 */
+	public boolean isMemberCacheEnabled()
+	{
+		return m_memberCacheSize > 0 && m_memberCacheMaxAge > 0;
+	}
+
+	/**
+	 * Gets the value of the 'Maximum concurrent downloads per host connection'.
+	 * 
+	 * @return <code>int</code> value of m_maxConcurrentDownloads; 0 if downloads are not limited
+	 */
+	public int getMaxConcurrentDownloads()
+	{
+		return m_maxConcurrentDownloads;
+	}
+
+	/**
+	 * Sets the value of the 'Maximum concurrent downloads per host connection'.
+	 * 
+	 * @param maxConcurrentDownloads
+	 *            the number of CLI processes that may download from one host connection at the same time; 0 for no limit
+	 */
+	@DataBoundSetter
+	public void setMaxConcurrentDownloads(int maxConcurrentDownloads)
+	{
+		m_maxConcurrentDownloads = Math.max(0, maxConcurrentDownloads);
+	}
+
+	/**
+	 * Gets the value of the 'Download retries', the number of times a CLI call that failed for a transient reason, such as a
+	 * network or session problem, is retried.
+	 * 
+	 * @return <code>int</code> value of m_downloadRetries; 0 if failed downloads are not retried
+	 */
+	public int getDownloadRetries()
+	{
+		return m_downloadRetries;
+	}
+
+	/**
+	 * Sets the value of the 'Download retries'.
+	 * 
+	 * @param downloadRetries
+	 *            the number of times a CLI call that failed for a transient reason is retried; 0 to never retry
+	 */
+	@DataBoundSetter
+	public void setDownloadRetries(int downloadRetries)
+	{
+		m_downloadRetries = Math.max(0, downloadRetries);
+	}
+
+	/**
+	 * Gets the value of the 'CLI workspaces kept per folder', the number of CLI data workspaces an agent keeps for reuse in
+	 * each folder the CLI runs in.
+	 * 
+	 * @return <code>int</code> value of m_cliWorkspacesPerFolder; 0 if CLI data workspaces are not reused
+	 */
+	public int getCliWorkspacesPerFolder()
+	{
+		return m_cliWorkspacesPerFolder;
+	}
+
+	/**
+	 * Sets the value of the 'CLI workspaces kept per folder'.
+	 * 
+	 * @param cliWorkspacesPerFolder
+	 *            the number of CLI data workspaces an agent keeps for reuse in a folder; 0 to never reuse them
+	 */
+	@DataBoundSetter
+	public void setCliWorkspacesPerFolder(int cliWorkspacesPerFolder)
+	{
+		m_cliWorkspacesPerFolder = Math.max(0, cliWorkspacesPerFolder);
+	}
+
+	/**
+	 * Gets the value of the 'CLI workspaces kept per agent', the number of CLI data workspaces an agent keeps for reuse in
+	 * all folders together.
+	 * 
+	 * @return <code>int</code> value of m_cliWorkspacesPerAgent; 0 if CLI data workspaces are not reused
+	 */
+	public int getCliWorkspacesPerAgent()
+	{
+		return m_cliWorkspacesPerAgent;
+	}
+
+	/**
+	 * Sets the value of the 'CLI workspaces kept per agent'.
+	 * 
+	 * @param cliWorkspacesPerAgent
+	 *            the number of CLI data workspaces an agent keeps for reuse; 0 to never reuse them
+	 */
+	@DataBoundSetter
+	public void setCliWorkspacesPerAgent(int cliWorkspacesPerAgent)
+	{
+		m_cliWorkspacesPerAgent = Math.max(0, cliWorkspacesPerAgent);
+	}
+
+	/**
+	 * Gets the value of the 'Shared download location wait', the number of minutes a build waits for other builds using a
+	 * shared download location before its checkout fails.
+	 * 
+	 * @return <code>int</code> value of m_sharedFolderWait; 0 if builds wait as long as it takes
+	 */
+	public int getSharedFolderWait()
+	{
+		return m_sharedFolderWait;
+	}
+
+	/**
+	 * Sets the value of the 'Shared download location wait'.
+	 * 
+	 * @param sharedFolderWait
+	 *            the number of minutes a build waits for a shared download location; 0 to wait as long as it takes
+	 */
+	@DataBoundSetter
+	public void setSharedFolderWait(int sharedFolderWait)
+	{
+		m_sharedFolderWait = Math.max(0, sharedFolderWait);
+	}
+
+	/**
+	 * Gets the value of the 'Webhook token', the token host change notifications must present to trigger builds.
+	 * 
+	 * @return <code>Secret</code> value of m_webhookToken; <code>null</code> if the webhook is disabled
+	 */
+	public Secret getWebhookToken()
+	{
+		return m_webhookToken;
+	}
+
+	/**
+	 * Sets the value of the 'Webhook token'.
+	 * 
+	 * @param webhookToken
+	 *            the token host change notifications must present; empty to disable the webhook
+	 */
+	@DataBoundSetter
+	public void setWebhookToken(Secret webhookToken)
+	{
+		m_webhookToken = webhookToken != null && !webhookToken.getPlainText().isEmpty() ? webhookToken : null;
+	}
+
+	/**
+	 * Gets the value of the 'Lightweight checkout agents', the label of the agents that download members read without a
+	 * checkout.
+	 * 
+	 * @return <code>String</code> value of m_fileSystemLabel; <code>null</code> if members are not read without a checkout
+	 */
+	public String getFileSystemLabel()
+	{
+		return m_fileSystemLabel;
+	}
+
+	/**
+	 * Sets the value of the 'Lightweight checkout agents'.
+	 * 
+	 * @param fileSystemLabel
+	 *            the label expression of the agents that download members read without a checkout; empty to always check out
+	 */
+	@DataBoundSetter
+	public void setFileSystemLabel(String fileSystemLabel)
+	{
+		m_fileSystemLabel = Util.fixEmptyAndTrim(fileSystemLabel);
+	}
+
+	/**
+	 * Validator for the 'Member cache size' field.
+	 * 
+	 * @param memberCacheSize
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckMemberCacheSize(@QueryParameter String memberCacheSize)
+	{
+		return FormValidation.validateNonNegativeInteger(memberCacheSize);
+	}
+
+	/**
+	 * Validator for the 'Member cache reuse period' field.
+	 * 
+	 * @param memberCacheMaxAge
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckMemberCacheMaxAge(@QueryParameter String memberCacheMaxAge)
+	{
+		return FormValidation.validateNonNegativeInteger(memberCacheMaxAge);
+	}
+
+	/**
+	 * Validator for the 'Maximum concurrent downloads per host connection' field.
+	 * 
+	 * @param maxConcurrentDownloads
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckMaxConcurrentDownloads(@QueryParameter String maxConcurrentDownloads)
+	{
+		return FormValidation.validateNonNegativeInteger(maxConcurrentDownloads);
+	}
+
+	/**
+	 * Validator for the 'Download retries' field.
+	 * 
+	 * @param downloadRetries
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckDownloadRetries(@QueryParameter String downloadRetries)
+	{
+		return FormValidation.validateNonNegativeInteger(downloadRetries);
+	}
+
+	/**
+	 * Validator for the 'CLI workspaces kept per folder' field.
+	 * 
+	 * @param cliWorkspacesPerFolder
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckCliWorkspacesPerFolder(@QueryParameter String cliWorkspacesPerFolder)
+	{
+		return FormValidation.validateNonNegativeInteger(cliWorkspacesPerFolder);
+	}
+
+	/**
+	 * Validator for the 'CLI workspaces kept per agent' field.
+	 * 
+	 * @param cliWorkspacesPerAgent
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckCliWorkspacesPerAgent(@QueryParameter String cliWorkspacesPerAgent)
+	{
+		return FormValidation.validateNonNegativeInteger(cliWorkspacesPerAgent);
+	}
+
+	/**
+	 * Validator for the 'Shared download location wait' field.
+	 * 
+	 * @param sharedFolderWait
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckSharedFolderWait(@QueryParameter String sharedFolderWait)
+	{
+		return FormValidation.validateNonNegativeInteger(sharedFolderWait);
+	}
+
+	/**
+	 * Validator for the 'Lightweight checkout agents' field.
+	 * 
+	 * @param fileSystemLabel
+	 *            the value entered
+	 * 
+	 * @return validation message
+	 */
+	public FormValidation doCheckFileSystemLabel(@QueryParameter String fileSystemLabel)
+	{
+		String label = Util.fixEmptyAndTrim(fileSystemLabel);
+		if (label == null)
+		{
+			return FormValidation.ok();
+		}
+
+		Label agents = Jenkins.get().getLabel(label);
+		if (agents == null || agents.getNodes().stream().allMatch(node -> node == Jenkins.get()))
+		{
+			return FormValidation.warning("No agent has this label"); //$NON-NLS-1$
+		}
+
+		return FormValidation.ok();
+	}
+}
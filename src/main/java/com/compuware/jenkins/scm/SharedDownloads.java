@@ -0,0 +1,379 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.compuware.jenkins.common.utils.CommonConstants;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.DirScanner;
+import hudson.util.FileVisitor;
+
+/**
+ * Lets identical downloads that run at the same time share a single download from the host.
+ * <p>
+ * The first checkout to start a download leads it: it runs the CLI as usual. Checkouts that start the identical download
+ * while the leader is still downloading follow it: they wait for the leader to finish and then copy the downloaded files
+ * into their own download location, wherever their workspaces are. When it finishes, the leader copies the files listed in
+ * its download manifest into a snapshot next to its download location and carries on with its build; the followers copy
+ * the snapshot, and the last of them deletes it. Once the leader has finished, the next identical download starts a new
+ * shared download.
+ */
+public final class SharedDownloads
+{
+	/**
+	 * The longest a follower waits for the leader to finish before downloading by itself.
+	 */
+	private static final long LEADER_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+	private static final Map<String, Flight> s_flights = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private SharedDownloads()
+	{
+	}
+
+	/**
+	 * Computes the fingerprint of a download from its CLI arguments. The CLI script, target folder and data folder only
+	 * differ by where the download runs, so they are left out; everything else, including the host connection and login,
+	 * must be the same for downloads to be shared.
+	 * 
+	 * @param args
+	 *            the CLI script followed by its arguments
+	 * 
+	 * @return the fingerprint
+	 */
+	public static String fingerprint(ArgumentListBuilder args)
+	{
+		StringBuilder fingerprint = new StringBuilder();
+		List<String> argList = args.toList();
+		for (int i = 1; i < argList.size(); i++)
+		{
+			String arg = argList.get(i);
+			if (CommonConstants.TARGET_FOLDER_PARM.equals(arg) || CommonConstants.DATA_PARM.equals(arg))
+			{
+				i++;
+				continue;
+			}
+			fingerprint.append(arg).append('\n');
+		}
+
+		return Util.getDigestOf(fingerprint.toString());
+	}
+
+	/**
+	 * Joins the download with the given fingerprint, leading a new shared download if none is in progress.
+	 * 
+	 * @param fingerprint
+	 *            the fingerprint of the download
+	 * @param checkoutId
+	 *            the unique id of the checkout joining the download
+	 * @param owner
+	 *            the name of the build joining the download, for the log
+	 * 
+	 * @return the shared download; led by <code>checkoutId</code> if no identical download was in progress
+	 */
+	public static synchronized Flight join(String fingerprint, String checkoutId, String owner)
+	{
+		Flight flight = s_flights.get(fingerprint);
+		if (flight == null)
+		{
+			flight = new Flight(fingerprint, checkoutId, owner);
+			s_flights.put(fingerprint, flight);
+		}
+		else
+		{
+			flight.m_followers++;
+		}
+
+		return flight;
+	}
+
+	/**
+	 * Ends the download with the given flight, so that the next identical download starts a new one.
+	 * 
+	 * @param flight
+	 *            the flight that ended
+	 */
+	private static synchronized void remove(Flight flight)
+	{
+		s_flights.remove(flight.m_fingerprint, flight);
+	}
+
+	/**
+	 * A shared download in progress.
+	 */
+	public static class Flight
+	{
+		private final String m_fingerprint;
+		private final String m_leaderId;
+		private final String m_leader;
+		private int m_followers;
+		private boolean m_landed;
+		private FilePath m_snapshotFolderPath;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param fingerprint
+		 *            the fingerprint of the download
+		 * @param leaderId
+		 *            the unique id of the checkout leading the download
+		 * @param leader
+		 *            the name of the build leading the download
+		 */
+		Flight(String fingerprint, String leaderId, String leader)
+		{
+			m_fingerprint = fingerprint;
+			m_leaderId = leaderId;
+			m_leader = leader;
+		}
+
+		/**
+		 * Gets the build leading the download.
+		 * 
+		 * @return <code>String</code> value of m_leader
+		 */
+		public String getLeader()
+		{
+			return m_leader;
+		}
+
+		/**
+		 * Determines whether the given checkout leads the download. Two checkouts of the same build are told apart.
+		 * 
+		 * @param checkoutId
+		 *            the unique id of the checkout
+		 * 
+		 * @return <code>true</code> if <code>checkoutId</code> runs the CLI for this download
+		 */
+		public boolean isLedBy(String checkoutId)
+		{
+			return m_leaderId.equals(checkoutId);
+		}
+
+		/**
+		 * Called by the leader once its download has finished, successfully or not. If any followers are waiting, a
+		 * successful download is copied into a snapshot for them, so that the leader can carry on with its build without
+		 * waiting for them to copy it.
+		 * 
+		 * @param snapshotFolderPath
+		 *            the folder to copy the download into for the followers, on the same machine as the download location
+		 * @param targetFolderPath
+		 *            the download location of the leader; <code>null</code> if the download failed
+		 * @param manifestFile
+		 *            the download manifest of the leader's download location; <code>null</code> if the download failed
+		 * 
+		 * @throws InterruptedException
+		 *             if the leader is interrupted while taking the snapshot
+		 */
+		public void land(FilePath snapshotFolderPath, FilePath targetFolderPath, FilePath manifestFile)
+				throws InterruptedException
+		{
+			remove(this);
+
+			FilePath snapshot = null;
+			synchronized (this)
+			{
+				if (m_followers == 0 || targetFolderPath == null)
+				{
+					m_landed = true;
+					notifyAll();
+					return;
+				}
+			}
+
+			try
+			{
+				targetFolderPath.copyRecursiveTo(new ManifestScanner(manifestFile.getRemote()), snapshotFolderPath,
+						"shared download of " + m_leader); //$NON-NLS-1$
+				snapshot = snapshotFolderPath;
+			}
+			catch (IOException e)
+			{
+				// the followers download by themselves
+				delete(snapshotFolderPath);
+			}
+
+			boolean unused;
+			synchronized (this)
+			{
+				m_snapshotFolderPath = snapshot;
+				m_landed = true;
+				notifyAll();
+				unused = m_followers == 0;
+			}
+
+			// every follower gave up waiting while the snapshot was taken
+			if (unused && snapshot != null)
+			{
+				delete(snapshot);
+			}
+		}
+
+		/**
+		 * Called by a follower to copy the leader's download into its own folder, once the leader has finished.
+		 * 
+		 * @param folderPath
+		 *            the folder to copy the downloaded files into
+		 * 
+		 * @return <code>true</code> if the download was copied; <code>false</code> if the leader's download failed or did not
+		 *         finish in time, in which case the follower has to download by itself
+		 * 
+		 * @throws InterruptedException
+		 *             if the follower is interrupted while waiting or copying
+		 * @throws IOException
+		 *             if the download cannot be copied
+		 */
+		public boolean copyTo(FilePath folderPath) throws InterruptedException, IOException
+		{
+			return copyTo(folderPath, LEADER_TIMEOUT);
+		}
+
+		/**
+		 * Called by a follower to copy the leader's download into its own folder, once the leader has finished.
+		 * 
+		 * @param folderPath
+		 *            the folder to copy the downloaded files into
+		 * @param timeout
+		 *            the longest to wait for the leader to finish, in milliseconds
+		 * 
+		 * @return <code>true</code> if the download was copied; <code>false</code> if the leader's download failed or did not
+		 *         finish in time
+		 * 
+		 * @throws InterruptedException
+		 *             if the follower is interrupted while waiting or copying
+		 * @throws IOException
+		 *             if the download cannot be copied
+		 */
+		boolean copyTo(FilePath folderPath, long timeout) throws InterruptedException, IOException
+		{
+			try
+			{
+				FilePath snapshotFolderPath;
+				synchronized (this)
+				{
+					long deadline = System.currentTimeMillis() + timeout;
+					while (!m_landed)
+					{
+						long remaining = deadline - System.currentTimeMillis();
+						if (remaining <= 0)
+						{
+							return false;
+						}
+						wait(remaining);
+					}
+					snapshotFolderPath = m_snapshotFolderPath;
+				}
+
+				if (snapshotFolderPath == null)
+				{
+					return false;
+				}
+
+				snapshotFolderPath.copyRecursiveTo(folderPath);
+				return true;
+			}
+			finally
+			{
+				FilePath snapshot;
+				synchronized (this)
+				{
+					m_followers--;
+					snapshot = m_landed && m_followers == 0 ? m_snapshotFolderPath : null;
+				}
+
+				if (snapshot != null)
+				{
+					delete(snapshot);
+				}
+			}
+		}
+
+		/**
+		 * Deletes a snapshot, or what was copied of it.
+		 * 
+		 * @param snapshotFolderPath
+		 *            the snapshot
+		 * 
+		 * @throws InterruptedException
+		 *             if deleting is interrupted
+		 */
+		private void delete(FilePath snapshotFolderPath) throws InterruptedException
+		{
+			try
+			{
+				snapshotFolderPath.deleteRecursive();
+			}
+			catch (IOException e)
+			{
+				// left in the workspace; staging folders are not part of any download
+			}
+		}
+	}
+
+	/**
+	 * Selects the files listed in a download manifest.
+	 */
+	private static class ManifestScanner extends DirScanner
+	{
+		private static final long serialVersionUID = -8436402155817046914L;
+
+		private final String m_manifestFile;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param manifestFile
+		 *            the download manifest of the folder being scanned
+		 */
+		ManifestScanner(String manifestFile)
+		{
+			m_manifestFile = manifestFile;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.util.DirScanner#scan(java.io.File, hudson.util.FileVisitor)
+		 */
+		@Override
+		public void scan(File dir, FileVisitor visitor) throws IOException
+		{
+			DownloadManifest manifest = DownloadManifest.load(new File(m_manifestFile));
+			for (String path : manifest.getPaths())
+			{
+				File file = new File(dir, StringUtils.replaceChars(path, '/', File.separatorChar));
+				if (file.isFile())
+				{
+					visitor.visit(file, path);
+				}
+			}
+		}
+	}
+}
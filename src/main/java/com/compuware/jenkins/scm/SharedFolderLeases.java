@@ -0,0 +1,471 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.remoting.VirtualChannel;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+
+/**
+ * The locks that builds hold on shared download locations, as granted by the {@link SharedFolderLocks} of their agents. A
+ * build holds its locks until it completes, however it ends, so that no other build refreshes a download location while
+ * the build uses it.
+ * <p>
+ * The locks of a build are re-entrant: a build that checks out a download location it already holds a read lock on, such
+ * as a Pipeline that checks out the same configuration twice, uses its lock again rather than queueing behind a writer that
+ * waits for that very lock. A build that checks out a different download into a location it holds a lock on gives up its
+ * lock first. Waiting for a lock is limited by the 'Shared download location wait' of the global configuration.
+ * <p>
+ * The locks are normally released when their build completes. A lock can outlive its build, however: the controller may
+ * restart while the build runs, the channel to the agent may close before the lock is released, or the release may fail.
+ * The agent records the build that owns each lock, so a build that waits for a lock releases those whose build is no
+ * longer running.
+ */
+public final class SharedFolderLeases
+{
+	private static final Logger LOGGER = Logger.getLogger(SharedFolderLeases.class.getName());
+
+	private static final Map<String, List<Held>> s_leases = new HashMap<>();
+
+	/**
+	 * Private constructor.
+	 * <p>
+	 * All methods should be accessed statically.
+	 */
+	private SharedFolderLeases()
+	{
+	}
+
+	/**
+	 * Acquires a lock on a shared download location for a build, or gives back the read lock the build already holds on it
+	 * for the same download. The wait is logged to the build log, and ends if the build is aborted or the wait set up in
+	 * the global configuration runs out.
+	 * 
+	 * @param build
+	 *            the build
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * @param write
+	 *            <code>true</code> for the write lock, <code>false</code> for a read lock
+	 * @param fingerprint
+	 *            the fingerprint of the download
+	 * @param listener
+	 *            build listener
+	 * 
+	 * @return the lease of the lock
+	 * 
+	 * @throws InterruptedException
+	 *             if the build is aborted while waiting
+	 * @throws IOException
+	 *             if the lock cannot be acquired, or the wait runs out
+	 */
+	public static SharedFolderLocks.Lease acquire(Run<?, ?> build, VirtualChannel channel, String lockFile, boolean write,
+			String fingerprint, TaskListener listener) throws InterruptedException, IOException
+	{
+		PrintStream logger = listener.getLogger();
+		ScmDownloaderGlobalConfiguration globalConfig = ScmDownloaderGlobalConfiguration.get();
+		int maxWait = globalConfig != null ? globalConfig.getSharedFolderWait() : ScmConstants.SHARED_FOLDER_MAX_WAIT;
+		long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(maxWait);
+
+		SharedFolderLocks.Lease held = reenter(build, channel, lockFile, write, fingerprint, deadline, logger);
+		if (held != null)
+		{
+			logger.println("Using the lock this build already holds on the shared download location"); //$NON-NLS-1$
+			return held;
+		}
+
+		String id = UUID.randomUUID().toString();
+		boolean waiting = false;
+		try
+		{
+			while (true)
+			{
+				long wait = ScmConstants.SHARED_FOLDER_LOCK_WAIT;
+				if (maxWait > 0)
+				{
+					wait = Math.min(wait, deadline - System.currentTimeMillis());
+					if (wait <= 0)
+					{
+						throw new AbortException("Gave up waiting for other builds using the shared download location after " //$NON-NLS-1$
+								+ maxWait + " minutes"); //$NON-NLS-1$
+					}
+				}
+
+				reclaim(channel, lockFile, logger);
+				SharedFolderLocks.Lease lease = channel.call(new SharedFolderLocks.Acquire(id, build.getExternalizableId(),
+						lockFile, write, fingerprint, build.getTimeInMillis(), wait));
+				if (lease != null)
+				{
+					hold(build, channel, lockFile, fingerprint, lease);
+					return lease;
+				}
+
+				if (!waiting)
+				{
+					logger.println("Waiting for other builds using the shared download location"); //$NON-NLS-1$
+					waiting = true;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			// the agent may still grant the lock after giving up on it; clear the interrupt so the release gets through
+			Thread.interrupted();
+			releaseQuietly(channel, id);
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	/**
+	 * Turns the write lock of a build into a read lock, noting the refresh the build made.
+	 * 
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param lease
+	 *            the lease of the write lock
+	 * @param stamp
+	 *            the stamp of the refresh: fingerprint, start time and maker, separated by tabs; <code>null</code> if the
+	 *            build did not refresh the download location
+	 * 
+	 * @return the lease of the read lock
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the read lock
+	 * @throws IOException
+	 *             if the lock cannot be downgraded
+	 */
+	public static SharedFolderLocks.Lease downgrade(VirtualChannel channel, SharedFolderLocks.Lease lease, String stamp)
+			throws InterruptedException, IOException
+	{
+		SharedFolderLocks.Lease downgraded = null;
+		try
+		{
+			downgraded = channel.call(new SharedFolderLocks.Downgrade(lease.getId(), stamp));
+			return downgraded;
+		}
+		finally
+		{
+			// the other checkouts of the build waiting for the write lock to turn into a read lock go on; a lock that could not
+			// be turned is given up
+			if (downgraded == null)
+			{
+				releaseQuietly(channel, lease.getId());
+			}
+			synchronized (s_leases)
+			{
+				for (List<Held> held : s_leases.values())
+				{
+					for (Held h : held)
+					{
+						if (h.m_lease.getId().equals(lease.getId()))
+						{
+							h.m_lease = downgraded;
+						}
+					}
+					held.removeIf(h -> h.m_lease == null);
+				}
+				s_leases.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Releases a lock of a build before the build completes.
+	 * 
+	 * @param build
+	 *            the build
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param lease
+	 *            the lease of the lock
+	 */
+	public static void release(Run<?, ?> build, VirtualChannel channel, SharedFolderLocks.Lease lease)
+	{
+		synchronized (s_leases)
+		{
+			List<Held> held = s_leases.get(build.getExternalizableId());
+			if (held != null)
+			{
+				held.removeIf(h -> h.m_lease.getId().equals(lease.getId()));
+			}
+			s_leases.notifyAll();
+		}
+		releaseQuietly(channel, lease.getId());
+	}
+
+	/**
+	 * Releases all locks of a build.
+	 * 
+	 * @param build
+	 *            the build
+	 */
+	public static void releaseAll(Run<?, ?> build)
+	{
+		List<Held> held;
+		synchronized (s_leases)
+		{
+			held = s_leases.remove(build.getExternalizableId());
+			s_leases.notifyAll();
+		}
+
+		if (held != null)
+		{
+			for (Held h : held)
+			{
+				releaseQuietly(h.m_channel, h.m_lease.getId());
+			}
+		}
+	}
+
+	/**
+	 * Finds the lock a build already holds on a download location. A read lock on the same download is given back; any
+	 * other lock of the build on the download location is given up, since the build is about to refresh it. A write lock
+	 * held by another checkout of the build, such as a parallel branch, is first waited on until it turns into a read lock.
+	 * 
+	 * @param build
+	 *            the build
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * @param write
+	 *            <code>true</code> if the write lock is wanted
+	 * @param fingerprint
+	 *            the fingerprint of the download
+	 * @param deadline
+	 *            the time the wait runs out at
+	 * @param logger
+	 *            the build log
+	 * 
+	 * @return the read lock the build holds on the same download; <code>null</code> if it holds none
+	 * 
+	 * @throws InterruptedException
+	 *             if the build is aborted while waiting
+	 * @throws AbortException
+	 *             if the wait runs out
+	 */
+	private static SharedFolderLocks.Lease reenter(Run<?, ?> build, VirtualChannel channel, String lockFile, boolean write,
+			String fingerprint, long deadline, PrintStream logger) throws InterruptedException, AbortException
+	{
+		Held own;
+		synchronized (s_leases)
+		{
+			while (true)
+			{
+				own = null;
+				List<Held> held = s_leases.get(build.getExternalizableId());
+				if (held != null)
+				{
+					for (Held h : held)
+					{
+						if (h.m_channel == channel && h.m_lockFile.equals(lockFile))
+						{
+							own = h;
+						}
+					}
+				}
+
+				if (own == null || !own.m_lease.isWrite())
+				{
+					break;
+				}
+
+				long timeLeft = deadline - System.currentTimeMillis();
+				if (timeLeft <= 0)
+				{
+					throw new AbortException("Gave up waiting for the refresh of the shared download location by this build"); //$NON-NLS-1$
+				}
+				s_leases.wait(Math.min(timeLeft, ScmConstants.SHARED_FOLDER_LOCK_WAIT));
+			}
+
+			if (own == null)
+			{
+				return null;
+			}
+
+			if (!write && own.m_lease.isFresh() && own.m_fingerprint.equals(fingerprint))
+			{
+				return own.m_lease;
+			}
+		}
+
+		logger.println("Giving up the lock this build holds on the shared download location to refresh it"); //$NON-NLS-1$
+		release(build, channel, own.m_lease);
+		return null;
+	}
+
+	/**
+	 * Releases the locks on a download location whose build is no longer running, because the build ended without
+	 * releasing them.
+	 * 
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * @param logger
+	 *            the build log
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while asking the agent
+	 * @throws IOException
+	 *             if the agent cannot be asked for the owners of the locks
+	 */
+	private static void reclaim(VirtualChannel channel, String lockFile, PrintStream logger)
+			throws InterruptedException, IOException
+	{
+		Map<String, String> owners = channel.call(new SharedFolderLocks.Owners(lockFile));
+		for (Map.Entry<String, String> owner : owners.entrySet())
+		{
+			Run<?, ?> run;
+			// look the build up whatever the permissions of the waiting build, so a running build is never taken for gone
+			try (ACLContext context = ACL.as(ACL.SYSTEM))
+			{
+				run = Run.fromExternalizableId(owner.getValue());
+			}
+			catch (IllegalArgumentException e)
+			{
+				run = null;
+			}
+
+			if (run == null || !run.isBuilding())
+			{
+				logger.println("Releasing the lock left on the shared download location by " + owner.getValue()); //$NON-NLS-1$
+				synchronized (s_leases)
+				{
+					for (List<Held> held : s_leases.values())
+					{
+						held.removeIf(h -> h.m_lease.getId().equals(owner.getKey()));
+					}
+				}
+				releaseQuietly(channel, owner.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Records a lock held by a build.
+	 * 
+	 * @param build
+	 *            the build
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * @param fingerprint
+	 *            the fingerprint of the download
+	 * @param lease
+	 *            the lease of the lock
+	 */
+	private static void hold(Run<?, ?> build, VirtualChannel channel, String lockFile, String fingerprint,
+			SharedFolderLocks.Lease lease)
+	{
+		synchronized (s_leases)
+		{
+			s_leases.computeIfAbsent(build.getExternalizableId(), k -> new ArrayList<>())
+					.add(new Held(channel, lockFile, fingerprint, lease));
+		}
+	}
+
+	/**
+	 * Releases a lock on its agent. A lock on an agent that is gone was released when its process ended.
+	 * 
+	 * @param channel
+	 *            the channel to the agent of the download location
+	 * @param id
+	 *            the identifier of the lease of the lock
+	 */
+	private static void releaseQuietly(VirtualChannel channel, String id)
+	{
+		try
+		{
+			channel.call(new SharedFolderLocks.Release(id));
+		}
+		catch (IOException | InterruptedException e)
+		{
+			LOGGER.log(Level.FINE, "Unable to release shared download location lock " + id, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * A lock held by a build.
+	 */
+	private static final class Held
+	{
+		private final VirtualChannel m_channel;
+		private final String m_lockFile;
+		private final String m_fingerprint;
+		private SharedFolderLocks.Lease m_lease;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param channel
+		 *            the channel to the agent of the download location
+		 * @param lockFile
+		 *            the lock file of the download location
+		 * @param fingerprint
+		 *            the fingerprint of the download
+		 * @param lease
+		 *            the lease of the lock; replaced when the write lock turns into a read lock
+		 */
+		private Held(VirtualChannel channel, String lockFile, String fingerprint, SharedFolderLocks.Lease lease)
+		{
+			m_channel = channel;
+			m_lockFile = lockFile;
+			m_fingerprint = fingerprint;
+			m_lease = lease;
+		}
+	}
+
+	/**
+	 * Releases the locks of a build when it completes.
+	 */
+	@Extension
+	public static class Releaser extends RunListener<Run<?, ?>>
+	{
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.model.listeners.RunListener#onCompleted(hudson.model.Run, hudson.model.TaskListener)
+		 */
+		@Override
+		public void onCompleted(Run<?, ?> run, TaskListener listener)
+		{
+			releaseAll(run);
+		}
+	}
+}
@@ -0,0 +1,815 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Reader/writer locks on the shared download locations of the machine the CLI runs on. Builds that use a shared download
+ * location as it is hold a read lock on it while they run, so any number of them can use it at the same time; a build that
+ * has to refresh the download location takes the write lock, which waits until no build reads it.
+ * <p>
+ * A lock is held within this process, across the executors of the agent, and on a lock file next to the download location,
+ * which keeps out agents in other processes on the same machine. A writer goes before the readers that arrive after it, so
+ * that a steady stream of readers cannot keep the download location from being refreshed. The lock file also holds the
+ * stamp of the last refresh: the fingerprint of the download, when it started and who made it, so that a build can tell
+ * whether the download location is fresh enough to use without downloading.
+ * <p>
+ * Leases are named by the caller, so that a caller that gives up waiting can release a lock it may still be granted, and
+ * record the build that owns them, so that the lock of a build that ended without releasing it, for example because the
+ * controller restarted or the channel to the agent closed, can be found and released by a build waiting for it.
+ */
+public final class SharedFolderLocks
+{
+	private static final long LOCK_POLL_INTERVAL = 100L;
+	private static final int MAX_STAMP_LENGTH = 4096;
+	private static final String TAB = "\t"; //$NON-NLS-1$
+
+	private static final SharedFolderLocks INSTANCE = new SharedFolderLocks();
+
+	private final Map<String, Folder> m_folders = new HashMap<>();
+	private final Map<String, Lease> m_leases = new HashMap<>();
+	private final Set<String> m_pending = new HashSet<>();
+	private final Set<String> m_cancelled = new HashSet<>();
+
+	/**
+	 * Constructor.
+	 */
+	SharedFolderLocks()
+	{
+	}
+
+	/**
+	 * Gets the locks of this machine.
+	 * 
+	 * @return the <code>SharedFolderLocks</code>
+	 */
+	public static SharedFolderLocks get()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Acquires a lock on a shared download location and checks whether the download location is fresh: last refreshed by
+	 * the same download, no earlier than the given time. A write lock found stale clears the stamp, since the download
+	 * location changes from then on.
+	 * 
+	 * @param id
+	 *            the identifier of the lease, unique to the caller
+	 * @param owner
+	 *            the externalizable id of the build that owns the lease
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * @param write
+	 *            <code>true</code> for the write lock, <code>false</code> for a read lock
+	 * @param fingerprint
+	 *            the fingerprint of the download
+	 * @param since
+	 *            the time the download location must have been refreshed at or after to be fresh
+	 * @param timeout
+	 *            the number of milliseconds to wait for the lock
+	 * 
+	 * @return the lease of the lock; <code>null</code> if the lock could not be acquired in time, or the lease was released
+	 *         while waiting
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the lock
+	 * @throws IOException
+	 *             if the lock file cannot be used
+	 */
+	public Lease acquire(String id, String owner, File lockFile, boolean write, String fingerprint, long since,
+			long timeout)
+			throws InterruptedException, IOException
+	{
+		synchronized (this)
+		{
+			m_pending.add(id);
+		}
+
+		try
+		{
+			return acquireLock(id, owner, lockFile, write, fingerprint, since, timeout);
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				m_pending.remove(id);
+				m_cancelled.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Acquires a lock on a shared download location, for
+	 * {@link #acquire(String, String, File, boolean, String, long, long)}.
+	 * 
+	 * @param id
+	 *            the identifier of the lease, unique to the caller
+	 * @param owner
+	 *            the externalizable id of the build that owns the lease
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * @param write
+	 *            <code>true</code> for the write lock, <code>false</code> for a read lock
+	 * @param fingerprint
+	 *            the fingerprint of the download
+	 * @param since
+	 *            the time the download location must have been refreshed at or after to be fresh
+	 * @param timeout
+	 *            the number of milliseconds to wait for the lock
+	 * 
+	 * @return the lease of the lock; <code>null</code> if the lock could not be acquired in time, or the lease was released
+	 *         while waiting
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the lock
+	 * @throws IOException
+	 *             if the lock file cannot be used
+	 */
+	private Lease acquireLock(String id, String owner, File lockFile, boolean write, String fingerprint, long since,
+			long timeout)
+			throws InterruptedException, IOException
+	{
+		long deadline = System.currentTimeMillis() + timeout;
+		Folder folder;
+		boolean lockFileNeeded;
+		synchronized (this)
+		{
+			folder = getFolder(lockFile);
+			if (write)
+			{
+				folder.m_waitingWriters++;
+			}
+			try
+			{
+				while (folder.m_busy || folder.m_writer || (write ? folder.m_readers > 0 : folder.m_waitingWriters > 0))
+				{
+					long timeLeft = deadline - System.currentTimeMillis();
+					if (timeLeft <= 0 || m_cancelled.contains(id))
+					{
+						return null;
+					}
+					wait(timeLeft);
+				}
+			}
+			finally
+			{
+				if (write)
+				{
+					folder.m_waitingWriters--;
+					notifyAll();
+				}
+			}
+
+			lockFileNeeded = folder.m_fileLock == null;
+			if (write)
+			{
+				folder.m_writer = true;
+			}
+			else
+			{
+				folder.m_readers++;
+			}
+			folder.m_busy = lockFileNeeded;
+		}
+
+		if (lockFileNeeded)
+		{
+			boolean locked = false;
+			try
+			{
+				locked = lockFile(folder, !write, deadline);
+			}
+			finally
+			{
+				synchronized (this)
+				{
+					folder.m_busy = false;
+					if (!locked)
+					{
+						unlock(folder, write);
+					}
+					notifyAll();
+				}
+			}
+
+			if (!locked)
+			{
+				return null;
+			}
+		}
+
+		Lease lease = new Lease(id, owner, folder, write);
+		synchronized (this)
+		{
+			if (m_cancelled.contains(id))
+			{
+				unlock(folder, write);
+				notifyAll();
+				return null;
+			}
+
+			m_leases.put(id, lease);
+			try
+			{
+				String[] stamp = StringUtils.split(readStamp(folder), TAB);
+				if (stamp.length == 3)
+				{
+					lease.m_fresh = stamp[0].equals(fingerprint) && Long.parseLong(stamp[1]) >= since;
+					lease.m_refreshedBy = stamp[2];
+				}
+				if (write && !lease.m_fresh)
+				{
+					writeStamp(folder, StringUtils.EMPTY);
+				}
+			}
+			catch (IOException | NumberFormatException e)
+			{
+				release(lease.m_id);
+				throw new IOException("Unable to read " + lockFile, e); //$NON-NLS-1$
+			}
+		}
+
+		return lease;
+	}
+
+	/**
+	 * Turns a write lock into a read lock, noting the refresh the writer made in the stamp of the download location. Within
+	 * this process no other writer can get in between; a file lock cannot be turned into a shared one, however, so a writer
+	 * in another process may.
+	 * 
+	 * @param id
+	 *            the identifier of the lease of the write lock
+	 * @param stamp
+	 *            the stamp of the refresh: fingerprint, start time and maker, separated by tabs; <code>null</code> to keep
+	 *            the stamp
+	 * 
+	 * @return the lease of the read lock
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the read lock
+	 * @throws IOException
+	 *             if the lease does not hold the write lock, or the lock file cannot be used
+	 */
+	public Lease downgrade(String id, String stamp) throws InterruptedException, IOException
+	{
+		Lease lease;
+		Folder folder;
+		synchronized (this)
+		{
+			lease = m_leases.get(id);
+			if (lease == null || !lease.m_write)
+			{
+				throw new IOException("No write lock is held by " + id); //$NON-NLS-1$
+			}
+
+			folder = lease.m_folder;
+			if (stamp != null)
+			{
+				writeStamp(folder, stamp);
+				lease.m_fresh = true;
+				lease.m_refreshedBy = StringUtils.substringAfterLast(stamp, TAB);
+			}
+			folder.m_busy = true;
+		}
+
+		boolean locked = false;
+		try
+		{
+			folder.m_fileLock.release();
+			folder.m_fileLock = null;
+			locked = lockFile(folder, true, Long.MAX_VALUE);
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				folder.m_busy = false;
+				folder.m_writer = false;
+				if (locked)
+				{
+					folder.m_readers++;
+					lease.m_write = false;
+				}
+				else
+				{
+					m_leases.remove(id);
+					closeFile(folder);
+				}
+				notifyAll();
+			}
+		}
+
+		return lease;
+	}
+
+	/**
+	 * Releases a lock. A lock that is still being waited for is not granted anymore; releasing a lock that is not held
+	 * otherwise does nothing.
+	 * 
+	 * @param id
+	 *            the identifier of the lease of the lock
+	 */
+	public synchronized void release(String id)
+	{
+		Lease lease = m_leases.remove(id);
+		if (lease != null)
+		{
+			unlock(lease.m_folder, lease.m_write);
+		}
+		else if (m_pending.contains(id))
+		{
+			m_cancelled.add(id);
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Gets the owners of the locks held on a download location.
+	 * 
+	 * @param lockFile
+	 *            the lock file of the download location
+	 * 
+	 * @return the externalizable id of the build owning each lock, mapped by the identifier of its lease
+	 * 
+	 * @throws IOException
+	 *             if the path of the lock file cannot be resolved
+	 */
+	public synchronized Map<String, String> getOwners(File lockFile) throws IOException
+	{
+		Map<String, String> owners = new HashMap<>();
+		Folder folder = m_folders.get(lockFile.getCanonicalPath());
+		for (Lease lease : m_leases.values())
+		{
+			if (folder != null && lease.m_folder == folder)
+			{
+				owners.put(lease.m_id, lease.m_owner);
+			}
+		}
+
+		return owners;
+	}
+
+	/**
+	 * Gets the state of the lock of a lock file, creating it on first use.
+	 * 
+	 * @param lockFile
+	 *            the lock file
+	 * 
+	 * @return the state of the lock
+	 * 
+	 * @throws IOException
+	 *             if the path of the lock file cannot be resolved
+	 */
+	private Folder getFolder(File lockFile) throws IOException
+	{
+		String path = lockFile.getCanonicalPath();
+		Folder folder = m_folders.get(path);
+		if (folder == null)
+		{
+			folder = new Folder(new File(path));
+			m_folders.put(path, folder);
+		}
+
+		return folder;
+	}
+
+	/**
+	 * Gives up a read or the write lock on a download location, releasing the lock file when nobody holds a lock anymore.
+	 * 
+	 * @param folder
+	 *            the state of the lock
+	 * @param write
+	 *            <code>true</code> to give up the write lock
+	 */
+	private static void unlock(Folder folder, boolean write)
+	{
+		if (write)
+		{
+			folder.m_writer = false;
+		}
+		else
+		{
+			folder.m_readers--;
+		}
+
+		if (!folder.m_writer && folder.m_readers == 0)
+		{
+			closeFile(folder);
+		}
+	}
+
+	/**
+	 * Locks the lock file of a download location, polling until the lock is free.
+	 * 
+	 * @param folder
+	 *            the state of the lock
+	 * @param shared
+	 *            <code>true</code> for a shared lock, <code>false</code> for an exclusive one
+	 * @param deadline
+	 *            the time to give up at
+	 * 
+	 * @return <code>true</code> if the lock file is locked; <code>false</code> if it could not be locked in time
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the lock
+	 * @throws IOException
+	 *             if the lock file cannot be opened or locked
+	 */
+	private static boolean lockFile(Folder folder, boolean shared, long deadline) throws InterruptedException, IOException
+	{
+		if (folder.m_channel == null)
+		{
+			Files.createDirectories(folder.m_lockFile.getParentFile().toPath());
+			folder.m_channel = FileChannel.open(folder.m_lockFile.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+
+		while (true)
+		{
+			FileLock fileLock = folder.m_channel.tryLock(0L, Long.MAX_VALUE, shared);
+			if (fileLock != null)
+			{
+				folder.m_fileLock = fileLock;
+				return true;
+			}
+			if (System.currentTimeMillis() >= deadline)
+			{
+				return false;
+			}
+			Thread.sleep(LOCK_POLL_INTERVAL);
+		}
+	}
+
+	/**
+	 * Releases the lock file of a download location.
+	 * 
+	 * @param folder
+	 *            the state of the lock
+	 */
+	private static void closeFile(Folder folder)
+	{
+		try
+		{
+			if (folder.m_channel != null)
+			{
+				// closing the channel releases its file lock
+				folder.m_channel.close();
+			}
+		}
+		catch (IOException e)
+		{
+			// the lock file is released when the process ends
+		}
+		folder.m_channel = null;
+		folder.m_fileLock = null;
+	}
+
+	/**
+	 * Reads the stamp of the last refresh from the lock file.
+	 * 
+	 * @param folder
+	 *            the state of the lock, holding the lock file
+	 * 
+	 * @return the stamp; empty if the download location has not been refreshed
+	 * 
+	 * @throws IOException
+	 *             if the lock file cannot be read
+	 */
+	private static String readStamp(Folder folder) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(folder.m_channel.size(), MAX_STAMP_LENGTH));
+		while (buffer.hasRemaining() && folder.m_channel.read(buffer, buffer.position()) > 0)
+		{
+			// read on until the buffer is full
+		}
+
+		return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim();
+	}
+
+	/**
+	 * Writes the stamp of the last refresh to the lock file.
+	 * 
+	 * @param folder
+	 *            the state of the lock, holding the lock file
+	 * @param stamp
+	 *            the stamp; empty if the download location is being refreshed
+	 * 
+	 * @throws IOException
+	 *             if the lock file cannot be written
+	 */
+	private static void writeStamp(Folder folder, String stamp) throws IOException
+	{
+		folder.m_channel.truncate(0L);
+		ByteBuffer buffer = ByteBuffer.wrap(stamp.getBytes(StandardCharsets.UTF_8));
+		long position = 0L;
+		while (buffer.hasRemaining())
+		{
+			position += folder.m_channel.write(buffer, position);
+		}
+		folder.m_channel.force(false);
+	}
+
+	/**
+	 * The state of the lock on one download location.
+	 */
+	private static final class Folder
+	{
+		private final File m_lockFile;
+		private int m_readers;
+		private boolean m_writer;
+		private int m_waitingWriters;
+		private boolean m_busy;
+		private FileChannel m_channel;
+		private FileLock m_fileLock;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param lockFile
+		 *            the lock file of the download location
+		 */
+		private Folder(File lockFile)
+		{
+			m_lockFile = lockFile;
+		}
+	}
+
+	/**
+	 * A lock held on a download location, until it is released.
+	 */
+	public static final class Lease implements Serializable
+	{
+		private static final long serialVersionUID = -2749318265310851167L;
+
+		private final String m_id;
+		private final String m_owner;
+		private final transient Folder m_folder;
+		private boolean m_write;
+		private boolean m_fresh;
+		private String m_refreshedBy;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param id
+		 *            the identifier of the lease
+		 * @param owner
+		 *            the externalizable id of the build that owns the lease
+		 * @param folder
+		 *            the state of the lock
+		 * @param write
+		 *            <code>true</code> for the write lock
+		 */
+		private Lease(String id, String owner, Folder folder, boolean write)
+		{
+			m_id = id;
+			m_owner = owner;
+			m_folder = folder;
+			m_write = write;
+		}
+
+		/**
+		 * Gets the identifier of the lease, used to release it.
+		 * 
+		 * @return the identifier
+		 */
+		public String getId()
+		{
+			return m_id;
+		}
+
+		/**
+		 * Gets whether the lease holds the write lock.
+		 * 
+		 * @return <code>true</code> for the write lock, <code>false</code> for a read lock
+		 */
+		public boolean isWrite()
+		{
+			return m_write;
+		}
+
+		/**
+		 * Gets whether the download location was fresh when the lock was acquired.
+		 * 
+		 * @return <code>true</code> if the download location can be used without downloading
+		 */
+		public boolean isFresh()
+		{
+			return m_fresh;
+		}
+
+		/**
+		 * Gets who made the last refresh of the download location.
+		 * 
+		 * @return the build that made the last refresh; <code>null</code> if it is not known
+		 */
+		public String getRefreshedBy()
+		{
+			return m_refreshedBy;
+		}
+	}
+
+	/**
+	 * Acquires a lock on the agent.
+	 */
+	public static final class Acquire extends MasterToSlaveCallable<Lease, IOException>
+	{
+		private static final long serialVersionUID = 4125379981662048730L;
+
+		private final String m_id;
+		private final String m_owner;
+		private final String m_lockFile;
+		private final boolean m_write;
+		private final String m_fingerprint;
+		private final long m_since;
+		private final long m_timeout;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param id
+		 *            the identifier of the lease, unique to the caller
+		 * @param owner
+		 *            the externalizable id of the build that owns the lease
+		 * @param lockFile
+		 *            the lock file of the download location
+		 * @param write
+		 *            <code>true</code> for the write lock, <code>false</code> for a read lock
+		 * @param fingerprint
+		 *            the fingerprint of the download
+		 * @param since
+		 *            the time the download location must have been refreshed at or after to be fresh
+		 * @param timeout
+		 *            the number of milliseconds to wait for the lock
+		 */
+		public Acquire(String id, String owner, String lockFile, boolean write, String fingerprint, long since,
+				long timeout)
+		{
+			m_id = id;
+			m_owner = owner;
+			m_lockFile = lockFile;
+			m_write = write;
+			m_fingerprint = fingerprint;
+			m_since = since;
+			m_timeout = timeout;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public Lease call() throws IOException
+		{
+			try
+			{
+				return get().acquire(m_id, m_owner, new File(m_lockFile), m_write, m_fingerprint, m_since, m_timeout);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw (IOException) new InterruptedIOException("Interrupted while waiting for " + m_lockFile).initCause(e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Turns a write lock on the agent into a read lock.
+	 */
+	public static final class Downgrade extends MasterToSlaveCallable<Lease, IOException>
+	{
+		private static final long serialVersionUID = -6617380913561480452L;
+
+		private final String m_id;
+		private final String m_stamp;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param id
+		 *            the identifier of the lease of the write lock
+		 * @param stamp
+		 *            the stamp of the refresh; <code>null</code> to keep the stamp
+		 */
+		public Downgrade(String id, String stamp)
+		{
+			m_id = id;
+			m_stamp = stamp;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public Lease call() throws IOException
+		{
+			try
+			{
+				return get().downgrade(m_id, m_stamp);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw (IOException) new InterruptedIOException("Interrupted while downgrading " + m_id).initCause(e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Releases a lock on the agent.
+	 */
+	public static final class Release extends MasterToSlaveCallable<Void, IOException>
+	{
+		private static final long serialVersionUID = 8093715574962310447L;
+
+		private final String m_id;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param id
+		 *            the identifier of the lease of the lock
+		 */
+		public Release(String id)
+		{
+			m_id = id;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public Void call()
+		{
+			get().release(m_id);
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the owners of the locks held on a download location of the agent.
+	 */
+	public static final class Owners extends MasterToSlaveCallable<Map<String, String>, IOException>
+	{
+		private static final long serialVersionUID = -1538276408911374519L;
+
+		private final String m_lockFile;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param lockFile
+		 *            the lock file of the download location
+		 */
+		public Owners(String lockFile)
+		{
+			m_lockFile = lockFile;
+		}
+
+		/* 
+		 * (non-Javadoc)
+		 * @see hudson.remoting.Callable#call()
+		 */
+		@Override
+		public Map<String, String> call() throws IOException
+		{
+			return get().getOwners(new File(m_lockFile));
+		}
+	}
+}
+
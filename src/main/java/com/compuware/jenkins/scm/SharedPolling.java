@@ -0,0 +1,221 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.model.TaskListener;
+
+/**
+ * Lets the jobs polling the same dataset filters share one listing of each filter per polling cycle.
+ * <p>
+ * Polling lists each dataset filter of a configuration on its own, keyed like the member cache by the host connection, the
+ * login the credentials resolve to for the polling job, SCM type, file extension and filter. The first job to poll a filter
+ * lists it; jobs polling the same filter while it is being listed wait for that listing, and jobs polling it within
+ * {@link ScmConstants#POLL_CYCLE_MAX_AGE} of it reuse it. Each job then combines the listings of its filters into its own
+ * revision, so the load on the host grows with the number of distinct filters polled rather than with the number of jobs.
+ * <p>
+ * A listing is not a cheap query: the host cannot list the members of a filter with their content stamps, so each listing
+ * downloads every member matching the filter, as much as a build does. Polling is therefore only done for jobs that opt in
+ * to it, and a listing is stored in the {@link MemberCache} of the agent when that is enabled, so the build it triggers
+ * copies the members from there instead of downloading them again.
+ */
+public final class SharedPolling
+{
+	private static final Map<String, Listing> s_listings = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private SharedPolling()
+	{
+	}
+
+	/**
+	 * Lists the members of dataset filters from the host.
+	 */
+	public interface Lister
+	{
+		/**
+		 * Lists the members of the given dataset filters.
+		 * 
+		 * @param keys
+		 *            the keys of the filters to list
+		 * 
+		 * @return the manifest of the members of each filter, mapped by its key
+		 * 
+		 * @throws IOException
+		 *             if the filters cannot be listed
+		 * @throws InterruptedException
+		 *             if the listing is interrupted
+		 */
+		Map<String, DownloadManifest> list(List<String> keys) throws IOException, InterruptedException;
+	}
+
+	/**
+	 * Gets the members of the given dataset filters, listing only the filters that no other job listed in this polling cycle
+	 * or is listing now.
+	 * 
+	 * @param keys
+	 *            the keys of the filters
+	 * @param listener
+	 *            polling listener
+	 * @param lister
+	 *            lists the filters this job has to list
+	 * 
+	 * @return the members of all filters
+	 * 
+	 * @throws IOException
+	 *             if a filter cannot be listed, by this job or the job listing it
+	 * @throws InterruptedException
+	 *             if the listing, or waiting for another job's listing, is interrupted
+	 */
+	public static DownloadManifest poll(List<String> keys, TaskListener listener, Lister lister) throws IOException, InterruptedException
+	{
+		Map<String, Listing> listings = new LinkedHashMap<>();
+		List<String> leadKeys = new ArrayList<>();
+		synchronized (s_listings)
+		{
+			long now = System.currentTimeMillis();
+			s_listings.values().removeIf(listing -> listing.isExpired(now));
+			for (String key : keys)
+			{
+				Listing listing = s_listings.get(key);
+				if (listing == null)
+				{
+					listing = new Listing();
+					s_listings.put(key, listing);
+					leadKeys.add(key);
+				}
+				listings.put(key, listing);
+			}
+		}
+
+		listener.getLogger().println("Shared polling: " + (keys.size() - leadKeys.size()) + " of " + keys.size() //$NON-NLS-1$ //$NON-NLS-2$
+				+ " filters listed by other jobs"); //$NON-NLS-1$
+		if (!leadKeys.isEmpty())
+		{
+			try
+			{
+				Map<String, DownloadManifest> manifests = lister.list(leadKeys);
+				for (String key : leadKeys)
+				{
+					DownloadManifest manifest = manifests.get(key);
+					listings.get(key).complete(manifest != null ? manifest : new DownloadManifest());
+				}
+			}
+			catch (IOException | InterruptedException | RuntimeException e)
+			{
+				for (String key : leadKeys)
+				{
+					fail(key, listings.get(key), e);
+				}
+				throw e;
+			}
+		}
+
+		DownloadManifest manifest = new DownloadManifest();
+		for (Listing listing : listings.values())
+		{
+			try
+			{
+				manifest.putAll(listing.m_future.get());
+			}
+			catch (ExecutionException e)
+			{
+				throw new IOException("Polling by another job failed", e.getCause()); //$NON-NLS-1$
+			}
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * Gets the number of filters listed in the current polling cycle, or being listed.
+	 * 
+	 * @return the number of listings
+	 */
+	static int size()
+	{
+		synchronized (s_listings)
+		{
+			return s_listings.size();
+		}
+	}
+
+	/**
+	 * Fails a listing, so that the jobs waiting for it fail too and the next job polling the filter lists it again.
+	 * 
+	 * @param key
+	 *            the key of the filter
+	 * @param listing
+	 *            the listing that failed
+	 * @param cause
+	 *            why it failed
+	 */
+	private static void fail(String key, Listing listing, Throwable cause)
+	{
+		synchronized (s_listings)
+		{
+			s_listings.remove(key, listing);
+		}
+		listing.m_future.completeExceptionally(cause);
+	}
+
+	/**
+	 * The listing of a dataset filter, in progress or made in the current polling cycle.
+	 */
+	private static class Listing
+	{
+		private final CompletableFuture<DownloadManifest> m_future = new CompletableFuture<>();
+		private volatile long m_completed;
+
+		/**
+		 * Completes the listing.
+		 * 
+		 * @param manifest
+		 *            the members of the filter
+		 */
+		void complete(DownloadManifest manifest)
+		{
+			m_completed = System.currentTimeMillis();
+			m_future.complete(manifest);
+		}
+
+		/**
+		 * Determines whether the listing was made before the current polling cycle.
+		 * 
+		 * @param now
+		 *            the current time
+		 * 
+		 * @return <code>true</code> if the filter has to be listed again
+		 */
+		boolean isExpired(long now)
+		{
+			return m_future.isDone() && now - m_completed > ScmConstants.POLL_CYCLE_MAX_AGE;
+		}
+	}
+}
@@ -0,0 +1,448 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Swaps a complete download into its download location. The CLI downloads into a staging folder next to the download
+ * location, which then takes the place of the download location by renaming both folders, so the download location holds
+ * either the previous complete download or the new one, never a mix of both. A download that fails or is aborted before
+ * the swap leaves the download location untouched.
+ * <p>
+ * Files of the download location that the new download keeps, such as files that were never downloaded, are linked or
+ * copied into the staging folder before the swap. The previous download location is kept under a backup name until the swap
+ * is done; if the agent stops in between, the backup is put back before the next download into the location.
+ * <p>
+ * The swap costs disk space and I/O:
+ * <ul>
+ * <li>A seeded download, as made for Code Pipeline, whose CLI expects to find its previous download, first copies the whole
+ * download location into the staging folder. The copy cannot be linked, because the CLI may rewrite the files it finds,
+ * so every build reads and writes the whole download location once more and needs room for two copies of it. The time
+ * and size of the copy are written to the build log.</li>
+ * <li>The two renames are not one atomic step: between them, the download location does not exist. Builds that share the
+ * download location (see {@link SharedFolderLeases}) cannot see this, because no build reads a shared location while
+ * another refreshes it, but any other process reading the download location during the swap finds it missing.</li>
+ * </ul>
+ */
+public class StagedSwap extends MasterToSlaveFileCallable<DownloadChanges>
+{
+	private static final long serialVersionUID = 6718309554204611852L;
+
+	private final String m_stagingFolder;
+	private final String m_manifestFile;
+	private final long m_downloadStart;
+	private final boolean m_incremental;
+	private final boolean m_seeded;
+	private final boolean m_hashed;
+	private final boolean m_complete;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param stagingFolder
+	 *            the folder next to the download location that the download was staged in
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 * @param downloadStart
+	 *            the time, on the agent's clock, at which the download started
+	 * @param incremental
+	 *            <code>true</code> if the staging folder holds the whole download, so that members downloaded before but
+	 *            not staged are removed; <code>false</code> if they are kept
+	 * @param seeded
+	 *            <code>true</code> if the staging folder was seeded with a copy of the download location before the download,
+	 *            so that nothing is carried over from the download location
+	 * @param hashed
+	 *            <code>true</code> to hash the members of a download that is not incremental and report its changes
+	 * @param complete
+	 *            <code>true</code> if the CLI writes every member it downloads (see {@link ManifestUpdate})
+	 */
+	public StagedSwap(String stagingFolder, String manifestFile, long downloadStart, boolean incremental, boolean seeded,
+			boolean hashed, boolean complete)
+	{
+		m_stagingFolder = stagingFolder;
+		m_manifestFile = manifestFile;
+		m_downloadStart = downloadStart;
+		m_incremental = incremental;
+		m_seeded = seeded;
+		m_hashed = hashed;
+		m_complete = complete;
+	}
+
+	/**
+	 * Prepares a staged download: puts back a download location left behind by an interrupted swap and creates the staging
+	 * folder, seeded with a copy of the download location if the CLI expects to find its previous download there. Seeding
+	 * copies the whole download location, which the build log notes.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * @param stagingFolder
+	 *            the staging folder next to the download location
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 * @param seed
+	 *            <code>true</code> to seed the staging folder with a copy of the download location
+	 * @param logger
+	 *            the build log
+	 * 
+	 * @throws IOException
+	 *             if the download location cannot be swapped, or the staging folder cannot be created
+	 */
+	public static void prepare(File targetFolder, File stagingFolder, File manifestFile, boolean seed, PrintStream logger)
+			throws IOException
+	{
+		checkSwappable(targetFolder, manifestFile);
+		if (restoreBackup(targetFolder))
+		{
+			logger.println("Restored the source download location left by an interrupted swap: " + targetFolder); //$NON-NLS-1$
+		}
+
+		Files.createDirectories(stagingFolder.toPath());
+		if (seed && targetFolder.isDirectory())
+		{
+			long seedStart = System.currentTimeMillis();
+			long size = transfer(targetFolder, stagingFolder, Collections.<String> emptySet(), false);
+			logger.println("Seeded the staging folder with a copy of the source download location: " //$NON-NLS-1$
+					+ (size + 1023) / 1024 + " KB in " + Util.getTimeSpanString(System.currentTimeMillis() - seedStart)); //$NON-NLS-1$
+		}
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see hudson.FilePath.FileCallable#invoke(java.io.File, hudson.remoting.VirtualChannel)
+	 */
+	@Override
+	public DownloadChanges invoke(File targetFolder, VirtualChannel channel) throws IOException, InterruptedException
+	{
+		File staging = new File(m_stagingFolder);
+		File manifestFile = new File(m_manifestFile);
+
+		checkSwappable(targetFolder, manifestFile);
+		restoreBackup(targetFolder);
+		Files.createDirectories(staging.toPath());
+
+		DownloadManifest previous = DownloadManifest.load(manifestFile);
+		DownloadManifest current = null;
+		DownloadChanges changes = null;
+		if (m_incremental)
+		{
+			current = new DownloadManifest();
+			changes = stage(targetFolder, staging, previous, current);
+		}
+
+		if (!m_seeded && targetFolder.isDirectory())
+		{
+			// downloaded members missing from an incremental download were removed; anything else is kept
+			transfer(targetFolder, staging, m_incremental ? previous.getPaths() : Collections.<String> emptySet(), true);
+		}
+
+		// the manifest does not describe the download location between the swap and the saving of the new manifest
+		File marker = new File(m_manifestFile + ScmConstants.DOWNLOAD_INCOMPLETE_EXT);
+		Files.createDirectories(marker.getParentFile().toPath());
+		if (!marker.createNewFile() && !marker.exists())
+		{
+			throw new IOException("Unable to create " + marker); //$NON-NLS-1$
+		}
+
+		swap(targetFolder, staging, marker);
+
+		if (current != null)
+		{
+			current.save(manifestFile);
+		}
+		else
+		{
+			changes = new ManifestUpdate(m_manifestFile, m_downloadStart, m_hashed, m_complete).invoke(targetFolder, null);
+		}
+		Files.deleteIfExists(marker.toPath());
+
+		return changes;
+	}
+
+	/**
+	 * Works out the manifest of an incremental download and what it changed. A staged member whose content matches the
+	 * manifest, and whose copy in the download location has not been touched since, is given the timestamp of that copy, so
+	 * it keeps its timestamp for incremental builds downstream.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * @param staging
+	 *            the staging folder
+	 * @param previous
+	 *            the manifest of the download location
+	 * @param current
+	 *            the manifest to fill in for the staged download
+	 * 
+	 * @return the changes the download makes to the download location
+	 * 
+	 * @throws InterruptedException
+	 *             if staging is interrupted
+	 * @throws IOException
+	 *             if a staged member cannot be read
+	 */
+	private static DownloadChanges stage(File targetFolder, File staging, DownloadManifest previous,
+			DownloadManifest current) throws InterruptedException, IOException
+	{
+		DownloadChanges changes = new DownloadChanges();
+
+		List<Path> stagedFiles;
+		try (Stream<Path> paths = Files.walk(staging.toPath()))
+		{
+			stagedFiles = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+
+		for (Path stagedFile : stagedFiles)
+		{
+			if (Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+
+			File file = stagedFile.toFile();
+			String relativePath = DownloadManifest.relativePath(staging, file);
+			String hash = DownloadManifest.hash(file);
+
+			DownloadManifest.Entry entry = previous.get(relativePath);
+			if (entry != null && entry.getHash().equals(hash) && entry.matches(new File(targetFolder, relativePath)))
+			{
+				file.setLastModified(entry.getLastModified());
+				changes.unchanged();
+			}
+			else if (entry == null)
+			{
+				changes.added(relativePath);
+			}
+			else
+			{
+				changes.modified(relativePath);
+			}
+			current.put(relativePath, new DownloadManifest.Entry(file.length(), file.lastModified(), hash));
+		}
+
+		for (String relativePath : previous.getPaths())
+		{
+			if (current.get(relativePath) == null)
+			{
+				changes.removed(relativePath);
+			}
+		}
+
+		return changes;
+	}
+
+	/**
+	 * Swaps the staging folder in for the download location. If the staging folder cannot take the place of the download
+	 * location, the download location is put back.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * @param staging
+	 *            the staging folder
+	 * @param marker
+	 *            the marker noting that the manifest does not describe the download location; deleted if the download
+	 *            location is put back
+	 * 
+	 * @throws IOException
+	 *             if the folders cannot be renamed
+	 */
+	private static void swap(File targetFolder, File staging, File marker) throws IOException
+	{
+		File backup = getBackupFolder(targetFolder);
+		boolean backedUp = false;
+		if (targetFolder.exists())
+		{
+			Files.move(targetFolder.toPath(), backup.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			backedUp = true;
+		}
+
+		try
+		{
+			Files.move(staging.toPath(), targetFolder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e)
+		{
+			if (backedUp)
+			{
+				Files.move(backup.toPath(), targetFolder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			Files.deleteIfExists(marker.toPath());
+			throw e;
+		}
+
+		if (backedUp)
+		{
+			try
+			{
+				Util.deleteRecursive(backup);
+			}
+			catch (IOException e)
+			{
+				// files still open in the previous download location; the next download deletes the backup
+			}
+		}
+	}
+
+	/**
+	 * Puts back a download location that an interrupted swap left under its backup name, or deletes the backup if the swap
+	 * went through.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * 
+	 * @return <code>true</code> if the download location was put back
+	 * 
+	 * @throws IOException
+	 *             if the backup cannot be renamed or deleted
+	 */
+	private static boolean restoreBackup(File targetFolder) throws IOException
+	{
+		File backup = getBackupFolder(targetFolder);
+		if (!backup.exists())
+		{
+			return false;
+		}
+
+		if (targetFolder.exists())
+		{
+			Util.deleteRecursive(backup);
+			return false;
+		}
+
+		Files.move(backup.toPath(), targetFolder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		return true;
+	}
+
+	/**
+	 * Checks that a download location can be swapped: it must have a parent folder to stage in, and must not hold the
+	 * workspace, where the download manifests are kept.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * @param manifestFile
+	 *            the download manifest of the download location
+	 * 
+	 * @throws IOException
+	 *             if the download location cannot be swapped
+	 */
+	private static void checkSwappable(File targetFolder, File manifestFile) throws IOException
+	{
+		File target = targetFolder.getCanonicalFile();
+		if (target.getParentFile() == null || manifestFile.getCanonicalFile().toPath().startsWith(target.toPath()))
+		{
+			throw new IOException("The source download location " + targetFolder //$NON-NLS-1$
+					+ " holds the workspace and cannot be swapped; configure a source download location of its own"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Gets the name the download location is kept under while it is swapped.
+	 * 
+	 * @param targetFolder
+	 *            the download location
+	 * 
+	 * @return the backup folder, next to the download location
+	 */
+	private static File getBackupFolder(File targetFolder)
+	{
+		return new File(targetFolder.getAbsoluteFile().getParentFile(),
+				ScmConstants.TOPAZ_CLI_BACKUP + targetFolder.getName());
+	}
+
+	/**
+	 * Transfers the files of one folder into another, leaving alone the files the other folder already has.
+	 * 
+	 * @param from
+	 *            the folder to transfer from
+	 * @param to
+	 *            the folder to transfer into
+	 * @param excluded
+	 *            the relative paths of the files not to transfer
+	 * @param link
+	 *            <code>true</code> to link files rather than copy them where the file system allows, for folders that are
+	 *            about to be replaced
+	 * 
+	 * @return the number of bytes copied, not counting linked files
+	 * 
+	 * @throws IOException
+	 *             if a file cannot be transferred
+	 */
+	private static long transfer(File from, File to, Set<String> excluded, boolean link) throws IOException
+	{
+		Path source = from.toPath();
+		Path target = to.toPath();
+		long[] copied = { 0 };
+		Files.walkFileTree(source, new SimpleFileVisitor<Path>()
+		{
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+			{
+				Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+			{
+				String relativePath = DownloadManifest.relativePath(from, file.toFile());
+				Path copy = target.resolve(source.relativize(file).toString());
+				if (excluded.contains(relativePath) || Files.exists(copy, LinkOption.NOFOLLOW_LINKS))
+				{
+					return FileVisitResult.CONTINUE;
+				}
+
+				if (link && attrs.isRegularFile())
+				{
+					try
+					{
+						Files.createLink(copy, file);
+						return FileVisitResult.CONTINUE;
+					}
+					catch (IOException | UnsupportedOperationException e)
+					{
+						// the file system does not link files; copy instead
+					}
+				}
+
+				Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+				copied[0] += attrs.size();
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		return copied[0];
+	}
+}
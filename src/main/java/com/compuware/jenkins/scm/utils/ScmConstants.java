@@ -64,4 +64,46 @@ public class ScmConstants
 
 	public static final String SCM_DOWNLOADER_CLI_BAT = "SCMDownloaderCLI.bat";
 	public static final String SCM_DOWNLOADER_CLI_SH = "SCMDownloaderCLI.sh";
+
+	// longest dataset filter argument of a single CLI call: a single argument on Unix, and what is left of the Windows
+	// command line once the other arguments and the command the CLI script builds around them are taken off
+	public static final int MAX_FILTER_LENGTH_UNIX = 131071;
+	public static final int MAX_COMMAND_LINE_LENGTH_WINDOWS = 8191;
+	public static final int CLI_SCRIPT_RESERVE_WINDOWS = 2048;
+	public static final int MIN_FILTER_LENGTH = 512;
+
+	// CLI data workspaces kept for reuse in a folder, and on a machine
+	public static final int CLI_WORKSPACE_POOL_SIZE = 4;
+	public static final int CLI_WORKSPACE_POOL_MAX_IDLE = 32;
+
+	// number of milliseconds the agent waits for a shared download location lock before the controller checks in again
+	public static final long SHARED_FOLDER_LOCK_WAIT = 60000L;
+
+	// number of minutes a build waits for a shared download location lock by default before its checkout fails
+	public static final int SHARED_FOLDER_MAX_WAIT = 120;
+
+	// number of milliseconds members read through the SCM file system are reused, and the number of fetched scopes kept
+	public static final long FILE_SYSTEM_CACHE_MAX_AGE = 300000L;
+	public static final int FILE_SYSTEM_CACHE_SIZE = 32;
+
+	// number of milliseconds the revision of a Code Pipeline head is reused by indexing, and the heads indexed at once
+	public static final long SOURCE_INDEX_MAX_AGE = 600000L;
+	public static final int SOURCE_INDEX_THREADS = 8;
+
+	// number of milliseconds the listing of a dataset filter made by polling is shared with the jobs polling it after
+	public static final long POLL_CYCLE_MAX_AGE = 60000L;
+
+	// number of jobs migrated at once at startup, and the number of jobs checked between progress messages
+	public static final int MIGRATION_THREADS = 8;
+	public static final int MIGRATION_PROGRESS_INTERVAL = 500;
+
+	public static final String TOPAZ_CLI_STAGING = "TopazCliStaging";
+	public static final String TOPAZ_CLI_POLL = "TopazCliPoll";
+	public static final String TOPAZ_CLI_BACKUP = "TopazCliBackup";
+	public static final String TOPAZ_CLI_LOCK = "TopazCliLock";
+	public static final String TOPAZ_CLI_FILE_SYSTEM = "TopazCliFileSystem";
+	public static final String MEMBER_CACHE_FOLDER = "TopazCliCache";
+	public static final String DOWNLOAD_MANIFEST_FOLDER = "TopazCliManifest";
+	public static final String DOWNLOAD_MANIFEST_EXT = ".manifest";
+	public static final String DOWNLOAD_INCOMPLETE_EXT = ".incomplete";
 }
\ No newline at end of file
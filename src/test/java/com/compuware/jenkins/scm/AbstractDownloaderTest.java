@@ -21,10 +21,15 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.Run;
@@ -182,6 +187,71 @@ public class AbstractDownloaderTest
 		testFilterPattern(input, expectedResults);
 	}
 
+	@Test
+	public void splitFilterPatternTest()
+	{
+		// A single shard keeps the whole filter
+		List<String> shards = m_testDownloader.splitFilterPattern("a.b.c\nd.e.f g.h.i", 1);
+		assertEquals(Arrays.asList("a.b.c,d.e.f,g.h.i"), shards);
+
+		// Datasets are dealt out to the shards in turn
+		shards = m_testDownloader.splitFilterPattern("a.b.c\nd.e.f g.h.i", 2);
+		assertEquals(Arrays.asList("a.b.c,g.h.i", "d.e.f"), shards);
+
+		// Never more shards than datasets, and duplicates are dropped
+		shards = m_testDownloader.splitFilterPattern("a.b.c\na.b.c d.e.f", 5);
+		assertEquals(Arrays.asList("a.b.c", "d.e.f"), shards);
+
+		// An empty filter still produces a single shard
+		shards = m_testDownloader.splitFilterPattern("\n", 3);
+		assertEquals(Arrays.asList(StringUtils.EMPTY), shards);
+	}
+
+	@Test
+	public void removeDatasetsTest()
+	{
+		// Completed datasets are left out, whatever their case
+		assertEquals("d.e.f", m_testDownloader.removeDatasets("a.b.c\nd.e.f", Collections.singleton("A.B.C")));
+
+		// Wildcard filters are kept
+		assertEquals("a.b.*,d.e.f",
+				m_testDownloader.removeDatasets("a.b.* d.e.f g.h.i", new HashSet<>(Arrays.asList("A.B.C", "G.H.I"))));
+
+		// A filter with nothing left is retried whole
+		assertEquals("a.b.c", m_testDownloader.removeDatasets("a.b.c", Collections.singleton("A.B.C")));
+	}
+
+	@Test
+	public void unquoteTest()
+	{
+		// The download location is the path the CLI gets, without the quotes it is escaped with
+		assertEquals("/ws/src", AbstractDownloader.unquote("\"/ws/src\""));
+		assertEquals("C:\\ws\\my src", AbstractDownloader.unquote("'C:\\ws\\my src'"));
+		assertEquals("/ws/src", AbstractDownloader.unquote("/ws/src"));
+	}
+
+	@Test
+	public void batchFiltersTest()
+	{
+		int datasetLength = ArgumentUtils.escapeForScript("a.b.c").length() + 2;
+
+		// Filters that fit stay in a single batch
+		List<String> datasets = Arrays.asList("a.b.c", "d.e.f", "g.h.i");
+		assertEquals(Arrays.asList(datasets), AbstractDownloader.batchFilters(datasets, 3 * datasetLength));
+
+		// Batches are filled in order up to the limit
+		assertEquals(Arrays.asList(Arrays.asList("a.b.c", "d.e.f"), Arrays.asList("g.h.i")),
+				AbstractDownloader.batchFilters(datasets, 2 * datasetLength));
+
+		// A filter longer than the limit gets a batch of its own
+		assertEquals(Arrays.asList(Arrays.asList("a.b.c"), Arrays.asList("d.e.f"), Arrays.asList("g.h.i")),
+				AbstractDownloader.batchFilters(datasets, 1));
+
+		// No filters still produce a single batch
+		assertEquals(Arrays.asList(Collections.<String>emptyList()),
+				AbstractDownloader.batchFilters(Collections.<String>emptyList(), 10));
+	}
+
 	private void testFilterPattern(String input, String expectedResults)
 	{
 		String msg = String.format("Input: %s, Expected: %s", input, expectedResults);
@@ -200,5 +270,14 @@ public class AbstractDownloaderTest
 		{
 			return false;
 		}
+
+		/* (non-Javadoc)
+		 * @see com.compuware.jenkins.scm.AbstractDownloader#getDownloadTemplate()
+		 */
+		@Override
+		protected DownloadTemplate getDownloadTemplate()
+		{
+			return null;
+		}
 	};
 }
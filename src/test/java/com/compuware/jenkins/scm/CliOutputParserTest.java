@@ -0,0 +1,83 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * CliOutputParser unit tests.
+ */
+@SuppressWarnings("nls")
+public class CliOutputParserTest
+{
+	/**
+	 * Tests that errors and warnings are recognized by their log level, not by words in member names.
+	 */
+	@Test
+	public void logLevelTest()
+	{
+		assertEquals(CliEvent.Type.ERROR, CliOutputParser.parse("2024-01-01 10:00:00,123 ERROR Logon failed").getType());
+		assertEquals(CliEvent.Type.ERROR, CliOutputParser.parse("[ERROR] Connection reset").getType());
+		assertEquals(CliEvent.Type.ERROR, CliOutputParser.parse("java.net.ConnectException: Connection refused").getType());
+		assertEquals(CliEvent.Type.WARNING, CliOutputParser.parse("WARNING: Member is empty").getType());
+		assertEquals(CliEvent.Type.WARNING, CliOutputParser.parse("10:00:01 [main] WARN Partial download").getType());
+		assertEquals(CliEvent.Type.MEMBER_DOWNLOADED, CliOutputParser.parse("Downloaded member ERRORLOG").getType());
+		assertNull(CliOutputParser.parse("Call SCMDownloaderCLI.sh exited with value = 0"));
+		assertNull(CliOutputParser.parse("\tat java.net.Socket.connect(Socket.java:589)"));
+	}
+
+	/**
+	 * Tests that datasets and members are recognized with their names and sizes.
+	 */
+	@Test
+	public void downloadTest()
+	{
+		CliEvent event = CliOutputParser.parse("Downloading dataset 'ABC.DEF.COBOL'");
+		assertEquals(CliEvent.Type.DATASET_STARTED, event.getType());
+		assertEquals("ABC.DEF.COBOL", event.getName());
+
+		event = CliOutputParser.parse("Downloaded member PROG1 (1234 bytes)");
+		assertEquals(CliEvent.Type.MEMBER_DOWNLOADED, event.getType());
+		assertEquals("PROG1", event.getName());
+		assertEquals(1234, event.getBytes());
+	}
+
+	/**
+	 * Tests that the output is passed on unchanged, including a last line without a line terminator.
+	 */
+	@Test
+	public void passThroughTest() throws Exception
+	{
+		String output = "Downloaded member A\r\nWARN x\nWrote B";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		List<CliEvent> events = new ArrayList<>();
+		try (CliOutputParser parser = new CliOutputParser(out, StandardCharsets.UTF_8, events::add))
+		{
+			parser.write(output.getBytes(StandardCharsets.UTF_8));
+		}
+
+		assertEquals(output, new String(out.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(3, events.size());
+		assertEquals("B", events.get(2).getName());
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * CliWorkspacePool unit tests.
+ */
+@SuppressWarnings("nls")
+public class CliWorkspacePoolTest
+{
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * Tests that leased data workspaces are not shared, that a data workspace of a successful call is reused and that any
+	 * other is deleted.
+	 */
+	@Test
+	public void leaseTest() throws Exception
+	{
+		CliWorkspacePool pool = new CliWorkspacePool(1, 2);
+		File folder = m_folder.getRoot();
+
+		File first = pool.lease(folder);
+		File second = pool.lease(folder);
+		assertNotEquals(first, second);
+		assertEquals(folder, first.getParentFile());
+		assertTrue(first.mkdirs() && second.mkdirs());
+
+		pool.release(first, true);
+		pool.release(second, true);
+		pool.awaitDeletes(10000);
+		assertTrue(first.exists());
+		assertFalse(second.exists());
+
+		assertEquals(first, pool.lease(folder));
+		pool.release(first, false);
+		pool.awaitDeletes(10000);
+		assertFalse(first.exists());
+	}
+
+	/**
+	 * Tests that a call is given the data workspace last used with its affinity, and any other one otherwise.
+	 */
+	@Test
+	public void affinityTest() throws Exception
+	{
+		CliWorkspacePool pool = new CliWorkspacePool(2, 4);
+		File folder = m_folder.getRoot();
+
+		File first = pool.lease(folder, "agent#0");
+		File second = pool.lease(folder, "agent#1");
+		assertTrue(first.mkdirs() && second.mkdirs());
+		pool.release(first, true);
+		pool.release(second, true);
+
+		assertEquals(first, pool.lease(folder, "agent#0"));
+		assertEquals(second, pool.lease(folder, "agent#2"));
+	}
+
+	/**
+	 * Tests that the janitor deletes data workspaces no call knows of that were not kept for reuse, takes the data workspace
+	 * of earlier versions into the pool and leaves other folders alone.
+	 */
+	@Test
+	public void sweepTest() throws Exception
+	{
+		File orphan = m_folder.newFolder("TopazCliWorkspace" + UUID.randomUUID().toString());
+		File fixed = m_folder.newFolder("TopazCliWorkspace");
+		File other = m_folder.newFolder("TopazCliWorkspaceOther");
+
+		CliWorkspacePool pool = new CliWorkspacePool(1, 2);
+		File dataDir = pool.lease(m_folder.getRoot());
+		pool.awaitDeletes(10000);
+		assertFalse(orphan.exists());
+		assertFalse(fixed.exists());
+		assertTrue(dataDir.exists());
+		assertTrue(other.exists());
+	}
+
+	/**
+	 * Tests that the janitor leaves alone the data workspaces another pool holds the lock of, and deletes lock files left
+	 * behind without a data workspace.
+	 */
+	@Test
+	public void lockTest() throws Exception
+	{
+		File folder = m_folder.getRoot();
+		CliWorkspacePool first = new CliWorkspacePool(1, 2);
+		File dataDir = first.lease(folder);
+		assertTrue(dataDir.mkdirs());
+		File lockFile = new File(folder, dataDir.getName() + ".lock");
+		assertTrue(lockFile.exists());
+
+		File held = m_folder.newFolder("TopazCliWorkspace" + UUID.randomUUID().toString());
+		File stale = m_folder.newFile("TopazCliWorkspace" + UUID.randomUUID().toString() + ".lock");
+		try (FileChannel channel = FileChannel.open(new File(folder, held.getName() + ".lock").toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock lock = channel.lock())
+		{
+			CliWorkspacePool second = new CliWorkspacePool(1, 2);
+			second.release(second.lease(folder), false);
+			second.awaitDeletes(10000);
+		}
+		assertTrue(dataDir.exists());
+		assertTrue(held.exists());
+		assertFalse(stale.exists());
+
+		first.release(dataDir, false);
+		first.awaitDeletes(10000);
+		assertFalse(dataDir.exists());
+		assertFalse(lockFile.exists());
+	}
+
+	/**
+	 * Tests that the first sweep after a restart keeps the data workspaces that were kept for reuse, up to the limit of the
+	 * folder, and deletes those that were leased when the agent stopped.
+	 */
+	@Test
+	public void adoptTest() throws Exception
+	{
+		File folder = m_folder.getRoot();
+		File idle = newDataDir("");
+		File extra = newDataDir("");
+		File leased = newDataDir("L");
+		File unknown = m_folder.newFolder("TopazCliWorkspace" + UUID.randomUUID().toString());
+
+		CliWorkspacePool pool = new CliWorkspacePool(1, 2);
+		File dataDir = pool.lease(folder);
+		pool.awaitDeletes(10000);
+		assertTrue(dataDir.equals(idle) || dataDir.equals(extra));
+		assertTrue(dataDir.exists());
+		assertFalse((dataDir.equals(idle) ? extra : idle).exists());
+		assertFalse(leased.exists());
+		assertFalse(unknown.exists());
+	}
+
+	/**
+	 * Creates a data workspace left behind by an earlier pool.
+	 * 
+	 * @param lockContent
+	 *            the content of its lock file
+	 * 
+	 * @return the data workspace
+	 */
+	private File newDataDir(String lockContent) throws Exception
+	{
+		File dataDir = m_folder.newFolder("TopazCliWorkspace" + UUID.randomUUID().toString());
+		Files.write(new File(m_folder.getRoot(), dataDir.getName() + ".lock").toPath(),
+				lockContent.getBytes(StandardCharsets.UTF_8));
+		return dataDir;
+	}
+}
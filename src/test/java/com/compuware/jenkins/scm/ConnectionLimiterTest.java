@@ -0,0 +1,197 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import org.junit.Test;
+
+/**
+ * ConnectionLimiter unit tests.
+ */
+@SuppressWarnings("nls")
+public class ConnectionLimiterTest
+{
+	/**
+	 * Tests that waiting downloads are served one folder at a time in turn, and in the order they asked within a folder.
+	 */
+	@Test
+	public void fairnessTest() throws Exception
+	{
+		ConnectionLimiter.ConnectionQueue queue = new ConnectionLimiter.ConnectionQueue();
+		assertFalse(queue.acquire("X", 1, log(null), "host:1"));
+
+		List<String> served = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> threads = new ArrayList<>();
+		for (String download : Arrays.asList("A/1", "A/2", "A/3", "B/1"))
+		{
+			Semaphore waiting = new Semaphore(0);
+			Thread thread = new Thread(() -> {
+				try
+				{
+					assertTrue(queue.acquire(download.substring(0, 1), 1, log(waiting), "host:1"));
+					served.add(download);
+					queue.release();
+				}
+				catch (InterruptedException e)
+				{
+					fail();
+				}
+			});
+			thread.start();
+			threads.add(thread);
+
+			// start the next download only once this one is queued
+			waiting.acquire();
+		}
+
+		queue.release();
+		for (Thread thread : threads)
+		{
+			thread.join(10000L);
+		}
+
+		assertEquals(Arrays.asList("A/1", "B/1", "A/2", "A/3"), served);
+		assertTrue(queue.tryAcquire(1));
+	}
+
+	/**
+	 * Tests that a download interrupted while waiting leaves the queue and takes no slot.
+	 */
+	@Test
+	public void interruptedWaitTest() throws Exception
+	{
+		ConnectionLimiter.ConnectionQueue queue = new ConnectionLimiter.ConnectionQueue();
+		assertFalse(queue.acquire("A", 1, log(null), "host:1"));
+
+		Semaphore waiting = new Semaphore(0);
+		List<Throwable> errors = new ArrayList<>();
+		Thread thread = new Thread(() -> {
+			try
+			{
+				queue.acquire("B", 1, log(waiting), "host:1");
+			}
+			catch (InterruptedException e)
+			{
+				errors.add(e);
+			}
+		});
+		thread.start();
+		waiting.acquire();
+		thread.interrupt();
+		thread.join(10000L);
+
+		assertEquals(1, errors.size());
+		queue.release();
+		assertTrue(queue.tryAcquire(1));
+		assertFalse(queue.tryAcquire(1));
+	}
+
+	/**
+	 * Tests that a download interrupted just as it is granted a slot either keeps the slot or hands it back, so the slot is
+	 * never lost.
+	 */
+	@Test
+	public void interruptedGrantTest() throws Exception
+	{
+		ConnectionLimiter.ConnectionQueue queue = new ConnectionLimiter.ConnectionQueue();
+		assertFalse(queue.acquire("A", 1, log(null), "host:1"));
+
+		Semaphore waiting = new Semaphore(0);
+		Thread thread = new Thread(() -> {
+			try
+			{
+				queue.acquire("B", 1, log(waiting), "host:1");
+				queue.release();
+			}
+			catch (InterruptedException e)
+			{
+				// the slot was handed back
+			}
+		});
+		thread.start();
+		waiting.acquire();
+
+		// grant the slot and interrupt before the waiting download can wake up
+		synchronized (queue)
+		{
+			queue.release();
+			thread.interrupt();
+		}
+		thread.join(10000L);
+
+		assertTrue(queue.tryAcquire(1));
+		assertFalse(queue.tryAcquire(1));
+	}
+
+	/**
+	 * Tests that closing a slot more than once frees it only once.
+	 */
+	@Test
+	public void closeTwiceTest() throws Exception
+	{
+		ConnectionLimiter.ConnectionQueue queue = new ConnectionLimiter.ConnectionQueue();
+		assertTrue(queue.tryAcquire(1));
+
+		ConnectionLimiter.Permit permit = new ConnectionLimiter.Permit(queue);
+		permit.close();
+		permit.close();
+
+		assertTrue(queue.tryAcquire(1));
+		assertFalse(queue.tryAcquire(1));
+	}
+
+	/**
+	 * Creates a build log that signals when a download starts waiting for a slot.
+	 * 
+	 * @param waiting
+	 *            released when the download is queued; <code>null</code> if not needed
+	 * 
+	 * @return the build log
+	 */
+	private static PrintStream log(Semaphore waiting)
+	{
+		return new PrintStream(new OutputStream()
+		{
+			@Override
+			public void write(int b)
+			{
+				// discarded
+			}
+		})
+		{
+			@Override
+			public void println(String line)
+			{
+				// the download is queued by the time it can be granted a slot, as both hold the queue's lock
+				if (waiting != null)
+				{
+					waiting.release();
+				}
+			}
+		};
+	}
+}
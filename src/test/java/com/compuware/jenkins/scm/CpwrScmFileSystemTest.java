@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.slaves.DumbSlave;
+
+/**
+ * CpwrScmFileSystem unit tests.
+ */
+@SuppressWarnings("nls")
+public class CpwrScmFileSystemTest
+{
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	/**
+	 * Tests that reading a member only downloads its dataset, and only if the configuration downloads it.
+	 */
+	@Test
+	public void filtersTest()
+	{
+		PdsConfiguration config = new PdsConfiguration("cid", "ABC.JCL ABC.SRC*", "cbl", "creds", "src");
+		CpwrScmFileSystem fs = new CpwrScmFileSystem(config, null, null);
+
+		assertEquals(Arrays.asList("ABC.JCL", "ABC.SRC*"), fs.getFilters(""));
+		assertEquals(Collections.singletonList("abc.jcl"), fs.getFilters("abc.jcl"));
+		assertEquals(Collections.singletonList("ABC.SRC.COBOL"), fs.getFilters("ABC.SRC.COBOL"));
+		assertNull(fs.getFilters("ABC.JCL.OLD"));
+		assertNull(fs.getFilters("XYZ.JCL"));
+	}
+
+	/**
+	 * Tests the configurations whose members can be read without a checkout.
+	 */
+	@Test
+	public void supportsTest()
+	{
+		CpwrScmFileSystem.BuilderImpl builder = new CpwrScmFileSystem.BuilderImpl();
+		assertTrue(builder.supports(new PdsConfiguration("cid", "ABC.JCL", "cbl", "creds", "src")));
+		assertFalse(builder.supports(new IspwContainerConfiguration("cid", "creds", "", "CONT1", "0", "", "", true, "",
+				false, false, false)));
+	}
+
+	/**
+	 * Tests that members are only read without a checkout on an online agent with the lightweight checkout label, and never
+	 * on the built-in node.
+	 */
+	@Test
+	public void agentTest() throws Exception
+	{
+		FreeStyleProject project = j.createFreeStyleProject();
+		PdsConfiguration config = new PdsConfiguration("cid", "ABC.JCL", "cbl", "creds", "src");
+		CpwrScmFileSystem.BuilderImpl builder = new CpwrScmFileSystem.BuilderImpl();
+
+		j.jenkins.setNumExecutors(1);
+		assertNull(builder.build(project, config, null));
+
+		ScmDownloaderGlobalConfiguration.get().setFileSystemLabel("built-in");
+		j.jenkins.setLabelString("built-in");
+		assertNull(builder.build(project, config, null));
+
+		DumbSlave agent = j.createOnlineSlave(Label.get("cli"));
+		ScmDownloaderGlobalConfiguration.get().setFileSystemLabel("cli");
+		assertNotNull(builder.build(project, config, null));
+		assertEquals(agent, CpwrScmFileSystem.getAgent());
+
+		agent.toComputer().disconnect(null).get();
+		assertNull(builder.build(project, config, null));
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import hudson.model.FreeStyleProject;
+import hudson.triggers.SCMTrigger;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * CpwrScmTriggerIndex unit tests, replaying sample host change notifications.
+ */
+@SuppressWarnings("nls")
+public class CpwrScmTriggerIndexTest
+{
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	private CpwrScmTriggerIndex m_index;
+
+	/**
+	 * Indexes a job of each kind of configuration.
+	 */
+	@Before
+	public void setUp()
+	{
+		m_index = new CpwrScmTriggerIndex();
+		m_index.put("pds", CpwrScmTriggerIndex.getKeys(new PdsConfiguration("cid", "ABC.JCL ABC.SRC.*", "cbl", "creds", "src")));
+		m_index.put("ispw", CpwrScmTriggerIndex.getKeys(new IspwConfiguration("cid", "creds", "", "PLAY", "PLAY", "", "QA1",
+				"0", "", "", false, "", false, false, false, false)));
+		m_index.put("container", CpwrScmTriggerIndex.getKeys(new IspwContainerConfiguration("cid", "creds", "", "PLAY000001",
+				"0", "", "", true, "", false, false, false)));
+	}
+
+	/**
+	 * Tests that a promote event builds the jobs of its level.
+	 */
+	@Test
+	public void promoteTest() throws IOException
+	{
+		assertEquals(Collections.singleton("ispw"), m_index.find(CpwrScmTriggerIndex.getEventKeys(load("promote.json"))));
+	}
+
+	/**
+	 * Tests that a deploy event builds the jobs of its assignment.
+	 */
+	@Test
+	public void deployTest() throws IOException
+	{
+		assertEquals(Collections.singleton("container"), m_index.find(CpwrScmTriggerIndex.getEventKeys(load("deploy.json"))));
+	}
+
+	/**
+	 * Tests that dataset changes match wildcard filters, and only on their own host connection.
+	 */
+	@Test
+	public void datasetsTest() throws IOException
+	{
+		assertEquals(Collections.singleton("pds"), m_index.find(CpwrScmTriggerIndex.getEventKeys(load("datasets.json"))));
+	}
+
+	/**
+	 * Tests that a wildcard matches anywhere in a filter, but only within a qualifier.
+	 */
+	@Test
+	public void qualifiersTest()
+	{
+		m_index.put("middle", CpwrScmTriggerIndex.getKeys(new PdsConfiguration("cid", "ABC.*.COBOL A.B%", "cbl", "creds", "src")));
+		m_index.put("prefix", CpwrScmTriggerIndex.getKeys(new PdsConfiguration("cid", "ABC.S* *.JCL", "cbl", "creds", "src")));
+
+		assertEquals(new HashSet<>(Arrays.asList("pds", "middle")), m_index.find(JSONObject.fromObject(
+				"{ \"connectionId\": \"cid\", \"dataset\": \"ABC.SRC.COBOL\" }")));
+		assertEquals(Collections.singleton("middle"), m_index.find(JSONObject.fromObject(
+				"{ \"connectionId\": \"cid\", \"datasets\": [ \"A.BX\", \"A.B.X\", \"A.BXY\" ] }")));
+		assertEquals(Collections.singleton("prefix"), m_index.find(JSONObject.fromObject(
+				"{ \"connectionId\": \"cid\", \"dataset\": \"XYZ.JCL\" }")));
+		assertTrue(m_index.find(JSONObject.fromObject("{ \"connectionId\": \"other\", \"dataset\": \"A.BX\" }")).isEmpty());
+
+		m_index.remove("middle");
+		assertTrue(m_index.find(JSONObject.fromObject("{ \"connectionId\": \"cid\", \"dataset\": \"A.BX\" }")).isEmpty());
+	}
+
+	/**
+	 * Tests that a change that is not a JSON object is rejected.
+	 */
+	@Test(expected = JSONException.class)
+	public void malformedTest()
+	{
+		m_index.find(JSONObject.fromObject("{ \"events\": [ \"ABC.SRC.COBOL\" ] }"));
+	}
+
+	/**
+	 * Tests that a job saved with other configurations, or deleted, is no longer built.
+	 */
+	@Test
+	public void updateTest() throws IOException
+	{
+		m_index.put("pds", CpwrScmTriggerIndex.getKeys(new PdsConfiguration("cid", "XYZ.JCL", "cbl", "creds", "src")));
+		m_index.remove("ispw");
+
+		assertEquals(new HashSet<>(Arrays.asList("pds", "container")), m_index.find(CpwrScmTriggerIndex.getEventKeys(
+				JSONObject.fromObject("{ \"events\": [ " + load("datasets.json").getJSONArray("events").getJSONObject(0) + ", "
+						+ load("deploy.json") + ", " + load("promote.json") + " ] }"))));
+	}
+
+	/**
+	 * Tests that only jobs with the Poll SCM trigger are indexed.
+	 */
+	@Test
+	public void optInTest() throws Exception
+	{
+		FreeStyleProject project = j.createFreeStyleProject("pds-job");
+		project.setScm(new PdsConfiguration("cid", "ABC.SRC*", "cbl", "creds", "src"));
+		m_index.index(project);
+		assertFalse(m_index.find(CpwrScmTriggerIndex.getEventKeys(load("datasets.json"))).contains("pds-job"));
+
+		project.addTrigger(new SCMTrigger(""));
+		m_index.index(project);
+		assertTrue(m_index.find(CpwrScmTriggerIndex.getEventKeys(load("datasets.json"))).contains("pds-job"));
+	}
+
+	/**
+	 * Tests the token check of the endpoint.
+	 */
+	@Test
+	public void tokenTest()
+	{
+		assertTrue(CpwrScmWebhook.isToken("s3cret", "s3cret"));
+		assertFalse(CpwrScmWebhook.isToken("s3cret", "S3CRET"));
+		assertFalse(CpwrScmWebhook.isToken("s3cret", null));
+	}
+
+	private JSONObject load(String name) throws IOException
+	{
+		try (InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + '/' + name))
+		{
+			return JSONObject.fromObject(IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import org.junit.Test;
+import com.compuware.jenkins.common.utils.ArgumentUtils;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+/**
+ * DownloadTemplate unit tests.
+ */
+@SuppressWarnings("nls")
+public class DownloadTemplateTest
+{
+	/**
+	 * Tests that a PDS configuration splits its filters into shards and keeps its template until it changes.
+	 */
+	@Test
+	public void pdsTemplateTest()
+	{
+		PdsConfiguration config = new PdsConfiguration("cid", "A.B C.D\nE.F A.B", "cbl", "creds", "src");
+		DownloadTemplate template = config.getDownloadTemplate();
+		assertEquals(ScmConstants.PDS, template.getScmType());
+		assertEquals(Arrays.asList(ScmConstants.SCM_TYPE_PARM, ScmConstants.PDS, ScmConstants.FILE_EXT_PARM,
+				ArgumentUtils.escapeForScript("cbl")), template.getArgs());
+		assertEquals(Arrays.asList("A.B", "C.D", "E.F"), template.getFilters());
+		assertEquals(1, template.getShards().size());
+		assertEquals("src", template.getTargetFolder());
+		assertSame(template, config.getDownloadTemplate());
+
+		config.setMaxParallelDownloads(2);
+		DownloadTemplate changed = config.getDownloadTemplate();
+		assertNotSame(template, changed);
+		assertEquals(Arrays.asList(Arrays.asList("A.B", "E.F"), Arrays.asList("C.D")), changed.getShards());
+		assertEquals(2, changed.getMaxParallel());
+		assertEquals(template.getFingerprint(), changed.getFingerprint());
+
+		config.setSharedFolder(true);
+		assertTrue(config.getDownloadTemplate().isSharedFolder());
+		assertNotEquals(template.getFingerprint(),
+				new PdsConfiguration("cid", "A.B C.D", "cbl", "creds", "src").getDownloadTemplate().getFingerprint());
+	}
+
+	/**
+	 * Tests that an Endevor configuration downloads its filters as entered: a filter with an explicit stage is not covered
+	 * by the same filter with a wildcarded stage, which only downloads the most recent revision.
+	 */
+	@Test
+	public void endevorTemplateTest()
+	{
+		EndevorConfiguration config = new EndevorConfiguration("cid", "ENV.SYS.SUB.TYPE.* ENV.SYS.SUB.TYPE.1", "cbl", "creds",
+				"src");
+		DownloadTemplate template = config.getDownloadTemplate();
+		assertEquals(ScmConstants.ENDEVOR, template.getScmType());
+		assertEquals(Arrays.asList("ENV.SYS.SUB.TYPE.*", "ENV.SYS.SUB.TYPE.1"), template.getFilters());
+		assertTrue(template.getRemovedFilters().isEmpty());
+	}
+
+	/**
+	 * Tests the arguments of an ISPW container configuration, which has no dataset filter.
+	 */
+	@Test
+	public void ispwContainerTemplateTest()
+	{
+		IspwContainerConfiguration config = new IspwContainerConfiguration("cid", "creds", "", "CONT1", "0", "", "",
+				true, "", false, false, false);
+		DownloadTemplate template = config.getDownloadTemplate();
+		assertEquals(Arrays.asList(ScmConstants.SCM_TYPE_PARM, ScmConstants.ISPWC, ScmConstants.ISPW_CONTAINER_NAME_PARAM,
+				ArgumentUtils.escapeForScript("CONT1"), ScmConstants.ISPW_CONTAINER_TYPE_PARAM, ArgumentUtils.escapeForScript("0"),
+				ScmConstants.ISPW_DOWNLOAD_ALL_PARAM, ArgumentUtils.escapeForScript("true")), template.getArgs());
+		assertNull(template.getFilters());
+		assertEquals(0, template.getShards().size());
+
+		config.setDownloadTimeout(5);
+		assertEquals(5, config.getDownloadTemplate().getTimeout());
+	}
+}
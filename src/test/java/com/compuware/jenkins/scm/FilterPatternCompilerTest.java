@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * FilterPatternCompiler unit tests.
+ */
+@SuppressWarnings("nls")
+public class FilterPatternCompilerTest
+{
+	/**
+	 * Tests that duplicates are dropped, ignoring case, and that the filters left are sorted.
+	 */
+	@Test
+	public void duplicatesTest()
+	{
+		FilterPatternCompiler compiler = new FilterPatternCompiler(Arrays.asList("PROD.JCL", "prod.cobol", "PROD.COBOL",
+				"PROD.JCL"));
+		assertEquals(Arrays.asList("prod.cobol", "PROD.JCL"), compiler.getFilters());
+
+		Map<String, String> removed = new LinkedHashMap<>();
+		removed.put("PROD.COBOL", "prod.cobol");
+		removed.put("PROD.JCL", "PROD.JCL");
+		assertEquals(removed, compiler.getRemoved());
+	}
+
+	/**
+	 * Tests that filters within the last qualifier covered by a wildcard filter are dropped, and that other filters are kept.
+	 */
+	@Test
+	public void subsumedTest()
+	{
+		FilterPatternCompiler compiler = new FilterPatternCompiler(Arrays.asList("PROD.COBOL.SRC", "PROD.COBOL.S*",
+				"PROD.COBOL.*", "PROD.COBOL.SRC.OLD", "PROD.COB*", "PROD.COBX", "TEST.A**", "TEST.A*"));
+		assertEquals(Arrays.asList("PROD.COB*", "PROD.COBOL.*", "PROD.COBOL.SRC.OLD", "TEST.A*", "TEST.A**"),
+				compiler.getFilters());
+
+		Map<String, String> removed = new LinkedHashMap<>();
+		removed.put("PROD.COBOL.SRC", "PROD.COBOL.*");
+		removed.put("PROD.COBOL.S*", "PROD.COBOL.*");
+		removed.put("PROD.COBX", "PROD.COB*");
+		assertEquals(removed, compiler.getRemoved());
+	}
+
+	/**
+	 * Tests that nothing is removed from filters that do not overlap.
+	 */
+	@Test
+	public void noOverlapTest()
+	{
+		FilterPatternCompiler compiler = new FilterPatternCompiler(Arrays.asList("B.B", "A.A*", "A.B"));
+		assertEquals(Arrays.asList("A.A*", "A.B", "B.B"), compiler.getFilters());
+		assertTrue(compiler.getRemoved().isEmpty());
+
+		assertTrue(new FilterPatternCompiler(Collections.<String>emptyList()).getFilters().isEmpty());
+	}
+
+	/**
+	 * Tests that wildcards match anywhere in a filter, ignoring case, but never across qualifiers.
+	 */
+	@Test
+	public void matchesTest()
+	{
+		assertTrue(FilterPatternCompiler.matches("PROD.COBOL.*", "prod.cobol.src"));
+		assertTrue(FilterPatternCompiler.matches("PROD.*.SRC", "PROD.COBOL.SRC"));
+		assertTrue(FilterPatternCompiler.matches("PROD.C*L*.SRC", "PROD.COBOL.SRC"));
+		assertTrue(FilterPatternCompiler.matches("PROD.COB%L", "PROD.COBOL"));
+		assertTrue(FilterPatternCompiler.matches("PROD.SRC(*)", "PROD.SRC(MEMBER)"));
+		assertFalse(FilterPatternCompiler.matches("PROD.*", "PROD.COBOL.SRC"));
+		assertFalse(FilterPatternCompiler.matches("PROD.COB*", "PROD.COBOL.SRC"));
+		assertFalse(FilterPatternCompiler.matches("PROD.COB%", "PROD.COB.X"));
+		assertFalse(FilterPatternCompiler.matches("PROD.COB%", "PROD.COBOL"));
+		assertFalse(FilterPatternCompiler.matches("PROD.*.SRC", "PROD.SRC"));
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * IncrementalSync unit tests.
+ */
+@SuppressWarnings("nls")
+public class IncrementalSyncTest
+{
+	@Rule
+	public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+	private File m_targetFolder;
+	private File m_manifestFile;
+
+	@Before
+	public void setup() throws IOException
+	{
+		m_targetFolder = m_tempFolder.newFolder("target");
+		m_manifestFile = new File(m_tempFolder.getRoot(), "manifest/target.manifest");
+	}
+
+	/**
+	 * Tests that the first download adds every staged member and records it in the manifest.
+	 */
+	@Test
+	public void firstDownloadTest() throws Exception
+	{
+		File staging = stage("A.B.C/MEM1.cbl", "one", "A.B.C/MEM2.cbl", "two");
+		DownloadChanges changes = sync(staging);
+
+		assertEquals(Arrays.asList("A.B.C/MEM1.cbl", "A.B.C/MEM2.cbl"), changes.getAdded());
+		assertTrue(changes.getModified().isEmpty());
+		assertTrue(changes.getRemoved().isEmpty());
+		assertEquals("one", read("A.B.C/MEM1.cbl"));
+		assertFalse("The staging folder should be deleted", staging.exists());
+		assertEquals(2, DownloadManifest.load(m_manifestFile).size());
+	}
+
+	/**
+	 * Tests that unchanged members are not rewritten, changed members are, and members no longer downloaded are deleted.
+	 */
+	@Test
+	public void nextDownloadTest() throws Exception
+	{
+		sync(stage("A.B.C/MEM1.cbl", "one", "A.B.C/MEM2.cbl", "two", "D.E.F/MEM3.cbl", "three"));
+		File unchangedFile = new File(m_targetFolder, "A.B.C/MEM1.cbl");
+		long unchangedTime = unchangedFile.lastModified();
+
+		DownloadChanges changes = sync(stage("A.B.C/MEM1.cbl", "one", "A.B.C/MEM2.cbl", "TWO", "A.B.C/MEM4.cbl", "four"));
+
+		assertEquals(Collections.singletonList("A.B.C/MEM4.cbl"), changes.getAdded());
+		assertEquals(Collections.singletonList("A.B.C/MEM2.cbl"), changes.getModified());
+		assertEquals(Collections.singletonList("D.E.F/MEM3.cbl"), changes.getRemoved());
+		assertEquals(1, changes.getUnchanged());
+
+		assertEquals(unchangedTime, unchangedFile.lastModified());
+		assertEquals("TWO", read("A.B.C/MEM2.cbl"));
+		assertFalse("The empty dataset folder should be deleted", new File(m_targetFolder, "D.E.F").exists());
+	}
+
+	/**
+	 * Tests that files that were never downloaded are left alone.
+	 */
+	@Test
+	public void untrackedFilesTest() throws Exception
+	{
+		File untracked = new File(m_targetFolder, "build/output.txt");
+		untracked.getParentFile().mkdirs();
+		Files.write(untracked.toPath(), "keep".getBytes(StandardCharsets.UTF_8));
+
+		sync(stage("A.B.C/MEM1.cbl", "one"));
+		sync(stage("A.B.C/MEM2.cbl", "two"));
+
+		assertTrue(untracked.exists());
+		assertFalse(new File(m_targetFolder, "A.B.C/MEM1.cbl").exists());
+	}
+
+	private DownloadChanges sync(File staging) throws Exception
+	{
+		return new IncrementalSync(staging.getPath(), m_manifestFile.getPath()).invoke(m_targetFolder, null);
+	}
+
+	private File stage(String... pathsAndContents) throws IOException
+	{
+		File staging = m_tempFolder.newFolder();
+		for (int i = 0; i < pathsAndContents.length; i += 2)
+		{
+			File file = new File(staging, pathsAndContents[i]);
+			file.getParentFile().mkdirs();
+			Files.write(file.toPath(), pathsAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+		}
+		return staging;
+	}
+
+	private String read(String path) throws IOException
+	{
+		return new String(Files.readAllBytes(new File(m_targetFolder, path).toPath()), StandardCharsets.UTF_8);
+	}
+}
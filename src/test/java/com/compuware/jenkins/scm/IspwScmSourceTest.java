@@ -0,0 +1,83 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import jenkins.scm.api.SCMHead;
+
+/**
+ * IspwScmSource unit tests.
+ */
+@SuppressWarnings("nls")
+public class IspwScmSourceTest
+{
+	/**
+	 * Tests that each application gets a head for each SubAppl and level, and each assignment a head of its own.
+	 */
+	@Test
+	public void headsTest()
+	{
+		IspwScmSource source = new IspwScmSource("cid", "creds", "TPZP", "PLAY", "PLAY, RJK\nXYZ", "DEV1 QA1");
+		assertEquals(Arrays.asList("PLAY-DEV1", "PLAY-QA1", "RJK-DEV1", "RJK-QA1", "XYZ-DEV1", "XYZ-QA1"), getNames(source));
+
+		source.setSubApplications("SUB1");
+		source.setAssignments("PLAY000123");
+		assertEquals(Arrays.asList("PLAY-SUB1-DEV1", "PLAY-SUB1-QA1", "RJK-SUB1-DEV1", "RJK-SUB1-QA1", "XYZ-SUB1-DEV1",
+				"XYZ-SUB1-QA1", "PLAY000123"), getNames(source));
+	}
+
+	/**
+	 * Tests that each head checks out with a configuration of its own.
+	 */
+	@Test
+	public void buildTest()
+	{
+		IspwScmSource source = new IspwScmSource("cid", "creds", "TPZP", "PLAY", "PLAY", "DEV1");
+		source.setAssignments("PLAY000123");
+		List<IspwScmSource.IspwScmHead> heads = source.getHeads();
+
+		IspwConfiguration level = (IspwConfiguration) source.build(heads.get(0), null);
+		assertEquals("PLAY", level.getServerApplication());
+		assertEquals("DEV1", level.getServerLevel());
+
+		IspwContainerConfiguration assignment = (IspwContainerConfiguration) source.build(heads.get(1), null);
+		assertEquals("PLAY000123", assignment.getContainerName());
+		assertEquals("0", assignment.getContainerType());
+
+		assertTrue(new IspwScmSource.IspwScmRevision(heads.get(0), "abc")
+				.equals(new IspwScmSource.IspwScmRevision(heads.get(0), "abc")));
+		assertNotEquals(new IspwScmSource.IspwScmRevision(heads.get(0), "abc"),
+				new IspwScmSource.IspwScmRevision(heads.get(0), "def"));
+	}
+
+	private static List<String> getNames(IspwScmSource source)
+	{
+		List<String> names = new ArrayList<>();
+		for (SCMHead head : source.getHeads())
+		{
+			names.add(head.getName());
+		}
+
+		return names;
+	}
+}
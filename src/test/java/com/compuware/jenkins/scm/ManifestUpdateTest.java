@@ -0,0 +1,150 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ManifestUpdate unit tests.
+ */
+@SuppressWarnings("nls")
+public class ManifestUpdateTest
+{
+	@Rule
+	public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+	private File m_targetFolder;
+	private File m_manifestFile;
+
+	@Before
+	public void setup() throws IOException
+	{
+		m_targetFolder = m_tempFolder.newFolder("target");
+		m_manifestFile = new File(m_tempFolder.getRoot(), "workspace/target.manifest");
+	}
+
+	/**
+	 * Tests that a member the CLI no longer writes, because it was deleted on the host, is dropped from the manifest and
+	 * reported as removed, so the manifest matches what polling downloads.
+	 */
+	@Test
+	public void removedOnHostTest() throws Exception
+	{
+		write("A.B.C/MEM1.cbl", "one", 0L);
+		write("A.B.C/MEM2.cbl", "two", 0L);
+		new ManifestUpdate(m_manifestFile.getPath(), 0L, true, true).invoke(m_targetFolder, null);
+
+		// the next download only writes MEM1; MEM2 is left over in the download location
+		long downloadStart = System.currentTimeMillis() + 10000L;
+		write("A.B.C/MEM1.cbl", "one", downloadStart);
+		DownloadChanges changes = new ManifestUpdate(m_manifestFile.getPath(), downloadStart, true, true)
+				.invoke(m_targetFolder, null);
+
+		assertEquals(Collections.singletonList("A.B.C/MEM2.cbl"), changes.getRemoved());
+		assertTrue(changes.getModified().isEmpty());
+		assertEquals(Collections.singleton("A.B.C/MEM1.cbl"), DownloadManifest.load(m_manifestFile).getPaths());
+	}
+
+	/**
+	 * Tests that once a member is deleted on the host, the revision of the last build's download matches the revision polling
+	 * downloads, so polling does not trigger a build on every cycle.
+	 */
+	@Test
+	public void pollMatchesTest() throws Exception
+	{
+		write("A.B.C/MEM1.cbl", "one", 0L);
+		write("A.B.C/MEM2.cbl", "two", 0L);
+		new ManifestUpdate(m_manifestFile.getPath(), 0L, true, true).invoke(m_targetFolder, null);
+
+		long downloadStart = System.currentTimeMillis() + 10000L;
+		write("A.B.C/MEM1.cbl", "one", downloadStart);
+		new ManifestUpdate(m_manifestFile.getPath(), downloadStart, true, true).invoke(m_targetFolder, null);
+
+		File pollFolder = m_tempFolder.newFolder("poll");
+		File polled = new File(pollFolder, "A.B.C/MEM1.cbl");
+		polled.getParentFile().mkdirs();
+		Files.write(polled.toPath(), "one".getBytes(StandardCharsets.UTF_8));
+
+		CpwrRevisionState baseline = new CpwrRevisionState(DownloadManifest.load(m_manifestFile));
+		assertTrue(baseline.hasSameContent(new CpwrRevisionState(DownloadManifest.scan(pollFolder))));
+	}
+
+	/**
+	 * Tests that members a CLI leaves alone because they did not change are kept when the CLI does not write every member.
+	 */
+	@Test
+	public void unchangedKeptTest() throws Exception
+	{
+		write("A.B.C/MEM1.cbl", "one", 0L);
+		write("A.B.C/MEM2.cbl", "two", 0L);
+		new ManifestUpdate(m_manifestFile.getPath(), 0L, true, false).invoke(m_targetFolder, null);
+
+		long downloadStart = System.currentTimeMillis() + 10000L;
+		write("A.B.C/MEM1.cbl", "ONE", downloadStart);
+		DownloadChanges changes = new ManifestUpdate(m_manifestFile.getPath(), downloadStart, true, false)
+				.invoke(m_targetFolder, null);
+
+		assertEquals(Collections.singletonList("A.B.C/MEM1.cbl"), changes.getModified());
+		assertTrue(changes.getRemoved().isEmpty());
+		assertEquals(2, DownloadManifest.load(m_manifestFile).size());
+	}
+
+	/**
+	 * Tests that without hashing the downloaded members are only listed, and no changes are reported.
+	 */
+	@Test
+	public void unhashedTest() throws Exception
+	{
+		write("A.B.C/MEM1.cbl", "one", 0L);
+		write("build/output.txt", "out", -1L);
+
+		long downloadStart = System.currentTimeMillis() - 1000L;
+		assertNull(new ManifestUpdate(m_manifestFile.getPath(), downloadStart, false, true).invoke(m_targetFolder, null));
+
+		DownloadManifest manifest = DownloadManifest.load(m_manifestFile);
+		assertEquals(Arrays.asList("A.B.C/MEM1.cbl"), Arrays.asList(manifest.getPaths().toArray()));
+		assertEquals("", manifest.get("A.B.C/MEM1.cbl").getHash());
+	}
+
+	private void write(String path, String content, long lastModified) throws IOException
+	{
+		File file = new File(m_targetFolder, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		if (lastModified > 0L)
+		{
+			assertTrue(file.setLastModified(lastModified));
+		}
+		else if (lastModified < 0L)
+		{
+			// written long before the download
+			assertTrue(file.setLastModified(10000L));
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.compuware.jenkins.scm.utils.ScmConstants;
+
+/**
+ * MemberCache unit tests.
+ */
+@SuppressWarnings("nls")
+public class MemberCacheTest
+{
+	private static final long MAX_AGE = 60000L;
+	private static final long MAX_SIZE = 1024L * 1024L;
+
+	@Rule
+	public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+	private File m_cacheRoot;
+
+	@Before
+	public void setup() throws IOException
+	{
+		m_cacheRoot = m_tempFolder.newFolder("cache");
+	}
+
+	/**
+	 * Tests that a filter is downloaded once and then reused, and that identical members of different filters are stored
+	 * once.
+	 */
+	@Test
+	public void reuseTest() throws Exception
+	{
+		List<String> keys = Arrays.asList("k1", "k2");
+		assertEquals(keys, lookup(keys, MAX_AGE, "build1"));
+
+		File missFolder = m_tempFolder.newFolder("miss");
+		write(missFolder, "0/A.B/MEM1.cbl", "one");
+		write(missFolder, "1/C.D/MEM1.cbl", "one");
+		File assemblyFolder = fill(missFolder, keys, keys, MAX_SIZE, "build1");
+
+		assertEquals("one", read(assemblyFolder, "A.B/MEM1.cbl"));
+		assertEquals("one", read(assemblyFolder, "C.D/MEM1.cbl"));
+		assertEquals(1, blobs().size());
+		assertTrue(lookup(keys, MAX_AGE, "build2").isEmpty());
+		assertEquals(keys, lookup(keys, 0L, "build3"));
+	}
+
+	/**
+	 * Tests that when the cache grows beyond its size, the members used least recently are evicted first.
+	 */
+	@Test
+	public void lruTest() throws Exception
+	{
+		List<String> keys = Arrays.asList("old", "used", "new");
+		File missFolder = m_tempFolder.newFolder("miss");
+		write(missFolder, "0/A.B/OLD.cbl", "old member");
+		write(missFolder, "1/A.B/USED.cbl", "used member");
+		write(missFolder, "2/A.B/NEW.cbl", "new member");
+		fill(missFolder, keys, keys, MAX_SIZE, "build1");
+
+		for (File blob : blobs())
+		{
+			blob.setLastModified(System.currentTimeMillis() - 3600000L);
+		}
+
+		// using a filter marks its members as just used
+		assertTrue(lookup(Arrays.asList("used", "new"), MAX_AGE, "build2").isEmpty());
+		fill(m_tempFolder.newFolder("none"), Collections.emptyList(), Arrays.asList("used", "new"),
+				"used member".length() + "new member".length(), "build2");
+
+		assertEquals(Arrays.asList("old"), lookup(keys, MAX_AGE, "build3"));
+		assertTrue(lookup(Arrays.asList("used", "new"), MAX_AGE, "build3").isEmpty());
+	}
+
+	/**
+	 * Tests that filter downloads older than the reuse period are removed, and that nothing else is evicted while the cache
+	 * fits in its size.
+	 */
+	@Test
+	public void evictionTest() throws Exception
+	{
+		List<String> keys = Arrays.asList("k1");
+		File missFolder = m_tempFolder.newFolder("miss");
+		write(missFolder, "0/A.B/MEM1.cbl", "one");
+		fill(missFolder, keys, keys, MAX_SIZE, "build1");
+
+		File manifest = new File(m_cacheRoot, "filters/k1" + ScmConstants.DOWNLOAD_MANIFEST_EXT);
+		assertTrue(manifest.isFile());
+		manifest.setLastModified(System.currentTimeMillis() - 2 * MAX_AGE);
+		fill(m_tempFolder.newFolder("none"), Collections.emptyList(), Collections.emptyList(), MAX_SIZE, "build2");
+
+		assertFalse(manifest.isFile());
+		assertEquals(1, blobs().size());
+	}
+
+	/**
+	 * Tests that the members of a filter a build has looked up are not evicted by another build before the first build
+	 * copies them out, and that they can be evicted once released.
+	 */
+	@Test
+	public void pinTest() throws Exception
+	{
+		List<String> keys = Arrays.asList("k1");
+		File missFolder = m_tempFolder.newFolder("miss");
+		write(missFolder, "0/A.B/MEM1.cbl", "one");
+		fill(missFolder, keys, keys, MAX_SIZE, "build1");
+
+		assertTrue(lookup(keys, MAX_AGE, "build2").isEmpty());
+		fill(m_tempFolder.newFolder("none"), Collections.emptyList(), Collections.emptyList(), 0L, "build3");
+		assertEquals(1, blobs().size());
+
+		File assemblyFolder = fill(m_tempFolder.newFolder("none2"), Collections.emptyList(), keys, 0L, "build2");
+		assertEquals("one", read(assemblyFolder, "A.B/MEM1.cbl"));
+		assertTrue(blobs().isEmpty());
+
+		write(missFolder, "0/A.B/MEM1.cbl", "one");
+		fill(missFolder, keys, keys, MAX_SIZE, "build4");
+		assertTrue(lookup(keys, MAX_AGE, "build5").isEmpty());
+		new MemberCache.Release("build5").invoke(m_cacheRoot, null);
+		fill(m_tempFolder.newFolder("none3"), Collections.emptyList(), Collections.emptyList(), 0L, "build6");
+		assertTrue(blobs().isEmpty());
+	}
+
+	/**
+	 * Tests that builds filling the same filters at the same time all get every member.
+	 */
+	@Test
+	public void concurrentFillTest() throws Exception
+	{
+		List<String> keys = Arrays.asList("k1", "k2");
+		int builds = 8;
+		List<Callable<File>> fills = new ArrayList<>();
+		for (int i = 0; i < builds; i++)
+		{
+			File missFolder = m_tempFolder.newFolder("miss" + i);
+			for (int member = 0; member < 20; member++)
+			{
+				write(missFolder, "0/A.B/MEM" + member + ".cbl", "member " + member);
+				write(missFolder, "1/C.D/MEM" + member + ".cbl", "other " + member);
+			}
+			String pinId = "build" + i;
+			fills.add(() -> fill(missFolder, keys, keys, MAX_SIZE, pinId));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(builds);
+		try
+		{
+			for (Future<File> assembly : executor.invokeAll(fills))
+			{
+				for (int member = 0; member < 20; member++)
+				{
+					assertEquals("member " + member, read(assembly.get(), "A.B/MEM" + member + ".cbl"));
+					assertEquals("other " + member, read(assembly.get(), "C.D/MEM" + member + ".cbl"));
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		assertEquals(40, blobs().size());
+	}
+
+	private List<String> lookup(List<String> keys, long maxAge, String pinId) throws Exception
+	{
+		return new MemberCache.Lookup(keys, maxAge, pinId).invoke(m_cacheRoot, null);
+	}
+
+	private File fill(File missFolder, List<String> missKeys, List<String> keys, long maxSize, String pinId) throws Exception
+	{
+		File assemblyFolder = m_tempFolder.newFolder();
+		new MemberCache.Fill(missFolder.getPath(), missKeys, keys, assemblyFolder.getPath(), MAX_AGE, maxSize, pinId)
+				.invoke(m_cacheRoot, null);
+		return assemblyFolder;
+	}
+
+	private List<File> blobs() throws IOException
+	{
+		List<File> blobs = new ArrayList<>();
+		File blobsFolder = new File(m_cacheRoot, "blobs");
+		if (blobsFolder.isDirectory())
+		{
+			Files.walk(blobsFolder.toPath()).filter(Files::isRegularFile).sorted().forEach(path -> blobs.add(path.toFile()));
+		}
+		return blobs;
+	}
+
+	private void write(File folder, String path, String content) throws IOException
+	{
+		File file = new File(folder, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String read(File folder, String path) throws IOException
+	{
+		return new String(Files.readAllBytes(new File(folder, path).toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * RetryPolicy unit tests.
+ */
+@SuppressWarnings("nls")
+public class RetryPolicyTest
+{
+	/**
+	 * Tests that network and session errors are transient, unless an error shows that retrying cannot help.
+	 */
+	@Test
+	public void isTransientTest()
+	{
+		assertTrue(RetryPolicy.isTransient(1, Arrays.asList("java.net.ConnectException: Connection refused")));
+		assertTrue(RetryPolicy.isTransient(1, Arrays.asList("ERROR Host session was terminated")));
+		assertFalse(RetryPolicy.isTransient(1, Arrays.asList("ERROR Connection reset", "ERROR Logon failed: password expired")));
+		assertFalse(RetryPolicy.isTransient(1, Arrays.asList("ERROR Dataset ABC.DEF not found")));
+		assertFalse(RetryPolicy.isTransient(1, Collections.<String>emptyList()));
+		assertFalse(RetryPolicy.isTransient(143, Arrays.asList("ERROR Connection reset")));
+	}
+
+	/**
+	 * Tests that the delay grows exponentially up to a maximum and is at least half of its upper bound.
+	 */
+	@Test
+	public void delayTest()
+	{
+		RetryPolicy policy = new RetryPolicy(3);
+		for (int i = 0; i < 20; i++)
+		{
+			long delay = policy.getDelay(1);
+			assertTrue(delay >= 2500 && delay <= 5000);
+			delay = policy.getDelay(3);
+			assertTrue(delay >= 10000 && delay <= 20000);
+			delay = policy.getDelay(40);
+			assertTrue(delay >= 30000 && delay <= 60000);
+		}
+	}
+
+	/**
+	 * Tests that a dataset only counts as completed once the CLI moved on to the next dataset without an error.
+	 */
+	@Test
+	public void attemptTest()
+	{
+		RetryPolicy.Attempt attempt = new RetryPolicy.Attempt();
+		for (String line : new String[] { "Downloading dataset A.B", "Downloaded member X", "Downloading dataset C.D",
+				"ERROR Member Y is locked", "Downloading dataset E.F", "java.net.SocketException: Connection reset" })
+		{
+			CliEvent event = CliOutputParser.parse(line);
+			if (event != null)
+			{
+				attempt.onEvent(event);
+			}
+		}
+
+		assertEquals(Collections.singleton("A.B"), attempt.getCompletedDatasets());
+		assertEquals(2, attempt.getErrors().size());
+		assertTrue(new RetryPolicy(1).shouldRetry(0, 1, attempt));
+		assertFalse(new RetryPolicy(1).shouldRetry(1, 1, attempt));
+	}
+
+	/**
+	 * Tests that a dataset is not considered completed unless that is certain: the CLI reported members of it, and its name
+	 * is a valid dataset name rather than some other text the patterns happened to match.
+	 */
+	@Test
+	public void uncertainAttemptTest()
+	{
+		RetryPolicy.Attempt attempt = new RetryPolicy.Attempt();
+		for (String line : new String[] { "Downloading dataset A.EMPTY", "Downloading dataset A.B.", "Downloaded member X",
+				"Processing data set NOT.A.VALID.DATASETNAME", "Downloaded member Y", "Downloading dataset C.D",
+				"Downloaded member Z", "Downloading dataset E.F" })
+		{
+			CliEvent event = CliOutputParser.parse(line);
+			if (event != null)
+			{
+				attempt.onEvent(event);
+			}
+		}
+
+		assertEquals(Collections.singleton("C.D"), attempt.getCompletedDatasets());
+	}
+
+	/**
+	 * Tests that nothing is skipped on a retry when the CLI output does not report datasets in a recognized way.
+	 */
+	@Test
+	public void unrecognizedOutputTest()
+	{
+		RetryPolicy.Attempt attempt = new RetryPolicy.Attempt();
+		for (String line : new String[] { "Executing SCMDownloaderCLI", "A.B.COBOL(PROG1) -> PROG1.cbl",
+				"A.B.COBOL(PROG2) -> PROG2.cbl", "C.D.COBOL(PROG3) -> PROG3.cbl", "Connection reset by peer" })
+		{
+			CliEvent event = CliOutputParser.parse(line);
+			if (event != null)
+			{
+				attempt.onEvent(event);
+			}
+		}
+
+		assertTrue(attempt.getCompletedDatasets().isEmpty());
+	}
+}
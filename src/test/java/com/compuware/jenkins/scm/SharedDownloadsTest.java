@@ -0,0 +1,154 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import hudson.FilePath;
+
+/**
+ * SharedDownloads unit tests.
+ */
+@SuppressWarnings("nls")
+public class SharedDownloadsTest
+{
+	@Rule
+	public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+	/**
+	 * Tests that the leader is the checkout that started the download, even if another checkout of the same build joins it.
+	 */
+	@Test
+	public void leaderIdTest() throws Exception
+	{
+		SharedDownloads.Flight flight = SharedDownloads.join("leaderId", "checkout1", "job #1");
+		SharedDownloads.Flight second = SharedDownloads.join("leaderId", "checkout2", "job #1");
+
+		assertSame(flight, second);
+		assertTrue(flight.isLedBy("checkout1"));
+		assertFalse(second.isLedBy("checkout2"));
+
+		flight.land(snapshot(), null, null);
+		assertFalse(second.copyTo(new FilePath(m_tempFolder.newFolder("follower"))));
+	}
+
+	/**
+	 * Tests that the leader carries on without waiting for its followers, and that they copy its download as it was when it
+	 * finished, even if the leader changes its download location afterwards.
+	 */
+	@Test
+	public void snapshotTest() throws Exception
+	{
+		File targetFolder = m_tempFolder.newFolder("target");
+		write(targetFolder, "A.B/MEM1.cbl", "one");
+		write(targetFolder, "build/output.txt", "not downloaded");
+		File manifestFile = new File(m_tempFolder.getRoot(), "target.manifest");
+		DownloadManifest manifest = new DownloadManifest();
+		manifest.put("A.B/MEM1.cbl", new DownloadManifest.Entry(3L, 0L, "hash"));
+		manifest.save(manifestFile);
+
+		SharedDownloads.Flight flight = SharedDownloads.join("snapshot", "leader", "job #1");
+		SharedDownloads.join("snapshot", "follower", "job #2");
+		FilePath snapshotPath = snapshot();
+		flight.land(snapshotPath, new FilePath(targetFolder), new FilePath(manifestFile));
+		write(targetFolder, "A.B/MEM1.cbl", "changed by the leader's build");
+
+		File followerFolder = m_tempFolder.newFolder("follower");
+		assertTrue(flight.copyTo(new FilePath(followerFolder)));
+
+		assertEquals("one", read(followerFolder, "A.B/MEM1.cbl"));
+		assertFalse(new File(followerFolder, "build/output.txt").exists());
+		assertFalse(snapshotPath.exists());
+
+		// the next identical download starts a new shared download
+		SharedDownloads.Flight next = SharedDownloads.join("snapshot", "next", "job #3");
+		assertTrue(next.isLedBy("next"));
+		next.land(snapshot(), null, null);
+	}
+
+	/**
+	 * Tests that a follower stops waiting for a leader that takes too long, and that the leader then takes no snapshot.
+	 */
+	@Test
+	public void followerTimeoutTest() throws Exception
+	{
+		File targetFolder = m_tempFolder.newFolder("target");
+		write(targetFolder, "A.B/MEM1.cbl", "one");
+		File manifestFile = new File(m_tempFolder.getRoot(), "target.manifest");
+		new DownloadManifest().save(manifestFile);
+
+		SharedDownloads.Flight flight = SharedDownloads.join("timeout", "leader", "job #1");
+		SharedDownloads.join("timeout", "follower", "job #2");
+		assertFalse(flight.copyTo(new FilePath(m_tempFolder.newFolder("follower")), 100L));
+
+		FilePath snapshotPath = snapshot();
+		flight.land(snapshotPath, new FilePath(targetFolder), new FilePath(manifestFile));
+		assertFalse(snapshotPath.exists());
+	}
+
+	/**
+	 * Tests that a follower waiting for the leader downloads by itself when the leader's download fails.
+	 */
+	@Test
+	public void failedLeaderTest() throws Exception
+	{
+		SharedDownloads.Flight flight = SharedDownloads.join("failed", "leader", "job #1");
+		SharedDownloads.join("failed", "follower", "job #2");
+		FilePath followerPath = new FilePath(m_tempFolder.newFolder("follower"));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<Boolean> copied = executor.submit(() -> flight.copyTo(followerPath));
+			flight.land(snapshot(), null, null);
+			assertFalse(copied.get());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private FilePath snapshot()
+	{
+		return new FilePath(new File(m_tempFolder.getRoot(), "TopazCliStagingSnapshot"));
+	}
+
+	private void write(File folder, String path, String content) throws IOException
+	{
+		File file = new File(folder, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String read(File folder, String path) throws IOException
+	{
+		return new String(Files.readAllBytes(new File(folder, path).toPath()), StandardCharsets.UTF_8);
+	}
+}
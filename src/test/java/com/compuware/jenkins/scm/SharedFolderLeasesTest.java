@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+import hudson.model.FreeStyleBuild;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+
+/**
+ * SharedFolderLeases tests.
+ */
+@SuppressWarnings("nls")
+public class SharedFolderLeasesTest
+{
+	@Rule
+	public JenkinsRule j = new JenkinsRule();
+
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * Tests that a build checking out a download location again uses the read lock it holds, rather than queueing behind a
+	 * writer that waits for that lock, and that it gives up its lock to refresh the download location with another download.
+	 */
+	@Test
+	public void reenterTest() throws Exception
+	{
+		FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+		VirtualChannel channel = j.jenkins.getChannel();
+		String lockFile = new File(m_folder.getRoot(), "TopazCliLockSources").getPath();
+		TaskListener listener = TaskListener.NULL;
+
+		SharedFolderLocks.Lease lease = SharedFolderLeases.acquire(build, channel, lockFile, true, "fp", listener);
+		lease = SharedFolderLeases.downgrade(channel, lease, "fp\t" + System.currentTimeMillis() + "\tbuild");
+		assertFalse(lease.isWrite());
+
+		// another build waits for the write lock, which keeps out new readers
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<SharedFolderLocks.Lease> writer = executor.submit(
+					() -> SharedFolderLocks.get().acquire("writer", "job#1", new File(lockFile), true, "fp2", 0L, 10000L));
+			Thread.sleep(200);
+
+			SharedFolderLocks.Lease again = SharedFolderLeases.acquire(build, channel, lockFile, false, "fp", listener);
+			assertEquals(lease.getId(), again.getId());
+			assertTrue(again.isFresh());
+			assertFalse(writer.isDone());
+
+			SharedFolderLeases.releaseAll(build);
+			SharedFolderLocks.Lease written = writer.get(10, TimeUnit.SECONDS);
+			assertNotNull(written);
+			SharedFolderLocks.get().release(written.getId());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		lease = SharedFolderLeases.acquire(build, channel, lockFile, false, "fp", listener);
+		SharedFolderLocks.Lease other = SharedFolderLeases.acquire(build, channel, lockFile, true, "fp2", listener);
+		assertNotEquals(lease.getId(), other.getId());
+		assertTrue(other.isWrite());
+		SharedFolderLeases.releaseAll(build);
+	}
+
+	/**
+	 * Tests that a lock left behind by a build that is no longer running is released for a build that waits for it.
+	 */
+	@Test
+	public void reclaimTest() throws Exception
+	{
+		FreeStyleBuild done = j.buildAndAssertSuccess(j.createFreeStyleProject());
+		FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+		VirtualChannel channel = j.jenkins.getChannel();
+		String lockFile = new File(m_folder.getRoot(), "TopazCliLockSources").getPath();
+
+		assertNotNull(SharedFolderLocks.get().acquire("left", done.getExternalizableId(), new File(lockFile), false, "fp",
+				0L, 1000L));
+		assertNotNull(SharedFolderLocks.get().acquire("gone", "gone#1", new File(lockFile), false, "fp", 0L, 1000L));
+
+		SharedFolderLocks.Lease lease = SharedFolderLeases.acquire(build, channel, lockFile, true, "fp", TaskListener.NULL);
+		assertTrue(lease.isWrite());
+		assertEquals(Collections.singletonMap(lease.getId(), build.getExternalizableId()),
+				SharedFolderLocks.get().getOwners(new File(lockFile)));
+		SharedFolderLeases.releaseAll(build);
+	}
+}
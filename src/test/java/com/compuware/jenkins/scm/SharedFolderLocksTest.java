@@ -0,0 +1,162 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * SharedFolderLocks unit tests.
+ */
+@SuppressWarnings("nls")
+public class SharedFolderLocksTest
+{
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * Tests that readers share a download location and keep the writer out until they are all gone.
+	 */
+	@Test
+	public void readersTest() throws Exception
+	{
+		SharedFolderLocks locks = new SharedFolderLocks();
+		File lockFile = new File(m_folder.getRoot(), "TopazCliLockSources");
+
+		assertNotNull(locks.acquire("r1", "job#1", lockFile, false, "fp", 0L, 1000L));
+		assertNotNull(locks.acquire("r2", "job#1", lockFile, false, "fp", 0L, 1000L));
+		assertNull(locks.acquire("w1", "job#1", lockFile, true, "fp", 0L, 200L));
+
+		locks.release("r1");
+		assertNull(locks.acquire("w1", "job#1", lockFile, true, "fp", 0L, 200L));
+
+		locks.release("r2");
+		SharedFolderLocks.Lease writer = locks.acquire("w1", "job#1", lockFile, true, "fp", 0L, 1000L);
+		assertNotNull(writer);
+		assertTrue(writer.isWrite());
+		assertNull(locks.acquire("r3", "job#1", lockFile, false, "fp", 0L, 200L));
+
+		locks.release("w1");
+		assertNotNull(locks.acquire("r3", "job#1", lockFile, false, "fp", 0L, 1000L));
+	}
+
+	/**
+	 * Tests that a download location is fresh for the same download refreshed since the given time only, and that a
+	 * downgraded writer holds a read lock.
+	 */
+	@Test
+	public void freshnessTest() throws Exception
+	{
+		SharedFolderLocks locks = new SharedFolderLocks();
+		File lockFile = new File(m_folder.getRoot(), "TopazCliLockSources");
+
+		SharedFolderLocks.Lease writer = locks.acquire("w1", "job#1", lockFile, true, "fp", 0L, 1000L);
+		assertFalse(writer.isFresh());
+
+		SharedFolderLocks.Lease reader = locks.downgrade("w1", "fp\t1000\tjob #1");
+		assertFalse(reader.isWrite());
+		assertTrue(reader.isFresh());
+		assertEquals("job #1", reader.getRefreshedBy());
+		assertNotNull(locks.acquire("r1", "job#1", lockFile, false, "fp", 0L, 1000L));
+		locks.release("w1");
+		locks.release("r1");
+
+		SharedFolderLocks.Lease lease = locks.acquire("r2", "job#1", lockFile, false, "fp", 500L, 1000L);
+		assertTrue(lease.isFresh());
+		assertEquals("job #1", lease.getRefreshedBy());
+		locks.release("r2");
+		assertFalse(locks.acquire("r3", "job#1", lockFile, false, "fp", 2000L, 1000L).isFresh());
+		locks.release("r3");
+		assertFalse(locks.acquire("r4", "job#1", lockFile, false, "other", 500L, 1000L).isFresh());
+		locks.release("r4");
+
+		// a writer refreshing the download location clears the stamp until it is done
+		assertFalse(locks.acquire("w2", "job#1", lockFile, true, "other", 500L, 1000L).isFresh());
+		locks.release("w2");
+		assertFalse(locks.acquire("r5", "job#1", lockFile, false, "fp", 500L, 1000L).isFresh());
+	}
+
+	/**
+	 * Tests that a waiting writer goes before readers that arrive after it, and that a lock being waited for is not granted
+	 * once it is released.
+	 */
+	@Test
+	public void waitingWriterTest() throws Exception
+	{
+		SharedFolderLocks locks = new SharedFolderLocks();
+		File lockFile = new File(m_folder.getRoot(), "TopazCliLockSources");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			assertNotNull(locks.acquire("r1", "job#1", lockFile, false, "fp", 0L, 1000L));
+
+			Future<SharedFolderLocks.Lease> writer = executor
+					.submit(() -> locks.acquire("w1", "job#1", lockFile, true, "fp", 0L, 10000L));
+			Thread.sleep(200L);
+			assertNull(locks.acquire("r2", "job#1", lockFile, false, "fp", 0L, 200L));
+
+			locks.release("r1");
+			assertNotNull(writer.get(10L, TimeUnit.SECONDS));
+			locks.release("w1");
+
+			assertNotNull(locks.acquire("r3", "job#1", lockFile, false, "fp", 0L, 1000L));
+			Future<SharedFolderLocks.Lease> cancelled = executor
+					.submit(() -> locks.acquire("w2", "job#1", lockFile, true, "fp", 0L, 10000L));
+			Thread.sleep(200L);
+			locks.release("w2");
+			assertNull(cancelled.get(10L, TimeUnit.SECONDS));
+			assertNotNull(locks.acquire("r4", "job#1", lockFile, false, "fp", 0L, 1000L));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests that the owners of the locks on a download location are known until the locks are released.
+	 */
+	@Test
+	public void ownersTest() throws Exception
+	{
+		SharedFolderLocks locks = new SharedFolderLocks();
+		File lockFile = new File(m_folder.getRoot(), "TopazCliLockSources");
+		assertTrue(locks.getOwners(lockFile).isEmpty());
+
+		assertNotNull(locks.acquire("r1", "job#1", lockFile, false, "fp", 0L, 1000L));
+		assertNotNull(locks.acquire("r2", "job#2", lockFile, false, "fp", 0L, 1000L));
+		assertNotNull(locks.acquire("o1", "job#3", new File(m_folder.getRoot(), "TopazCliLockOther"), true, "fp", 0L, 1000L));
+		assertEquals("job#1", locks.getOwners(lockFile).get("r1"));
+		assertEquals("job#2", locks.getOwners(lockFile).get("r2"));
+		assertEquals(2, locks.getOwners(lockFile).size());
+
+		locks.release("r1");
+		assertEquals(Collections.singletonMap("r2", "job#2"), locks.getOwners(lockFile));
+	}
+}
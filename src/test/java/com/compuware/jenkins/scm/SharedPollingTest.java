@@ -0,0 +1,150 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import hudson.model.TaskListener;
+
+/**
+ * SharedPolling unit tests.
+ */
+@SuppressWarnings("nls")
+public class SharedPollingTest
+{
+	/**
+	 * Tests that jobs polling overlapping filters in the same cycle only list each filter once, and each get the members of
+	 * their own filters.
+	 */
+	@Test
+	public void sharedTest() throws IOException, InterruptedException
+	{
+		AtomicInteger listings = new AtomicInteger();
+		SharedPolling.Lister lister = keys -> {
+			Map<String, DownloadManifest> manifests = new HashMap<>();
+			for (String key : keys)
+			{
+				listings.incrementAndGet();
+				manifests.put(key, manifest(key + "/MEMBER"));
+			}
+			return manifests;
+		};
+
+		DownloadManifest first = SharedPolling.poll(Arrays.asList("shared.A", "shared.B"), TaskListener.NULL, lister);
+		DownloadManifest second = SharedPolling.poll(Arrays.asList("shared.B", "shared.C"), TaskListener.NULL, lister);
+
+		assertEquals(3, listings.get());
+		assertEquals(Arrays.asList("shared.A/MEMBER", "shared.B/MEMBER"), new ArrayList<>(first.getPaths()));
+		assertEquals(Arrays.asList("shared.B/MEMBER", "shared.C/MEMBER"), new ArrayList<>(second.getPaths()));
+	}
+
+	/**
+	 * Tests that a job polling a filter while another job lists it waits for that listing.
+	 */
+	@Test
+	public void inProgressTest() throws Exception
+	{
+		CountDownLatch listing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger listings = new AtomicInteger();
+		List<String> keys = Collections.singletonList("progress.A");
+
+		Thread leader = new Thread(() -> {
+			try
+			{
+				SharedPolling.poll(keys, TaskListener.NULL, leadKeys -> {
+					listings.incrementAndGet();
+					listing.countDown();
+					release.await();
+					return Collections.singletonMap("progress.A", manifest("A/MEMBER"));
+				});
+			}
+			catch (IOException | InterruptedException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		});
+		leader.start();
+		assertTrue(listing.await(10, TimeUnit.SECONDS));
+
+		DownloadManifest[] result = new DownloadManifest[1];
+		Thread follower = new Thread(() -> {
+			try
+			{
+				result[0] = SharedPolling.poll(keys, TaskListener.NULL, leadKeys -> {
+					listings.incrementAndGet();
+					return Collections.emptyMap();
+				});
+			}
+			catch (IOException | InterruptedException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		});
+		follower.start();
+		Thread.sleep(100);
+		release.countDown();
+		leader.join(10000);
+		follower.join(10000);
+
+		assertEquals(1, listings.get());
+		assertEquals(Collections.singleton("A/MEMBER"), result[0].getPaths());
+	}
+
+	/**
+	 * Tests that a failed listing is listed again by the next job.
+	 */
+	@Test
+	public void failureTest() throws InterruptedException, IOException
+	{
+		List<String> keys = Collections.singletonList("failure.A");
+		try
+		{
+			SharedPolling.poll(keys, TaskListener.NULL, leadKeys -> {
+				throw new IOException("host down");
+			});
+			fail();
+		}
+		catch (IOException e)
+		{
+			assertEquals("host down", e.getMessage());
+		}
+
+		DownloadManifest manifest = SharedPolling.poll(keys, TaskListener.NULL,
+				leadKeys -> Collections.singletonMap("failure.A", manifest("A/MEMBER")));
+		assertEquals(1, manifest.size());
+	}
+
+	private static DownloadManifest manifest(String path)
+	{
+		DownloadManifest manifest = new DownloadManifest();
+		manifest.put(path, new DownloadManifest.Entry(1, 1, path));
+		return manifest;
+	}
+}
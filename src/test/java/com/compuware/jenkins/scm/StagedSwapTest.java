@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ * 
+ * (c) Copyright 2026 BMC Software, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions: The above copyright notice and this permission notice
+ * shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.compuware.jenkins.scm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * StagedSwap unit tests.
+ */
+@SuppressWarnings("nls")
+public class StagedSwapTest
+{
+	@Rule
+	public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+	private File m_targetFolder;
+	private File m_manifestFile;
+
+	@Before
+	public void setup() throws IOException
+	{
+		m_targetFolder = m_tempFolder.newFolder("target");
+		m_manifestFile = new File(m_tempFolder.getRoot(), "workspace/target.manifest");
+	}
+
+	/**
+	 * Tests that an incremental download replaces the download location, keeps the timestamps of unchanged members and the
+	 * files that were never downloaded, and removes members that were not downloaded again.
+	 */
+	@Test
+	public void incrementalSwapTest() throws Exception
+	{
+		File untracked = write(m_targetFolder, "build/output.txt", "keep");
+
+		File staging = stage("A.B.C/MEM1.cbl", "one", "A.B.C/MEM2.cbl", "two");
+		DownloadChanges changes = swap(staging, true);
+		assertEquals(Arrays.asList("A.B.C/MEM1.cbl", "A.B.C/MEM2.cbl"), changes.getAdded());
+		assertFalse("The staging folder should be swapped in", staging.exists());
+		assertFalse("The backup should be deleted", new File(m_tempFolder.getRoot(), "TopazCliBackuptarget").exists());
+
+		File unchangedFile = new File(m_targetFolder, "A.B.C/MEM1.cbl");
+		unchangedFile.setLastModified(unchangedFile.lastModified() - 60000);
+		long unchangedTime = unchangedFile.lastModified();
+		DownloadManifest manifest = DownloadManifest.load(m_manifestFile);
+		manifest.put("A.B.C/MEM1.cbl", new DownloadManifest.Entry(unchangedFile.length(), unchangedTime,
+				manifest.get("A.B.C/MEM1.cbl").getHash()));
+		manifest.save(m_manifestFile);
+
+		changes = swap(stage("A.B.C/MEM1.cbl", "one", "A.B.C/MEM3.cbl", "three"), true);
+		assertEquals(Collections.singletonList("A.B.C/MEM3.cbl"), changes.getAdded());
+		assertEquals(Collections.singletonList("A.B.C/MEM2.cbl"), changes.getRemoved());
+		assertEquals(1, changes.getUnchanged());
+		assertEquals(unchangedTime, unchangedFile.lastModified());
+		assertFalse(new File(m_targetFolder, "A.B.C/MEM2.cbl").exists());
+		assertTrue(untracked.exists());
+		assertFalse(new File(m_manifestFile.getPath() + ".incomplete").exists());
+	}
+
+	/**
+	 * Tests that a download that is not incremental keeps the members downloaded before.
+	 */
+	@Test
+	public void keepDownloadedTest() throws Exception
+	{
+		swap(stage("A.B.C/MEM1.cbl", "one"), false);
+		DownloadChanges changes = swap(stage("A.B.C/MEM2.cbl", "two"), false);
+
+		assertEquals(Collections.singletonList("A.B.C/MEM2.cbl"), changes.getAdded());
+		assertTrue(changes.getRemoved().isEmpty());
+		assertTrue(new File(m_targetFolder, "A.B.C/MEM1.cbl").exists());
+	}
+
+	/**
+	 * Tests that a download location left under its backup name by an interrupted swap is put back, and that a seeded
+	 * staging folder holds a copy of it, whose size is logged.
+	 */
+	@Test
+	public void interruptedSwapTest() throws Exception
+	{
+		write(m_targetFolder, "A.B.C/MEM1.cbl", "one");
+		File backup = new File(m_tempFolder.getRoot(), "TopazCliBackuptarget");
+		assertTrue(m_targetFolder.renameTo(backup));
+
+		File staging = new File(m_tempFolder.getRoot(), "TopazCliStaging1");
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		StagedSwap.prepare(m_targetFolder, staging, m_manifestFile, true, new PrintStream(log, true, "UTF-8"));
+
+		assertFalse(backup.exists());
+		assertTrue(new File(m_targetFolder, "A.B.C/MEM1.cbl").exists());
+		assertTrue(new File(staging, "A.B.C/MEM1.cbl").exists());
+		assertTrue(log.toString("UTF-8").contains("Seeded the staging folder with a copy of the source download location: 1 KB"));
+	}
+
+	/**
+	 * Tests that a download location holding the workspace is not swapped.
+	 */
+	@Test(expected = IOException.class)
+	public void workspaceTargetTest() throws Exception
+	{
+		new StagedSwap(stage("A.B.C/MEM1.cbl", "one").getPath(), m_manifestFile.getPath(), 0L, true, false, true, false)
+				.invoke(m_tempFolder.getRoot(), null);
+	}
+
+	private DownloadChanges swap(File staging, boolean incremental) throws Exception
+	{
+		return new StagedSwap(staging.getPath(), m_manifestFile.getPath(), staging.lastModified() - 1000L, incremental,
+				false, true, false).invoke(m_targetFolder, null);
+	}
+
+	private File stage(String... pathsAndContents) throws IOException
+	{
+		File staging = m_tempFolder.newFolder();
+		for (int i = 0; i < pathsAndContents.length; i += 2)
+		{
+			write(staging, pathsAndContents[i], pathsAndContents[i + 1]);
+		}
+		return staging;
+	}
+
+	private static File write(File folder, String path, String content) throws IOException
+	{
+		File file = new File(folder, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}